@@ -0,0 +1,89 @@
+package com.usetech.dvente.benchmarks;
+
+import com.usetech.dvente.services.notifs.EmailTemplateRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendus par seconde de chaque template email, avec le cache de templates
+ * (cached=true, configuration de production) et sans (réanalyse à chaque rendu,
+ * comportement précédent avec spring.thymeleaf.cache=false).
+ * Lancement : mvn -Pbenchmarks test-compile exec:exec -Djmh.args="EmailTemplateBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailTemplateBenchmark {
+
+    @Param({
+            "emails/welcome",
+            "emails/verificationCode",
+            "emails/resetCode",
+            "emails/updateEmailVerificationCode",
+            "emails/infoAttemptChangeEmail",
+            "emails/shopValidated",
+            "emails/merchantAccountCreated",
+            "emails/announcement"
+    })
+    private String template;
+
+    @Param({"true", "false"})
+    private boolean cached;
+
+    private EmailTemplateRenderer renderer;
+    private Map<String, Object> variables;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        renderer = new EmailTemplateRenderer(cached);
+        renderer.warmUp();
+
+        // Sur-ensemble des variables utilisées par les templates
+        variables = new HashMap<>();
+        variables.put("appName", "Dvente");
+        variables.put("appUrl", "https://dvente.com");
+        variables.put("userName", "Awa Traoré");
+        variables.put("userEmail", "awa@example.com");
+        variables.put("name", "Awa Traoré");
+        variables.put("email", "awa@example.com");
+        variables.put("code", "482913");
+        variables.put("expirationMinutes", 15);
+        variables.put("shopName", "Boutique Awa");
+        variables.put("shopUrl", "https://dvente.com/@boutique-awa");
+        variables.put("shopLink", "https://dvente.com/@boutique-awa");
+        variables.put("dashboardUrl", "https://dvente.com/u/dashboard");
+        variables.put("merchantName", "Awa Traoré");
+        variables.put("city", "Ouagadougou");
+        variables.put("country", "Burkina Faso");
+        variables.put("domaineActivity", "Mode");
+        variables.put("supportEmail", "support@dvente.com");
+        variables.put("whatsappNumber", "+22670000000");
+        variables.put("termsUrl", "https://dvente.com/terms");
+        variables.put("privacyUrl", "https://dvente.com/privacy");
+        variables.put("title", "Nouveautés Dvente");
+        variables.put("message", "Les paiements mobiles sont désormais disponibles pour toutes les boutiques.");
+    }
+
+    @Benchmark
+    public String render() {
+        return renderer.render(template, variables);
+    }
+}
@@ -0,0 +1,114 @@
+package com.usetech.dvente.benchmarks;
+
+import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.entities.users.UserRole;
+import com.usetech.dvente.services.auth.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit de génération et de validation des tokens d'accès, pour dimensionner les nœuds d'auth.
+ * Les méthodes legacy* reproduisent l'ancien chemin (clé HMAC recréée à chaque génération,
+ * clé et parser recréés à chaque validation, token analysé trois fois par requête) pour
+ * comparer avant/après.
+ * Lancement : mvn -Pbenchmarks test-compile exec:exec -Djmh.args="JwtServiceBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtServiceBenchmark {
+
+    private JwtService jwtService;
+    private String secret;
+    private User user;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        secret = Base64.getEncoder().encodeToString(keyBytes);
+
+        jwtService = new JwtService();
+        jwtService.setSecret(secret);
+        jwtService.setExpiration(TimeUnit.HOURS.toMillis(1));
+        jwtService.setRefreshExpiration(TimeUnit.DAYS.toMillis(7));
+
+        user = User.builder()
+                .email("bench@dvente.com")
+                .name("Bench")
+                .role(UserRole.CLIENT)
+                .build();
+        user.setId(UUID.randomUUID());
+        token = jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return jwtService.generateAccessToken(user);
+    }
+
+    @Benchmark
+    public String legacyGenerateAccessToken() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(JwtService.CLAIM_USER_ID, user.getId().toString());
+        claims.put(JwtService.CLAIM_ROLE, user.getRole().name());
+        claims.put(JwtService.CLAIM_NAME, user.getName());
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setClaims(claims)
+                .setSubject(user.getEmail())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public Claims validate() {
+        return jwtService.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public Claims legacyValidate() {
+        // extractUsername puis isTokenValid (sujet + expiration) : trois analyses
+        legacyParse();
+        legacyParse();
+        return legacyParse();
+    }
+
+    private Claims legacyParse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
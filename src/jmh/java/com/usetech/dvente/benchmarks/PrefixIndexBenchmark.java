@@ -0,0 +1,76 @@
+package com.usetech.dvente.benchmarks;
+
+import com.usetech.dvente.utils.PrefixIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latence de recherche de l'index d'autocomplétion à 100k et 1M termes.
+ * Lancement : mvn -Pbenchmarks test-compile exec:exec -Djmh.args="PrefixIndexBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class PrefixIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "iphone", "samsung", "galaxy", "écouteurs", "bluetooth", "chargeur", "câble", "coque",
+            "montre", "connectée", "robe", "pagne", "wax", "chaussures", "sac", "cuir", "télévision",
+            "ordinateur", "portable", "clavier", "souris", "riz", "huile", "savon", "parfum", "crème"
+    };
+
+    @Param({"100000", "1000000"})
+    private int terms;
+
+    private PrefixIndex index;
+    private String[] prefixes;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void buildIndex() {
+        Random random = new Random(42);
+        PrefixIndex.Builder builder = PrefixIndex.builder();
+        for (int i = 0; i < terms; i++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " "
+                    + Integer.toString(i, 36);
+            builder.add(name, "product", 1 + random.nextInt(1000));
+        }
+        index = builder.build();
+        System.out.printf("%n%d termes, %d clés, ~%d Mo%n",
+                index.suggestionCount(), index.keyCount(), index.estimatedMemoryBytes() / (1024 * 1024));
+
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            prefixes[i] = word.substring(0, 1 + random.nextInt(word.length()));
+        }
+    }
+
+    @Benchmark
+    public List<PrefixIndex.Suggestion> searchTop10() {
+        return index.search(prefixes[cursor++ & (prefixes.length - 1)], 10);
+    }
+
+    @Benchmark
+    public List<PrefixIndex.Suggestion> searchSingleLetter() {
+        return index.search("s", 10);
+    }
+}
@@ -0,0 +1,140 @@
+package com.usetech.dvente.benchmarks;
+
+import com.usetech.dvente.services.files.UploadFileServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.resource.ResourceHttpRequestHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requêtes par seconde sur /uploads : UploadFileServer (uploadServer*) face au
+ * ResourceHttpRequestHandler configuré comme l'ancien StaticResourceConfig (resourceHandler*),
+ * pour un GET complet, une plage de 64 Ko et une revalidation If-None-Match.
+ * Les réponses sont des MockHttpServletResponse : le chemin sendfile du connecteur n'est pas
+ * mesuré ici (le fichier n'y transite plus par la JVM) ; le benchmark compare le coût applicatif.
+ * Lancement : mvn -Pbenchmarks test-compile exec:exec -Djmh.args="UploadServingBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class UploadServingBenchmark {
+
+    private static final String URI = "/uploads/products/image.jpg";
+
+    @Param({"32768", "1048576", "5242880"})
+    private int fileSize;
+
+    private Path directory;
+    private UploadFileServer uploadFileServer;
+    private ResourceHttpRequestHandler resourceHandler;
+    private String etag;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("uploads-bench");
+        Files.createDirectories(directory.resolve("products"));
+        byte[] content = new byte[fileSize];
+        new Random(42).nextBytes(content);
+        Files.write(directory.resolve("products/image.jpg"), content);
+
+        uploadFileServer = new UploadFileServer(directory.toString());
+
+        resourceHandler = new ResourceHttpRequestHandler();
+        resourceHandler.setLocations(List.of(new FileSystemResource(directory.toString() + "/")));
+        resourceHandler.setCacheSeconds(31536000);
+        resourceHandler.setServletContext(new MockServletContext());
+        resourceHandler.afterPropertiesSet();
+
+        etag = uploadServerGet().getHeader("ETag");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse uploadServerGet() throws Exception {
+        return serve(request());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse uploadServerRange() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", "bytes=0-65535");
+        return serve(request);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse uploadServerNotModified() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader("If-None-Match", etag);
+        return serve(request);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse resourceHandlerGet() throws Exception {
+        return handle(request());
+    }
+
+    @Benchmark
+    public MockHttpServletResponse resourceHandlerRange() throws Exception {
+        MockHttpServletRequest request = request();
+        request.addHeader("Range", "bytes=0-65535");
+        return handle(request);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse resourceHandlerNotModified() throws Exception {
+        MockHttpServletRequest request = request();
+        // Le gestionnaire générique n'émet pas d'ETag : revalidation par date uniquement
+        request.addHeader("If-Modified-Since", System.currentTimeMillis());
+        return handle(request);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", URI);
+        request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, URI.substring("/uploads/".length()));
+        return request;
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        uploadFileServer.serve(request, response);
+        return response;
+    }
+
+    private MockHttpServletResponse handle(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        resourceHandler.handleRequest(request, response);
+        return response;
+    }
+}
@@ -0,0 +1,215 @@
+package com.usetech.dvente.loadtest;
+
+import com.usetech.dvente.support.FakeSmtpServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Tir de charge en boucle fermée contre une instance démarrée avec le profil Spring loadtest,
+ * pour comparer débit et p99 avec et sans threads virtuels. Chaque exécution ajoute une ligne
+ * à target/loadtest-results.csv.
+ * <pre>
+ * SPRING_PROFILES_ACTIVE=loadtest SPRING_THREADS_VIRTUAL_ENABLED=false ./mvnw spring-boot:run
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--label platform"
+ * SPRING_PROFILES_ACTIVE=loadtest SPRING_THREADS_VIRTUAL_ENABLED=true ./mvnw spring-boot:run
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--label virtual"
+ * </pre>
+ * Options : --url, --scenario (catalog|otp|mixed), --concurrency, --warmup, --duration,
+ * --smtp-port (0 pour ne pas démarrer le SMTP factice), --smtp-latency, --label.
+ */
+public class LoadTestRunner {
+
+    private static final Path RESULTS = Paths.get("target", "loadtest-results.csv");
+
+    private static final List<String> CATALOG_PATHS = List.of(
+            "/api/categories",
+            "/api/categories/tree",
+            "/api/products/suggest?q=ch",
+            "/api/products/search?q=sac"
+    );
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        String baseUrl = options.getOrDefault("url", "http://localhost:8000");
+        String scenario = options.getOrDefault("scenario", "mixed");
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+        Duration warmup = duration(options.getOrDefault("warmup", "10s"));
+        Duration duration = duration(options.getOrDefault("duration", "30s"));
+        int smtpPort = Integer.parseInt(options.getOrDefault("smtp-port", "2525"));
+        Duration smtpLatency = duration(options.getOrDefault("smtp-latency", "200ms"));
+        String label = options.getOrDefault("label", "run");
+
+        FakeSmtpServer smtp = smtpPort > 0 ? new FakeSmtpServer(smtpPort, smtpLatency).start() : null;
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        Supplier<HttpRequest> requests = scenario(scenario, baseUrl);
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<LatencyRecorder> recorders = new ArrayList<>();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                workers.submit(() -> {
+                    while (System.nanoTime() < end) {
+                        long sent = System.nanoTime();
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(requests.get(), HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() < 400;
+                        } catch (IOException e) {
+                            ok = false;
+                        }
+                        long received = System.nanoTime();
+                        if (sent >= measureFrom) {
+                            recorder.record(received - sent);
+                            if (!ok) {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+
+        long[] latencies = LatencyRecorder.merge(recorders);
+        Arrays.sort(latencies);
+        double throughput = latencies.length / (duration.toNanos() / 1e9);
+        String line = String.join(",",
+                LocalDateTime.now().withNano(0).toString(), label, scenario, String.valueOf(concurrency),
+                String.valueOf(latencies.length), String.valueOf(errors.get()),
+                String.format("%.1f", throughput),
+                millis(percentile(latencies, 50)), millis(percentile(latencies, 90)),
+                millis(percentile(latencies, 99)), millis(latencies.length > 0 ? latencies[latencies.length - 1] : 0));
+
+        System.out.printf("[%s] %s, %d clients : %d requêtes, %d erreurs, %.1f req/s, p50 %s ms, p90 %s ms, p99 %s ms%n",
+                label, scenario, concurrency, latencies.length, errors.get(), throughput,
+                millis(percentile(latencies, 50)), millis(percentile(latencies, 90)), millis(percentile(latencies, 99)));
+        if (smtp != null) {
+            System.out.printf("SMTP factice : %d messages reçus%n", smtp.getReceived());
+            smtp.close();
+        }
+        appendResult(line);
+    }
+
+    private static Supplier<HttpRequest> scenario(String scenario, String baseUrl) {
+        Supplier<HttpRequest> catalog = () -> HttpRequest.newBuilder(
+                        URI.create(baseUrl + CATALOG_PATHS.get(ThreadLocalRandom.current().nextInt(CATALOG_PATHS.size()))))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        // Envoi de code de vérification : écritures en base et email via l'outbox
+        Supplier<HttpRequest> otp = () -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/send/otp"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"load-" + UUID.randomUUID() + "@loadtest.local\"}"))
+                .build();
+        return switch (scenario) {
+            case "catalog" -> catalog;
+            case "otp" -> otp;
+            case "mixed" -> () -> ThreadLocalRandom.current().nextInt(10) == 0 ? otp.get() : catalog.get();
+            default -> throw new IllegalArgumentException("Scénario inconnu : " + scenario);
+        };
+    }
+
+    private static void appendResult(String line) throws IOException {
+        Files.createDirectories(RESULTS.getParent());
+        if (!Files.exists(RESULTS)) {
+            Files.writeString(RESULTS, "date,label,scenario,concurrency,requests,errors,throughput,p50_ms,p90_ms,p99_ms,max_ms\n");
+        }
+        Files.writeString(RESULTS, line + "\n", StandardOpenOption.APPEND);
+        System.out.println("Résultat ajouté à " + RESULTS.toAbsolutePath());
+    }
+
+    private static long percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1f", nanos / 1e6);
+    }
+
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Option attendue : " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Latences d'un client, sans synchronisation (un seul thread écrit)
+     */
+    private static final class LatencyRecorder {
+
+        private long[] values = new long[4096];
+        private int size;
+
+        void record(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        static long[] merge(List<LatencyRecorder> recorders) {
+            int total = recorders.stream().mapToInt(recorder -> recorder.size).sum();
+            long[] merged = new long[total];
+            int offset = 0;
+            for (LatencyRecorder recorder : recorders) {
+                System.arraycopy(recorder.values, 0, merged, offset, recorder.size);
+                offset += recorder.size;
+            }
+            return merged;
+        }
+    }
+}
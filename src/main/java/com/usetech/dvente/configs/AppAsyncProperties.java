@@ -0,0 +1,61 @@
+package com.usetech.dvente.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration des exécuteurs @Async nommés (préfixe app.async), par charge de travail :
+ * app.async.executors.mail.queue-capacity=1000
+ * Les valeurs non renseignées gardent les défauts de {@link AsyncConfig}.
+ * Métriques (tag name) : executor.active, executor.queued et executor.queue.remaining pour
+ * les pools de threads ; dvente.executor.virtual.active et dvente.executor.virtual.waiting en
+ * mode threads virtuels ; dvente.executor.rejected dans les deux cas.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.async")
+public class AppAsyncProperties {
+
+    /**
+     * Paramètres par exécuteur (mail, image, analytics, bulkMail, avatar)
+     */
+    private Map<String, Pool> executors = new LinkedHashMap<>();
+
+    public enum RejectionPolicy {
+        /**
+         * Exécuté par l'appelant : ralentit le producteur au lieu de perdre la tâche
+         */
+        CALLER_RUNS,
+        /**
+         * TaskRejectedException levée à l'appelant
+         */
+        ABORT,
+        /**
+         * Tâche abandonnée (travail non critique)
+         */
+        DISCARD
+    }
+
+    @Getter
+    @Setter
+    public static class Pool {
+
+        private Integer coreSize;
+
+        private Integer maxSize;
+
+        private Integer queueCapacity;
+
+        private RejectionPolicy rejection;
+
+        /**
+         * Durée maximale d'attente des tâches en cours et en file à l'arrêt
+         */
+        private Duration awaitTermination;
+    }
+}
@@ -0,0 +1,29 @@
+package com.usetech.dvente.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuration des caches Caffeine (préfixe app.cache).
+ * Chaque cache peut avoir sa propre spécification, au format CaffeineSpec :
+ * app.cache.specs.productDetails=maximumSize=10000,expireAfterWrite=10m,recordStats
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.cache")
+public class AppCacheProperties {
+
+    /**
+     * Spécification appliquée aux caches sans configuration dédiée
+     */
+    private String defaultSpec = "maximumSize=1000,expireAfterWrite=10m,recordStats";
+
+    /**
+     * Spécification par nom de cache
+     */
+    private Map<String, String> specs = new LinkedHashMap<>();
+}
@@ -0,0 +1,64 @@
+package com.usetech.dvente.configs;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Stockage des fichiers téléversés (préfixe app.storage) :
+ * app.storage.backend=local (dossier app.upload.path, défaut) ou s3 (bucket compatible S3 : AWS, MinIO…)
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.storage")
+public class AppStorageProperties {
+
+    public enum Backend {
+        LOCAL, S3
+    }
+
+    private Backend backend = Backend.LOCAL;
+
+    /**
+     * Validité des URLs d'upload direct et des redirections de lecture signées
+     */
+    private Duration presignTtl = Duration.ofMinutes(15);
+
+    private S3 s3 = new S3();
+
+    @Getter
+    @Setter
+    public static class S3 {
+
+        /**
+         * Ex. https://s3.eu-west-3.amazonaws.com ou http://localhost:9000 (MinIO)
+         */
+        private String endpoint;
+
+        private String region = "us-east-1";
+
+        private String bucket;
+
+        private String accessKey;
+
+        private String secretKey;
+
+        /**
+         * Adressage endpoint/bucket/clé (MinIO) plutôt que bucket.endpoint/clé
+         */
+        private boolean pathStyle = true;
+
+        /**
+         * URL publique du bucket (CDN) ; vide : lectures redirigées vers des URLs signées
+         */
+        private String publicUrl;
+
+        /**
+         * Taille des parties d'un upload multipart, 5MB minimum côté S3
+         */
+        private DataSize partSize = DataSize.ofMegabytes(8);
+    }
+}
@@ -1,17 +1,155 @@
 package com.usetech.dvente.configs;
 
 import com.usetech.dvente.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Exécuteurs @Async bornés, un par charge de travail, pour qu'un pic sur l'une
+ * (relais SMTP lent, rafale d'images) ne sature pas les autres :
+ * <ul>
+ *     <li>{@link #MAIL_EXECUTOR} : envois d'emails, l'appelant exécute la tâche si la file est pleine ;</li>
+ *     <li>{@link #IMAGE_EXECUTOR} : traitements d'images, rejet (TaskRejectedException) si saturé ;</li>
+ *     <li>{@link #ANALYTICS_EXECUTOR} : statistiques, tâches abandonnées si saturé ;</li>
+ *     <li>{@link #BULK_MAIL_EXECUTOR} : lots des campagnes de notification, un thread par connexion SMTP ;</li>
+ *     <li>{@link #AVATAR_EXECUTOR} : copie des photos de profil OAuth, rejet (TaskRejectedException) si saturé.</li>
+ * </ul>
+ * Actuator publie pour chacun executor.active, executor.queued, executor.queue.remaining
+ * (tag name=mail|image|analytics|bulkMail|avatar) ; les rejets sont comptés dans dvente.executor.rejected.
+ * À l'arrêt, les tâches en cours et en file sont drainées jusqu'à await-termination.
+ * En mode threads virtuels, chaque exécuteur garde ses limites mais sur des threads virtuels
+ * ({@link VirtualThreadTaskExecutor}) ; les métriques executor.* de pool sont alors remplacées
+ * par dvente.executor.virtual.active et dvente.executor.virtual.waiting (même tag name).
+ * Le @Async sans nom reste sur l'exécuteur applicatif de Spring Boot (spring.task.execution.mode=force).
+ */
+@Slf4j
 @Configuration
 @EnableAsync
+@EnableConfigurationProperties(AppAsyncProperties.class)
 public class AsyncConfig {
+
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+    public static final String IMAGE_EXECUTOR = "imageExecutor";
+    public static final String ANALYTICS_EXECUTOR = "analyticsExecutor";
+    public static final String BULK_MAIL_EXECUTOR = "bulkMailExecutor";
+    public static final String AVATAR_EXECUTOR = "avatarExecutor";
+
+    @Bean(MAIL_EXECUTOR)
+    public TaskExecutor mailExecutor(AppAsyncProperties properties, MeterRegistry meterRegistry) {
+        return buildExecutor("mail", properties, meterRegistry,
+                2, 4, 500, AppAsyncProperties.RejectionPolicy.CALLER_RUNS, Duration.ofSeconds(30));
+    }
+
+    @Bean(IMAGE_EXECUTOR)
+    public TaskExecutor imageExecutor(AppAsyncProperties properties, MeterRegistry meterRegistry) {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return buildExecutor("image", properties, meterRegistry,
+                Math.min(2, processors), processors, 100, AppAsyncProperties.RejectionPolicy.ABORT, Duration.ofSeconds(60));
+    }
+
+    @Bean(ANALYTICS_EXECUTOR)
+    public TaskExecutor analyticsExecutor(AppAsyncProperties properties, MeterRegistry meterRegistry) {
+        return buildExecutor("analytics", properties, meterRegistry,
+                1, 2, 10_000, AppAsyncProperties.RejectionPolicy.DISCARD, Duration.ofSeconds(5));
+    }
+
+    /**
+     * Taille fixe = nombre de connexions SMTP simultanées des campagnes (app.mail.bulk.connections)
+     */
+    @Bean(BULK_MAIL_EXECUTOR)
+    public TaskExecutor bulkMailExecutor(AppAsyncProperties properties,
+                                         MeterRegistry meterRegistry,
+                                         @Value("${app.mail.bulk.connections:2}") int connections) {
+        return buildExecutor("bulkMail", properties, meterRegistry,
+                connections, connections, 100, AppAsyncProperties.RejectionPolicy.CALLER_RUNS, Duration.ofSeconds(30));
+    }
+
+    /**
+     * Téléchargements vers le CDN du fournisseur OAuth : peu de threads, l'attente est réseau
+     */
+    @Bean(AVATAR_EXECUTOR)
+    public TaskExecutor avatarExecutor(AppAsyncProperties properties, MeterRegistry meterRegistry) {
+        return buildExecutor("avatar", properties, meterRegistry,
+                1, 4, 500, AppAsyncProperties.RejectionPolicy.ABORT, Duration.ofSeconds(15));
+    }
+
+    /**
+     * spring.threads.virtual.enabled : chaque exécuteur devient un {@link VirtualThreadTaskExecutor}
+     * de même concurrence maximale, même capacité d'attente et même politique de rejet
+     */
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private TaskExecutor buildExecutor(String name,
+                                       AppAsyncProperties properties,
+                                       MeterRegistry meterRegistry,
+                                       int coreSize,
+                                       int maxSize,
+                                       int queueCapacity,
+                                       AppAsyncProperties.RejectionPolicy rejection,
+                                       Duration awaitTermination) {
+        AppAsyncProperties.Pool pool = properties.getExecutors().getOrDefault(name, new AppAsyncProperties.Pool());
+        int core = pool.getCoreSize() != null ? pool.getCoreSize() : coreSize;
+        int max = Math.max(core, pool.getMaxSize() != null ? pool.getMaxSize() : maxSize);
+        AppAsyncProperties.RejectionPolicy policy = pool.getRejection() != null ? pool.getRejection() : rejection;
+        int capacity = pool.getQueueCapacity() != null ? pool.getQueueCapacity() : queueCapacity;
+        Duration await = pool.getAwaitTermination() != null ? pool.getAwaitTermination() : awaitTermination;
+
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor(name, max, capacity, policy, await, meterRegistry);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(core);
+        executor.setMaxPoolSize(max);
+        executor.setQueueCapacity(capacity);
+        executor.setRejectedExecutionHandler(countingHandler(name, policy, meterRegistry));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationMillis(await.toMillis());
+        return executor;
+    }
+
+    private RejectedExecutionHandler countingHandler(String name,
+                                                     AppAsyncProperties.RejectionPolicy policy,
+                                                     MeterRegistry meterRegistry) {
+        RejectedExecutionHandler delegate = switch (policy) {
+            case CALLER_RUNS -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case ABORT -> new ThreadPoolExecutor.AbortPolicy();
+            case DISCARD -> new ThreadPoolExecutor.DiscardPolicy();
+        };
+        Counter rejected = Counter.builder("dvente.executor.rejected")
+                .description("Tâches refusées faute de place dans la file")
+                .tag("name", name)
+                .tag("policy", policy.name())
+                .register(meterRegistry);
+        return (task, executor) -> {
+            rejected.increment();
+            if (policy != AppAsyncProperties.RejectionPolicy.DISCARD) {
+                log.warn("Exécuteur {} saturé ({} actifs, {} en file) : politique {}",
+                        name, executor.getActiveCount(), executor.getQueue().size(), policy);
+            }
+            delegate.rejectedExecution(task, executor);
+        };
+    }
+
     @Service
     @RequiredArgsConstructor
     public static class CustomUserDetailsService implements UserDetailsService {
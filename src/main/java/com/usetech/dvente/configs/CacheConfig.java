@@ -1,20 +1,39 @@
 package com.usetech.dvente.configs;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
+/**
+ * Caches applicatifs. La liste est fixe (pas de création à la volée) pour que
+ * Actuator enregistre au démarrage les métriques cache.gets / cache.evictions
+ * de chacun ; les statistiques sont activées par "recordStats" dans la spécification.
+ */
 @Configuration
+@EnableConfigurationProperties(AppCacheProperties.class)
 public class CacheConfig {
 
+    public static final String VERIFICATION_CODES = "verificationCodes";
+    public static final String PRODUCT_DETAILS = "productDetails";
+    public static final String SHOP_DIRECTORY = "shopDirectory";
+    public static final String VIEW_RANKINGS = "viewRankings";
+
+    private static final List<String> CACHE_NAMES = List.of(VERIFICATION_CODES, PRODUCT_DETAILS, SHOP_DIRECTORY, VIEW_RANKINGS);
+
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("verificationCodes");
-        cacheManager.setCaffeine(com.github.benmanes.caffeine.cache.Caffeine.newBuilder()
-                .maximumSize(1000)
-                .expireAfterWrite(10, java.util.concurrent.TimeUnit.MINUTES));
+    public CacheManager cacheManager(AppCacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.from(properties.getDefaultSpec()));
+        cacheManager.setCacheNames(CACHE_NAMES.stream()
+                .filter(name -> !properties.getSpecs().containsKey(name))
+                .toList());
+        properties.getSpecs().forEach((name, spec) ->
+                cacheManager.registerCustomCache(name, Caffeine.from(spec).build()));
         return cacheManager;
     }
 }
-
@@ -1,10 +1,9 @@
 package com.usetech.dvente.configs;
 
-import com.usetech.dvente.services.auth.JwtService;
+import com.usetech.dvente.services.auth.JwtPrincipalService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -23,8 +22,7 @@ import java.util.Arrays;
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final JwtPrincipalService jwtPrincipalService;
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
@@ -56,21 +54,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         try {
-            final String userEmail = jwtService.extractUsername(jwt);
-
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-
-                if (jwtService.isTokenValid(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken =
-                            new UsernamePasswordAuthenticationToken(
-                                    userDetails,
-                                    null,
-                                    userDetails.getAuthorities()
-                            );
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                }
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Signature et expiration vérifiées une fois, puis principal servi depuis le cache
+                UserDetails userDetails = jwtPrincipalService.resolve(jwt);
+
+                UsernamePasswordAuthenticationToken authToken =
+                        new UsernamePasswordAuthenticationToken(
+                                userDetails,
+                                null,
+                                userDetails.getAuthorities()
+                        );
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
             }
         } catch (io.jsonwebtoken.ExpiredJwtException e) {
             logger.warn("Token expiré");
@@ -96,6 +91,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             sendErrorResponse(response, 400, "token_invalid_signature", "La signature du token JWT est invalide", null);
             return;
 
+        } catch (org.springframework.security.core.AuthenticationException e) {
+            logger.warn("Compte refusé : " + e.getMessage());
+            clearAuthCookies(response);
+            sendErrorResponse(response, 401, "account_disabled", "Le compte est désactivé ou n'existe plus", null);
+            return;
+
         } catch (Exception e) {
             logger.error("Erreur authentification JWT : " + e.getMessage());
             clearAuthCookies(response);
@@ -0,0 +1,29 @@
+package com.usetech.dvente.configs;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.multipart.MultipartResolver;
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+
+/**
+ * Les routes d'upload en flux (…/stream) lisent le corps elles-mêmes avec MultipartStreamReader :
+ * elles ne sont pas traitées comme multipart par le DispatcherServlet, pour que les parties ne
+ * soient ni analysées ni mises en tampon par le conteneur. Les autres routes (MultipartFile)
+ * gardent l'analyse habituelle, avant l'appel du contrôleur.
+ */
+@Configuration
+public class MultipartConfig {
+
+    public static final String STREAMING_SUFFIX = "/stream";
+
+    @Bean
+    public MultipartResolver multipartResolver() {
+        return new StandardServletMultipartResolver() {
+            @Override
+            public boolean isMultipart(HttpServletRequest request) {
+                return super.isMultipart(request) && !request.getRequestURI().endsWith(STREAMING_SUFFIX);
+            }
+        };
+    }
+}
@@ -0,0 +1,113 @@
+package com.usetech.dvente.configs;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prépare la recherche plein texte des produits sur PostgreSQL.
+ * Hibernate (ddl-auto=update) ne gère ni tsvector ni triggers : on crée ici, de manière
+ * idempotente, la configuration française sans accents, la colonne search_vector,
+ * son index GIN et les triggers qui la maintiennent (nom, description, mots-clés).
+ * Les requêtes de recherche utilisent la configuration dvente_fr.
+ */
+@Slf4j
+@Component
+@Order(0)
+@RequiredArgsConstructor
+public class ProductSearchSchemaInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        createUnaccentExtension();
+
+        jdbcTemplate.execute("""
+            DO $$
+            BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_ts_config WHERE cfgname = 'dvente_fr') THEN
+                    CREATE TEXT SEARCH CONFIGURATION dvente_fr (COPY = french);
+                    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'unaccent') THEN
+                        ALTER TEXT SEARCH CONFIGURATION dvente_fr
+                            ALTER MAPPING FOR hword, hword_part, word WITH unaccent, french_stem;
+                    END IF;
+                END IF;
+            END
+            $$
+            """);
+
+        jdbcTemplate.execute("ALTER TABLE product ADD COLUMN IF NOT EXISTS search_vector tsvector");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_product_search_vector ON product USING GIN (search_vector)");
+
+        // Nom (A) > mots-clés (B) > description (C) pour le classement
+        jdbcTemplate.execute("""
+            CREATE OR REPLACE FUNCTION product_search_vector_refresh() RETURNS trigger AS $$
+            BEGIN
+                NEW.search_vector :=
+                    setweight(to_tsvector('dvente_fr', coalesce(NEW.name, '')), 'A') ||
+                    setweight(to_tsvector('dvente_fr', coalesce((
+                        SELECT string_agg(k.name, ' ')
+                        FROM product_keywords pk
+                        JOIN keyword k ON k.id = pk.keyword_id
+                        WHERE pk.product_id = NEW.id
+                    ), '')), 'B') ||
+                    setweight(to_tsvector('dvente_fr', coalesce(NEW.description, '')), 'C');
+                RETURN NEW;
+            END
+            $$ LANGUAGE plpgsql
+            """);
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS trg_product_search_vector ON product");
+        jdbcTemplate.execute("""
+            CREATE TRIGGER trg_product_search_vector
+            BEFORE INSERT OR UPDATE OF name, description ON product
+            FOR EACH ROW EXECUTE FUNCTION product_search_vector_refresh()
+            """);
+
+        // Ajout / retrait / renommage d'un mot-clé : on relance le trigger produit
+        jdbcTemplate.execute("""
+            CREATE OR REPLACE FUNCTION product_keywords_search_refresh() RETURNS trigger AS $$
+            BEGIN
+                IF TG_TABLE_NAME = 'keyword' THEN
+                    UPDATE product SET name = name
+                    WHERE id IN (SELECT product_id FROM product_keywords WHERE keyword_id = NEW.id);
+                ELSIF TG_OP = 'DELETE' THEN
+                    UPDATE product SET name = name WHERE id = OLD.product_id;
+                ELSE
+                    UPDATE product SET name = name WHERE id = NEW.product_id;
+                END IF;
+                RETURN NULL;
+            END
+            $$ LANGUAGE plpgsql
+            """);
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS trg_product_keywords_search ON product_keywords");
+        jdbcTemplate.execute("""
+            CREATE TRIGGER trg_product_keywords_search
+            AFTER INSERT OR DELETE ON product_keywords
+            FOR EACH ROW EXECUTE FUNCTION product_keywords_search_refresh()
+            """);
+        jdbcTemplate.execute("DROP TRIGGER IF EXISTS trg_keyword_search ON keyword");
+        jdbcTemplate.execute("""
+            CREATE TRIGGER trg_keyword_search
+            AFTER UPDATE OF name ON keyword
+            FOR EACH ROW EXECUTE FUNCTION product_keywords_search_refresh()
+            """);
+
+        int backfilled = jdbcTemplate.update("UPDATE product SET name = name WHERE search_vector IS NULL");
+        if (backfilled > 0) {
+            log.info("Index de recherche initialisé pour {} produits", backfilled);
+        }
+    }
+
+    private void createUnaccentExtension() {
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS unaccent");
+        } catch (Exception e) {
+            log.warn("Extension unaccent indisponible, recherche sans suppression des accents : {}", e.getMessage());
+        }
+    }
+}
@@ -7,15 +7,11 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @Configuration
 public class StaticResourceConfig implements WebMvcConfigurer {
 
+    /**
+     * /uploads/** est servi par UploadFileController (Range, ETag, sendfile) depuis app.upload.path
+     */
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        String uploadPath = System.getProperty("user.dir") + "/uploads/";
-
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadPath)
-                .setCachePeriod(31536000)
-                .resourceChain(true);
-
         registry.addResourceHandler("/static/**")
                 .addResourceLocations("classpath:/static/")
                 .setCachePeriod(86400);
@@ -0,0 +1,36 @@
+package com.usetech.dvente.configs;
+
+import com.usetech.dvente.services.files.LocalStorageBackend;
+import com.usetech.dvente.services.files.S3StorageBackend;
+import com.usetech.dvente.services.files.StorageBackend;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Choix du stockage des fichiers téléversés (app.storage.backend).
+ * Avec s3, les fichiers sont partagés par tous les nœuds de l'API ; le stockage adressé par
+ * contenu et les déclinaisons d'images, qui travaillent sur le disque, restent réservés au local.
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(AppStorageProperties.class)
+public class StorageConfig {
+
+    @Bean
+    public StorageBackend storageBackend(AppStorageProperties properties,
+                                         @Value("${app.upload.path:uploads}") String uploadBasePath,
+                                         @Value("${app.upload.content-addressed:false}") boolean contentAddressed) {
+        if (properties.getBackend() == AppStorageProperties.Backend.LOCAL) {
+            return new LocalStorageBackend(uploadBasePath);
+        }
+        if (contentAddressed) {
+            throw new IllegalStateException("app.upload.content-addressed nécessite app.storage.backend=local");
+        }
+        AppStorageProperties.S3 s3 = properties.getS3();
+        log.info("Fichiers téléversés stockés dans le bucket {} ({})", s3.getBucket(), s3.getEndpoint());
+        return new S3StorageBackend(s3);
+    }
+}
@@ -0,0 +1,94 @@
+package com.usetech.dvente.configs;
+
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.mail.MailProperties;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mode threads virtuels (spring.threads.virtual.enabled=true) : Tomcat, @Async et @Scheduled
+ * s'exécutent alors sur des threads virtuels (auto-configuration Spring Boot).
+ * <p>
+ * Audit d'épinglage des appels bloquants :
+ * <ul>
+ *     <li>HikariCP 6 : attente de connexion sur verrous java.util.concurrent, pas d'épinglage ;</li>
+ *     <li>Twilio (Apache HttpClient 4.5 / httpcore 4.4) : pool protégé par un Lock, pas d'épinglage ;</li>
+ *     <li>Jakarta Mail (Angus) : SMTPTransport.connect et sendMessage sont synchronized, l'échange
+ *     SMTP complet épingle le thread porteur. Le nombre d'envois simultanés est donc borné par un
+ *     sémaphore pris avant d'entrer dans le moniteur, sinon quelques envois lents suffisent à
+ *     bloquer tous les porteurs.</li>
+ * </ul>
+ * {@link VirtualThreadPinningMonitor} mesure en continu les épinglages restants.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@EnableConfigurationProperties(MailProperties.class)
+public class VirtualThreadConfig {
+
+    @Bean
+    public JavaMailSenderImpl mailSender(MailProperties properties,
+                                         @Value("${app.virtual-threads.mail-permits:4}") int permits,
+                                         @Value("${app.virtual-threads.mail-permit-timeout:30s}") Duration timeout) {
+        BoundedJavaMailSender sender = new BoundedJavaMailSender(permits, timeout);
+        sender.setHost(properties.getHost());
+        if (properties.getPort() != null) {
+            sender.setPort(properties.getPort());
+        }
+        sender.setUsername(properties.getUsername());
+        sender.setPassword(properties.getPassword());
+        sender.setProtocol(properties.getProtocol());
+        if (properties.getDefaultEncoding() != null) {
+            sender.setDefaultEncoding(properties.getDefaultEncoding().name());
+        }
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.putAll(properties.getProperties());
+        sender.setJavaMailProperties(javaMailProperties);
+
+        log.info("Threads virtuels activés : envois SMTP simultanés limités à {}", permits);
+        return sender;
+    }
+
+    /**
+     * JavaMailSenderImpl dont les envois passent par un sémaphore (attente sans épinglage)
+     */
+    static class BoundedJavaMailSender extends JavaMailSenderImpl {
+
+        private final Semaphore permits;
+        private final Duration timeout;
+
+        BoundedJavaMailSender(int permits, Duration timeout) {
+            this.permits = new Semaphore(permits, true);
+            this.timeout = timeout;
+        }
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+            try {
+                if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new MailSendException("Trop d'envois SMTP simultanés, délai d'attente dépassé");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MailSendException("Envoi SMTP interrompu", e);
+            }
+            try {
+                super.doSend(mimeMessages, originalMessages);
+            } finally {
+                permits.release();
+            }
+        }
+    }
+}
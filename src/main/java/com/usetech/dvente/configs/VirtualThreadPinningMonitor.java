@@ -0,0 +1,115 @@
+package com.usetech.dvente.configs;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Suivi des épinglages de threads virtuels (événement JFR jdk.VirtualThreadPinned) :
+ * métrique dvente.virtual.pinned par origine (hikari, mail, twilio, http, app, other)
+ * et avertissement, une seule fois par méthode, avec la frame responsable.
+ * Seuls les épinglages plus longs que app.virtual-threads.pinning-threshold sont remontés.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@ConditionalOnProperty(name = "app.virtual-threads.pinning-monitor", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final Map<String, String> SOURCES = Map.of(
+            "com.zaxxer.hikari.", "hikari",
+            "org.eclipse.angus.mail.", "mail",
+            "jakarta.mail.", "mail",
+            "com.twilio.", "twilio",
+            "org.apache.http.", "http",
+            "com.usetech.dvente.", "app"
+    );
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.virtual-threads.pinning-threshold:20ms}")
+    private Duration threshold;
+
+    private final Set<String> reportedFrames = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+        log.info("Suivi des épinglages de threads virtuels actif (seuil {})", threshold);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void record(RecordedEvent event) {
+        List<RecordedFrame> frames = event.getStackTrace() != null ? event.getStackTrace().getFrames() : List.of();
+        String source = "other";
+        String culprit = frames.isEmpty() ? "inconnue" : describe(frames.get(0));
+        for (RecordedFrame frame : frames) {
+            String sourceOfFrame = sourceOf(frame);
+            if (sourceOfFrame != null) {
+                source = sourceOfFrame;
+                culprit = describe(frame);
+                break;
+            }
+        }
+
+        Timer.builder("dvente.virtual.pinned")
+                .description("Épinglages de threads virtuels au-delà du seuil")
+                .tag("source", source)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        if (reportedFrames.add(culprit)) {
+            log.warn("Thread virtuel épinglé {} ms ({}) dans {}", event.getDuration().toMillis(), source, culprit);
+        }
+    }
+
+    private static String sourceOf(RecordedFrame frame) {
+        if (frame.getMethod() == null) {
+            return null;
+        }
+        String type = frame.getMethod().getType().getName();
+        for (Map.Entry<String, String> entry : SOURCES.entrySet()) {
+            if (type.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String describe(RecordedFrame frame) {
+        if (frame.getMethod() == null) {
+            return "inconnue";
+        }
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,120 @@
+package com.usetech.dvente.configs;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Équivalent en threads virtuels des pools de {@link AsyncConfig} : un thread virtuel par tâche,
+ * au plus maxConcurrency en exécution (sémaphore), les autres attendent leur tour sans occuper
+ * de thread porteur. Au-delà de maxConcurrency + queueCapacity tâches admises, la même politique
+ * de rejet que le pool s'applique. Publie dvente.executor.virtual.active et .waiting (tag name).
+ */
+@Slf4j
+class VirtualThreadTaskExecutor implements TaskExecutor, DisposableBean {
+
+    private final String name;
+    private final Semaphore running;
+    private final Semaphore admitted;
+    private final int admittedPermits;
+    private final int maxConcurrency;
+    private final AppAsyncProperties.RejectionPolicy policy;
+    private final Counter rejected;
+    private final Duration awaitTermination;
+    private final ExecutorService threads;
+
+    VirtualThreadTaskExecutor(String name,
+                              int maxConcurrency,
+                              int queueCapacity,
+                              AppAsyncProperties.RejectionPolicy policy,
+                              Duration awaitTermination,
+                              MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.admittedPermits = maxConcurrency + queueCapacity;
+        this.running = new Semaphore(maxConcurrency, true);
+        this.admitted = new Semaphore(admittedPermits);
+        this.policy = policy;
+        this.awaitTermination = awaitTermination;
+        this.threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        this.rejected = Counter.builder("dvente.executor.rejected")
+                .description("Tâches refusées faute de place dans la file")
+                .tag("name", name)
+                .tag("policy", policy.name())
+                .register(meterRegistry);
+        Gauge.builder("dvente.executor.virtual.active", running, permits -> maxConcurrency - permits.availablePermits())
+                .description("Tâches en cours d'exécution")
+                .tag("name", name)
+                .register(meterRegistry);
+        Gauge.builder("dvente.executor.virtual.waiting", running, Semaphore::getQueueLength)
+                .description("Tâches admises en attente d'une place d'exécution")
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            reject(task);
+            return;
+        }
+        try {
+            threads.execute(() -> runBounded(task));
+        } catch (RuntimeException e) {
+            admitted.release();
+            throw new TaskRejectedException("Exécuteur " + name + " arrêté", e);
+        }
+    }
+
+    private void runBounded(Runnable task) {
+        try {
+            running.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted.release();
+            return;
+        }
+        try {
+            task.run();
+        } finally {
+            running.release();
+            admitted.release();
+        }
+    }
+
+    private void reject(Runnable task) {
+        rejected.increment();
+        if (policy != AppAsyncProperties.RejectionPolicy.DISCARD) {
+            log.warn("Exécuteur {} saturé ({} actifs, {} en attente) : politique {}",
+                    name, maxConcurrency - running.availablePermits(), running.getQueueLength(), policy);
+        }
+        switch (policy) {
+            case CALLER_RUNS -> task.run();
+            case ABORT -> throw new TaskRejectedException("Exécuteur " + name + " saturé (" + admittedPermits + " tâches admises)");
+            case DISCARD -> {
+            }
+        }
+    }
+
+    /**
+     * Draine les tâches en cours et en attente jusqu'à await-termination, comme les pools
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        threads.shutdown();
+        if (!threads.awaitTermination(awaitTermination.toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Exécuteur {} : tâches interrompues à l'arrêt", name);
+            threads.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.usetech.dvente.controllers;
+
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.usetech.dvente.services.auth.JwtKeyStore;
+import io.swagger.v3.oas.annotations.Operation;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clés publiques des tokens d'accès ES256, pour la vérification locale par d'autres services
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeyStore jwtKeyStore;
+
+    @GetMapping("/.well-known/jwks.json")
+    @Operation(
+            summary = "JSON Web Key Set",
+            description = "Clés publiques (ES256) actives et en cours de rotation, identifiées par kid"
+    )
+    public ResponseEntity<Map<String, Object>> getJwks() {
+        List<JWK> keys = jwtKeyStore.getPublicKeys().entrySet().stream()
+                .map(entry -> (JWK) new ECKey.Builder(Curve.P_256, entry.getValue())
+                        .keyID(entry.getKey())
+                        .keyUse(KeyUse.SIGNATURE)
+                        .algorithm(JWSAlgorithm.ES256)
+                        .build())
+                .toList();
+
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(new JWKSet(keys).toJSONObject());
+    }
+}
@@ -0,0 +1,45 @@
+package com.usetech.dvente.controllers.admin;
+
+import com.usetech.dvente.services.files.ImageVariantService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Maintenance des images (API JSON) : rattrapage des déclinaisons des images existantes.
+ * Le traitement est asynchrone, son résultat est journalisé.
+ * Exposée hors de /admin/images/** (ressources statiques publiques) pour rester
+ * soumise à la règle hasRole("ADMIN") de la chaîne de sécurité admin.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/maintenance/images")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminImageController {
+
+    private final ImageVariantService imageVariantService;
+
+    @PostMapping("/backfill")
+    public ResponseEntity<?> backfill() {
+        try {
+            if (!imageVariantService.startBackfill()) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Rattrapage déjà en cours"));
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of("message", "Rattrapage des déclinaisons lancé"));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Traitement des images saturé, réessayez plus tard"));
+        } catch (Exception e) {
+            log.error("Erreur lancement rattrapage des déclinaisons: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", "Erreur interne"));
+        }
+    }
+}
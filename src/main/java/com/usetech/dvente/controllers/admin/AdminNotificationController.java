@@ -0,0 +1,98 @@
+package com.usetech.dvente.controllers.admin;
+
+import com.usetech.dvente.entities.notifs.BulkNotification;
+import com.usetech.dvente.entities.notifs.BulkNotificationFailure;
+import com.usetech.dvente.repositories.notifs.BulkNotificationFailureRepository;
+import com.usetech.dvente.repositories.notifs.BulkNotificationRepository;
+import com.usetech.dvente.requests.notifs.BulkNotificationRequest;
+import com.usetech.dvente.responses.notifs.BulkNotificationResponse;
+import com.usetech.dvente.services.notifs.BulkNotificationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Notifications groupées envoyées par les administrateurs (API JSON).
+ * L'envoi est asynchrone : POST retourne 202 avec l'id, la progression se suit sur GET /{id}.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/admin/notifications")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class AdminNotificationController {
+
+    private static final int RECENT_FAILURES = 20;
+
+    private final BulkNotificationService bulkNotificationService;
+    private final BulkNotificationRepository bulkNotificationRepository;
+    private final BulkNotificationFailureRepository bulkNotificationFailureRepository;
+
+    @PostMapping
+    public ResponseEntity<?> start(@Valid @RequestBody BulkNotificationRequest request, Authentication authentication) {
+        try {
+            BulkNotification notification = bulkNotificationService.start(request.getAudience(), request.getSubject(),
+                    request.getTemplate(), request.getVariables(), authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(BulkNotificationResponse.fromEntity(notification, List.of()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Erreur création campagne: {}", e.getMessage());
+            return ResponseEntity.internalServerError().body(Map.of("error", "Erreur interne"));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<?> list(@RequestParam(defaultValue = "0") int page,
+                                  @RequestParam(defaultValue = "20") int size) {
+        Page<BulkNotificationResponse> notifications = bulkNotificationRepository
+                .findAllByOrderByCreatedAtDesc(PageRequest.of(page, Math.min(size, 100)))
+                .map(notification -> BulkNotificationResponse.fromEntity(notification, List.of()));
+        return ResponseEntity.ok(notifications);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> progress(@PathVariable UUID id) {
+        try {
+            BulkNotification notification = bulkNotificationService.getNotification(id);
+            List<BulkNotificationFailure> failures = bulkNotificationFailureRepository
+                    .findByNotificationIdOrderByCreatedAtDesc(id, PageRequest.of(0, RECENT_FAILURES))
+                    .getContent();
+            return ResponseEntity.ok(BulkNotificationResponse.fromEntity(notification, failures));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/failures")
+    public ResponseEntity<?> failures(@PathVariable UUID id,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "50") int size) {
+        Page<BulkNotificationResponse.Failure> failures = bulkNotificationFailureRepository
+                .findByNotificationIdOrderByCreatedAtDesc(id, PageRequest.of(page, Math.min(size, 500)))
+                .map(BulkNotificationResponse.Failure::fromEntity);
+        return ResponseEntity.ok(failures);
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<?> cancel(@PathVariable UUID id) {
+        try {
+            BulkNotification notification = bulkNotificationService.cancel(id);
+            return ResponseEntity.ok(BulkNotificationResponse.fromEntity(notification, List.of()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
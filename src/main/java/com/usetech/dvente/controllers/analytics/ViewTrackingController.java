@@ -0,0 +1,53 @@
+package com.usetech.dvente.controllers.analytics;
+
+import com.usetech.dvente.entities.analytics.ViewTarget;
+import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.requests.analytics.TrackViewRequest;
+import com.usetech.dvente.services.analytics.ViewTrackingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/views")
+@Tag(name = "Statistiques", description = "Suivi des vues des boutiques et des produits")
+public class ViewTrackingController {
+
+    private final ViewTrackingService viewTrackingService;
+
+    /**
+     * Toujours 202 pour une requête valide : une vue dédupliquée ou abandonnée n'est pas une erreur client
+     */
+    @PostMapping
+    @Operation(
+            summary = "Track View",
+            description = "Enregistre la vue d'une boutique ou d'un produit (écriture différée)"
+    )
+    public ResponseEntity<?> trackView(
+            @Valid @RequestBody TrackViewRequest request,
+            @AuthenticationPrincipal User user,
+            HttpServletRequest httpRequest
+    ) {
+        try {
+            viewTrackingService.record(
+                    ViewTarget.from(request.getType()),
+                    request.getId(),
+                    user != null ? user.getId() : null,
+                    httpRequest.getRemoteAddr());
+            return ResponseEntity.accepted().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
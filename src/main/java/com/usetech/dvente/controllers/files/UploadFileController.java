@@ -0,0 +1,41 @@
+package com.usetech.dvente.controllers.files;
+
+import com.usetech.dvente.configs.AppStorageProperties;
+import com.usetech.dvente.services.files.StorageBackend;
+import com.usetech.dvente.services.files.UploadFileServer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fichiers téléversés (images, documents, déclinaisons), servis par UploadFileServer,
+ * ou redirigés vers le bucket quand le stockage est distant (les URLs /uploads/... restent valides)
+ */
+@Controller
+@RequiredArgsConstructor
+public class UploadFileController {
+
+    private final UploadFileServer uploadFileServer;
+    private final StorageBackend storageBackend;
+    private final AppStorageProperties storageProperties;
+
+    @GetMapping(UploadFileServer.URL_PREFIX + "**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (storageBackend.isLocal()) {
+            uploadFileServer.serve(request, response);
+            return;
+        }
+        String key = request.getRequestURI().substring(request.getContextPath().length() + UploadFileServer.URL_PREFIX.length());
+        // La redirection peut être réutilisée tant que l'URL signée reste valide
+        long maxAge = storageProperties.getPresignTtl().toSeconds() / 2;
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, max-age=" + maxAge);
+        response.sendRedirect(storageBackend.readUrl(UriUtils.decode(key, StandardCharsets.UTF_8), storageProperties.getPresignTtl()));
+    }
+}
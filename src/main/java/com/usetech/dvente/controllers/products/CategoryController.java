@@ -1,32 +1,50 @@
 package com.usetech.dvente.controllers.products;
 
-import com.usetech.dvente.entities.products.Category;
-import com.usetech.dvente.responses.ApiResponse;
-import com.usetech.dvente.services.products.CategoryService;
+import com.usetech.dvente.services.products.CatalogSnapshotService;
+import com.usetech.dvente.services.products.CatalogSnapshotService.CatalogSnapshot;
+import io.swagger.v3.oas.annotations.Operation;
 import lombok.RequiredArgsConstructor;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/categories")
 @RequiredArgsConstructor
 public class CategoryController {
 
-    private final CategoryService categoryService;
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    @Value("${app.catalog.max-age:5m}")
+    private Duration maxAge;
 
 
     @GetMapping
-    public ResponseEntity<ApiResponse<List<Category>>> getAllCategories(
+    public ResponseEntity<byte[]> getAllCategories(
             @RequestParam(required = false) Boolean main
     ) {
-        List<Category> categories = categoryService.getAllCategories(main);
-        ApiResponse<List<Category>> response = new ApiResponse<>("success", categories);
-        return new ResponseEntity<>(response, HttpStatus.OK);
+        CatalogSnapshot snapshot = catalogSnapshotService.getSnapshot();
+        return (Boolean.TRUE.equals(main) ? snapshot.mainCategories() : snapshot.categories())
+                .toResponse(cacheControl());
+    }
+
+    @GetMapping("/tree")
+    @Operation(
+            summary = "Get Category Tree",
+            description = "Arbre des catégories (parents et sous-catégories), précalculé"
+    )
+    public ResponseEntity<byte[]> getCategoryTree() {
+        return catalogSnapshotService.getSnapshot().categoryTree()
+                .toResponse(cacheControl());
+    }
+
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(maxAge).cachePublic().mustRevalidate();
     }
 }
@@ -1,7 +1,7 @@
 package com.usetech.dvente.controllers.products;
 
+import com.usetech.dvente.entities.analytics.RollupGranularity;
 import com.usetech.dvente.responses.products.PaginatedProductResponse;
-import com.usetech.dvente.responses.products.ProductDetailResponse;
 import com.usetech.dvente.services.products.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,6 +11,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,6 +26,10 @@ import java.util.UUID;
 @Tag(name = "Products", description = "API pour la gestion des produits")
 public class ProductController {
 
+    private static final int MAX_RANKING_LIMIT = 100;
+    private static final int MAX_POPULAR_DAYS = 365;
+    private static final int MAX_TRENDING_HOURS = 168;
+
     private final ProductService productService;
 
     @Value("${server.backend.url}")
@@ -33,7 +38,8 @@ public class ProductController {
     @GetMapping
     @Operation(
             summary = "Liste des produits",
-            description = "Récupère la liste paginée des produits actifs avec filtrage par catégorie optionnel"
+            description = "Récupère la liste paginée des produits actifs avec filtrage par catégorie optionnel. " +
+                    "Avec le paramètre cursor (valeur next_cursor de la page précédente), la pagination se fait par clé"
     )
     public ResponseEntity<?> getProducts(
             @Parameter(description = "Numéro de la page (commence à 1)")
@@ -45,6 +51,12 @@ public class ProductController {
             @Parameter(description = "ID de la catégorie pour filtrer les produits")
             @RequestParam(name = "cat", required = false) UUID categoryId,
 
+            @Parameter(description = "Curseur opaque renvoyé dans next_cursor (pagination par clé)")
+            @RequestParam(required = false) String cursor,
+
+            @Parameter(description = "Calculer le total en pagination par clé (COUNT supplémentaire)")
+            @RequestParam(name = "with_total", defaultValue = "false") boolean withTotal,
+
             HttpServletRequest request
     ) {
         try {
@@ -52,11 +64,17 @@ public class ProductController {
                     page,
                     pageSize,
                     categoryId,
+                    cursor,
+                    withTotal,
                     request
             );
 
             return ResponseEntity.ok(response);
 
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+
         } catch (Exception e) {
             log.error("Erreur lors de la récupération des produits", e);
 
@@ -70,16 +88,56 @@ public class ProductController {
         }
     }
 
+    @GetMapping("/popular")
+    @Operation(
+            summary = "Produits populaires",
+            description = "Produits actifs les plus vus sur les derniers jours (compteurs journaliers)"
+    )
+    public ResponseEntity<?> getPopularProducts(
+            @RequestParam(defaultValue = "30") Integer days,
+            @RequestParam(defaultValue = "20") Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(productService.getMostViewedProducts(RollupGranularity.DAY,
+                    Math.min(Math.max(days, 1), MAX_POPULAR_DAYS),
+                    Math.min(Math.max(limit, 1), MAX_RANKING_LIMIT), serverApiUrl));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/trending")
+    @Operation(
+            summary = "Produits tendance",
+            description = "Produits actifs les plus vus sur les dernières heures (compteurs horaires)"
+    )
+    public ResponseEntity<?> getTrendingProducts(
+            @RequestParam(defaultValue = "24") Integer hours,
+            @RequestParam(defaultValue = "20") Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(productService.getMostViewedProducts(RollupGranularity.HOUR,
+                    Math.min(Math.max(hours, 1), MAX_TRENDING_HOURS),
+                    Math.min(Math.max(limit, 1), MAX_RANKING_LIMIT), serverApiUrl));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<?> getProductDetail(@PathVariable UUID id) {
         try {
-            ProductDetailResponse product = productService.getProductDetail(id, serverApiUrl);
+            byte[] product = productService.getProductDetailJson(id, serverApiUrl);
 
             if (product == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(Map.of("detail", "Product not found."));
             }
-            return ResponseEntity.ok(product);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(product);
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
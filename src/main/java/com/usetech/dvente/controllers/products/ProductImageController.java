@@ -3,10 +3,16 @@ package com.usetech.dvente.controllers.products;
 import com.usetech.dvente.entities.users.Shop;
 import com.usetech.dvente.entities.users.User;
 import com.usetech.dvente.repositories.shops.ShopRepository;
+import com.usetech.dvente.requests.products.ConfirmImageUploadRequest;
+import com.usetech.dvente.requests.products.PresignedImageUploadRequest;
 import com.usetech.dvente.responses.products.ProductImageUploadResponse;
+import com.usetech.dvente.services.files.StoredFile;
 import com.usetech.dvente.services.products.ProductImageService;
+import com.usetech.dvente.utils.MultipartStreamReader;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -62,5 +68,104 @@ public class ProductImageController {
         }
     }
 
+    /**
+     * Même contrat que /images/upload, mais la partie "image" est écrite en flux à son
+     * emplacement final : pas de fichier temporaire du conteneur ni de seconde copie.
+     * Les limites (5MB, JPG/PNG/GIF/WEBP) sont vérifiées pendant la lecture.
+     */
+    @PostMapping(value = "/images/upload/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('SHOP')")
+    @Operation(
+            summary = "Upload Product Image (streaming)",
+            description = "Uploader une image pour un produit sans mise en tampon. Formats acceptés: JPG, JPEG, PNG, GIF, WEBP"
+    )
+    public ResponseEntity<?> uploadProductImageStream(
+            HttpServletRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        try {
+            shopRepository.findFirstByUser(user)
+                    .orElseThrow(() -> new RuntimeException("Vous devez être marchand pour uploader des images"));
+            StoredFile image = productImageService.saveProductImage(MultipartStreamReader.of(request));
+            ProductImageUploadResponse response = ProductImageUploadResponse.success(image.url(), serverApiUrl);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", e.getMessage()));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur lors de l'upload: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Upload direct vers le bucket (stockage S3) : l'API ne signe qu'un formulaire limité
+     * à une clé, un type et 5MB ; le fichier ne transite pas par l'API.
+     * Le client envoie ensuite le fichier au bucket puis confirme le chemin sur /images/presign/confirm.
+     */
+    @PostMapping("/images/presign")
+    @PreAuthorize("hasRole('SHOP')")
+    @Operation(
+            summary = "Presign Product Image Upload",
+            description = "Obtenir un formulaire signé pour envoyer une image produit directement au stockage"
+    )
+    public ResponseEntity<?> presignProductImage(
+            @Valid @RequestBody PresignedImageUploadRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        try {
+            Shop shop = shopRepository.findFirstByUser(user)
+                    .orElseThrow(() -> new RuntimeException("Vous devez être marchand pour uploader des images"));
+            return ResponseEntity.ok(productImageService.presignProductImage(shop,
+                    request.getFilename(), request.getContentType(), request.getSize(), serverApiUrl));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+
+        } catch (UnsupportedOperationException e) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
+                    .body(Map.of("error", e.getMessage()));
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/images/presign/confirm")
+    @PreAuthorize("hasRole('SHOP')")
+    @Operation(
+            summary = "Confirm Product Image Upload",
+            description = "Vérifier une image envoyée directement au stockage avant de l'utiliser dans un produit"
+    )
+    public ResponseEntity<?> confirmProductImage(
+            @Valid @RequestBody ConfirmImageUploadRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        try {
+            Shop shop = shopRepository.findFirstByUser(user)
+                    .orElseThrow(() -> new RuntimeException("Vous devez être marchand pour uploader des images"));
+            String imagePath = productImageService.confirmPresignedProductImage(shop, request.getPath());
+            return ResponseEntity.status(HttpStatus.CREATED).body(ProductImageUploadResponse.success(imagePath, serverApiUrl));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
 
-}
\ No newline at end of file
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", e.getMessage()));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur lors de la vérification: " + e.getMessage()));
+        }
+    }
+}
@@ -1,17 +1,18 @@
 package com.usetech.dvente.controllers.products;
 
-import com.usetech.dvente.responses.products.KeywordResponse;
-import com.usetech.dvente.services.products.ProductService;
+import com.usetech.dvente.services.products.CatalogSnapshotService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.time.Duration;
 import java.util.Map;
 
 @RestController
@@ -20,7 +21,10 @@ import java.util.Map;
 @Tag(name = "Products", description = "API pour la gestion des produits")
 public class ProductKeywordController {
 
-    private final ProductService productService;
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    @Value("${app.catalog.max-age:5m}")
+    private Duration maxAge;
 
     @GetMapping("/keywords")
     @Operation(
@@ -29,8 +33,8 @@ public class ProductKeywordController {
     )
     public ResponseEntity<?> getProductKeywords() {
         try {
-            List<KeywordResponse> keywords = productService.getAllKeywords();
-            return ResponseEntity.ok(keywords);
+            return catalogSnapshotService.getSnapshot().keywords()
+                    .toResponse(CacheControl.maxAge(maxAge).cachePublic().mustRevalidate());
 
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,103 @@
+package com.usetech.dvente.controllers.products;
+
+import com.usetech.dvente.responses.products.ProductSearchResponse;
+import com.usetech.dvente.services.products.ProductSearchService;
+import com.usetech.dvente.services.products.ProductSuggestService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/products")
+@Tag(name = "Products", description = "API pour la gestion des produits")
+public class ProductSearchController {
+
+    private final ProductSearchService productSearchService;
+    private final ProductSuggestService productSuggestService;
+
+    @Value("${server.backend.url}")
+    private String serverApiUrl;
+
+    @GetMapping("/search")
+    @Operation(
+            summary = "Search Products",
+            description = "Recherche plein texte dans le catalogue (nom, description, mots-clés), " +
+                    "classée par pertinence, avec filtres catégorie, boutique et prix"
+    )
+    public ResponseEntity<?> searchProducts(
+            @Parameter(description = "Termes recherchés (syntaxe web : \"expression exacte\", -exclusion, or)")
+            @RequestParam("q") String query,
+
+            @Parameter(description = "ID de la catégorie")
+            @RequestParam(name = "cat", required = false) UUID categoryId,
+
+            @Parameter(description = "ID de la boutique")
+            @RequestParam(name = "shop", required = false) UUID shopId,
+
+            @RequestParam(name = "min_price", required = false) BigDecimal minPrice,
+            @RequestParam(name = "max_price", required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(name = "page_size", required = false) Integer pageSize,
+
+            @Parameter(description = "Inclure les facettes catégories, boutiques et prix")
+            @RequestParam(defaultValue = "false") boolean facets
+    ) {
+        try {
+            ProductSearchResponse response = productSearchService.search(
+                    query, categoryId, shopId, minPrice, maxPrice,
+                    page, pageSize, facets, serverApiUrl
+            );
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Erreur lors de la recherche de produits", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/suggest")
+    @Operation(
+            summary = "Suggest Products",
+            description = "Autocomplétion des noms de produits et mots-clés, servie depuis un index en mémoire"
+    )
+    public ResponseEntity<?> suggestProducts(
+            @Parameter(description = "Début du texte saisi")
+            @RequestParam("q") String query,
+
+            @Parameter(description = "Nombre maximum de suggestions (1 à 20)")
+            @RequestParam(required = false) Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(productSuggestService.suggest(query, limit));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+
+        } catch (Exception e) {
+            log.error("Erreur lors de l'autocomplétion des produits", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
+        }
+    }
+}
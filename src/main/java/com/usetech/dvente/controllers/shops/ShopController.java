@@ -1,5 +1,6 @@
 package com.usetech.dvente.controllers.shops;
 
+import com.usetech.dvente.entities.analytics.RollupGranularity;
 import com.usetech.dvente.entities.users.Shop;
 import com.usetech.dvente.entities.users.User;
 import com.usetech.dvente.repositories.shops.ShopRepository;
@@ -11,12 +12,15 @@ import com.usetech.dvente.responses.shops.ShopResponse;
 import com.usetech.dvente.responses.users.UserResponse;
 import com.usetech.dvente.services.products.ProductService;
 import com.usetech.dvente.services.shops.ShopService;
+import com.usetech.dvente.services.shops.ShopStatsService;
+import com.usetech.dvente.services.users.UserService;
 import com.usetech.dvente.utils.ShopUtils;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +29,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -35,10 +40,17 @@ import java.util.Optional;
 @Tag(name = "Marchand", description = "API pour la gestion des marchands")
 public class ShopController {
 
+    private static final int MAX_DIRECTORY_PAGE_SIZE = 100;
+    private static final int MAX_RANKING_LIMIT = 100;
+    private static final int MAX_POPULAR_DAYS = 365;
+    private static final int MAX_TRENDING_HOURS = 168;
+
     private final ShopService shopService;
     private final ShopRepository shopRepository;
+    private final UserService userService;
 
     private final ProductService productService;
+    private final ShopStatsService shopStatsService;
 
 
     @Value("${server.backend.url}")
@@ -78,7 +90,7 @@ public class ShopController {
             shopService.sendMerchantAccountCreateEmail(merchant.getId());
             CreateMerchantResponse response = CreateMerchantResponse.builder()
                     .marchand(ShopResponse.fromShop(merchant))
-                    .user(UserResponse.fromUser(user))
+                    .user(UserResponse.fromUser(userService.reload(user)))
                     .authenticated(true)
                     .build();
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
@@ -90,6 +102,63 @@ public class ShopController {
     }
 
 
+    @GetMapping("/directory")
+    @Operation(
+            summary = "Shop Directory",
+            description = "Annuaire paginé des boutiques actives"
+    )
+    public ResponseEntity<?> getShopDirectory(
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(name = "page_size", defaultValue = "20") Integer pageSize
+    ) {
+        try {
+            int validPage = Math.max(page, 1);
+            int validPageSize = Math.min(Math.max(pageSize, 1), MAX_DIRECTORY_PAGE_SIZE);
+            return ResponseEntity.ok(shopService.getShopDirectory(validPage, validPageSize));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/popular")
+    @Operation(
+            summary = "Popular Shops",
+            description = "Boutiques les plus vues sur les derniers jours (compteurs journaliers)"
+    )
+    public ResponseEntity<?> getPopularShops(
+            @RequestParam(defaultValue = "30") Integer days,
+            @RequestParam(defaultValue = "20") Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(shopService.getMostViewedShops(RollupGranularity.DAY,
+                    Math.min(Math.max(days, 1), MAX_POPULAR_DAYS),
+                    Math.min(Math.max(limit, 1), MAX_RANKING_LIMIT)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
+        }
+    }
+
+    @GetMapping("/trending")
+    @Operation(
+            summary = "Trending Shops",
+            description = "Boutiques les plus vues sur les dernières heures (compteurs horaires)"
+    )
+    public ResponseEntity<?> getTrendingShops(
+            @RequestParam(defaultValue = "24") Integer hours,
+            @RequestParam(defaultValue = "20") Integer limit
+    ) {
+        try {
+            return ResponseEntity.ok(shopService.getMostViewedShops(RollupGranularity.HOUR,
+                    Math.min(Math.max(hours, 1), MAX_TRENDING_HOURS),
+                    Math.min(Math.max(limit, 1), MAX_RANKING_LIMIT)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/available")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<Map<String, Object>> getAvailableShops(
@@ -152,7 +221,7 @@ public class ShopController {
                     Map.of(
                             "status", "UPDATED",
                             "shops", ShopResponse.fromShop(updatedShop),
-                            "user", UserResponse.fromUser(user)
+                            "user", UserResponse.fromUser(userService.reload(user))
                     )
             );
         } catch (Exception e) {
@@ -183,6 +252,35 @@ public class ShopController {
 
 
 
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('SHOP')")
+    @Operation(
+            summary = "Merchant Stats",
+            description = "Vues et visiteurs distincts (estimés, erreur type ≈ 1,6 %) de la boutique du marchand, " +
+                    "par jour et au total sur la période, avec ses produits les plus vus (30 derniers jours par défaut)"
+    )
+    public ResponseEntity<?> getMerchantStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @AuthenticationPrincipal User user
+    ) {
+        try {
+            Optional<Shop> shop = shopRepository.findFirstByUser(user);
+            if (shop.isEmpty()) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Boutique non trouvée"));
+            }
+            LocalDate end = to != null ? to : LocalDate.now();
+            LocalDate start = from != null ? from : end.minusDays(29);
+            return ResponseEntity.ok(shopStatsService.getStats(shop.get(), start, end));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/products")
     @PreAuthorize("hasRole('SHOP')")
     @Operation(
@@ -215,6 +313,4 @@ public class ShopController {
                     .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
         }
     }
-
-
-}
\ No newline at end of file
+}
@@ -11,8 +11,11 @@ import com.usetech.dvente.responses.users.AuthenticatedUserResponse;
 import com.usetech.dvente.responses.users.UserResponse;
 import com.usetech.dvente.services.FileStorageService;
 import com.usetech.dvente.services.shops.ShopService;
+import com.usetech.dvente.services.users.UserService;
+import com.usetech.dvente.utils.MultipartStreamReader;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -35,6 +38,7 @@ public class ShopGalleryController {
 
     private final ShopService shopService;
     private final ShopRepository shopRepository;
+    private final UserService userService;
     private final ShopGalleryRepository shopGalleryRepository;
     private final FileStorageService fileStorageService;
 
@@ -66,7 +70,7 @@ public class ShopGalleryController {
 
             AuthenticatedUserResponse response = AuthenticatedUserResponse.builder()
                     .authenticated(true)
-                    .user(UserResponse.fromUser(user))
+                    .user(UserResponse.fromUser(userService.reload(user)))
                     .shops(shopResponse)
                     .build();
 
@@ -105,7 +109,7 @@ public class ShopGalleryController {
             );
 
             AuthenticatedUserResponse response = AuthenticatedUserResponse.authenticated(
-                    UserResponse.fromUser(user),
+                    UserResponse.fromUser(userService.reload(user)),
                     updatedShop
             );
 
@@ -121,4 +125,43 @@ public class ShopGalleryController {
         }
     }
 
+    /**
+     * Variante en flux de /update/documents : les parties ifuDocument et rcmDocument sont écrites
+     * directement dans leur dossier final, limites (10MB, PDF/DOC/DOCX) vérifiées pendant la lecture.
+     */
+    @PatchMapping(value = "/update/documents/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(
+            summary = "Update Shop Documents (streaming)",
+            description = "Met à jour les documents IFU et/ou RCM sans mise en tampon. Formats acceptés: PDF, DOC, DOCX"
+    )
+    public ResponseEntity<?> updateShopDocumentsStream(
+            HttpServletRequest request,
+            @AuthenticationPrincipal User user
+    ) {
+        try {
+            Shop shop = shopRepository.findFirstByUser(user)
+                    .orElseThrow(() -> new RuntimeException("Boutique non trouvée"));
+
+            Shop updatedShop = shopService.updateShopDocuments(shop, MultipartStreamReader.of(request));
+
+            AuthenticatedUserResponse response = AuthenticatedUserResponse.authenticated(
+                    UserResponse.fromUser(userService.reload(user)),
+                    updatedShop
+            );
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(Map.of("error", e.getMessage()));
+
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Erreur serveur: " + e.getMessage()));
+        }
+    }
 }
@@ -2,6 +2,7 @@ package com.usetech.dvente.controllers.users;
 
 import com.usetech.dvente.entities.users.Shop;
 import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.events.users.UserAuthorityChangedEvent;
 import com.usetech.dvente.repositories.UserRepository;
 import com.usetech.dvente.requests.ChangeEmailRequest;
 import com.usetech.dvente.requests.users.UpdateUserProfileRequest;
@@ -18,6 +19,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -40,6 +42,7 @@ public class UserProfileController {
     private final EmailService emailService;
     private final UserRepository userRepository;
     private final VerificationCodeService codeService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Value("${app.url}")
     private String apiUrl;
@@ -160,6 +163,7 @@ public class UserProfileController {
         }
         User currentUser = (User) authentication.getPrincipal();
         userRepository.updateUserEmail(currentUser.getId(), email);
+        eventPublisher.publishEvent(new UserAuthorityChangedEvent(currentUser.getId(), this));
         codeService.removeEmailCode(email);
 
         return ResponseEntity.ok(Map.of(
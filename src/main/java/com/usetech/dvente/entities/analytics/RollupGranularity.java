@@ -0,0 +1,33 @@
+package com.usetech.dvente.entities.analytics;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Pas des compteurs de vues agrégés
+ */
+public enum RollupGranularity {
+
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Début de la tranche qui contient l'instant donné
+     */
+    public LocalDateTime bucketOf(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /**
+     * Début de la plus ancienne des {@code periods} dernières tranches, tranche en cours comprise
+     */
+    public LocalDateTime periodStart(LocalDateTime now, int periods) {
+        return bucketOf(now).minus(Math.max(1, periods) - 1L, unit);
+    }
+}
@@ -0,0 +1,47 @@
+package com.usetech.dvente.entities.analytics;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Nombre de vues d'une boutique ou d'un produit sur une heure ou un jour.
+ * Alimenté par ViewTrackingService à chaque écriture de vues (upsert sur la contrainte unique) ;
+ * l'index sert les classements par période (popularité, tendances).
+ */
+@Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(name = "uk_view_rollup_bucket",
+                columnNames = {"target", "granularity", "targetId", "bucketStart"}),
+        indexes = @Index(name = "idx_view_rollup_period", columnList = "target, granularity, bucketStart")
+)
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ViewRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ViewTarget target;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private RollupGranularity granularity;
+
+    @Column(nullable = false)
+    private UUID targetId;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private long views;
+}
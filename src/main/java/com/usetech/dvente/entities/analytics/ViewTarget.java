@@ -0,0 +1,35 @@
+package com.usetech.dvente.entities.analytics;
+
+import lombok.Getter;
+
+/**
+ * Page dont les vues sont comptées, avec la table qui les reçoit
+ */
+@Getter
+public enum ViewTarget {
+
+    SHOP("shop", "shop_view"),
+    PRODUCT("product", "product_view");
+
+    private final String table;
+    private final String viewTable;
+
+    ViewTarget(String table, String viewTable) {
+        this.table = table;
+        this.viewTable = viewTable;
+    }
+
+    /**
+     * @throws IllegalArgumentException si le type est inconnu
+     */
+    public static ViewTarget from(String value) {
+        if (value != null) {
+            for (ViewTarget target : values()) {
+                if (target.name().equalsIgnoreCase(value.trim())) {
+                    return target;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Type de vue inconnu : " + value + " (shop ou product)");
+    }
+}
@@ -0,0 +1,39 @@
+package com.usetech.dvente.entities.analytics;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Visiteurs distincts d'une boutique ou d'un produit sur une journée, sous forme d'estimateur
+ * HyperLogLog sérialisé (voir HyperLogLog) ; alimenté par VisitorSketchService.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_visitor_sketch_day",
+        columnNames = {"target", "targetId", "day"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VisitorSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ViewTarget target;
+
+    @Column(nullable = false)
+    private UUID targetId;
+
+    @Column(nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private byte[] registers;
+}
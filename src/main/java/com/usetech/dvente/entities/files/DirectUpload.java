@@ -0,0 +1,45 @@
+package com.usetech.dvente.entities.files;
+
+import com.usetech.dvente.entities.BaseModel;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Image envoyée directement au bucket par formulaire signé : enregistrée à la signature pour
+ * la boutique qui l'a demandée, confirmée une fois son contenu vérifié. Un produit ne peut
+ * référencer une image signée qu'après confirmation (DirectUploadEntityListener).
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+        name = "direct_upload",
+        indexes = {
+                @Index(name = "idx_direct_upload_url", columnList = "url", unique = true),
+                @Index(name = "idx_direct_upload_confirmed", columnList = "confirmedAt, createdAt")
+        }
+)
+public class DirectUpload extends BaseModel {
+
+    @Column(nullable = false)
+    private String url;
+
+    @Column(nullable = false)
+    private UUID shopId;
+
+    private LocalDateTime confirmedAt;
+
+    @Override
+    public String toString() {
+        return url + (confirmedAt != null ? " (confirmée)" : " (en attente)");
+    }
+}
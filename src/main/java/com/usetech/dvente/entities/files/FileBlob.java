@@ -0,0 +1,57 @@
+package com.usetech.dvente.entities.files;
+
+import com.usetech.dvente.entities.BaseModel;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fichier du stockage adressé par contenu (uploads/cas/ab/cd/&lt;sha256&gt;.ext) et nombre
+ * de références vers son URL (images produit, galerie, avatars, logos, documents).
+ * Le fichier n'est supprimé du disque que lorsque le compteur reste à zéro.
+ * Pendant la purge, la ligne est gardée comme pierre tombale (purgingSince renseigné)
+ * jusqu'à l'effacement effectif du fichier.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+        name = "file_blob",
+        indexes = {
+                @Index(name = "idx_file_blob_sha256", columnList = "sha256", unique = true),
+                @Index(name = "idx_file_blob_url", columnList = "url", unique = true),
+                @Index(name = "idx_file_blob_ref_count", columnList = "refCount, updatedAt")
+        }
+)
+public class FileBlob extends BaseModel {
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private String url;
+
+    private long size;
+
+    private String contentType;
+
+    @Builder.Default
+    private int refCount = 0;
+
+    /**
+     * Début de la purge ; remis à null si le contenu est de nouveau référencé entre-temps
+     */
+    private LocalDateTime purgingSince;
+
+    @Override
+    public String toString() {
+        return url + " (" + refCount + " réf.)";
+    }
+}
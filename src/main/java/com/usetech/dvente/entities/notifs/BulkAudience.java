@@ -0,0 +1,18 @@
+package com.usetech.dvente.entities.notifs;
+
+import lombok.Getter;
+
+@Getter
+public enum BulkAudience {
+    ALL_USERS("Tous les utilisateurs actifs"),
+    CLIENTS("Clients"),
+    MERCHANTS("Marchands"),
+    ACTIVE_SHOPS("Boutiques actives"),
+    PENDING_SHOPS("Boutiques en attente de validation");
+
+    private final String label;
+
+    BulkAudience(String label) {
+        this.label = label;
+    }
+}
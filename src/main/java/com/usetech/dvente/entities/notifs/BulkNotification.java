@@ -0,0 +1,80 @@
+package com.usetech.dvente.entities.notifs;
+
+import com.usetech.dvente.entities.BaseModel;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Table;
+import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Campagne de notification envoyée par un administrateur à une audience.
+ * La progression (curseur, compteurs) est enregistrée après chaque page de
+ * destinataires, ce qui permet de reprendre une campagne interrompue.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "bulk_notification")
+public class BulkNotification extends BaseModel {
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private BulkAudience audience;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, length = 100)
+    private String template;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, Object> variables;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private BulkNotificationStatus status = BulkNotificationStatus.RUNNING;
+
+    private String createdBy;
+
+    @Builder.Default
+    private long total = 0;
+
+    @Builder.Default
+    private long sent = 0;
+
+    @Builder.Default
+    private long failed = 0;
+
+    /**
+     * Identifiant du dernier destinataire traité (pagination par clé)
+     */
+    private UUID lastRecipientId;
+
+    private LocalDateTime finishedAt;
+
+    /**
+     * Instance qui envoie la campagne et date de son dernier signe de vie : une autre
+     * instance ne la reprend qu'une fois ce bail expiré
+     */
+    @Column(length = 100)
+    private String owner;
+
+    private LocalDateTime heartbeatAt;
+
+    @Override
+    public String toString() {
+        return subject + " (" + audience + ")";
+    }
+}
@@ -0,0 +1,38 @@
+package com.usetech.dvente.entities.notifs;
+
+import com.usetech.dvente.entities.BaseModel;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.*;
+
+import java.util.UUID;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(
+        name = "bulk_notification_failure",
+        indexes = {
+                @Index(name = "idx_bulk_failure_notification", columnList = "notificationId")
+        }
+)
+public class BulkNotificationFailure extends BaseModel {
+
+    @Column(nullable = false)
+    private UUID notificationId;
+
+    private String recipient;
+
+    @Column(length = 1000)
+    private String error;
+
+    @Override
+    public String toString() {
+        return recipient + " : " + error;
+    }
+}
@@ -0,0 +1,17 @@
+package com.usetech.dvente.entities.notifs;
+
+import lombok.Getter;
+
+@Getter
+public enum BulkNotificationStatus {
+    RUNNING("En cours"),
+    COMPLETED("Terminée"),
+    CANCELLED("Annulée"),
+    FAILED("Échec");
+
+    private final String label;
+
+    BulkNotificationStatus(String label) {
+        this.label = label;
+    }
+}
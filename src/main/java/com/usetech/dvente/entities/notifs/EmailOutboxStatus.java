@@ -0,0 +1,17 @@
+package com.usetech.dvente.entities.notifs;
+
+import lombok.Getter;
+
+@Getter
+public enum EmailOutboxStatus {
+    PENDING("En attente"),
+    SENDING("En cours d'envoi"),
+    SENT("Envoyé"),
+    FAILED("Échec définitif");
+
+    private final String label;
+
+    EmailOutboxStatus(String label) {
+        this.label = label;
+    }
+}
@@ -1,6 +1,7 @@
 package com.usetech.dvente.entities.products;
 
 import com.usetech.dvente.entities.BaseModel;
+import com.usetech.dvente.listeners.products.CatalogEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.OnDelete;
@@ -8,6 +9,7 @@ import org.hibernate.annotations.OnDeleteAction;
 import org.springframework.util.StringUtils;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table
 @Getter
 @Setter
@@ -1,12 +1,15 @@
 package com.usetech.dvente.entities.products;
 
 import com.usetech.dvente.entities.BaseModel;
+import com.usetech.dvente.listeners.products.CatalogEntityListener;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Table;
 import lombok.*;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table
 @Getter
 @Setter
@@ -1,16 +1,29 @@
 package com.usetech.dvente.entities.products;
 
 import com.usetech.dvente.entities.BaseModel;
+import com.usetech.dvente.listeners.files.DirectUploadEntityListener;
+import com.usetech.dvente.listeners.files.ImageVariantEntityListener;
+import com.usetech.dvente.listeners.products.CatalogEntityListener;
 import com.usetech.dvente.entities.users.Shop;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 @Entity
-@Table
+@EntityListeners({CatalogEntityListener.class, ImageVariantEntityListener.class, DirectUploadEntityListener.class})
+@Table(
+        indexes = {
+                @Index(name = "idx_product_active_created", columnList = "is_active, createdAt DESC, id"),
+                @Index(name = "idx_product_category_active_created", columnList = "category_id, is_active, createdAt DESC, id")
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,6 +46,12 @@ public class Product extends BaseModel {
     @Column(name = "primary_image")
     private String primaryImage;
 
+    /**
+     * Déclinaisons de l'image principale (thumb, medium, large → URL), vide si non générables
+     */
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, String> primaryImageVariants;
+
     @Column(name = "is_active")
     private Boolean isActive = true;
 
@@ -48,6 +67,7 @@ public class Product extends BaseModel {
     private Shop shopAuthor;
 
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 100)
     @Builder.Default
     private List<ProductImage> otherImages = new ArrayList<>();
 
@@ -1,13 +1,22 @@
 package com.usetech.dvente.entities.products;
 
 import com.usetech.dvente.entities.BaseModel;
+import com.usetech.dvente.listeners.files.DirectUploadEntityListener;
+import com.usetech.dvente.listeners.files.ImageVariantEntityListener;
+import com.usetech.dvente.listeners.products.CatalogEntityListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.Map;
 
 @Entity
+@EntityListeners({CatalogEntityListener.class, ImageVariantEntityListener.class, DirectUploadEntityListener.class})
 @Table
 @Getter
 @Setter
@@ -18,6 +27,9 @@ public class ProductImage extends BaseModel {
 
     private String image;
 
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, String> variants;
+
     @ManyToOne
     @JoinColumn(name = "product_id")
     private Product product;
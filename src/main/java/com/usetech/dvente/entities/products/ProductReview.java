@@ -2,10 +2,12 @@ package com.usetech.dvente.entities.products;
 
 import com.usetech.dvente.entities.BaseModel;
 import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.listeners.products.CatalogEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table
 @Getter
 @Setter
@@ -3,13 +3,18 @@ package com.usetech.dvente.entities.products;
 import com.usetech.dvente.entities.BaseModel;
 import com.usetech.dvente.entities.users.User;
 import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import lombok.*;
 
 @Entity
-@Table
+@Table(indexes = {
+        @Index(name = "idx_product_view_product_created", columnList = "product_id, createdAt"),
+        // Compactage des vues brutes par date (ViewRollupService.compact)
+        @Index(name = "idx_product_view_created", columnList = "createdAt")
+})
 @Getter
 @Setter
 @Builder
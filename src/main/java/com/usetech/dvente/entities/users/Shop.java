@@ -1,12 +1,14 @@
 package com.usetech.dvente.entities.users;
 
 import com.usetech.dvente.entities.BaseModel;
+import com.usetech.dvente.listeners.shops.ShopEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.util.List;
 
 @Entity
+@EntityListeners(ShopEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
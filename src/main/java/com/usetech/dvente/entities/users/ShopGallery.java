@@ -1,10 +1,18 @@
 package com.usetech.dvente.entities.users;
 
 import com.usetech.dvente.entities.BaseModel;
+import com.usetech.dvente.listeners.files.ImageVariantEntityListener;
+import com.usetech.dvente.listeners.shops.ShopEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.Map;
 
 @Entity
+@EntityListeners({ImageVariantEntityListener.class, ShopEntityListener.class})
+@Table(indexes = @Index(name = "idx_shop_gallery_shop", columnList = "shop_id, createdAt"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,4 +25,7 @@ public class ShopGallery extends BaseModel {
     private Shop shop;
 
     private String image;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    private Map<String, String> variants;
 }
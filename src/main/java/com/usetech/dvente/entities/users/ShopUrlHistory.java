@@ -2,6 +2,7 @@ package com.usetech.dvente.entities.users;
 
 
 import com.usetech.dvente.entities.BaseModel;
+import com.usetech.dvente.listeners.shops.ShopEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -9,6 +10,8 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(ShopEntityListener.class)
+@Table(indexes = @Index(name = "idx_shop_url_history_shop", columnList = "shopId, changedAt"))
 @Getter
 @Setter
 @NoArgsConstructor
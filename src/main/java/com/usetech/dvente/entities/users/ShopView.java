@@ -4,7 +4,14 @@ package com.usetech.dvente.entities.users;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_shop_view_shop_viewed", columnList = "shopId, viewedAt"),
+        // Compactage des vues brutes par date (ViewRollupService.compact)
+        @Index(name = "idx_shop_view_viewed", columnList = "viewedAt")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -26,6 +33,8 @@ public class ShopView {
 
     private String ipAddress;
 
+    private LocalDateTime viewedAt;
+
     @Override
     public String toString() {
         return shop != null ? shop.getShopName() : "ShopView";
@@ -1,6 +1,7 @@
 package com.usetech.dvente.entities.users;
 
 import com.usetech.dvente.entities.BaseModel;
+import com.usetech.dvente.listeners.users.UserEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -14,6 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 
 @Entity
+@EntityListeners(UserEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -37,6 +39,17 @@ public class User extends BaseModel implements UserDetails {
 
     private String avatar;
 
+    /**
+     * Photo du fournisseur OAuth dont avatar est la copie locale, et ses validateurs HTTP
+     * (ETag, Last-Modified) pour ne la retélécharger que si elle a changé
+     */
+    @Column(length = 1024)
+    private String avatarSource;
+
+    private String avatarEtag;
+
+    private String avatarLastModified;
+
     @Enumerated(EnumType.STRING)
     @Column(length = 10)
     private UserRole role;
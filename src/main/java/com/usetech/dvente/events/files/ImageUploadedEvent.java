@@ -0,0 +1,18 @@
+package com.usetech.dvente.events.files;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Une image produit ou de galerie a été enregistrée : ses déclinaisons sont générées après commit
+ */
+@Getter
+public class ImageUploadedEvent extends ApplicationEvent {
+
+    private final String imageUrl;
+
+    public ImageUploadedEvent(String imageUrl, Object source) {
+        super(source);
+        this.imageUrl = imageUrl;
+    }
+}
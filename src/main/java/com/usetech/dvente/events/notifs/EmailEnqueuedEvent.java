@@ -0,0 +1,20 @@
+package com.usetech.dvente.events.notifs;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Un email a été ajouté à l'outbox : réveille le dispatcher après commit
+ */
+@Getter
+public class EmailEnqueuedEvent extends ApplicationEvent {
+
+    private final UUID emailId;
+
+    public EmailEnqueuedEvent(UUID emailId, Object source) {
+        super(source);
+        this.emailId = emailId;
+    }
+}
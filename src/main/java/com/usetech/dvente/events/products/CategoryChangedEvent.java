@@ -0,0 +1,19 @@
+package com.usetech.dvente.events.products;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+@Getter
+public class CategoryChangedEvent extends ApplicationEvent {
+
+    private final UUID categoryId;
+    private final boolean removed;
+
+    public CategoryChangedEvent(UUID categoryId, boolean removed, Object source) {
+        super(source);
+        this.categoryId = categoryId;
+        this.removed = removed;
+    }
+}
@@ -0,0 +1,23 @@
+package com.usetech.dvente.events.products;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+@Getter
+public class KeywordChangedEvent extends ApplicationEvent {
+
+    private final UUID keywordId;
+    private final String name;
+    private final boolean popular;
+    private final boolean removed;
+
+    public KeywordChangedEvent(UUID keywordId, String name, boolean popular, boolean removed, Object source) {
+        super(source);
+        this.keywordId = keywordId;
+        this.name = name;
+        this.popular = popular;
+        this.removed = removed;
+    }
+}
@@ -0,0 +1,23 @@
+package com.usetech.dvente.events.products;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+@Getter
+public class ProductChangedEvent extends ApplicationEvent {
+
+    private final UUID productId;
+    private final String name;
+    private final boolean active;
+    private final boolean removed;
+
+    public ProductChangedEvent(UUID productId, String name, boolean active, boolean removed, Object source) {
+        super(source);
+        this.productId = productId;
+        this.name = name;
+        this.active = active;
+        this.removed = removed;
+    }
+}
@@ -0,0 +1,20 @@
+package com.usetech.dvente.events.products;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Modification d'un élément rattaché à un produit (image, avis, association de mots-clés)
+ */
+@Getter
+public class ProductContentChangedEvent extends ApplicationEvent {
+
+    private final UUID productId;
+
+    public ProductContentChangedEvent(UUID productId, Object source) {
+        super(source);
+        this.productId = productId;
+    }
+}
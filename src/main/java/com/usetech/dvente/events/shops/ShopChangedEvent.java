@@ -0,0 +1,20 @@
+package com.usetech.dvente.events.shops;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Une boutique, sa galerie ou son historique d'URL a été modifié
+ */
+@Getter
+public class ShopChangedEvent extends ApplicationEvent {
+
+    private final UUID shopId;
+
+    public ShopChangedEvent(UUID shopId, Object source) {
+        super(source);
+        this.shopId = shopId;
+    }
+}
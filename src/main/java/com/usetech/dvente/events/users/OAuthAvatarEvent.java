@@ -0,0 +1,22 @@
+package com.usetech.dvente.events.users;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Photo de profil reçue du fournisseur OAuth à la connexion : copiée en local après commit
+ */
+@Getter
+public class OAuthAvatarEvent extends ApplicationEvent {
+
+    private final UUID userId;
+    private final String pictureUrl;
+
+    public OAuthAvatarEvent(UUID userId, String pictureUrl, Object source) {
+        super(source);
+        this.userId = userId;
+        this.pictureUrl = pictureUrl;
+    }
+}
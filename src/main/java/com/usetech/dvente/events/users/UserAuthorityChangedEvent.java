@@ -0,0 +1,22 @@
+package com.usetech.dvente.events.users;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Le rôle ou l'identifiant de connexion (email) d'un utilisateur a changé, ou son compte a été
+ * désactivé ou supprimé :
+ * les principaux mis en cache et les claims de ses tokens en cours ne sont plus fiables
+ */
+@Getter
+public class UserAuthorityChangedEvent extends ApplicationEvent {
+
+    private final UUID userId;
+
+    public UserAuthorityChangedEvent(UUID userId, Object source) {
+        super(source);
+        this.userId = userId;
+    }
+}
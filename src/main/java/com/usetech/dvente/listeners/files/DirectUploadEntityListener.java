@@ -0,0 +1,45 @@
+package com.usetech.dvente.listeners.files;
+
+import com.usetech.dvente.entities.products.Product;
+import com.usetech.dvente.entities.products.ProductImage;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA : refuse d'enregistrer un produit ou une image produit qui référence une image
+ * envoyée directement au bucket sans avoir été confirmée (/images/presign/confirm).
+ * Lecture JDBC pour ne pas déclencher de flush pendant celui en cours.
+ */
+@Component
+@RequiredArgsConstructor
+public class DirectUploadEntityListener {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PrePersist
+    @PreUpdate
+    public void onSaving(Object entity) {
+        if (entity instanceof Product product) {
+            requireConfirmed(product.getPrimaryImage());
+        } else if (entity instanceof ProductImage image) {
+            requireConfirmed(image.getImage());
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException si l'image a été signée mais pas confirmée
+     */
+    private void requireConfirmed(String url) {
+        if (url == null || url.isEmpty()) {
+            return;
+        }
+        Integer pending = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM direct_upload WHERE url = ? AND confirmed_at IS NULL", Integer.class, url);
+        if (pending != null && pending > 0) {
+            throw new IllegalArgumentException("Image non confirmée : " + url);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.usetech.dvente.listeners.files;
+
+import com.usetech.dvente.entities.products.Product;
+import com.usetech.dvente.entities.products.ProductImage;
+import com.usetech.dvente.entities.users.ShopGallery;
+import com.usetech.dvente.services.files.ImageVariantStore;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA : renseigne les déclinaisons d'après les fichiers présents sur disque à chaque
+ * écriture d'une image. Couvre le cas courant où l'image est téléversée avant la création du
+ * produit (déclinaisons générées avant que l'entité n'existe) et le changement d'image principale.
+ * Reste null tant que la génération n'a pas eu lieu ; ImageVariantService complète ensuite.
+ */
+@Component
+@RequiredArgsConstructor
+public class ImageVariantEntityListener {
+
+    private final ImageVariantStore imageVariantStore;
+
+    @PrePersist
+    @PreUpdate
+    public void onSaving(Object entity) {
+        if (entity instanceof Product product) {
+            product.setPrimaryImageVariants(imageVariantStore.findExisting(product.getPrimaryImage()));
+        } else if (entity instanceof ProductImage image) {
+            image.setVariants(imageVariantStore.findExisting(image.getImage()));
+        } else if (entity instanceof ShopGallery gallery) {
+            gallery.setVariants(imageVariantStore.findExisting(gallery.getImage()));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.usetech.dvente.listeners.products;
+
+import com.usetech.dvente.entities.products.Category;
+import com.usetech.dvente.entities.products.Keyword;
+import com.usetech.dvente.entities.products.Product;
+import com.usetech.dvente.entities.products.ProductImage;
+import com.usetech.dvente.entities.products.ProductReview;
+import com.usetech.dvente.events.products.CategoryChangedEvent;
+import com.usetech.dvente.events.products.KeywordChangedEvent;
+import com.usetech.dvente.events.products.ProductContentChangedEvent;
+import com.usetech.dvente.events.products.ProductChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA des entités du catalogue : publie un événement Spring à chaque écriture,
+ * quel que soit le code qui modifie le produit, ses images, ses avis, un mot-clé
+ * ou une catégorie. Les consommateurs (index de suggestions, caches, instantané
+ * du catalogue) l'écoutent après commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Object entity) {
+        publish(entity, false);
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        publish(entity, true);
+    }
+
+    private void publish(Object entity, boolean removed) {
+        if (entity instanceof Product product) {
+            eventPublisher.publishEvent(new ProductChangedEvent(
+                    product.getId(),
+                    product.getName(),
+                    Boolean.TRUE.equals(product.getIsActive()),
+                    removed,
+                    this
+            ));
+        } else if (entity instanceof Keyword keyword) {
+            eventPublisher.publishEvent(new KeywordChangedEvent(
+                    keyword.getId(),
+                    keyword.getName(),
+                    keyword.isPopular(),
+                    removed,
+                    this
+            ));
+        } else if (entity instanceof Category category) {
+            eventPublisher.publishEvent(new CategoryChangedEvent(category.getId(), removed, this));
+        } else if (entity instanceof ProductImage image && image.getProduct() != null) {
+            eventPublisher.publishEvent(new ProductContentChangedEvent(image.getProduct().getId(), this));
+        } else if (entity instanceof ProductReview review && review.getProduct() != null) {
+            eventPublisher.publishEvent(new ProductContentChangedEvent(review.getProduct().getId(), this));
+        }
+    }
+}
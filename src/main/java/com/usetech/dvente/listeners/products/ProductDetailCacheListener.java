@@ -0,0 +1,40 @@
+package com.usetech.dvente.listeners.products;
+
+import com.usetech.dvente.configs.CacheConfig;
+import com.usetech.dvente.events.products.KeywordChangedEvent;
+import com.usetech.dvente.events.products.ProductChangedEvent;
+import com.usetech.dvente.events.products.ProductContentChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Invalide le cache des fiches produit après commit, pour qu'une lecture concurrente
+ * ne remette pas en cache l'état d'avant la transaction
+ */
+@Slf4j
+@Component
+public class ProductDetailCacheListener {
+
+    @CacheEvict(value = CacheConfig.PRODUCT_DETAILS, key = "#event.productId")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        log.debug("Fiche produit {} retirée du cache", event.getProductId());
+    }
+
+    @CacheEvict(value = CacheConfig.PRODUCT_DETAILS, key = "#event.productId")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductContentChanged(ProductContentChangedEvent event) {
+        log.debug("Fiche produit {} retirée du cache (image, avis ou mots-clés)", event.getProductId());
+    }
+
+    /**
+     * Un mot-clé renommé apparaît dans toutes les fiches qui l'utilisent
+     */
+    @CacheEvict(value = CacheConfig.PRODUCT_DETAILS, allEntries = true)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onKeywordChanged(KeywordChangedEvent event) {
+        log.debug("Cache des fiches produit vidé (mot-clé {})", event.getName());
+    }
+}
@@ -0,0 +1,23 @@
+package com.usetech.dvente.listeners.shops;
+
+import com.usetech.dvente.configs.CacheConfig;
+import com.usetech.dvente.events.shops.ShopChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Vide l'annuaire des boutiques en cache après commit : une boutique modifiée peut
+ * changer de page (visibilité, statut), toutes les pages sont donc retirées
+ */
+@Slf4j
+@Component
+public class ShopDirectoryCacheListener {
+
+    @CacheEvict(value = CacheConfig.SHOP_DIRECTORY, allEntries = true)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShopChanged(ShopChangedEvent event) {
+        log.debug("Annuaire des boutiques retiré du cache (boutique {})", event.getShopId());
+    }
+}
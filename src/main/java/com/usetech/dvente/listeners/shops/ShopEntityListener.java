@@ -0,0 +1,37 @@
+package com.usetech.dvente.listeners.shops;
+
+import com.usetech.dvente.entities.users.Shop;
+import com.usetech.dvente.entities.users.ShopGallery;
+import com.usetech.dvente.entities.users.ShopUrlHistory;
+import com.usetech.dvente.events.shops.ShopChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA des boutiques, de leurs galeries et de leur historique d'URL : publie
+ * ShopChangedEvent à chaque écriture. Les mises à jour en masse (JPQL UPDATE) ne passent
+ * pas par ici et publient l'événement elles-mêmes.
+ */
+@Component
+@RequiredArgsConstructor
+public class ShopEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChanged(Object entity) {
+        if (entity instanceof Shop shop) {
+            eventPublisher.publishEvent(new ShopChangedEvent(shop.getId(), this));
+        } else if (entity instanceof ShopGallery gallery && gallery.getShop() != null) {
+            eventPublisher.publishEvent(new ShopChangedEvent(gallery.getShop().getId(), this));
+        } else if (entity instanceof ShopUrlHistory history && history.getShop() != null) {
+            eventPublisher.publishEvent(new ShopChangedEvent(history.getShop().getId(), this));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.usetech.dvente.listeners.users;
+
+import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.events.users.UserAuthorityChangedEvent;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA des utilisateurs : un compte désactivé ou supprimé publie
+ * UserAuthorityChangedEvent pour que ses principaux JWT en cache soient purgés
+ */
+@Component
+@RequiredArgsConstructor
+public class UserEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostUpdate
+    public void onUpdated(User user) {
+        if (!user.isEnabled()) {
+            eventPublisher.publishEvent(new UserAuthorityChangedEvent(user.getId(), this));
+        }
+    }
+
+    @PostRemove
+    public void onRemoved(User user) {
+        eventPublisher.publishEvent(new UserAuthorityChangedEvent(user.getId(), this));
+    }
+}
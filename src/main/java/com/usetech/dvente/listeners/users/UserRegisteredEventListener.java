@@ -3,7 +3,6 @@ package com.usetech.dvente.listeners.users;
 import com.usetech.dvente.events.users.UserRegisteredEvent;
 import com.usetech.dvente.services.notifs.EmailService;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -15,7 +14,7 @@ public class UserRegisteredEventListener {
     }
 
 
-    @Async
+    // Synchrone : l'ajout à l'outbox est immédiat, l'envoi SMTP reste en arrière-plan
     @EventListener
     public void onUserRegistered(UserRegisteredEvent event) {
         emailService.sendWelcomeEmail(event.getUser());
@@ -2,11 +2,15 @@ package com.usetech.dvente.repositories;
 
 import com.usetech.dvente.entities.users.User;
 import com.usetech.dvente.entities.users.UserRole;
+import com.usetech.dvente.repositories.notifs.BulkRecipientRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -25,6 +29,12 @@ public interface UserRepository extends JpaRepository<User, UUID> {
      */
     Optional<User> findByPhone(String phone);
 
+    /**
+     * Statut du compte (actif ou non), vide si l'utilisateur n'existe plus
+     */
+    @Query("SELECT u.isActive FROM User u WHERE u.id = :userId")
+    Optional<Boolean> findActiveById(UUID userId);
+
     @Modifying
     @Query("UPDATE User u SET u.email = :email WHERE u.id = :userId")
     void updateUserEmail(UUID userId, String email);
@@ -37,4 +47,16 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     @Modifying
     @Query("UPDATE User u SET u.role = :role where u.id = :userId")
     void updateUserRole(UserRole role, UUID userId);
-}
\ No newline at end of file
+
+    /**
+     * Page suivante de destinataires d'une campagne (pagination par clé sur l'id)
+     * @param after id du dernier destinataire de la page précédente
+     * @param roles rôles ciblés
+     */
+    @Query("SELECT new com.usetech.dvente.repositories.notifs.BulkRecipientRow(u.id, u.email, u.name) FROM User u " +
+            "WHERE u.id > :after AND u.isActive = true AND u.email IS NOT NULL AND u.role IN :roles ORDER BY u.id")
+    List<BulkRecipientRow> findBulkRecipients(UUID after, Collection<UserRole> roles, Pageable pageable);
+
+    @Query("SELECT COUNT(u) FROM User u WHERE u.isActive = true AND u.email IS NOT NULL AND u.role IN :roles")
+    long countBulkRecipients(Collection<UserRole> roles);
+}
@@ -0,0 +1,9 @@
+package com.usetech.dvente.repositories.analytics;
+
+import java.util.UUID;
+
+/**
+ * Ligne de classement : une boutique ou un produit et ses vues sur la période
+ */
+public record ViewRankRow(UUID targetId, Long views) {
+}
@@ -0,0 +1,91 @@
+package com.usetech.dvente.repositories.analytics;
+
+import com.usetech.dvente.entities.analytics.RollupGranularity;
+import com.usetech.dvente.entities.analytics.ViewRollup;
+import com.usetech.dvente.entities.analytics.ViewTarget;
+import com.usetech.dvente.entities.users.Shop;
+import com.usetech.dvente.entities.users.ShopStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ViewRollupRepository extends JpaRepository<ViewRollup, Long> {
+
+    /**
+     * Boutiques visibles au statut donné les plus vues depuis une date, limitées par le Pageable
+     */
+    @Query("""
+            SELECT new com.usetech.dvente.repositories.analytics.ViewRankRow(r.targetId, SUM(r.views))
+            FROM ViewRollup r JOIN Shop s ON s.id = r.targetId
+            WHERE r.target = com.usetech.dvente.services.analytics.ViewTarget.SHOP
+              AND r.granularity = :granularity AND r.bucketStart >= :since
+              AND s.visible = true AND s.status = :status
+            GROUP BY r.targetId
+            ORDER BY SUM(r.views) DESC, r.targetId
+            """)
+    List<ViewRankRow> rankShops(@Param("granularity") RollupGranularity granularity,
+                                @Param("since") LocalDateTime since,
+                                @Param("status") ShopStatus status,
+                                Pageable pageable);
+
+    /**
+     * Produits actifs les plus vus depuis une date, limités par le Pageable
+     */
+    @Query("""
+            SELECT new com.usetech.dvente.repositories.analytics.ViewRankRow(r.targetId, SUM(r.views))
+            FROM ViewRollup r JOIN Product p ON p.id = r.targetId
+            WHERE r.target = com.usetech.dvente.services.analytics.ViewTarget.PRODUCT
+              AND r.granularity = :granularity AND r.bucketStart >= :since
+              AND p.isActive = true
+            GROUP BY r.targetId
+            ORDER BY SUM(r.views) DESC, r.targetId
+            """)
+    List<ViewRankRow> rankProducts(@Param("granularity") RollupGranularity granularity,
+                                   @Param("since") LocalDateTime since,
+                                   Pageable pageable);
+
+    /**
+     * Compteurs journaliers d'une boutique ou d'un produit sur une période
+     */
+    @Query("""
+            SELECT r FROM ViewRollup r
+            WHERE r.target = :target AND r.granularity = com.usetech.dvente.entities.analytics.RollupGranularity.DAY
+              AND r.targetId = :targetId AND r.bucketStart >= :from AND r.bucketStart < :until
+            ORDER BY r.bucketStart
+            """)
+    List<ViewRollup> findDaily(@Param("target") ViewTarget target,
+                               @Param("targetId") UUID targetId,
+                               @Param("from") LocalDateTime from,
+                               @Param("until") LocalDateTime until);
+
+    /**
+     * Produits d'une boutique les plus vus sur une période (compteurs journaliers)
+     */
+    @Query("""
+            SELECT new com.usetech.dvente.repositories.analytics.ViewRankRow(r.targetId, SUM(r.views))
+            FROM ViewRollup r JOIN Product p ON p.id = r.targetId
+            WHERE r.target = com.usetech.dvente.services.analytics.ViewTarget.PRODUCT
+              AND r.granularity = com.usetech.dvente.entities.analytics.RollupGranularity.DAY
+              AND r.bucketStart >= :from AND r.bucketStart < :until
+              AND p.shopAuthor = :shop
+            GROUP BY r.targetId
+            ORDER BY SUM(r.views) DESC, r.targetId
+            """)
+    List<ViewRankRow> rankShopProducts(@Param("shop") Shop shop,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("until") LocalDateTime until,
+                                       Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM ViewRollup r WHERE r.granularity = :granularity AND r.bucketStart < :before")
+    int deleteByGranularityBefore(@Param("granularity") RollupGranularity granularity,
+                                  @Param("before") LocalDateTime before);
+}
@@ -0,0 +1,32 @@
+package com.usetech.dvente.repositories.analytics;
+
+import com.usetech.dvente.entities.analytics.ViewTarget;
+import com.usetech.dvente.entities.analytics.VisitorSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface VisitorSketchRepository extends JpaRepository<VisitorSketch, Long> {
+
+    @Query("""
+            SELECT v FROM VisitorSketch v
+            WHERE v.target = :target AND v.targetId IN :targetIds AND v.day BETWEEN :from AND :to
+            ORDER BY v.day
+            """)
+    List<VisitorSketch> findForPeriod(@Param("target") ViewTarget target,
+                                      @Param("targetIds") Collection<UUID> targetIds,
+                                      @Param("from") LocalDate from,
+                                      @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM VisitorSketch v WHERE v.day < :before")
+    int deleteByDayBefore(@Param("before") LocalDate before);
+}
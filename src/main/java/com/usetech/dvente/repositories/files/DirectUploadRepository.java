@@ -0,0 +1,24 @@
+package com.usetech.dvente.repositories.files;
+
+import com.usetech.dvente.entities.files.DirectUpload;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DirectUploadRepository extends JpaRepository<DirectUpload, UUID> {
+
+    Optional<DirectUpload> findByUrl(String url);
+
+    /**
+     * Uploads jamais confirmés, signés avant la date donnée
+     */
+    @Query("SELECT d FROM DirectUpload d WHERE d.confirmedAt IS NULL AND d.createdAt < :before ORDER BY d.createdAt")
+    List<DirectUpload> findUnconfirmedBefore(LocalDateTime before, Pageable pageable);
+}
@@ -0,0 +1,88 @@
+package com.usetech.dvente.repositories.files;
+
+import com.usetech.dvente.entities.files.FileBlob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, UUID> {
+
+    /**
+     * Union des colonnes qui référencent un fichier uploadé
+     */
+    String REFERENCES = "(SELECT primary_image AS url FROM product " +
+            "UNION ALL SELECT image FROM product_image " +
+            "UNION ALL SELECT image FROM shop_gallery " +
+            "UNION ALL SELECT avatar FROM users " +
+            "UNION ALL SELECT logo FROM shop " +
+            "UNION ALL SELECT ifu_document FROM shop " +
+            "UNION ALL SELECT rcm_document FROM shop) refs";
+
+    Optional<FileBlob> findBySha256(String sha256);
+
+    Optional<FileBlob> findByUrl(String url);
+
+    /**
+     * Ligne d'un fichier verrouillée jusqu'à la fin de la transaction (attend un addReference en cours)
+     */
+    @Query(value = "SELECT * FROM file_blob WHERE url = :url FOR UPDATE", nativeQuery = true)
+    Optional<FileBlob> lockByUrl(String url);
+
+    /**
+     * Ajoute une référence, en créant la ligne au premier upload du contenu ;
+     * un contenu en cours de purge redevient référencé (la pierre tombale est levée)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO file_blob (id, sha256, url, size, content_type, ref_count, created_at, updated_at) " +
+            "VALUES (gen_random_uuid(), :sha256, :url, :size, :contentType, 1, now(), now()) " +
+            "ON CONFLICT (sha256) DO UPDATE SET ref_count = file_blob.ref_count + 1, updated_at = now(), " +
+            "purging_since = NULL",
+            nativeQuery = true)
+    int addReference(String sha256, String url, long size, String contentType);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount - 1, b.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE b.url = :url AND b.refCount > 0")
+    int removeReference(String url);
+
+    /**
+     * Fichiers sans référence depuis before, verrouillés pour la purge ; une pierre tombale
+     * n'est reprise que si sa purge n'a pas abouti depuis before
+     */
+    @Query(value = "SELECT * FROM file_blob WHERE ref_count <= 0 AND updated_at < :before " +
+            "AND (purging_since IS NULL OR purging_since < :before) " +
+            "ORDER BY updated_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<FileBlob> lockUnreferenced(LocalDateTime before, int limit);
+
+    @Query(value = "SELECT COUNT(*) FROM " + REFERENCES + " WHERE url = :url", nativeQuery = true)
+    long countReferences(String url);
+
+    /**
+     * Nombre de références par URL du stockage adressé par contenu
+     * @return lignes [url, nombre]
+     */
+    @Query(value = "SELECT url, COUNT(*) FROM " + REFERENCES + " WHERE url LIKE :prefix GROUP BY url", nativeQuery = true)
+    List<Object[]> countReferencesByUrl(String prefix);
+
+    /**
+     * Page de fichiers non modifiés depuis before, triée par id à partir de afterId exclu
+     */
+    @Query("SELECT b FROM FileBlob b WHERE b.updatedAt < :before AND b.id > :afterId ORDER BY b.id")
+    List<FileBlob> findPageUpdatedBefore(LocalDateTime before, UUID afterId, Limit limit);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.purgingSince = CURRENT_TIMESTAMP WHERE b.id = :id")
+    int markPurging(UUID id);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.refCount = :refCount WHERE b.id = :id")
+    int updateRefCount(UUID id, int refCount);
+}
@@ -0,0 +1,15 @@
+package com.usetech.dvente.repositories.notifs;
+
+import com.usetech.dvente.entities.notifs.BulkNotificationFailure;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface BulkNotificationFailureRepository extends JpaRepository<BulkNotificationFailure, UUID> {
+
+    Page<BulkNotificationFailure> findByNotificationIdOrderByCreatedAtDesc(UUID notificationId, Pageable pageable);
+}
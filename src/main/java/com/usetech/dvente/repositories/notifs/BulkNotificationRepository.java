@@ -0,0 +1,87 @@
+package com.usetech.dvente.repositories.notifs;
+
+import com.usetech.dvente.entities.notifs.BulkNotification;
+import com.usetech.dvente.entities.notifs.BulkNotificationStatus;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface BulkNotificationRepository extends JpaRepository<BulkNotification, UUID> {
+
+    Page<BulkNotification> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    @Query("SELECT b.status FROM BulkNotification b WHERE b.id = :id")
+    BulkNotificationStatus findStatusById(UUID id);
+
+    /**
+     * Campagnes en cours que l'instance peut prendre : libres, déjà à elle, ou dont le bail a expiré
+     */
+    @Query("SELECT b FROM BulkNotification b " +
+            "WHERE b.status = com.usetech.dvente.entities.notifs.BulkNotificationStatus.RUNNING " +
+            "AND (b.owner IS NULL OR b.owner = :owner OR b.heartbeatAt < :stale) ORDER BY b.createdAt")
+    List<BulkNotification> findClaimable(String owner, LocalDateTime stale);
+
+    /**
+     * Prend (ou renouvelle) le bail d'une campagne en cours
+     * @return 0 si une autre instance la détient encore
+     */
+    @Modifying
+    @Query("UPDATE BulkNotification b SET b.owner = :owner, b.heartbeatAt = :now " +
+            "WHERE b.id = :id AND b.status = com.usetech.dvente.entities.notifs.BulkNotificationStatus.RUNNING " +
+            "AND (b.owner IS NULL OR b.owner = :owner OR b.heartbeatAt < :stale)")
+    int claim(UUID id, String owner, LocalDateTime now, LocalDateTime stale);
+
+    /**
+     * Renouvelle le bail pendant l'envoi d'une page
+     * @return 0 si le bail a été repris par une autre instance
+     */
+    @Modifying
+    @Query("UPDATE BulkNotification b SET b.heartbeatAt = :now WHERE b.id = :id AND b.owner = :owner")
+    int renewLease(UUID id, String owner, LocalDateTime now);
+
+    /**
+     * Ajoute la progression d'une page sans écraser le statut (annulation concurrente) et
+     * renouvelle le bail
+     * @return 0 si le bail a été repris par une autre instance
+     */
+    @Modifying
+    @Query("UPDATE BulkNotification b SET b.sent = b.sent + :sent, b.failed = b.failed + :failed, " +
+            "b.lastRecipientId = :cursor, b.heartbeatAt = :now WHERE b.id = :id AND b.owner = :owner")
+    int addProgress(UUID id, String owner, long sent, long failed, UUID cursor, LocalDateTime now);
+
+    /**
+     * Ajoute les messages envoyés par une instance qui a perdu le bail en cours de page, sans
+     * toucher au curseur ni au bail de l'instance qui l'a repris
+     */
+    @Modifying
+    @Query("UPDATE BulkNotification b SET b.sent = b.sent + :sent, b.failed = b.failed + :failed WHERE b.id = :id")
+    int addCounts(UUID id, long sent, long failed);
+
+    /**
+     * Passe une campagne en cours dans son statut final, si l'instance détient encore le bail
+     * @return 0 si la campagne n'était plus en cours ou a été reprise par une autre instance
+     */
+    @Modifying
+    @Query("UPDATE BulkNotification b SET b.status = :status, b.finishedAt = :finishedAt " +
+            "WHERE b.id = :id AND b.owner = :owner " +
+            "AND b.status = com.usetech.dvente.entities.notifs.BulkNotificationStatus.RUNNING")
+    int finish(UUID id, String owner, BulkNotificationStatus status, LocalDateTime finishedAt);
+
+    /**
+     * Annulation par un administrateur, quelle que soit l'instance qui envoie la campagne
+     * @return 0 si la campagne n'était plus en cours
+     */
+    @Modifying
+    @Query("UPDATE BulkNotification b SET b.status = com.usetech.dvente.entities.notifs.BulkNotificationStatus.CANCELLED, " +
+            "b.finishedAt = :finishedAt " +
+            "WHERE b.id = :id AND b.status = com.usetech.dvente.entities.notifs.BulkNotificationStatus.RUNNING")
+    int cancel(UUID id, LocalDateTime finishedAt);
+}
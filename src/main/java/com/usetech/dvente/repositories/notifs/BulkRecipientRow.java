@@ -0,0 +1,14 @@
+package com.usetech.dvente.repositories.notifs;
+
+import java.util.UUID;
+
+/**
+ * Destinataire d'une campagne, projeté sans charger les entités.
+ * Pour une audience de boutiques, id est celui de la boutique et email celui de la boutique.
+ */
+public record BulkRecipientRow(UUID id, String email, String name, String shopName, String shopUrl) {
+
+    public BulkRecipientRow(UUID id, String email, String name) {
+        this(id, email, name, null, null);
+    }
+}
@@ -0,0 +1,44 @@
+package com.usetech.dvente.repositories.notifs;
+
+import com.usetech.dvente.entities.notifs.EmailOutbox;
+import com.usetech.dvente.entities.notifs.EmailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID> {
+
+    /**
+     * Verrouille un lot d'emails dus ; SKIP LOCKED laisse les lignes déjà prises
+     * aux autres instances, qui traitent ainsi des lots disjoints
+     */
+    @Query(value = """
+            SELECT * FROM email_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= :now
+            ORDER BY next_attempt_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<EmailOutbox> lockDueBatch(LocalDateTime now, int limit);
+
+    long countByStatus(EmailOutboxStatus status);
+
+    /**
+     * Remet en file les emails restés en cours d'envoi (instance arrêtée pendant un lot)
+     */
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = com.usetech.dvente.entities.notifs.EmailOutboxStatus.PENDING " +
+            "WHERE e.status = com.usetech.dvente.entities.notifs.EmailOutboxStatus.SENDING AND e.updatedAt < :before")
+    int releaseStuck(LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = com.usetech.dvente.entities.notifs.EmailOutboxStatus.SENT " +
+            "AND e.sentAt < :before")
+    int deleteSentBefore(LocalDateTime before);
+}
@@ -0,0 +1,23 @@
+package com.usetech.dvente.repositories.products;
+
+import com.usetech.dvente.entities.products.ProductImage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ProductImageRepository extends JpaRepository<ProductImage, UUID> {
+
+    List<ProductImage> findByImage(String image);
+
+    /**
+     * Images sans déclinaisons, par URL croissante (pagination par clé)
+     */
+    @Query("SELECT DISTINCT i.image FROM ProductImage i " +
+            "WHERE i.image > :after AND i.variants IS NULL ORDER BY i.image")
+    List<String> findImagesWithoutVariants(String after, Pageable pageable);
+}
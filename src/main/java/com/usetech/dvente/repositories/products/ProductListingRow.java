@@ -0,0 +1,17 @@
+package com.usetech.dvente.repositories.products;
+
+import com.usetech.dvente.entities.products.Product;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Projection du listing public : le produit (catégorie et boutique chargées)
+ * et son nombre d'avis, récupérés en une seule requête
+ */
+@Getter
+@AllArgsConstructor
+public class ProductListingRow {
+
+    private final Product product;
+    private final Long reviewCount;
+}
@@ -3,47 +3,219 @@ package com.usetech.dvente.repositories.products;
 import com.usetech.dvente.entities.products.Product;
 import com.usetech.dvente.entities.users.Shop;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, UUID> {
 
+    List<Product> findByPrimaryImage(String primaryImage);
+
+    /**
+     * Images principales sans déclinaisons, par URL croissante (pagination par clé)
+     */
+    @Query("SELECT DISTINCT p.primaryImage FROM Product p " +
+            "WHERE p.primaryImage > :after AND p.primaryImageVariants IS NULL ORDER BY p.primaryImage")
+    List<String> findPrimaryImagesWithoutVariants(@Param("after") String after, Pageable pageable);
+
+    /**
+     * Filtres communs de la recherche plein texte (colonne search_vector, index GIN)
+     */
+    String SEARCH_FILTERS = """
+        FROM product p
+        WHERE p.is_active = true
+          AND p.search_vector @@ websearch_to_tsquery('dvente_fr', :q)
+          AND (CAST(:categoryId AS uuid) IS NULL OR p.category_id = CAST(:categoryId AS uuid))
+          AND (CAST(:shopId AS uuid) IS NULL OR p.shop_id = CAST(:shopId AS uuid))
+          AND (CAST(:minPrice AS numeric) IS NULL OR p.price >= CAST(:minPrice AS numeric))
+          AND (CAST(:maxPrice AS numeric) IS NULL OR p.price <= CAST(:maxPrice AS numeric))
+    """;
+
     /**
-     * Récupère les produits actifs avec pagination
-     * Utilise JOIN FETCH pour éviter le problème N+1
+     * Listing public : produits actifs avec catégorie, boutique et nombre d'avis
+     * en une seule requête (plus de COUNT par produit). Tranche sans COUNT du total,
+     * demandé à part par le service (with_total)
+     */
+    @Query(value = """
+        SELECT new com.usetech.dvente.repositories.products.ProductListingRow(
+            p,
+            (SELECT COUNT(r) FROM ProductReview r WHERE r.product = p)
+        )
+        FROM Product p
+        LEFT JOIN FETCH p.category
+        LEFT JOIN FETCH p.shopAuthor
+        WHERE p.isActive = true
+        ORDER BY p.createdAt DESC, p.id
+    """)
+    Slice<ProductListingRow> findActiveProductListing(Pageable pageable);
+
+    /**
+     * Listing public filtré par catégorie, même projection que {@link #findActiveProductListing}
+     */
+    @Query(value = """
+        SELECT new com.usetech.dvente.repositories.products.ProductListingRow(
+            p,
+            (SELECT COUNT(r) FROM ProductReview r WHERE r.product = p)
+        )
+        FROM Product p
+        LEFT JOIN FETCH p.category c
+        LEFT JOIN FETCH p.shopAuthor
+        WHERE p.isActive = true AND c.id = :categoryId
+        ORDER BY p.createdAt DESC, p.id
+    """)
+    Slice<ProductListingRow> findActiveProductListingByCategory(
+            @Param("categoryId") UUID categoryId,
+            Pageable pageable
+    );
+
+    /**
+     * Listing public par clé : produits actifs situés après (createdAt, id).
+     * Le Pageable ne sert qu'à limiter le nombre de lignes, sans OFFSET ni COUNT
      */
     @Query("""
-        SELECT DISTINCT p FROM Product p
+        SELECT new com.usetech.dvente.repositories.products.ProductListingRow(
+            p,
+            (SELECT COUNT(r) FROM ProductReview r WHERE r.product = p)
+        )
+        FROM Product p
         LEFT JOIN FETCH p.category
         LEFT JOIN FETCH p.shopAuthor
         WHERE p.isActive = true
-        ORDER BY p.createdAt DESC
+          AND p.createdAt <= :createdAt
+          AND (p.createdAt < :createdAt OR p.id > :id)
+        ORDER BY p.createdAt DESC, p.id
     """)
-    Page<Product> findAllActiveProducts(Pageable pageable);
+    List<ProductListingRow> findActiveProductListingAfter(
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable limit
+    );
 
     /**
-     * Récupère les produits actifs par catégorie avec pagination
+     * Variante par clé filtrée par catégorie de {@link #findActiveProductListingByCategory}
      */
     @Query("""
-        SELECT DISTINCT p FROM Product p
+        SELECT new com.usetech.dvente.repositories.products.ProductListingRow(
+            p,
+            (SELECT COUNT(r) FROM ProductReview r WHERE r.product = p)
+        )
+        FROM Product p
         LEFT JOIN FETCH p.category c
         LEFT JOIN FETCH p.shopAuthor
         WHERE p.isActive = true AND c.id = :categoryId
-        ORDER BY p.createdAt DESC
+          AND p.createdAt <= :createdAt
+          AND (p.createdAt < :createdAt OR p.id > :id)
+        ORDER BY p.createdAt DESC, p.id
     """)
-    Page<Product> findActiveProductsByCategory(
+    List<ProductListingRow> findActiveProductListingByCategoryAfter(
             @Param("categoryId") UUID categoryId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable limit
+    );
+
+    /**
+     * Compte les produits actifs (uniquement si le client demande le total)
+     */
+    long countByIsActiveTrue();
+
+    /**
+     * Compte les produits actifs d'une catégorie
+     */
+    long countByIsActiveTrueAndCategory_Id(UUID categoryId);
+
+    /**
+     * Recherche plein texte : page d'IDs classés par pertinence
+     */
+    @Query(value = "SELECT p.id " + SEARCH_FILTERS + """
+        ORDER BY ts_rank_cd(p.search_vector, websearch_to_tsquery('dvente_fr', :q)) DESC, p.id
+    """, countQuery = "SELECT COUNT(*) " + SEARCH_FILTERS, nativeQuery = true)
+    Page<UUID> searchProductIds(
+            @Param("q") String query,
+            @Param("categoryId") UUID categoryId,
+            @Param("shopId") UUID shopId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice,
             Pageable pageable
     );
 
+    /**
+     * Facette catégories de la recherche : [category_id, nombre de produits]
+     */
+    @Query(value = "SELECT p.category_id, COUNT(*) " + SEARCH_FILTERS + """
+        GROUP BY p.category_id
+        ORDER BY COUNT(*) DESC
+    """, nativeQuery = true)
+    List<Object[]> searchCategoryFacets(
+            @Param("q") String query,
+            @Param("categoryId") UUID categoryId,
+            @Param("shopId") UUID shopId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice
+    );
+
+    /**
+     * Facette boutiques de la recherche (20 premières) : [shop_id, nombre de produits]
+     */
+    @Query(value = "SELECT p.shop_id, COUNT(*) " + SEARCH_FILTERS + """
+        GROUP BY p.shop_id
+        ORDER BY COUNT(*) DESC
+        LIMIT 20
+    """, nativeQuery = true)
+    List<Object[]> searchShopFacets(
+            @Param("q") String query,
+            @Param("categoryId") UUID categoryId,
+            @Param("shopId") UUID shopId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice
+    );
+
+    /**
+     * Facette prix de la recherche : [prix minimum, prix maximum]
+     */
+    @Query(value = "SELECT MIN(p.price), MAX(p.price) " + SEARCH_FILTERS, nativeQuery = true)
+    List<Object[]> searchPriceRange(
+            @Param("q") String query,
+            @Param("categoryId") UUID categoryId,
+            @Param("shopId") UUID shopId,
+            @Param("minPrice") BigDecimal minPrice,
+            @Param("maxPrice") BigDecimal maxPrice
+    );
+
+    /**
+     * Noms des produits actifs avec leur nombre d'occurrences : [nom, nombre]
+     * (source de l'index d'autocomplétion)
+     */
+    @Query("SELECT p.name, COUNT(p) FROM Product p WHERE p.isActive = true GROUP BY p.name")
+    List<Object[]> findActiveProductNameCounts();
+
+    /**
+     * Nombre de produits actifs par mot-clé : [nom du mot-clé, nombre]
+     */
+    @Query("""
+        SELECT k.name, COUNT(p) FROM Product p
+        JOIN p.keywords k
+        WHERE p.isActive = true
+        GROUP BY k.name
+    """)
+    List<Object[]> findKeywordUsageCounts();
+
     /**
      * Compte le nombre d'avis pour un produit
      */
@@ -51,31 +223,55 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
     Long countReviewsByProductId(@Param("productId") UUID productId);
 
     /**
-     * Récupère un produit avec toutes ses relations (optimisé pour éviter N+1)
+     * Récupère un produit avec catégorie, boutique et images (optimisé pour éviter N+1).
+     * Les mots-clés ne sont pas joints : deux collections List (bags) dans la même
+     * requête lèvent une MultipleBagFetchException ; ils sont chargés par une requête dédiée.
      */
     @Query("""
         SELECT DISTINCT p FROM Product p
         LEFT JOIN FETCH p.category
         LEFT JOIN FETCH p.shopAuthor
         LEFT JOIN FETCH p.otherImages
-        LEFT JOIN FETCH p.keywords
         WHERE p.id = :productId
     """)
     Optional<Product> findProductWithDetails(@Param("productId") UUID productId);
 
 
     /**
-     * Trouve tous les produits d'un marchand avec pagination et optimisation N+1
+     * Trouve tous les produits d'un marchand avec pagination et optimisation N+1.
+     * Pagination en deux temps : une page d'IDs limitée en base, puis le graphe
+     * (catégorie, boutique, images) des seuls produits de cette page. Un JOIN FETCH
+     * sur une collection combiné à un Pageable paginerait en mémoire (HHH90003004).
+     */
+    default Page<Product> findByShopAuthorWithDetails(Shop shop, Pageable pageable) {
+        Page<UUID> ids = findIdsByShopAuthor(shop, pageable);
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        return orderedPage(ids, findAllWithDetailsByIdIn(ids.getContent()));
+    }
+
+    /**
+     * Page d'IDs des produits d'un marchand (premier temps de la pagination)
+     */
+    @Query(value = """
+        SELECT p.id FROM Product p
+        WHERE p.shopAuthor = :shop
+        ORDER BY p.createdAt DESC, p.id DESC
+    """, countQuery = "SELECT COUNT(p) FROM Product p WHERE p.shopAuthor = :shop")
+    Page<UUID> findIdsByShopAuthor(@Param("shop") Shop shop, Pageable pageable);
+
+    /**
+     * Charge le graphe complet d'une page de produits (second temps de la pagination)
      */
     @Query("""
         SELECT DISTINCT p FROM Product p
         LEFT JOIN FETCH p.category
         LEFT JOIN FETCH p.shopAuthor
         LEFT JOIN FETCH p.otherImages
-        WHERE p.shopAuthor = :shop
-        ORDER BY p.createdAt DESC
+        WHERE p.id IN :ids
     """)
-    Page<Product> findByShopAuthorWithDetails(@Param("shop") Shop shop, Pageable pageable);
+    List<Product> findAllWithDetailsByIdIn(@Param("ids") Collection<UUID> ids);
 
     /**
      * Compte le total des produits pour un marchand
@@ -124,4 +320,17 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
             String name,
             Pageable pageable
     );
-}
\ No newline at end of file
+
+    /**
+     * Remet les produits chargés dans l'ordre de la page d'IDs
+     */
+    private static Page<Product> orderedPage(Page<UUID> ids, List<Product> products) {
+        Map<UUID, Product> byId = products.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> content = ids.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, ids.getPageable(), ids.getTotalElements());
+    }
+}
@@ -2,9 +2,13 @@ package com.usetech.dvente.repositories.shops;
 
 import com.usetech.dvente.entities.users.Shop;
 import com.usetech.dvente.entities.users.ShopGallery;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,4 +21,19 @@ public interface ShopGalleryRepository extends JpaRepository<ShopGallery, UUID>
 
     List<ShopGallery> findByShopIdOrderByCreatedAtDesc(UUID shopId);
 
+    List<ShopGallery> findByImage(String image);
+
+    /**
+     * Galeries de plusieurs boutiques en une requête, les plus récentes d'abord
+     */
+    @Query("SELECT g FROM ShopGallery g WHERE g.shop.id IN :shopIds ORDER BY g.createdAt DESC")
+    List<ShopGallery> findByShopIds(@Param("shopIds") Collection<UUID> shopIds);
+
+    /**
+     * Images sans déclinaisons, par URL croissante (pagination par clé)
+     */
+    @Query("SELECT DISTINCT g.image FROM ShopGallery g " +
+            "WHERE g.image > :after AND g.variants IS NULL ORDER BY g.image")
+    List<String> findImagesWithoutVariants(String after, Pageable pageable);
+
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ package com.usetech.dvente.repositories.shops;
 import com.usetech.dvente.entities.users.Shop;
 import com.usetech.dvente.entities.users.ShopStatus;
 import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.repositories.notifs.BulkRecipientRow;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -101,6 +102,13 @@ public interface ShopRepository extends JpaRepository<Shop, UUID> {
      */
     long countByStatus(ShopStatus status);
 
+    /**
+     * Page de l'annuaire public : boutiques visibles au statut donné, les plus récentes d'abord
+     */
+    @Query(value = "SELECT s FROM Shop s WHERE s.visible = true AND s.status = :status ORDER BY s.createdAt DESC, s.id",
+            countQuery = "SELECT COUNT(s) FROM Shop s WHERE s.visible = true AND s.status = :status")
+    Page<Shop> findDirectoryPage(@Param("status") ShopStatus status, Pageable pageable);
+
     /**
      * Trouve les boutiques avec un taux de complétion minimum
      * Note: Cette méthode nécessite une logique personnalisée dans le service
@@ -108,15 +116,6 @@ public interface ShopRepository extends JpaRepository<Shop, UUID> {
     @Query("SELECT s FROM Shop s WHERE s.visible = true ORDER BY s.createdAt DESC")
     List<Shop> findAllVisibleOrderByNewest();
 
-    /**
-     * Trouve les boutiques les plus populaires (par nombre de vues)
-     */
-    @Query("SELECT s FROM Shop s LEFT JOIN s.views v " +
-            "WHERE s.visible = true AND s.status = 'ACTIVE' " +
-            "GROUP BY s.id " +
-            "ORDER BY COUNT(v) DESC")
-    List<Shop> findMostPopularShops();
-
     /**
      * Recherche avancée de boutiques
      */
@@ -155,4 +154,18 @@ public interface ShopRepository extends JpaRepository<Shop, UUID> {
     @Query("UPDATE Shop s SET s.status = :shopStatus WHERE s.id = :shopId")
     @Modifying()
     void updateShopStatus(UUID shopId, ShopStatus shopStatus);
-}
\ No newline at end of file
+
+    /**
+     * Page suivante de boutiques destinataires d'une campagne (pagination par clé sur l'id),
+     * email de la boutique à défaut celui du marchand
+     */
+    @Query("SELECT new com.usetech.dvente.repositories.notifs.BulkRecipientRow(" +
+            "s.id, COALESCE(s.email, u.email), u.name, s.shopName, s.shopUrl) " +
+            "FROM Shop s JOIN s.user u " +
+            "WHERE s.id > :after AND s.status = :status AND COALESCE(s.email, u.email) IS NOT NULL ORDER BY s.id")
+    List<BulkRecipientRow> findBulkRecipients(@Param("after") UUID after, @Param("status") ShopStatus status, Pageable pageable);
+
+    @Query("SELECT COUNT(s) FROM Shop s JOIN s.user u " +
+            "WHERE s.status = :status AND COALESCE(s.email, u.email) IS NOT NULL")
+    long countBulkRecipients(@Param("status") ShopStatus status);
+}
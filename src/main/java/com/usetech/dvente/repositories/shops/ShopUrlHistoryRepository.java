@@ -3,8 +3,12 @@ package com.usetech.dvente.repositories.shops;
 import com.usetech.dvente.entities.users.Shop;
 import com.usetech.dvente.entities.users.ShopUrlHistory;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -14,4 +18,11 @@ public interface ShopUrlHistoryRepository extends JpaRepository<ShopUrlHistory,
     Optional<ShopUrlHistory> findFirstByShopOrderByChangedAtDesc(Shop shop);
 
     Optional<ShopUrlHistory> findFirstByShop_IdOrderByChangedAtDesc(UUID shopId);
+
+    /**
+     * Dernier changement d'URL de chacune des boutiques, en une requête
+     */
+    @Query("SELECT h FROM ShopUrlHistory h WHERE h.shop.id IN :shopIds AND h.changedAt = " +
+            "(SELECT MAX(h2.changedAt) FROM ShopUrlHistory h2 WHERE h2.shop.id = h.shop.id)")
+    List<ShopUrlHistory> findLatestByShopIds(@Param("shopIds") Collection<UUID> shopIds);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.usetech.dvente.requests.analytics;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+public class TrackViewRequest {
+
+    /**
+     * shop ou product
+     */
+    @NotBlank(message = "Le type est obligatoire")
+    private String type;
+
+    @NotNull(message = "L'identifiant est obligatoire")
+    private UUID id;
+}
@@ -0,0 +1,28 @@
+package com.usetech.dvente.requests.notifs;
+
+import com.usetech.dvente.entities.notifs.BulkAudience;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+public class BulkNotificationRequest {
+
+    @NotNull(message = "L'audience est obligatoire")
+    private BulkAudience audience;
+
+    @NotBlank(message = "Le sujet ne peut pas être vide")
+    private String subject;
+
+    /**
+     * Template sous templates/emails, emails/announcement par défaut
+     */
+    private String template;
+
+    /**
+     * Variables communes à tous les destinataires (ex. title, message pour emails/announcement)
+     */
+    private Map<String, Object> variables;
+}
@@ -0,0 +1,14 @@
+package com.usetech.dvente.requests.products;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+@Data
+public class ConfirmImageUploadRequest {
+
+    /**
+     * Chemin retourné par /images/presign (ex. /uploads/products/abc.jpg)
+     */
+    @NotBlank(message = "Le chemin de l'image est obligatoire")
+    private String path;
+}
@@ -0,0 +1,18 @@
+package com.usetech.dvente.requests.products;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+@Data
+public class PresignedImageUploadRequest {
+
+    @NotBlank(message = "Le nom du fichier est obligatoire")
+    private String filename;
+
+    @NotBlank(message = "Le type du fichier est obligatoire")
+    private String contentType;
+
+    @Positive(message = "La taille du fichier doit être positive")
+    private long size;
+}
@@ -0,0 +1,70 @@
+package com.usetech.dvente.responses.notifs;
+
+import com.usetech.dvente.entities.notifs.BulkAudience;
+import com.usetech.dvente.entities.notifs.BulkNotification;
+import com.usetech.dvente.entities.notifs.BulkNotificationFailure;
+import com.usetech.dvente.entities.notifs.BulkNotificationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNotificationResponse {
+
+    private UUID id;
+    private BulkAudience audience;
+    private String subject;
+    private String template;
+    private BulkNotificationStatus status;
+    private String statusLabel;
+    private long total;
+    private long sent;
+    private long failed;
+    private double progress;
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+    private List<Failure> recentFailures;
+
+    @Data
+    @AllArgsConstructor
+    public static class Failure {
+        private String recipient;
+        private String error;
+        private LocalDateTime at;
+
+        public static Failure fromEntity(BulkNotificationFailure failure) {
+            return new Failure(failure.getRecipient(), failure.getError(), failure.getCreatedAt());
+        }
+    }
+
+    public static BulkNotificationResponse fromEntity(BulkNotification notification, List<BulkNotificationFailure> failures) {
+        long processed = notification.getSent() + notification.getFailed();
+        return BulkNotificationResponse.builder()
+                .id(notification.getId())
+                .audience(notification.getAudience())
+                .subject(notification.getSubject())
+                .template(notification.getTemplate())
+                .status(notification.getStatus())
+                .statusLabel(notification.getStatus().getLabel())
+                .total(notification.getTotal())
+                .sent(notification.getSent())
+                .failed(notification.getFailed())
+                .progress(notification.getTotal() > 0
+                        ? Math.min(100.0, Math.round(processed * 1000.0 / notification.getTotal()) / 10.0)
+                        : 100.0)
+                .createdBy(notification.getCreatedBy())
+                .createdAt(notification.getCreatedAt())
+                .finishedAt(notification.getFinishedAt())
+                .recentFailures(failures.stream().map(Failure::fromEntity).toList())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.usetech.dvente.responses.products;
+
+import com.usetech.dvente.entities.products.Category;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoryTreeResponse {
+
+    private UUID id;
+    private String name;
+    private String slug;
+    private String description;
+    private String image;
+    private boolean main;
+    private List<CategoryTreeResponse> children;
+
+    public static CategoryTreeResponse fromCategory(Category category, List<CategoryTreeResponse> children) {
+        return CategoryTreeResponse.builder()
+                .id(category.getId())
+                .name(category.getName())
+                .slug(category.getSlug())
+                .description(category.getDescription())
+                .image(category.getImage())
+                .main(category.isMain())
+                .children(children)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.usetech.dvente.responses.products;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -21,6 +22,9 @@ public class PaginatedProductResponse {
     private Integer totalPages;
     private Boolean hasNext;
 
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+
     public static PaginatedProductResponse of(
             List<ProductResponse> products,
             Long total,
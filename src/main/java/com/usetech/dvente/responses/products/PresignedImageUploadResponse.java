@@ -0,0 +1,37 @@
+package com.usetech.dvente.responses.products;
+
+import com.usetech.dvente.services.files.PresignedUpload;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Upload direct vers le bucket : POST multipart/form-data vers uploadUrl avec fields puis
+ * le fichier dans le champ "file", ensuite confirmation du chemin path
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedImageUploadResponse {
+
+    private String uploadUrl;
+    private Map<String, String> fields;
+    private String path;
+    private String fullUrl;
+    private Instant expiresAt;
+
+    public static PresignedImageUploadResponse of(PresignedUpload upload, String path, String apiUrl) {
+        return PresignedImageUploadResponse.builder()
+                .uploadUrl(upload.url())
+                .fields(upload.fields())
+                .path(path)
+                .fullUrl(apiUrl + path)
+                .expiresAt(upload.expiresAt())
+                .build();
+    }
+}
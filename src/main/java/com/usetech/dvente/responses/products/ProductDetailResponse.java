@@ -12,7 +12,9 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -29,12 +31,18 @@ public class ProductDetailResponse {
     @JsonProperty("primary_image")
     private String primaryImage;
 
+    @JsonProperty("primary_image_variants")
+    private Map<String, String> primaryImageVariants;
+
     @JsonProperty("shop_author")
     private ShopResponse shopAuthor;
 
     @JsonProperty("other_images")
     private List<String> otherImages;
 
+    @JsonProperty("other_images_variants")
+    private List<Map<String, String>> otherImagesVariants;
+
     private String title;
 
     @JsonProperty("short_description")
@@ -94,7 +102,9 @@ public class ProductDetailResponse {
                 .price(product.getPrice())
                 .pricePromo(product.getDiscountPrice())
                 .primaryImage(buildImageUrl(product.getPrimaryImage(), apiUrl))
+                .primaryImageVariants(buildVariantUrls(product.getPrimaryImageVariants(), apiUrl))
                 .otherImages(buildOtherImagesUrls(product.getOtherImages(), apiUrl))
+                .otherImagesVariants(buildOtherImagesVariants(product.getOtherImages(), apiUrl))
                 .stockCount(product.getStockQuantity())
                 .inStock(product.getStockQuantity() != null && product.getStockQuantity() > 0)
                 .isActive(product.getIsActive())
@@ -130,6 +140,27 @@ public class ProductDetailResponse {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Déclinaisons (thumb, medium, large) en URLs complètes, null tant qu'elles ne sont pas générées
+     */
+    private static Map<String, String> buildVariantUrls(Map<String, String> variants, String apiUrl) {
+        if (variants == null) {
+            return null;
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        variants.forEach((key, path) -> urls.put(key, buildImageUrl(path, apiUrl)));
+        return urls;
+    }
+
+    private static List<Map<String, String>> buildOtherImagesVariants(List<ProductImage> images, String apiUrl) {
+        if (images == null || images.isEmpty()) {
+            return List.of();
+        }
+        return images.stream()
+                .map(img -> buildVariantUrls(img.getVariants(), apiUrl))
+                .collect(Collectors.toList());
+    }
+
     private static List<KeywordResponse> buildKeywords(List<Keyword> keywords) {
         if (keywords == null || keywords.isEmpty()) {
             return List.of();
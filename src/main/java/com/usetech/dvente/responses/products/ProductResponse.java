@@ -1,5 +1,6 @@
 package com.usetech.dvente.responses.products;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.usetech.dvente.entities.products.Product;
 import com.usetech.dvente.entities.products.ProductImage;
@@ -12,7 +13,9 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -33,6 +36,9 @@ public class ProductResponse {
     @JsonProperty("primary_image")
     private String primaryImage;
 
+    @JsonProperty("primary_image_variants")
+    private Map<String, String> primaryImageVariants;
+
     @JsonProperty("stock_quantity")
     private Integer stockQuantity;
 
@@ -48,9 +54,17 @@ public class ProductResponse {
     @Builder.Default
     private List<String> otherImages = new ArrayList<>();
 
+    @JsonProperty("other_images_variants")
+    @Builder.Default
+    private List<Map<String, String>> otherImagesVariants = new ArrayList<>();
+
     @JsonProperty("review_count")
     private Long reviewCount;
 
+    @JsonProperty("view_count")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long viewCount;
+
     @JsonProperty("created_at")
     private LocalDateTime createdAt;
 
@@ -65,11 +79,13 @@ public class ProductResponse {
                 .price(product.getPrice())
                 .discountPrice(product.getDiscountPrice())
                 .primaryImage(buildImageUrl(product.getPrimaryImage(), apiUrl))
+                .primaryImageVariants(buildVariantUrls(product.getPrimaryImageVariants(), apiUrl))
                 .stockQuantity(product.getStockQuantity())
                 .isActive(product.getIsActive())
                 .category(CategoryResponse.fromCategory(product.getCategory()))
                 .shopAuthor(ShopResponse.fromEntity(product.getShopAuthor()))
                 .otherImages(buildOtherImagesUrls(product.getOtherImages(), apiUrl))
+                .otherImagesVariants(buildOtherImagesVariants(product.getOtherImages(), apiUrl))
                 .reviewCount(reviewCount)
                 .createdAt(product.getCreatedAt())
                 .updatedAt(product.getUpdatedAt())
@@ -95,4 +111,25 @@ public class ProductResponse {
                 .map(img -> buildImageUrl(img.getImage(), apiUrl))
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Déclinaisons (thumb, medium, large) en URLs complètes, null tant qu'elles ne sont pas générées
+     */
+    private static Map<String, String> buildVariantUrls(Map<String, String> variants, String apiUrl) {
+        if (variants == null) {
+            return null;
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        variants.forEach((key, path) -> urls.put(key, buildImageUrl(path, apiUrl)));
+        return urls;
+    }
+
+    private static List<Map<String, String>> buildOtherImagesVariants(List<ProductImage> images, String apiUrl) {
+        if (images == null || images.isEmpty()) {
+            return List.of();
+        }
+        return images.stream()
+                .map(img -> buildVariantUrls(img.getVariants(), apiUrl))
+                .collect(Collectors.toList());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.usetech.dvente.responses.products;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductSearchResponse {
+
+    private List<ProductResponse> data;
+    private String message;
+    private String query;
+    private Long total;
+    private Integer page;
+    private Integer pageSize;
+    private Integer totalPages;
+    private Boolean hasNext;
+    private Facets facets;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Facets {
+
+        private List<FacetCount> categories;
+
+        private List<FacetCount> shops;
+
+        @JsonProperty("min_price")
+        private BigDecimal minPrice;
+
+        @JsonProperty("max_price")
+        private BigDecimal maxPrice;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+
+        private UUID id;
+        private String name;
+        private Long count;
+    }
+}
@@ -0,0 +1,42 @@
+package com.usetech.dvente.responses.shops;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginatedShopResponse {
+
+    private List<ShopResponse> data;
+    private String message;
+    private Long total;
+    private Integer page;
+    private Integer pageSize;
+    private Integer totalPages;
+    private Boolean hasNext;
+
+    public static PaginatedShopResponse of(
+            List<ShopResponse> shops,
+            Long total,
+            Integer page,
+            Integer pageSize,
+            Integer totalPages,
+            Boolean hasNext
+    ) {
+        return PaginatedShopResponse.builder()
+                .data(shops)
+                .message("success")
+                .total(total)
+                .page(page)
+                .pageSize(pageSize)
+                .totalPages(totalPages)
+                .hasNext(hasNext)
+                .build();
+    }
+}
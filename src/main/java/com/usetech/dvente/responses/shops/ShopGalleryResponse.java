@@ -13,6 +13,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
 
 @Data
@@ -33,6 +35,8 @@ public class ShopGalleryResponse {
     private UUID id;
     private String image;
 
+    private Map<String, String> variants;
+
     @JsonProperty("created_at")
     private String createdAt;
 
@@ -45,8 +49,18 @@ public class ShopGalleryResponse {
         return ShopGalleryResponse.builder()
                 .id(gallery.getId())
                 .image(gallery.getImage() != null ? apiConfig.getApiUrl() + gallery.getImage() : null)
+                .variants(buildVariantUrls(gallery.getVariants()))
                 .createdAt(gallery.getCreatedAt() != null ? gallery.getCreatedAt().format(formatter) : null)
                 .updatedAt(gallery.getUpdatedAt() != null ? gallery.getUpdatedAt().format(formatter) : null)
                 .build();
     }
+
+    private static Map<String, String> buildVariantUrls(Map<String, String> variants) {
+        if (variants == null) {
+            return null;
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        variants.forEach((key, path) -> urls.put(key, apiConfig.getApiUrl() + path));
+        return urls;
+    }
 }
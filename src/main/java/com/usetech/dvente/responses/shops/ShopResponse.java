@@ -86,6 +86,9 @@ public class ShopResponse {
     @JsonProperty("rcm_document")
     private String rcmDocument;
 
+    @JsonProperty("view_count")
+    private Long viewCount;
+
     @JsonProperty("created_at")
     private String createdAt;
 
@@ -129,6 +132,22 @@ public class ShopResponse {
                 .build();
     }
 
+    /**
+     * Fiche de l'annuaire public : sans identifiants fiscaux ni documents
+     */
+    public static ShopResponse forDirectory(
+            Shop shop,
+            List<ShopGallery> gallery,
+            ShopUrlHistory lastUrlChange
+    ) {
+        ShopResponse response = fromEntity(shop, gallery, lastUrlChange);
+        response.setNumeroIfu(null);
+        response.setNumRcm(null);
+        response.setIfuDocument(null);
+        response.setRcmDocument(null);
+        return response;
+    }
+
     private static String buildLogoUrl(Shop shop) {
         if (shop.getLogo() != null && !shop.getLogo().isEmpty()) {
             return apiConfig.getApiUrl() + shop.getLogo();
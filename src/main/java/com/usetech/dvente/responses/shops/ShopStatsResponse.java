@@ -0,0 +1,69 @@
+package com.usetech.dvente.responses.shops;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Statistiques de fréquentation d'une boutique sur une période. Les visiteurs distincts sont
+ * estimés (HyperLogLog) : unique_visitors_error est l'erreur type relative de l'estimation.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShopStatsResponse {
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    private Long views;
+
+    @JsonProperty("unique_visitors")
+    private Long uniqueVisitors;
+
+    @JsonProperty("unique_visitors_error")
+    private Double uniqueVisitorsError;
+
+    private List<DailyStats> daily;
+
+    @JsonProperty("top_products")
+    private List<ProductStats> topProducts;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DailyStats {
+
+        private LocalDate date;
+
+        private Long views;
+
+        @JsonProperty("unique_visitors")
+        private Long uniqueVisitors;
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ProductStats {
+
+        private UUID id;
+
+        private String name;
+
+        private Long views;
+
+        @JsonProperty("unique_visitors")
+        private Long uniqueVisitors;
+    }
+}
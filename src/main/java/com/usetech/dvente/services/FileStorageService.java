@@ -1,20 +1,32 @@
 package com.usetech.dvente.services;
 
+import com.usetech.dvente.services.files.ContentAddressedStore;
+import com.usetech.dvente.services.files.HashingFileWriter;
+import com.usetech.dvente.services.files.ImageVariantStore;
+import com.usetech.dvente.services.files.StorageBackend;
+import com.usetech.dvente.services.files.StoredFile;
+import com.usetech.dvente.services.files.UploadFileServer;
+import com.usetech.dvente.services.files.UploadPolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.*;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.UUID;
 
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class FileStorageService {
 
-    @Value("${app.upload.path:uploads}")
-    private String uploadBasePath;
-
+    private final ContentAddressedStore contentAddressedStore;
+    private final ImageVariantStore imageVariantStore;
+    private final StorageBackend storageBackend;
 
     @Value("${server.backend.url}")
     private String apiUrl;
@@ -67,56 +79,110 @@ public class FileStorageService {
 
     /**
      * Sauvegarde un fichier dans un sous-dossier spécifique.
+     * transferTo(File) déplace la partie déjà écrite sur disque par le conteneur au lieu de la recopier ;
+     * sur le disque local, le fichier préparé est ensuite renommé dans son dossier final.
      */
     private String saveFile(MultipartFile file, String subFolder) {
-        try {
-            String fileDir = uploadBasePath + "/" + subFolder;
-            Path uploadPath = Paths.get(fileDir);
-
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
+        if (contentAddressedStore.isEnabled()) {
+            try (InputStream content = file.getInputStream()) {
+                return contentAddressedStore.store(content, file.getOriginalFilename(), file.getContentType(), null).url();
+            } catch (IOException e) {
+                throw new RuntimeException("Échec de la sauvegarde du fichier: " + e.getMessage());
             }
+        }
+        String originalFilename = file.getOriginalFilename();
+        String extension = originalFilename != null && originalFilename.contains(".")
+                ? originalFilename.substring(originalFilename.lastIndexOf("."))
+                : "";
+        String key = subFolder + "/" + UUID.randomUUID() + extension;
 
-            String originalFilename = file.getOriginalFilename();
-            String extension = originalFilename != null && originalFilename.contains(".")
-                    ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                    : "";
-            String filename = UUID.randomUUID().toString() + extension;
+        Path staging = null;
+        try {
+            staging = storageBackend.stagingPath(key);
+            file.transferTo(staging.toFile());
+            storageBackend.putFile(key, staging, file.getContentType());
+            return UploadFileServer.URL_PREFIX + key;
 
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new RuntimeException("Échec de la sauvegarde du fichier: " + e.getMessage());
+        } finally {
+            deleteStaging(staging);
+        }
+    }
+
+    /**
+     * Enregistre un contenu lu en flux (upload multipart en streaming) : écriture par canal NIO
+     * dans le fichier de préparation du stockage, calcul du SHA-256 au fil de l'eau, et rejet dès
+     * que la taille maximale est dépassée ou que la signature ne correspond pas au type attendu.
+     * Le fichier validé est ensuite confié au stockage (renommage atomique sur le disque local,
+     * envoi au bucket sinon).
+     *
+     * @throws IllegalArgumentException si le fichier ne respecte pas la politique d'upload
+     */
+    public StoredFile saveStream(InputStream content, String originalFilename, String contentType,
+                                 UploadPolicy policy, String subFolder) {
+        if (!policy.isDeclaredTypeAllowed(originalFilename, contentType)) {
+            throw new IllegalArgumentException(policy.getTypeMessage());
+        }
+        if (contentAddressedStore.isEnabled()) {
+            return contentAddressedStore.store(content, originalFilename, contentType, policy);
+        }
 
-            return "/uploads/" + subFolder + "/" + filename;
+        String key = subFolder + "/" + UUID.randomUUID() + policy.storedExtension(originalFilename, contentType);
+        Path staging = null;
+        try {
+            staging = storageBackend.stagingPath(key);
+            // Le fichier de préparation est créé par HashingFileWriter
+            Files.deleteIfExists(staging);
+            HashingFileWriter.Written written = HashingFileWriter.write(content, staging, policy);
+            storageBackend.putFile(key, staging, contentType);
+            return new StoredFile(UploadFileServer.URL_PREFIX + key, written.size(), written.sha256(), contentType);
 
         } catch (IOException e) {
             throw new RuntimeException("Échec de la sauvegarde du fichier: " + e.getMessage());
+        } finally {
+            deleteStaging(staging);
         }
     }
 
     /**
-     * Supprime un fichier du disque.
+     * Supprime un fichier du stockage, avec ses déclinaisons d'image éventuelles.
      */
     private void deleteFile(String fileUrl) {
         if (fileUrl == null || fileUrl.isEmpty()) {
             return;
         }
+        if (ContentAddressedStore.isContentAddressed(fileUrl)) {
+            // Fichier partagé : seule la référence est retirée, la purge efface le fichier
+            contentAddressedStore.release(fileUrl);
+            return;
+        }
 
         try {
-            String relativePath = fileUrl.startsWith("/uploads/")
-                    ? fileUrl.substring("/uploads/".length())
-                    : fileUrl;
-
-            Path filePath = Paths.get(uploadBasePath, relativePath);
+            storageBackend.delete(relativePath(fileUrl));
+            imageVariantStore.delete(fileUrl);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Suppression du fichier {} impossible", fileUrl, e);
+        }
+    }
 
-            if (Files.exists(filePath)) {
-                Files.delete(filePath);
-                System.out.println("Fichier supprimé : " + filePath);
-            }
+    private static void deleteStaging(Path staging) {
+        if (staging == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(staging);
         } catch (IOException e) {
-            System.err.println("Erreur lors de la suppression du fichier : " + e.getMessage());
+            log.warn("Fichier temporaire {} non supprimé", staging, e);
         }
     }
 
+    private static String relativePath(String fileUrl) {
+        return fileUrl.startsWith(UploadFileServer.URL_PREFIX)
+                ? fileUrl.substring(UploadFileServer.URL_PREFIX.length())
+                : fileUrl;
+    }
+
     /**
      * Vérifie si un fichier existe.
      */
@@ -125,41 +191,11 @@ public class FileStorageService {
             return false;
         }
 
-        String relativePath = fileUrl.startsWith("/uploads/")
-                ? fileUrl.substring("/uploads/".length())
-                : fileUrl;
-
-        Path filePath = Paths.get(uploadBasePath, relativePath);
-        return Files.exists(filePath);
-    }
-
-
-    public String saveAvatarFromUrl(String imageUrl, UUID userId) {
         try {
-            RestTemplate restTemplate = new RestTemplate();
-            byte[] imageBytes = restTemplate.getForObject(imageUrl, byte[].class);
-
-            if (imageBytes == null || imageBytes.length == 0) {
-                return null;
-            }
-
-            String fileDir = uploadBasePath + "/avatars";
-            Path uploadPath = Paths.get(fileDir);
-
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            String filename = "user_" + userId + "_" + UUID.randomUUID().toString() + ".jpg";
-            Path filePath = uploadPath.resolve(filename);
-
-            Files.write(filePath, imageBytes, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-
-            return "/uploads/avatars/" + filename;
-
-        } catch (Exception e) {
-            System.err.println("Erreur lors du téléchargement de l'avatar: " + e.getMessage());
-            return null;
+            return storageBackend.exists(relativePath(fileUrl));
+        } catch (IOException e) {
+            log.warn("Vérification du fichier {} impossible", fileUrl, e);
+            return false;
         }
     }
 }
\ No newline at end of file
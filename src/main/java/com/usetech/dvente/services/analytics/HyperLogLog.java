@@ -0,0 +1,148 @@
+package com.usetech.dvente.services.analytics;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Estimateur HyperLogLog du nombre d'éléments distincts, de taille fixe :
+ * 2^12 = 4096 registres d'un octet, quel que soit le nombre de visiteurs.
+ * <p>
+ * Erreur type relative : 1,04 / √m, soit ≈ 1,6 % pour m = 4096 (environ ±3,3 % dans 95 % des cas).
+ * En dessous de 2,5 m ≈ 10 000 éléments, l'estimation passe par le comptage linéaire : plus
+ * précis pour quelques centaines de visiteurs, mais dont l'erreur croît avec le remplissage
+ * et atteint quelques pour cent à l'approche du seuil. Aucun régime n'est exact.
+ * Deux estimateurs se fusionnent sans perte (maximum registre par registre) : l'union de
+ * plusieurs journées s'estime avec la même erreur qu'une seule.
+ * <p>
+ * Forme stockée : un octet de précision suivi des registres compressés (deflate), ce qui
+ * ramène à quelques dizaines d'octets un estimateur encore peu rempli.
+ */
+public final class HyperLogLog {
+
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this(new byte[REGISTERS]);
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    void addHash(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Bit sentinelle : le rang reste borné à 64 - PRECISION + 1
+        long remaining = (hash << PRECISION) | (1L << (PRECISION - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(remaining) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+    }
+
+    /**
+     * @return true si l'estimateur a changé
+     */
+    public boolean merge(HyperLogLog other) {
+        boolean changed = false;
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(registers);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+            out.write(PRECISION);
+            byte[] chunk = new byte[1024];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException si le contenu n'est pas un estimateur de même précision
+     */
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < 2 || bytes[0] != PRECISION) {
+            throw new IllegalArgumentException("Estimateur HyperLogLog illisible");
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, 1, bytes.length - 1);
+            byte[] registers = new byte[REGISTERS];
+            int read = 0;
+            while (read < REGISTERS && !inflater.finished()) {
+                int n = inflater.inflate(registers, read, REGISTERS - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != REGISTERS) {
+                throw new IllegalArgumentException("Estimateur HyperLogLog tronqué");
+            }
+            return new HyperLogLog(registers);
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Estimateur HyperLogLog illisible", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * FNV-1a 64 bits suivi du mélange final de MurmurHash3, pour répartir les bits de poids fort
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
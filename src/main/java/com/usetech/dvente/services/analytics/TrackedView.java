@@ -0,0 +1,13 @@
+package com.usetech.dvente.services.analytics;
+
+import com.usetech.dvente.entities.analytics.ViewTarget;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Vue en attente d'écriture
+ * @param userId null pour un visiteur anonyme
+ */
+public record TrackedView(ViewTarget target, UUID targetId, UUID userId, String ipAddress, LocalDateTime viewedAt) {
+}
@@ -0,0 +1,210 @@
+package com.usetech.dvente.services.analytics;
+
+import com.usetech.dvente.configs.CacheConfig;
+import com.usetech.dvente.entities.analytics.RollupGranularity;
+import com.usetech.dvente.entities.analytics.ViewTarget;
+import com.usetech.dvente.entities.users.ShopStatus;
+import com.usetech.dvente.repositories.analytics.ViewRankRow;
+import com.usetech.dvente.repositories.analytics.ViewRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compteurs de vues agrégés par heure et par jour (table view_rollup) :
+ * <ul>
+ *     <li>incrémentés par ViewTrackingService dans la transaction qui écrit les vues brutes,
+ *     par un upsert groupé (INSERT ... ON CONFLICT DO UPDATE) ;</li>
+ *     <li>au premier vidage, si la table est vide, reconstitués depuis les vues brutes déjà en base ;</li>
+ *     <li>lus par les classements (popularité par jour, tendances par heure) avec une limite ;</li>
+ *     <li>chaque nuit, les vues brutes plus anciennes que app.analytics.views.raw-retention et les
+ *     compteurs horaires plus anciens que app.analytics.views.hourly-retention sont supprimés ;
+ *     les compteurs journaliers sont conservés.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class ViewRollupService {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO view_rollup (target, granularity, target_id, bucket_start, views)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (target, granularity, target_id, bucket_start)
+            DO UPDATE SET views = view_rollup.views + EXCLUDED.views
+            """;
+
+    private final ViewRollupRepository viewRollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration rawRetention;
+    private final Duration hourlyRetention;
+    private final int compactionBatchSize;
+
+    private volatile boolean backfilled;
+
+    public ViewRollupService(ViewRollupRepository viewRollupRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.analytics.views.raw-retention:90d}") Duration rawRetention,
+                             @Value("${app.analytics.views.hourly-retention:7d}") Duration hourlyRetention,
+                             @Value("${app.analytics.views.compaction-batch-size:5000}") int compactionBatchSize) {
+        this.viewRollupRepository = viewRollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rawRetention = rawRetention;
+        this.hourlyRetention = hourlyRetention;
+        this.compactionBatchSize = Math.max(1, compactionBatchSize);
+    }
+
+    /**
+     * Ajoute des vues aux compteurs horaires et journaliers ; à appeler dans la transaction
+     * qui écrit les vues brutes. Les lignes sont triées pour que deux écritures concurrentes
+     * verrouillent les compteurs dans le même ordre.
+     */
+    public void add(ViewTarget target, List<TrackedView> views) {
+        Map<RollupKey, Long> counts = new HashMap<>();
+        for (TrackedView view : views) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                counts.merge(new RollupKey(granularity, view.targetId(), granularity.bucketOf(view.viewedAt())), 1L, Long::sum);
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(counts.size());
+        counts.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(RollupKey.ORDER))
+                .forEach(entry -> rows.add(new Object[]{target.name(), entry.getKey().granularity().name(),
+                        entry.getKey().targetId(), entry.getKey().bucketStart(), entry.getValue()}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+    }
+
+    /**
+     * Identifiants les plus vus sur les {@code periods} dernières heures ou derniers jours
+     * (tranche en cours comprise). Mis en cache brièvement (viewRankings) : les boutiques et
+     * produits eux-mêmes sont relus à chaque appel.
+     */
+    @Cacheable(value = CacheConfig.VIEW_RANKINGS, key = "#target + ':' + #granularity + ':' + #periods + ':' + #limit")
+    public List<ViewRankRow> rank(ViewTarget target, RollupGranularity granularity, int periods, int limit) {
+        LocalDateTime since = granularity.periodStart(LocalDateTime.now(), periods);
+        PageRequest top = PageRequest.of(0, limit);
+        return switch (target) {
+            case SHOP -> viewRollupRepository.rankShops(granularity, since, ShopStatus.ACTIF, top);
+            case PRODUCT -> viewRollupRepository.rankProducts(granularity, since, top);
+        };
+    }
+
+    /**
+     * Reconstitue les compteurs depuis les vues brutes si la table est encore vide (première mise
+     * en service) ; la table est verrouillée le temps du contrôle pour qu'une seule instance le fasse.
+     *
+     * @return false si la reconstitution a échoué (elle sera retentée)
+     */
+    public boolean ensureBackfilled() {
+        if (backfilled) {
+            return true;
+        }
+        synchronized (this) {
+            if (backfilled) {
+                return true;
+            }
+            try {
+                Integer inserted = transactionTemplate.execute(status -> {
+                    jdbcTemplate.execute("LOCK TABLE view_rollup IN SHARE ROW EXCLUSIVE MODE");
+                    if (Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM view_rollup)", Boolean.class))) {
+                        return 0;
+                    }
+                    int total = 0;
+                    for (ViewTarget target : ViewTarget.values()) {
+                        total += backfill(target, RollupGranularity.DAY, LocalDateTime.of(1970, 1, 1, 0, 0));
+                        total += backfill(target, RollupGranularity.HOUR, LocalDateTime.now().minus(hourlyRetention));
+                    }
+                    return total;
+                });
+                if (inserted != null && inserted > 0) {
+                    log.info("Compteurs de vues reconstitués depuis les vues brutes : {} ligne(s)", inserted);
+                }
+                backfilled = true;
+            } catch (DataAccessException e) {
+                log.error("Reconstitution des compteurs de vues impossible : {}", e.getMessage());
+            }
+            return backfilled;
+        }
+    }
+
+    /**
+     * Supprime les vues brutes déjà agrégées au-delà de la rétention, par lots parcourus via
+     * l'index sur la date de vue, puis les compteurs horaires périmés. Les vues sans date
+     * (antérieures au suivi différé) sont gardées.
+     */
+    @Scheduled(cron = "${app.analytics.views.compaction-cron:0 45 3 * * *}")
+    public void compact() {
+        if (!ensureBackfilled()) {
+            return;
+        }
+        LocalDateTime rawBefore = LocalDateTime.now().minus(rawRetention);
+        for (ViewTarget target : ViewTarget.values()) {
+            String sql = "DELETE FROM " + target.getViewTable() + " WHERE id IN (SELECT id FROM " + target.getViewTable()
+                    + " WHERE " + timeColumn(target) + " < ? LIMIT ?)";
+            long deleted = 0;
+            int batch;
+            do {
+                batch = jdbcTemplate.update(sql, rawBefore, compactionBatchSize);
+                deleted += batch;
+            } while (batch == compactionBatchSize);
+            if (deleted > 0) {
+                log.info("Compactage : {} vue(s) brute(s) {} supprimée(s)", deleted, target.getTable());
+            }
+        }
+
+        LocalDateTime hourlyBefore = RollupGranularity.HOUR.bucketOf(LocalDateTime.now().minus(hourlyRetention));
+        Integer hourly = transactionTemplate.execute(status ->
+                viewRollupRepository.deleteByGranularityBefore(RollupGranularity.HOUR, hourlyBefore));
+        if (hourly != null && hourly > 0) {
+            log.info("Compactage : {} compteur(s) horaire(s) supprimé(s)", hourly);
+        }
+    }
+
+    private int backfill(ViewTarget target, RollupGranularity granularity, LocalDateTime since) {
+        String bucket = "date_trunc('" + granularity.name().toLowerCase() + "', " + timeColumn(target) + ")";
+        return jdbcTemplate.update("INSERT INTO view_rollup (target, granularity, target_id, bucket_start, views) "
+                        + "SELECT ?, ?, " + targetColumn(target) + ", " + bucket + ", COUNT(*) FROM " + target.getViewTable()
+                        + " WHERE " + targetColumn(target) + " IS NOT NULL AND " + timeColumn(target) + " >= ?"
+                        + " GROUP BY " + targetColumn(target) + ", " + bucket,
+                target.name(), granularity.name(), since);
+    }
+
+    private static String targetColumn(ViewTarget target) {
+        return switch (target) {
+            case SHOP -> "shop_id";
+            case PRODUCT -> "product_id";
+        };
+    }
+
+    private static String timeColumn(ViewTarget target) {
+        return switch (target) {
+            case SHOP -> "viewed_at";
+            case PRODUCT -> "created_at";
+        };
+    }
+
+    private record RollupKey(RollupGranularity granularity, UUID targetId, LocalDateTime bucketStart) {
+
+        static final Comparator<RollupKey> ORDER = Comparator.comparing(RollupKey::granularity)
+                .thenComparing(RollupKey::targetId)
+                .thenComparing(RollupKey::bucketStart);
+    }
+}
@@ -0,0 +1,286 @@
+package com.usetech.dvente.services.analytics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.usetech.dvente.configs.AsyncConfig;
+import com.usetech.dvente.entities.analytics.ViewTarget;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Enregistrement des vues de boutiques et de produits, en écriture différée :
+ * <ul>
+ *     <li>une vue d'un même visiteur (utilisateur, à défaut IP) sur la même page n'est comptée
+ *     qu'une fois par app.analytics.views.dedupe-window ;</li>
+ *     <li>les vues retenues sont ajoutées à une file circulaire sans verrou : la requête HTTP
+ *     n'attend jamais la base ; file pleine, la vue est abandonnée et comptée ;</li>
+ *     <li>la file est vidée toutes les app.analytics.views.flush-interval sur l'exécuteur
+ *     statistiques, par lots JDBC de app.analytics.views.batch-size lignes (INSERT multi-lignes
+ *     avec reWriteBatchedInserts) ; les vues de pages supprimées entre-temps sont écartées et
+ *     comptées ;
+ *     les compteurs agrégés (ViewRollupService) et les visiteurs distincts (VisitorSketchService)
+ *     sont mis à jour dans la même transaction.</li>
+ * </ul>
+ * Métriques : dvente.views.recorded, dvente.views.deduplicated, dvente.views.dropped (tag
+ * reason=buffer_full|target_deleted), dvente.views.written, dvente.views.failed (tag
+ * target=shop|product) et dvente.views.buffered.
+ */
+@Slf4j
+@Service
+public class ViewTrackingService {
+
+    /**
+     * Attente maximale, à l'arrêt, du vidage planifié en cours
+     */
+    private static final Duration SHUTDOWN_WAIT = Duration.ofSeconds(30);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ViewRollupService viewRollupService;
+    private final VisitorSketchService visitorSketchService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor analyticsExecutor;
+    private final ViewRingBuffer<TrackedView> buffer;
+    private final Cache<String, Boolean> recentViews;
+    private final int batchSize;
+    private final ReentrantLock flushing = new ReentrantLock();
+
+    private final Map<ViewTarget, Counter> recorded = new EnumMap<>(ViewTarget.class);
+    private final Map<ViewTarget, Counter> deduplicated = new EnumMap<>(ViewTarget.class);
+    private final Map<ViewTarget, Counter> dropped = new EnumMap<>(ViewTarget.class);
+    private final Map<ViewTarget, Counter> orphaned = new EnumMap<>(ViewTarget.class);
+    private final Map<ViewTarget, Counter> written = new EnumMap<>(ViewTarget.class);
+    private final Map<ViewTarget, Counter> failed = new EnumMap<>(ViewTarget.class);
+
+    public ViewTrackingService(JdbcTemplate jdbcTemplate,
+                               ViewRollupService viewRollupService,
+                               VisitorSketchService visitorSketchService,
+                               PlatformTransactionManager transactionManager,
+                               @Qualifier(AsyncConfig.ANALYTICS_EXECUTOR) TaskExecutor analyticsExecutor,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.analytics.views.buffer-capacity:65536}") int bufferCapacity,
+                               @Value("${app.analytics.views.batch-size:500}") int batchSize,
+                               @Value("${app.analytics.views.dedupe-window:30m}") Duration dedupeWindow,
+                               @Value("${app.analytics.views.dedupe-max-entries:500000}") long dedupeMaxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.viewRollupService = viewRollupService;
+        this.visitorSketchService = visitorSketchService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.analyticsExecutor = analyticsExecutor;
+        this.buffer = new ViewRingBuffer<>(bufferCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.recentViews = Caffeine.newBuilder()
+                .expireAfterWrite(dedupeWindow)
+                .maximumSize(dedupeMaxEntries)
+                .build();
+
+        for (ViewTarget target : ViewTarget.values()) {
+            recorded.put(target, counter(meterRegistry, "dvente.views.recorded", "Vues acceptées", target));
+            deduplicated.put(target, counter(meterRegistry, "dvente.views.deduplicated", "Vues ignorées (même visiteur dans la fenêtre)", target));
+            dropped.put(target, dropped(meterRegistry, target, "buffer_full"));
+            orphaned.put(target, dropped(meterRegistry, target, "target_deleted"));
+            written.put(target, counter(meterRegistry, "dvente.views.written", "Vues écrites en base", target));
+            failed.put(target, counter(meterRegistry, "dvente.views.failed", "Vues perdues sur erreur d'écriture", target));
+        }
+        Gauge.builder("dvente.views.buffered", buffer, ViewRingBuffer::size)
+                .description("Vues en attente d'écriture")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param userId null pour un visiteur anonyme, dédupliqué alors par IP
+     * @return false si la vue n'est pas retenue (doublon ou file pleine)
+     */
+    public boolean record(ViewTarget target, UUID targetId, UUID userId, String ipAddress) {
+        String key = target.name() + ":" + targetId + ":" + (userId != null ? "u:" + userId : "ip:" + ipAddress);
+        if (recentViews.asMap().putIfAbsent(key, Boolean.TRUE) != null) {
+            deduplicated.get(target).increment();
+            return false;
+        }
+        if (!buffer.offer(new TrackedView(target, targetId, userId, ipAddress, LocalDateTime.now()))) {
+            // Non comptée : la prochaine visite du même visiteur pourra l'être
+            recentViews.invalidate(key);
+            dropped.get(target).increment();
+            return false;
+        }
+        recorded.get(target).increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.views.flush-interval:1s}")
+    public void scheduleFlush() {
+        if (buffer.size() > 0 && !flushing.isLocked()) {
+            analyticsExecutor.execute(this::flush);
+        }
+    }
+
+    /**
+     * Vide la file par lots ; un seul vidage à la fois, borné à une file complète pour rendre
+     * la main même sous un flux continu. Tant que la reconstitution des compteurs n'a pas abouti,
+     * les vues restent en file : écrire un compteur avant rendrait view_rollup non vide et la
+     * reconstitution serait ensuite considérée comme faite.
+     */
+    public void flush() {
+        if (!flushing.tryLock()) {
+            return;
+        }
+        try {
+            drain(buffer.capacity());
+        } finally {
+            flushing.unlock();
+        }
+    }
+
+    /**
+     * Attend la fin du vidage planifié en cours (qui s'arrête après une file complète),
+     * puis vide la file entièrement
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            if (!flushing.tryLock(SHUTDOWN_WAIT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Vidage en cours non terminé après {} s : {} vue(s) en file non écrite(s)",
+                        SHUTDOWN_WAIT.toSeconds(), buffer.size());
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Arrêt interrompu : {} vue(s) en file non écrite(s)", buffer.size());
+            return;
+        }
+        try {
+            drain(Integer.MAX_VALUE);
+            if (buffer.size() > 0) {
+                log.warn("{} vue(s) en file non écrite(s) à l'arrêt", buffer.size());
+            }
+        } finally {
+            flushing.unlock();
+        }
+    }
+
+    /**
+     * Écrit au plus limit vues par lots, à appeler sous le verrou flushing
+     */
+    private void drain(int limit) {
+        if (!viewRollupService.ensureBackfilled()) {
+            return;
+        }
+        int remaining = limit;
+        List<TrackedView> batch = new ArrayList<>(batchSize);
+        while (remaining > 0) {
+            TrackedView view;
+            while (batch.size() < batchSize && (view = buffer.poll()) != null) {
+                batch.add(view);
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            remaining -= batch.size();
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<TrackedView> batch) {
+        Map<ViewTarget, List<TrackedView>> byTarget = new EnumMap<>(ViewTarget.class);
+        for (TrackedView view : batch) {
+            byTarget.computeIfAbsent(view.target(), target -> new ArrayList<>()).add(view);
+        }
+        byTarget.forEach((target, views) -> {
+            // Vues à écrire : toutes tant que les pages supprimées n'ont pas été écartées
+            List<TrackedView> kept = views;
+            try {
+                Set<UUID> existing = existingIds(target, views);
+                kept = views.stream()
+                        .filter(view -> existing.contains(view.targetId()))
+                        .toList();
+                // Pages supprimées depuis la visite : vues écartées mais comptées
+                orphaned.get(target).increment(views.size() - kept.size());
+                if (!kept.isEmpty()) {
+                    List<TrackedView> rows = kept;
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.batchUpdate(insertSql(target), rows.stream().map(ViewTrackingService::row).toList());
+                        viewRollupService.add(target, rows);
+                        visitorSketchService.add(target, rows);
+                    });
+                }
+                written.get(target).increment(kept.size());
+            } catch (DataAccessException e) {
+                failed.get(target).increment(kept.size());
+                log.error("Écriture de {} vue(s) {} impossible : {}", kept.size(), target.getTable(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Pages encore présentes parmi celles du lot, pour ne pas faire échouer tout le lot
+     * sur une clé étrangère
+     */
+    private Set<UUID> existingIds(ViewTarget target, List<TrackedView> views) {
+        Set<UUID> ids = new LinkedHashSet<>();
+        views.forEach(view -> ids.add(view.targetId()));
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM " + target.getTable() + " WHERE id IN (" + placeholders + ")",
+                UUID.class, ids.toArray()));
+    }
+
+    private static String insertSql(ViewTarget target) {
+        return switch (target) {
+            case SHOP -> "INSERT INTO shop_view (shop_id, user_id, ip_address, viewed_at) VALUES (?, ?, ?, ?)";
+            case PRODUCT -> "INSERT INTO product_view (id, product_id, user_id, ip_address, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+        };
+    }
+
+    private static Object[] row(TrackedView view) {
+        return switch (view.target()) {
+            case SHOP -> new Object[]{view.targetId(), view.userId(), view.ipAddress(), view.viewedAt()};
+            case PRODUCT -> new Object[]{UUID.randomUUID(), view.targetId(), view.userId(), view.ipAddress(),
+                    view.viewedAt(), view.viewedAt()};
+        };
+    }
+
+    /**
+     * Vues abandonnées : file pleine (buffer_full) ou page supprimée avant l'écriture (target_deleted)
+     */
+    private static Counter dropped(MeterRegistry meterRegistry, ViewTarget target, String reason) {
+        return Counter.builder("dvente.views.dropped")
+                .description("Vues abandonnées")
+                .tag("target", target.getTable())
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String name, String description, ViewTarget target) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("target", target.getTable())
+                .register(meterRegistry);
+    }
+}
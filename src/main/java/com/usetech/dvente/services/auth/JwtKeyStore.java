@@ -0,0 +1,279 @@
+package com.usetech.dvente.services.auth;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Clés ES256 (P-256) des tokens d'accès, lues depuis jwt.es256.key-dir :
+ * <ul>
+ *     <li>{@code <kid>.pub.pem} : clé publique (X.509), publiée dans le JWKS et acceptée en vérification ;</li>
+ *     <li>{@code <kid>.pem} : clé privée (PKCS#8), présente uniquement sur les nœuds d'authentification.</li>
+ * </ul>
+ * Rotation avec recouvrement : déposer une nouvelle paire la publie immédiatement dans le JWKS,
+ * mais elle ne signe qu'après jwt.es256.activation-delay, le temps que les vérificateurs
+ * rafraîchissent leur JWKS. L'ancienne clé privée peut ensuite être supprimée ; sa clé publique
+ * reste jusqu'à expiration des derniers tokens qu'elle a signés. jwt.es256.active-kid force
+ * la clé de signature. Le répertoire est relu périodiquement, sans redémarrage.
+ * Les clés ne sont pas générées par défaut : tous les nœuds doivent partager les mêmes.
+ */
+@Slf4j
+@Service
+public class JwtKeyStore {
+
+    private static final String PRIVATE_SUFFIX = ".pem";
+    private static final String PUBLIC_SUFFIX = ".pub.pem";
+
+    @Value("${jwt.signing.algorithm:HS256}")
+    private String signingAlgorithm;
+
+    @Value("${jwt.es256.key-dir:keys/jwt}")
+    private String keyDir;
+
+    @Value("${jwt.es256.active-kid:}")
+    private String activeKid;
+
+    @Value("${jwt.es256.activation-delay:10m}")
+    private Duration activationDelay;
+
+    private volatile KeySet keySet = new KeySet(null, Map.of());
+
+    public record SigningKey(String kid, PrivateKey privateKey) {
+    }
+
+    private record KeySet(SigningKey signingKey, Map<String, ECPublicKey> publicKeys) {
+    }
+
+    /**
+     * Développement ou nœud unique seulement : sans clé partagée, chaque nœud signerait
+     * avec sa propre paire et refuserait les tokens des autres
+     */
+    @Value("${jwt.es256.generate-if-missing:false}")
+    private boolean generateIfMissing;
+
+    /**
+     * En ES256, refuse de démarrer sans clé publique dans key-dir (répertoire partagé
+     * ou provisionné à l'identique sur chaque nœud)
+     */
+    @PostConstruct
+    void init() throws IOException, GeneralSecurityException {
+        if (!isEs256()) {
+            return;
+        }
+        if (generateIfMissing && !hasPrivateKey()) {
+            generateKeyPair();
+        }
+        reload();
+        if (keySet.publicKeys().isEmpty()) {
+            throw new IllegalStateException("Aucune clé JWT ES256 dans " + Paths.get(keyDir).toAbsolutePath()
+                    + " : provisionner la même paire sur chaque nœud (jwt.es256.key-dir)");
+        }
+        if (keySet.signingKey() == null) {
+            log.warn("Aucune clé privée ES256 dans {} : ce nœud vérifie les tokens mais ne peut pas en émettre", keyDir);
+        }
+    }
+
+    public boolean isEs256() {
+        return "ES256".equalsIgnoreCase(signingAlgorithm);
+    }
+
+    /**
+     * Clé de signature active (mode ES256 uniquement)
+     */
+    public SigningKey getSigningKey() {
+        SigningKey signingKey = keySet.signingKey();
+        if (signingKey == null) {
+            throw new IllegalStateException("Aucune clé privée ES256 disponible dans " + keyDir);
+        }
+        return signingKey;
+    }
+
+    public ECPublicKey getVerificationKey(String kid) {
+        return kid == null ? null : keySet.publicKeys().get(kid);
+    }
+
+    /**
+     * Clés publiques par kid, dans l'ordre de publication (plus récente d'abord)
+     */
+    public Map<String, ECPublicKey> getPublicKeys() {
+        return keySet.publicKeys();
+    }
+
+    /**
+     * Relit key-dir pour suivre les rotations ; un fichier invalide est signalé et laisse
+     * le jeu de clés actuel en place jusqu'au rechargement suivant
+     */
+    @Scheduled(fixedDelayString = "${jwt.es256.reload-interval:60s}")
+    public void reload() {
+        if (!isEs256()) {
+            return;
+        }
+        Path dir = Paths.get(keyDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try {
+            List<Path> publicFiles = list(dir, PUBLIC_SUFFIX);
+            Map<String, ECPublicKey> publicKeys = new LinkedHashMap<>();
+            for (Path file : publicFiles) {
+                publicKeys.put(kidOf(file, PUBLIC_SUFFIX), readPublicKey(file));
+            }
+
+            SigningKey signingKey = null;
+            Path signingFile = selectSigningFile(dir, publicKeys);
+            if (signingFile != null) {
+                signingKey = new SigningKey(kidOf(signingFile, PRIVATE_SUFFIX), readPrivateKey(signingFile));
+            }
+
+            KeySet previous = keySet;
+            keySet = new KeySet(signingKey, Collections.unmodifiableMap(publicKeys));
+            if (!publicKeys.keySet().equals(previous.publicKeys().keySet())
+                    || (signingKey != null && (previous.signingKey() == null
+                    || !signingKey.kid().equals(previous.signingKey().kid())))) {
+                log.info("Clés JWT ES256 chargées : publiques {}, signature {}",
+                        publicKeys.keySet(), signingKey != null ? signingKey.kid() : "aucune");
+            }
+
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException | IllegalStateException
+                 | ClassCastException e) {
+            // Fichier invalide (PEM illisible, clé non EC, clé active absente) : les clés en place restent utilisées
+            log.error("Erreur lors du chargement des clés JWT depuis {}, clés actuelles conservées", keyDir, e);
+        }
+    }
+
+    /**
+     * Clé privée la plus récente déjà publiée depuis activation-delay ;
+     * à défaut (premier démarrage), la plus récente tout court
+     */
+    private Path selectSigningFile(Path dir, Map<String, ECPublicKey> publicKeys) throws IOException {
+        List<Path> privateFiles = list(dir, PRIVATE_SUFFIX).stream()
+                .filter(file -> publicKeys.containsKey(kidOf(file, PRIVATE_SUFFIX)))
+                .toList();
+        if (privateFiles.isEmpty()) {
+            return null;
+        }
+        if (!activeKid.isBlank()) {
+            return privateFiles.stream()
+                    .filter(file -> kidOf(file, PRIVATE_SUFFIX).equals(activeKid))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Clé active introuvable : " + activeKid));
+        }
+        Instant activationLimit = Instant.now().minus(activationDelay);
+        for (Path file : privateFiles) {
+            if (!Files.getLastModifiedTime(file).toInstant().isAfter(activationLimit)) {
+                return file;
+            }
+        }
+        return privateFiles.get(0);
+    }
+
+    private boolean hasPrivateKey() throws IOException {
+        Path dir = Paths.get(keyDir);
+        return Files.isDirectory(dir) && !list(dir, PRIVATE_SUFFIX).isEmpty();
+    }
+
+    /**
+     * Premier démarrage en ES256 sans clé, avec jwt.es256.generate-if-missing : génère une paire
+     */
+    private void generateKeyPair() throws IOException, GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keyPair = generator.generateKeyPair();
+
+        String kid = LocalDate.now() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        Path dir = Files.createDirectories(Paths.get(keyDir));
+        Files.writeString(dir.resolve(kid + PUBLIC_SUFFIX), pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+        Path privateFile = Files.writeString(dir.resolve(kid + PRIVATE_SUFFIX), pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        try {
+            Files.setPosixFilePermissions(privateFile, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            log.warn("Permissions POSIX non supportées, protéger {} manuellement", privateFile);
+        }
+        log.warn("Aucune clé JWT ES256 trouvée : paire {} générée dans {}", kid, dir.toAbsolutePath());
+    }
+
+    /**
+     * Fichiers du suffixe donné, du plus récent au plus ancien
+     */
+    private static List<Path> list(Path dir, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> result = new ArrayList<>(files
+                    .filter(file -> isKeyFile(file, suffix))
+                    .toList());
+            result.sort(Comparator.comparing(JwtKeyStore::lastModified).reversed());
+            return result;
+        }
+    }
+
+    private static boolean isKeyFile(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        if (PRIVATE_SUFFIX.equals(suffix)) {
+            return name.endsWith(PRIVATE_SUFFIX) && !name.endsWith(PUBLIC_SUFFIX);
+        }
+        return name.endsWith(suffix);
+    }
+
+    private static Instant lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant();
+        } catch (IOException e) {
+            return Instant.EPOCH;
+        }
+    }
+
+    private static String kidOf(Path file, String suffix) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - suffix.length());
+    }
+
+    private static ECPublicKey readPublicKey(Path file) throws IOException, GeneralSecurityException {
+        return (ECPublicKey) KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(readPem(file)));
+    }
+
+    private static PrivateKey readPrivateKey(Path file) throws IOException, GeneralSecurityException {
+        return KeyFactory.getInstance("EC").generatePrivate(new PKCS8EncodedKeySpec(readPem(file)));
+    }
+
+    private static byte[] readPem(Path file) throws IOException {
+        String content = Files.readString(file, StandardCharsets.US_ASCII)
+                .replaceAll("-----(BEGIN|END) [A-Z ]+-----", "")
+                .replaceAll("\\s", "");
+        return Base64.getDecoder().decode(content);
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
@@ -0,0 +1,190 @@
+package com.usetech.dvente.services.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.events.users.UserAuthorityChangedEvent;
+import com.usetech.dvente.repositories.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Résout le principal d'un token JWT d'accès sans accès base sur le chemin chaud.
+ * <ul>
+ *     <li>cache des principaux vérifiés, indexé par le SHA-256 du token, dont la durée
+ *     de vie ne dépasse jamais l'expiration du token ;</li>
+ *     <li>en cas d'absence, le token est analysé une seule fois et le principal est
+ *     reconstruit depuis ses claims (id, rôle, nom) ; seul le statut du compte est lu en base
+ *     (un compte supprimé ou désactivé est refusé), l'utilisateur complet ne l'étant que pour
+ *     les anciens tokens sans claims ou les utilisateurs invalidés ;</li>
+ *     <li>{@link #invalidateUser} (rôle ou email modifié, compte désactivé ou supprimé) purge le cache et fait ignorer
+ *     les claims des tokens émis avant le changement.</li>
+ * </ul>
+ * Le principal ne porte que les claims : un endpoint qui renvoie l'état complet de
+ * l'utilisateur le relit en base (UserService#reload). L'invalidation est locale à
+ * l'instance : sur plusieurs nœuds, max-ttl borne le décalage.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JwtPrincipalService {
+
+    private final JwtService jwtService;
+    private final UserDetailsService userDetailsService;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${jwt.principal-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${jwt.principal-cache.max-ttl:5m}")
+    private Duration maxTtl;
+
+    @Value("${jwt.expiration}")
+    private Long accessTokenLifetime;
+
+    private Cache<String, CachedPrincipal> principals;
+    private Cache<UUID, Instant> invalidatedUsers;
+
+    private record CachedPrincipal(UserDetails principal, UUID userId, long ttlNanos) {
+    }
+
+    @PostConstruct
+    void init() {
+        principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CachedPrincipal>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedPrincipal value, long currentTime) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedPrincipal value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        // Conservé tant qu'un token émis avant l'invalidation peut encore être valide
+        invalidatedUsers = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(accessTokenLifetime))
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "jwtPrincipals");
+    }
+
+    /**
+     * Principal authentifié pour un token d'accès.
+     * Lève les exceptions jjwt si le token est expiré, mal formé ou mal signé, et une
+     * AuthenticationException si le compte a été supprimé ou désactivé.
+     */
+    public UserDetails resolve(String token) {
+        String key = hash(token);
+        CachedPrincipal cached = principals.getIfPresent(key);
+        if (cached != null) {
+            return cached.principal();
+        }
+
+        Instant resolvedAt = Instant.now();
+        Claims claims = jwtService.extractAllClaims(token);
+        UserDetails principal = loadPrincipal(claims);
+
+        UUID userId = principal instanceof User user ? user.getId() : null;
+        Duration remaining = Duration.between(resolvedAt, claims.getExpiration().toInstant());
+        Duration ttl = remaining.compareTo(maxTtl) < 0 ? remaining : maxTtl;
+
+        // Invalidation survenue pendant la résolution : on ne met pas en cache un état périmé
+        if (ttl.isPositive() && !isInvalidatedSince(userId, resolvedAt)) {
+            principals.put(key, new CachedPrincipal(principal, userId, ttl.toNanos()));
+        }
+        return principal;
+    }
+
+    /**
+     * Hook d'invalidation : à appeler après un changement de rôle ou d'email
+     */
+    public void invalidateUser(UUID userId) {
+        if (userId == null) {
+            return;
+        }
+        invalidatedUsers.put(userId, Instant.now());
+        principals.asMap().values().removeIf(cached -> userId.equals(cached.userId()));
+        log.info("Principaux JWT en cache invalidés pour l'utilisateur {}", userId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserAuthorityChanged(UserAuthorityChangedEvent event) {
+        invalidateUser(event.getUserId());
+    }
+
+    private UserDetails loadPrincipal(Claims claims) {
+        User fromClaims = jwtService.extractUser(claims);
+        if (fromClaims != null && !isIssuedBeforeInvalidation(fromClaims.getId(), claims)) {
+            boolean active = userRepository.findActiveById(fromClaims.getId())
+                    .orElseThrow(() -> new UsernameNotFoundException("Utilisateur supprimé : " + claims.getSubject()));
+            if (!active) {
+                throw new DisabledException("Compte désactivé : " + claims.getSubject());
+            }
+            return fromClaims;
+        }
+        UserDetails loaded = userDetailsService.loadUserByUsername(claims.getSubject());
+        if (!loaded.isEnabled()) {
+            throw new DisabledException("Compte désactivé : " + claims.getSubject());
+        }
+        return loaded;
+    }
+
+    private boolean isIssuedBeforeInvalidation(UUID userId, Claims claims) {
+        Instant invalidatedAt = invalidatedUsers.getIfPresent(userId);
+        if (invalidatedAt == null) {
+            return false;
+        }
+        // iat est à la seconde : un token émis dans la même seconde est traité comme ancien
+        return claims.getIssuedAt() == null || !claims.getIssuedAt().toInstant().isAfter(invalidatedAt);
+    }
+
+    private boolean isInvalidatedSince(UUID userId, Instant since) {
+        if (userId == null) {
+            return false;
+        }
+        Instant invalidatedAt = invalidatedUsers.getIfPresent(userId);
+        return invalidatedAt != null && !invalidatedAt.isBefore(since);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -1,27 +1,40 @@
 package com.usetech.dvente.services.auth;
 
 import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.entities.users.UserRole;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.AccessLevel;
 import lombok.Setter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 @Setter
 public class JwtService {
 
-    @Value("${jwt.secret}")
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_NAME = "name";
+
     private String secret;
 
     @Value("${jwt.expiration}")
@@ -30,6 +43,53 @@ public class JwtService {
     @Value("${jwt.refresh-expiration}")
     private Long refreshExpiration;
 
+    /**
+     * Clés ES256 (mode asymétrique) ; absent hors contexte Spring, le service reste alors en HS256
+     */
+    @Autowired(required = false)
+    private JwtKeyStore keyStore;
+
+    /**
+     * Clé HMAC dérivée du secret une seule fois
+     */
+    @Setter(AccessLevel.NONE)
+    private Key signKey;
+
+    @Setter(AccessLevel.NONE)
+    private Instant hs256AcceptUntil;
+
+    /**
+     * Parser jjwt immuable, partagé entre threads. La clé de vérification est choisie
+     * d'après l'en-tête du token : secret HMAC pour HS256, clé publique du kid pour ES256.
+     * En mode ES256, les tokens HS256 ne sont plus acceptés après jwt.hs256.accept-until.
+     */
+    @Setter(AccessLevel.NONE)
+    private final JwtParser jwtParser = Jwts.parserBuilder()
+            .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                // Signature imposée par jjwt 0.11 (type brut) : un JwsHeader<?> ne la redéfinirait pas
+                @Override
+                @SuppressWarnings("rawtypes")
+                public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    return resolveVerificationKey(header);
+                }
+            })
+            .build();
+
+    @Value("${jwt.secret}")
+    public void setSecret(String secret) {
+        this.secret = secret;
+        this.signKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secret));
+    }
+
+    /**
+     * Date limite d'acceptation des tokens HS256 une fois passé en ES256 : date de la bascule
+     * plus la durée de vie du plus long token (jwt.refresh-expiration). Vide : refusés aussitôt.
+     */
+    @Value("${jwt.hs256.accept-until:}")
+    public void setHs256AcceptUntil(String acceptUntil) {
+        this.hs256AcceptUntil = acceptUntil == null || acceptUntil.isBlank() ? null : Instant.parse(acceptUntil);
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -39,43 +99,99 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Vérifie la signature et l'expiration du token et retourne ses claims
+     * (lève les exceptions jjwt : ExpiredJwtException, SignatureException...)
+     */
+    public Claims extractAllClaims(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = extractAllClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractClaim(token, Claims::getExpiration).before(new Date());
+    private Key resolveVerificationKey(JwsHeader<?> header) {
+        String algorithm = header.getAlgorithm();
+        if (SignatureAlgorithm.HS256.getValue().equals(algorithm) && signKey != null && acceptsHs256()) {
+            return signKey;
+        }
+        if (SignatureAlgorithm.ES256.getValue().equals(algorithm) && keyStore != null) {
+            Key publicKey = keyStore.getVerificationKey(header.getKeyId());
+            if (publicKey != null) {
+                return publicKey;
+            }
+        }
+        throw new SignatureException("Clé de vérification inconnue (alg " + algorithm + ", kid " + header.getKeyId() + ")");
     }
 
-    private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private boolean acceptsHs256() {
+        if (keyStore == null || !keyStore.isEs256()) {
+            return true;
+        }
+        return hs256AcceptUntil != null && Instant.now().isBefore(hs256AcceptUntil);
+    }
+
+    /**
+     * Reconstruit le principal à partir des claims d'un token vérifié, sans base de données.
+     * Seuls id, email, rôle et nom sont renseignés ; retourne {@code null} pour les
+     * tokens émis avant l'ajout de ces claims.
+     */
+    public User extractUser(Claims claims) {
+        String userId = claims.get(CLAIM_USER_ID, String.class);
+        if (userId == null) {
+            return null;
+        }
+        String role = claims.get(CLAIM_ROLE, String.class);
+
+        User user = User.builder()
+                .email(claims.getSubject())
+                .name(claims.get(CLAIM_NAME, String.class))
+                .role(role != null ? UserRole.valueOf(role) : null)
+                .build();
+        user.setId(UUID.fromString(userId));
+        return user;
     }
 
     public String generateAccessToken(User user) {
-        return generateToken(new HashMap<>(), user, expiration);
+        return generateToken(userClaims(user), user, expiration);
     }
 
     public String generateRefreshToken(User user) {
         return generateToken(new HashMap<>(), user, refreshExpiration);
     }
 
+    private Map<String, Object> userClaims(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        if (user.getId() != null) {
+            claims.put(CLAIM_USER_ID, user.getId().toString());
+        }
+        if (user.getRole() != null) {
+            claims.put(CLAIM_ROLE, user.getRole().name());
+        }
+        if (user.getName() != null) {
+            claims.put(CLAIM_NAME, user.getName());
+        }
+        return claims;
+    }
+
     private String generateToken(Map<String, Object> extraClaims, User user, Long expirationTime) {
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setClaims(extraClaims)
                 .setSubject(user.getEmail())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + expirationTime));
+
+        if (keyStore != null && keyStore.isEs256()) {
+            JwtKeyStore.SigningKey signingKey = keyStore.getSigningKey();
+            return builder
+                    .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
+                    .signWith(signingKey.privateKey(), SignatureAlgorithm.ES256)
+                    .compact();
+        }
+        return builder
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 }
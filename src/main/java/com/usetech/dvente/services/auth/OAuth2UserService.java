@@ -1,22 +1,20 @@
 package com.usetech.dvente.services.auth;
 
 import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.events.users.OAuthAvatarEvent;
 import com.usetech.dvente.repositories.UserRepository;
-import com.usetech.dvente.services.FileStorageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
-
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 public class OAuth2UserService {
 
     private final UserRepository userRepository;
-    private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public User processOAuth2User(OAuth2User oAuth2User) {
@@ -36,15 +34,11 @@ public class OAuth2UserService {
         }
 
         if (picture != null && !picture.isEmpty()) {
-            String localAvatarPath = fileStorageService.saveAvatarFromUrl(picture, user.getId());
-            if (localAvatarPath != null) {
-                if (user.getAvatar() != null && user.getAvatar().startsWith("/uploads/")) {
-                    fileStorageService.deleteAvatar(user.getAvatar());
-                }
-                user.setAvatar(localAvatarPath);
-            } else {
+            // Sans copie locale, la photo du fournisseur est affichée en attendant AvatarIngestionService
+            if (user.getAvatar() == null || !user.getAvatar().startsWith("/uploads/")) {
                 user.setAvatar(picture);
             }
+            eventPublisher.publishEvent(new OAuthAvatarEvent(user.getId(), picture, this));
         }
 
         return userRepository.save(user);
@@ -57,17 +51,14 @@ public class OAuth2UserService {
         newUser.setGoogleId(googleId);
         newUser.setEmailConfirmed(true);
         newUser.setProvider("GOOGLE");
+        if (picture != null && !picture.isEmpty()) {
+            newUser.setAvatar(picture);
+        }
 
         newUser = userRepository.save(newUser);
 
         if (picture != null && !picture.isEmpty()) {
-            String localAvatarPath = fileStorageService.saveAvatarFromUrl(picture, newUser.getId());
-            if (localAvatarPath != null) {
-                newUser.setAvatar(localAvatarPath);
-            } else {
-                newUser.setAvatar(picture);
-            }
-            newUser = userRepository.save(newUser);
+            eventPublisher.publishEvent(new OAuthAvatarEvent(newUser.getId(), picture, this));
         }
 
         return newUser;
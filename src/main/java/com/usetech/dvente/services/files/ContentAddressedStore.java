@@ -0,0 +1,305 @@
+package com.usetech.dvente.services.files;
+
+import com.usetech.dvente.entities.files.FileBlob;
+import com.usetech.dvente.repositories.files.FileBlobRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Stockage adressé par contenu, activé par app.upload.content-addressed :
+ * <ul>
+ *     <li>chaque fichier est rangé sous uploads/cas/ab/cd/&lt;sha256&gt;.ext ; un contenu déjà
+ *     présent n'est pas stocké une seconde fois et garde l'URL de son premier upload ;</li>
+ *     <li>FileBlob compte les références : +1 à chaque enregistrement, -1 à chaque suppression
+ *     demandée par les services ;</li>
+ *     <li>un fichier n'est effacé du disque qu'après être resté sans référence pendant
+ *     app.upload.cas.grace-period, et après revérification des colonnes qui le référencent ;</li>
+ *     <li>une réconciliation quotidienne recalcule les compteurs depuis ces colonnes
+ *     (transactions annulées, entités supprimées sans passer par les services).</li>
+ * </ul>
+ * Le contenu d'une URL ne change jamais : /uploads/cas/** est servi comme immuable.
+ */
+@Slf4j
+@Service
+public class ContentAddressedStore {
+
+    public static final String DIRECTORY = "cas";
+    public static final String URL_PREFIX = "/uploads/" + DIRECTORY + "/";
+
+    private final FileBlobRepository fileBlobRepository;
+    private final ImageVariantStore imageVariantStore;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.upload.content-addressed:false}")
+    private boolean enabled;
+
+    @Value("${app.upload.path:uploads}")
+    private String uploadBasePath;
+
+    @Value("${app.upload.cas.grace-period:1h}")
+    private Duration gracePeriod;
+
+    @Value("${app.upload.cas.purge-batch-size:100}")
+    private int purgeBatchSize;
+
+    public ContentAddressedStore(FileBlobRepository fileBlobRepository,
+                                 ImageVariantStore imageVariantStore,
+                                 PlatformTransactionManager transactionManager) {
+        this.fileBlobRepository = fileBlobRepository;
+        this.imageVariantStore = imageVariantStore;
+        // Les compteurs sont validés indépendamment de la transaction appelante ;
+        // une référence perdue sur rollback est corrigée par la réconciliation
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public static boolean isContentAddressed(String url) {
+        return url != null && url.startsWith(URL_PREFIX);
+    }
+
+    /**
+     * Enregistre le contenu et ajoute une référence
+     * @param policy null pour ne vérifier ni taille ni signature (contenu déjà validé)
+     */
+    public StoredFile store(InputStream content, String originalFilename, String contentType, UploadPolicy policy) {
+        Path root = Paths.get(uploadBasePath, DIRECTORY);
+        Path tempPath = root.resolve("tmp").resolve(UUID.randomUUID() + ".part");
+        try {
+            Files.createDirectories(tempPath.getParent());
+            HashingFileWriter.Written written = HashingFileWriter.write(content, tempPath, policy);
+            String sha256 = written.sha256();
+            String extension = policy != null
+                    ? policy.storedExtension(originalFilename, contentType)
+                    : extensionOf(originalFilename);
+            String candidateUrl = URL_PREFIX + sha256.substring(0, 2) + "/" + sha256.substring(2, 4) + "/" + sha256 + extension;
+
+            // La référence est prise avant de poser le fichier : une purge concurrente du même
+            // contenu attend le verrou de la ligne, puis ne la trouve plus sans référence
+            String url = transactionTemplate.execute(status -> {
+                fileBlobRepository.addReference(sha256, candidateUrl, written.size(), contentType);
+                return fileBlobRepository.findBySha256(sha256).map(FileBlob::getUrl).orElse(candidateUrl);
+            });
+
+            Path target = resolve(url);
+            Files.createDirectories(target.getParent());
+            // Même contenu, même nom : remplacer un fichier existant est sans effet visible
+            Files.move(tempPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return new StoredFile(url, written.size(), sha256, contentType);
+
+        } catch (IOException e) {
+            throw new RuntimeException("Échec de la sauvegarde du fichier: " + e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(tempPath);
+            } catch (IOException e) {
+                log.warn("Fichier temporaire {} non supprimé : {}", tempPath, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Retire une référence ; le fichier reste sur disque jusqu'à la purge
+     */
+    public void release(String url) {
+        if (!isContentAddressed(url)) {
+            return;
+        }
+        Integer updated = transactionTemplate.execute(status -> fileBlobRepository.removeReference(url));
+        if (updated == null || updated == 0) {
+            log.warn("Référence à {} introuvable dans le stockage adressé par contenu", url);
+        }
+    }
+
+    /**
+     * Efface les fichiers restés sans référence au-delà du délai de grâce.
+     * Dans la transaction, le fichier est seulement renommé en .purge et la ligne marquée
+     * comme pierre tombale (purgingSince) ; il est remis en place si la transaction est annulée.
+     * Un upload concurrent du même contenu attend le verrou de la ligne, donc repose son
+     * fichier après le renommage, et lève la pierre tombale en reprenant une référence.
+     * Après validation, finishPurge reverrouille la ligne avant d'effacer quoi que ce soit.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.cas.purge-interval:10m}")
+    public void purgeUnreferenced() {
+        if (!enabled) {
+            return;
+        }
+        int purged;
+        do {
+            purged = 0;
+            List<String> deleted = transactionTemplate.execute(status -> {
+                List<String> urls = new ArrayList<>();
+                for (FileBlob blob : fileBlobRepository.lockUnreferenced(LocalDateTime.now().minus(gracePeriod), purgeBatchSize)) {
+                    long references = fileBlobRepository.countReferences(blob.getUrl());
+                    if (references > 0) {
+                        fileBlobRepository.updateRefCount(blob.getId(), (int) references);
+                        log.warn("Compteur de {} corrigé à {} avant purge", blob.getUrl(), references);
+                        continue;
+                    }
+                    Path file = resolve(blob.getUrl());
+                    Path tomb = file.resolveSibling(file.getFileName() + ".purge");
+                    try {
+                        if (Files.exists(file)) {
+                            Files.move(file, tomb, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    } catch (IOException e) {
+                        log.error("Suppression de {} impossible : {}", blob.getUrl(), e.getMessage());
+                        continue;
+                    }
+                    fileBlobRepository.markPurging(blob.getId());
+                    TransactionSynchronizationManager.registerSynchronization(new PurgeSynchronization(blob.getUrl(), file, tomb));
+                    urls.add(blob.getUrl());
+                }
+                return urls;
+            });
+            if (deleted != null && !deleted.isEmpty()) {
+                purged = deleted.size();
+                log.info("Stockage adressé par contenu : {} fichier(s) sans référence supprimé(s)", purged);
+            }
+        } while (purged == purgeBatchSize);
+    }
+
+    /**
+     * Recalcule les compteurs depuis les colonnes qui référencent les fichiers,
+     * par pages de purge-batch-size lignes, chacune dans sa propre transaction
+     */
+    @Scheduled(cron = "${app.upload.cas.reconcile-cron:0 15 4 * * *}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Integer> references = new HashMap<>();
+        for (Object[] row : fileBlobRepository.countReferencesByUrl(URL_PREFIX + "%")) {
+            references.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        LocalDateTime before = LocalDateTime.now().minus(gracePeriod);
+        int corrected = 0;
+        UUID afterId = new UUID(0L, 0L);
+        List<FileBlob> page;
+        do {
+            page = fileBlobRepository.findPageUpdatedBefore(before, afterId, Limit.of(purgeBatchSize));
+            List<FileBlob> current = page;
+            Integer fixed = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (FileBlob blob : current) {
+                    int expected = references.getOrDefault(blob.getUrl(), 0);
+                    if (blob.getRefCount() != expected) {
+                        fileBlobRepository.updateRefCount(blob.getId(), expected);
+                        count++;
+                    }
+                }
+                return count;
+            });
+            corrected += fixed != null ? fixed : 0;
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == purgeBatchSize);
+        if (corrected > 0) {
+            log.warn("Stockage adressé par contenu : {} compteur(s) de références corrigé(s)", corrected);
+        }
+    }
+
+    /**
+     * Fin de purge, dans sa propre transaction : la ligne est reverrouillée (un addReference en
+     * cours du même contenu est attendu). Si elle est toujours une pierre tombale sans référence,
+     * le fichier renommé, ses versions compressées et ses déclinaisons sont effacés avec la ligne ;
+     * si le contenu a été ré-uploadé entre-temps, seul l'ancien fichier renommé est effacé.
+     */
+    void finishPurge(String url, Path file, Path tomb) {
+        transactionTemplate.executeWithoutResult(status -> {
+            FileBlob blob = fileBlobRepository.lockByUrl(url).orElse(null);
+            boolean stillPurging = blob != null && blob.getPurgingSince() != null && blob.getRefCount() <= 0;
+            try {
+                Files.deleteIfExists(tomb);
+                if (stillPurging) {
+                    UploadFileServer.deleteEncodedSiblings(file);
+                    imageVariantStore.delete(url);
+                }
+            } catch (IOException e) {
+                // La pierre tombale reste : la purge suivante recommencera
+                log.error("Suppression de {} impossible : {}", url, e.getMessage());
+                return;
+            }
+            if (stillPurging) {
+                fileBlobRepository.delete(blob);
+            }
+        });
+    }
+
+    /**
+     * Termine la purge après validation, ou remet le fichier en place sur rollback
+     */
+    private class PurgeSynchronization implements TransactionSynchronization {
+
+        private final String url;
+        private final Path file;
+        private final Path tomb;
+
+        PurgeSynchronization(String url, Path file, Path tomb) {
+            this.url = url;
+            this.file = file;
+            this.tomb = tomb;
+        }
+
+        @Override
+        public void afterCommit() {
+            finishPurge(url, file, tomb);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (status == STATUS_COMMITTED) {
+                return;
+            }
+            try {
+                if (Files.exists(tomb)) {
+                    Files.move(tomb, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                log.error("Restauration de {} impossible : {}", url, e.getMessage());
+            }
+        }
+    }
+
+    private Path resolve(String url) {
+        return Paths.get(uploadBasePath, url.substring("/uploads/".length()));
+    }
+
+    /**
+     * Extension d'origine si elle est simple (lettres et chiffres, 5 caractères au plus)
+     */
+    private static String extensionOf(String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return "";
+        }
+        String extension = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        return extension.matches("[a-z0-9]{1,5}") ? "." + extension : "";
+    }
+}
@@ -5,13 +5,9 @@ import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Arrays;
-import java.util.List;
-
 public class DocumentValidator implements ConstraintValidator<ValidDocument, MultipartFile> {
 
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024; // 10MB
-    private static final List<String> ALLOWED_EXTENSIONS = Arrays.asList("pdf", "doc", "docx");
+    private static final UploadPolicy POLICY = UploadPolicy.DOCUMENT;
 
     @Override
     public boolean isValid(MultipartFile file, ConstraintValidatorContext context) {
@@ -23,27 +19,22 @@ public class DocumentValidator implements ConstraintValidator<ValidDocument, Mul
         }
 
         // Vérifier la taille du fichier
-        if (file.getSize() > MAX_FILE_SIZE) {
+        if (file.getSize() > POLICY.getMaxBytes()) {
             context.disableDefaultConstraintViolation();
-            context.buildConstraintViolationWithTemplate("Le fichier ne doit pas dépasser 10MB")
+            context.buildConstraintViolationWithTemplate(POLICY.getSizeMessage())
                     .addConstraintViolation();
             return false;
         }
 
         // Vérifier l'extension du fichier
         String originalFilename = file.getOriginalFilename();
-        if (originalFilename == null || !hasValidExtension(originalFilename)) {
+        if (originalFilename == null || !POLICY.isDeclaredTypeAllowed(originalFilename, file.getContentType())) {
             context.disableDefaultConstraintViolation();
-            context.buildConstraintViolationWithTemplate("Le fichier doit être un PDF, DOC ou DOCX")
+            context.buildConstraintViolationWithTemplate(POLICY.getTypeMessage())
                     .addConstraintViolation();
             return false;
         }
 
         return true;
     }
-
-    private boolean hasValidExtension(String filename) {
-        String extension = filename.substring(filename.lastIndexOf(".") + 1).toLowerCase();
-        return ALLOWED_EXTENSIONS.contains(extension);
-    }
 }
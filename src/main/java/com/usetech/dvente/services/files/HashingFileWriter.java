@@ -0,0 +1,86 @@
+package com.usetech.dvente.services.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Copie d'un flux vers un fichier par canal NIO, avec calcul du SHA-256 au fil de l'eau
+ * et, si une politique est fournie, arrêt dès que la taille maximale est dépassée ou que
+ * les premiers octets ne correspondent pas au type attendu.
+ */
+public final class HashingFileWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Résultat d'une écriture : taille en octets et SHA-256 hexadécimal
+     */
+    public record Written(long size, String sha256) {
+    }
+
+    private HashingFileWriter() {
+    }
+
+    /**
+     * @param policy null pour ne vérifier ni taille ni signature
+     * @throws IllegalArgumentException si le contenu ne respecte pas la politique ; le fichier
+     *                                  partiellement écrit est laissé à l'appelant
+     */
+    public static Written write(InputStream content, Path target, UploadPolicy policy) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] head = new byte[UploadPolicy.SIGNATURE_LENGTH];
+        int headLength = 0;
+        long size = 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (ReadableByteChannel source = Channels.newChannel(content);
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            int read;
+            while ((read = source.read(buffer)) >= 0) {
+                if (read == 0) {
+                    continue;
+                }
+                size += read;
+                if (policy != null && size > policy.getMaxBytes()) {
+                    throw new IllegalArgumentException(policy.getSizeMessage());
+                }
+                buffer.flip();
+                if (policy != null && headLength < head.length) {
+                    int n = Math.min(head.length - headLength, buffer.remaining());
+                    buffer.get(buffer.position(), head, headLength, n);
+                    headLength += n;
+                    if (headLength == head.length && !policy.matchesSignature(head, headLength)) {
+                        throw new IllegalArgumentException(policy.getTypeMessage());
+                    }
+                }
+                digest.update(buffer.array(), buffer.position(), buffer.remaining());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+
+        if (size == 0) {
+            throw new IllegalArgumentException("Le fichier est vide");
+        }
+        if (policy != null && headLength < head.length && !policy.matchesSignature(head, headLength)) {
+            throw new IllegalArgumentException(policy.getTypeMessage());
+        }
+        return new Written(size, HexFormat.of().formatHex(digest.digest()));
+    }
+}
@@ -0,0 +1,27 @@
+package com.usetech.dvente.services.files;
+
+import lombok.Getter;
+
+/**
+ * Déclinaisons générées pour les images produit et de galerie : largeur maximale en pixels,
+ * jamais agrandie au-delà de l'original
+ */
+@Getter
+public enum ImageVariant {
+
+    THUMBNAIL("thumb", 200),
+    MEDIUM("medium", 600),
+    LARGE("large", 1200);
+
+    private final String key;
+    private final int width;
+
+    ImageVariant(String key, int width) {
+        this.key = key;
+        this.width = width;
+    }
+
+    public String filename() {
+        return key + ".jpg";
+    }
+}
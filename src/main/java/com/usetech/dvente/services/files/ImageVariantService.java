@@ -0,0 +1,155 @@
+package com.usetech.dvente.services.files;
+
+import com.usetech.dvente.configs.AsyncConfig;
+import com.usetech.dvente.events.files.ImageUploadedEvent;
+import com.usetech.dvente.repositories.products.ProductImageRepository;
+import com.usetech.dvente.repositories.products.ProductRepository;
+import com.usetech.dvente.repositories.shops.ShopGalleryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+/**
+ * Génération des déclinaisons (thumb 200px, medium 600px, large 1200px, JPEG) des images
+ * produit et de galerie :
+ * <ul>
+ *     <li>après chaque upload (ImageUploadedEvent, après commit), sur l'exécuteur image borné ;
+ *     si sa file est pleine l'image est laissée au rattrapage ;</li>
+ *     <li>les URLs sont ensuite enregistrées sur les produits, images et galeries qui
+ *     référencent déjà l'image (les autres les reçoivent à leur création, cf. ImageVariantEntityListener) ;</li>
+ *     <li>le rattrapage parcourt les images sans déclinaisons par pages, une à la fois, pour ne
+ *     pas priver les uploads en cours de l'exécuteur.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class ImageVariantService {
+
+    private static final int BACKFILL_PAGE_SIZE = 100;
+
+    private final ImageVariantStore imageVariantStore;
+    private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ShopGalleryRepository shopGalleryRepository;
+    private final TaskExecutor imageExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.images.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    public ImageVariantService(ImageVariantStore imageVariantStore,
+                               ProductRepository productRepository,
+                               ProductImageRepository productImageRepository,
+                               ShopGalleryRepository shopGalleryRepository,
+                               @Qualifier(AsyncConfig.IMAGE_EXECUTOR) TaskExecutor imageExecutor,
+                               PlatformTransactionManager transactionManager) {
+        this.imageVariantStore = imageVariantStore;
+        this.productRepository = productRepository;
+        this.productImageRepository = productImageRepository;
+        this.shopGalleryRepository = shopGalleryRepository;
+        this.imageExecutor = imageExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageUploaded(ImageUploadedEvent event) {
+        try {
+            imageExecutor.execute(() -> process(event.getImageUrl()));
+        } catch (TaskRejectedException e) {
+            log.warn("Exécuteur image saturé : déclinaisons de {} reportées au rattrapage", event.getImageUrl());
+        }
+    }
+
+    /**
+     * Lance le rattrapage des images existantes
+     * @return false si un rattrapage est déjà en cours
+     * @throws TaskRejectedException si l'exécuteur image est saturé
+     */
+    public boolean startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            imageExecutor.execute(this::backfill);
+            return true;
+        } catch (TaskRejectedException e) {
+            backfillRunning.set(false);
+            throw e;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (backfillOnStartup) {
+            try {
+                startBackfill();
+            } catch (TaskRejectedException e) {
+                log.warn("Rattrapage des déclinaisons non lancé : exécuteur image saturé");
+            }
+        }
+    }
+
+    private void backfill() {
+        try {
+            long start = System.nanoTime();
+            int processed = backfill(productRepository::findPrimaryImagesWithoutVariants)
+                    + backfill(productImageRepository::findImagesWithoutVariants)
+                    + backfill(shopGalleryRepository::findImagesWithoutVariants);
+            log.info("Rattrapage des déclinaisons terminé : {} image(s) en {} s",
+                    processed, (System.nanoTime() - start) / 1_000_000_000);
+        } catch (RuntimeException e) {
+            log.error("Rattrapage des déclinaisons interrompu : {}", e.getMessage(), e);
+        } finally {
+            backfillRunning.set(false);
+        }
+    }
+
+    /**
+     * Parcourt les URLs sans déclinaisons par pagination par clé ; une image non traitable
+     * garde des déclinaisons nulles et est simplement dépassée par le curseur
+     */
+    private int backfill(BiFunction<String, PageRequest, List<String>> page) {
+        int processed = 0;
+        String after = "";
+        List<String> urls;
+        do {
+            urls = page.apply(after, PageRequest.of(0, BACKFILL_PAGE_SIZE));
+            for (String url : urls) {
+                process(url);
+                processed++;
+            }
+            if (!urls.isEmpty()) {
+                after = urls.get(urls.size() - 1);
+            }
+        } while (urls.size() == BACKFILL_PAGE_SIZE);
+        return processed;
+    }
+
+    private void process(String imageUrl) {
+        Map<String, String> variants = imageVariantStore.generate(imageUrl);
+        if (variants == null) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            productRepository.findByPrimaryImage(imageUrl).forEach(product -> product.setPrimaryImageVariants(variants));
+            productImageRepository.findByImage(imageUrl).forEach(image -> image.setVariants(variants));
+            shopGalleryRepository.findByImage(imageUrl).forEach(gallery -> gallery.setVariants(variants));
+        });
+    }
+}
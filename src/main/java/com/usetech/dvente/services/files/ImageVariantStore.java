@@ -0,0 +1,236 @@
+package com.usetech.dvente.services.files;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Fichiers des déclinaisons d'images, rangés sous uploads/variants/&lt;chemin de l'original
+ * sans extension&gt;/ (ex. /uploads/products/abc.png → /uploads/variants/products/abc/thumb.jpg).
+ * Le dossier est posé d'un bloc (renommage atomique) : sa présence signifie que l'image a été
+ * traitée, un dossier vide qu'elle n'a pas pu être décodée (WebP, fichier corrompu).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ImageVariantStore {
+
+    public static final String DIRECTORY = "variants";
+
+    private static final String UPLOADS_PREFIX = "/uploads/";
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final StorageBackend storageBackend;
+
+    @Value("${app.upload.path:uploads}")
+    private String uploadBasePath;
+
+    /**
+     * Déclinaisons déjà présentes sur disque (clé → URL relative), null si l'image n'a pas encore été traitée
+     */
+    public Map<String, String> findExisting(String imageUrl) {
+        String base = variantBaseUrl(imageUrl);
+        if (base == null) {
+            return null;
+        }
+        Path directory = resolve(base);
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        Map<String, String> variants = new LinkedHashMap<>();
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (Files.exists(directory.resolve(variant.filename()))) {
+                variants.put(variant.getKey(), base + variant.filename());
+            }
+        }
+        return variants;
+    }
+
+    /**
+     * Génère les déclinaisons de l'image si elles n'existent pas encore
+     * @return clé → URL relative ; vide si l'image n'est pas décodable ; null si l'URL n'est pas un upload local
+     */
+    public Map<String, String> generate(String imageUrl) {
+        Map<String, String> existing = findExisting(imageUrl);
+        if (existing != null) {
+            return existing;
+        }
+        String base = variantBaseUrl(imageUrl);
+        if (base == null) {
+            return null;
+        }
+        Path source = resolve(imageUrl);
+        if (!Files.isRegularFile(source)) {
+            log.warn("Déclinaisons de {} non générées : fichier introuvable", imageUrl);
+            return null;
+        }
+
+        Path target = resolve(base);
+        Path tempDirectory = target.resolveSibling("." + target.getFileName() + "-" + UUID.randomUUID() + ".part");
+        try {
+            Files.createDirectories(tempDirectory);
+            BufferedImage image = read(source);
+            if (image == null) {
+                log.info("Déclinaisons de {} non générées : format non décodable", imageUrl);
+            } else {
+                BufferedImage previous = image;
+                // De la plus grande à la plus petite : chaque réduction part de la précédente
+                ImageVariant[] variants = ImageVariant.values();
+                for (int i = variants.length - 1; i >= 0; i--) {
+                    previous = resize(previous, Math.min(variants[i].getWidth(), image.getWidth()));
+                    writeJpeg(previous, tempDirectory.resolve(variants[i].filename()));
+                }
+            }
+            try {
+                Files.move(tempDirectory, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+                // Générées entre-temps par un autre thread : on garde les siennes
+                log.debug("Déclinaisons de {} déjà présentes", imageUrl);
+            }
+            return findExisting(imageUrl);
+
+        } catch (IOException e) {
+            log.error("Échec de la génération des déclinaisons de {} : {}", imageUrl, e.getMessage());
+            return null;
+        } finally {
+            deleteDirectory(tempDirectory);
+        }
+    }
+
+    /**
+     * Supprime les déclinaisons d'une image supprimée
+     */
+    public void delete(String imageUrl) {
+        String base = variantBaseUrl(imageUrl);
+        if (base != null) {
+            deleteDirectory(resolve(base));
+        }
+    }
+
+    /**
+     * URL du dossier des déclinaisons (terminée par /), null pour une image externe ou déjà déclinée,
+     * ou si les fichiers ne sont pas sur le disque local
+     */
+    String variantBaseUrl(String imageUrl) {
+        if (!storageBackend.isLocal() || imageUrl == null || !imageUrl.startsWith(UPLOADS_PREFIX)
+                || imageUrl.startsWith(UPLOADS_PREFIX + DIRECTORY + "/") || imageUrl.contains("..")) {
+            return null;
+        }
+        String relative = imageUrl.substring(UPLOADS_PREFIX.length());
+        int slash = relative.lastIndexOf('/');
+        int dot = relative.lastIndexOf('.');
+        if (dot > slash) {
+            relative = relative.substring(0, dot);
+        }
+        return UPLOADS_PREFIX + DIRECTORY + "/" + relative + "/";
+    }
+
+    /**
+     * Décode l'image en sous-échantillonnant les originaux très larges pour borner la mémoire
+     */
+    private BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            if (input == null) {
+                return null;
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = reader.getWidth(0) / (ImageVariant.LARGE.getWidth() * 2);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Réduction par paliers de moitié en bilinéaire (rendu proche du bicubique, bien plus rapide),
+     * sur fond blanc puisque le JPEG n'a pas de transparence
+     */
+    private static BufferedImage resize(BufferedImage source, int targetWidth) {
+        BufferedImage current = source;
+        int width = source.getWidth();
+        boolean first = true;
+        do {
+            int nextWidth = Math.max(targetWidth, width / 2);
+            int nextHeight = Math.max(1, (int) Math.round((double) source.getHeight() * nextWidth / source.getWidth()));
+            if (!first && nextWidth == width) {
+                break;
+            }
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, Color.WHITE, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+            width = nextWidth;
+            first = false;
+        } while (width > targetWidth);
+        return current;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(target.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private Path resolve(String url) {
+        return Paths.get(uploadBasePath, url.substring(UPLOADS_PREFIX.length()));
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException e) {
+            log.warn("Dossier {} non supprimé : {}", directory, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.usetech.dvente.services.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Fichiers sous app.upload.path, servis par UploadFileServer
+ */
+public class LocalStorageBackend implements StorageBackend {
+
+    private final Path root;
+
+    public LocalStorageBackend(String uploadBasePath) {
+        this.root = Paths.get(uploadBasePath).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    @Override
+    public void put(String key, InputStream content, String contentType) throws IOException {
+        Path target = resolve(key);
+        Path tempPath = target.resolveSibling("." + target.getFileName() + "-" + UUID.randomUUID() + ".part");
+        Files.createDirectories(target.getParent());
+        try {
+            Files.copy(content, tempPath);
+            Files.move(tempPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    /**
+     * Dans le dossier final : {@link #putFile} n'est alors qu'un renommage atomique
+     */
+    @Override
+    public Path stagingPath(String key) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        return target.resolveSibling("." + target.getFileName() + "-" + UUID.randomUUID() + ".part");
+    }
+
+    @Override
+    public void putFile(String key, Path source, String contentType) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Source sur un autre système de fichiers : copie par un temporaire du dossier final
+            try (InputStream content = Files.newInputStream(source)) {
+                put(key, content, contentType);
+            }
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Path path = resolve(key);
+        Files.deleteIfExists(path);
+        UploadFileServer.deleteEncodedSiblings(path);
+    }
+
+    @Override
+    public String readUrl(String key, Duration ttl) {
+        return UploadFileServer.URL_PREFIX + key;
+    }
+
+    @Override
+    public PresignedUpload presignUpload(String key, String contentType, long maxBytes, Duration ttl) {
+        throw new UnsupportedOperationException("Upload direct non disponible avec le stockage local");
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Clé de stockage invalide: " + key);
+        }
+        return path;
+    }
+}
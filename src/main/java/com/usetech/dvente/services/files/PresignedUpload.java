@@ -0,0 +1,11 @@
+package com.usetech.dvente.services.files;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Upload direct vers le stockage : formulaire multipart/form-data envoyé en POST à url,
+ * avec les champs fields puis le fichier dans le champ "file" (en dernier)
+ */
+public record PresignedUpload(String url, Map<String, String> fields, Instant expiresAt) {
+}
@@ -0,0 +1,386 @@
+package com.usetech.dvente.services.files;
+
+import com.usetech.dvente.configs.AppStorageProperties;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Stockage dans un bucket compatible S3 (AWS, MinIO, R2…), par l'API REST signée en
+ * Signature V4 avec le client HTTP du JDK :
+ * <ul>
+ *     <li>put : un PUT si le contenu tient dans une partie, sinon upload multipart par parties
+ *     de app.storage.s3.part-size lues au fil du flux (mémoire bornée à une partie), annulé en cas d'échec ;</li>
+ *     <li>lectures redirigées vers public-url (CDN) ou vers une URL GET signée ;</li>
+ *     <li>uploads directs par formulaire POST signé (politique : clé, type et taille maximale imposés).</li>
+ * </ul>
+ */
+@Slf4j
+public class S3StorageBackend implements StorageBackend {
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+    private static final String SERVICE = "s3";
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter SCOPE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter ISO_INSTANT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+    private static final Pattern UPLOAD_ID = Pattern.compile("<UploadId>([^<]+)</UploadId>");
+
+    private final HttpClient httpClient;
+    private final Clock clock;
+    private final URI endpoint;
+    private final String region;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final boolean pathStyle;
+    private final String publicUrl;
+    private final int partSize;
+
+    public S3StorageBackend(AppStorageProperties.S3 properties) {
+        this(properties, HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build(), Clock.systemUTC());
+    }
+
+    S3StorageBackend(AppStorageProperties.S3 properties, HttpClient httpClient, Clock clock) {
+        this.endpoint = URI.create(require(properties.getEndpoint(), "endpoint").replaceAll("/+$", ""));
+        this.region = require(properties.getRegion(), "region");
+        this.bucket = require(properties.getBucket(), "bucket");
+        this.accessKey = require(properties.getAccessKey(), "access-key");
+        this.secretKey = require(properties.getSecretKey(), "secret-key");
+        this.pathStyle = properties.isPathStyle();
+        this.publicUrl = properties.getPublicUrl() == null || properties.getPublicUrl().isBlank()
+                ? null
+                : properties.getPublicUrl().replaceAll("/+$", "");
+        this.partSize = (int) Math.max(MIN_PART_SIZE, properties.getPartSize().toBytes());
+        this.httpClient = httpClient;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean isLocal() {
+        return false;
+    }
+
+    @Override
+    public void put(String key, InputStream content, String contentType) throws IOException {
+        byte[] part = content.readNBytes(partSize);
+        if (part.length < partSize) {
+            Map<String, String> headers = contentType != null ? Map.of("content-type", contentType) : Map.of();
+            expectSuccess(send("PUT", key, Map.of(), headers, part), "PUT", key);
+            return;
+        }
+
+        String uploadId = createMultipartUpload(key, contentType);
+        try {
+            List<String> etags = new ArrayList<>();
+            while (part.length > 0) {
+                Map<String, String> query = Map.of("partNumber", String.valueOf(etags.size() + 1), "uploadId", uploadId);
+                HttpResponse<byte[]> response = expectSuccess(send("PUT", key, query, Map.of(), part), "UploadPart", key);
+                etags.add(response.headers().firstValue("ETag")
+                        .orElseThrow(() -> new IOException("S3 UploadPart " + key + " : ETag absent")));
+                part = content.readNBytes(partSize);
+            }
+            completeMultipartUpload(key, uploadId, etags);
+        } catch (IOException | RuntimeException e) {
+            try {
+                send("DELETE", key, Map.of("uploadId", uploadId), Map.of(), null);
+            } catch (IOException abortError) {
+                log.warn("Upload multipart {} de {} non annulé : {}", uploadId, key, abortError.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        HttpRequest request = signedRequest("GET", key, Map.of(), Map.of(), null);
+        HttpResponse<InputStream> response = execute(request, HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 404) {
+            response.body().close();
+            throw new NoSuchFileException(key);
+        }
+        if (response.statusCode() / 100 != 2) {
+            String body;
+            try (InputStream error = response.body()) {
+                body = new String(error.readNBytes(512), StandardCharsets.UTF_8);
+            }
+            throw new IOException("S3 GET " + key + " : HTTP " + response.statusCode() + " " + body);
+        }
+        return response.body();
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        HttpResponse<byte[]> response = send("HEAD", key, Map.of(), Map.of(), null);
+        if (response.statusCode() == 404) {
+            return false;
+        }
+        expectSuccess(response, "HEAD", key);
+        return true;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpResponse<byte[]> response = send("DELETE", key, Map.of(), Map.of(), null);
+        if (response.statusCode() != 404) {
+            expectSuccess(response, "DELETE", key);
+        }
+    }
+
+    @Override
+    public String readUrl(String key, Duration ttl) {
+        if (publicUrl != null) {
+            return publicUrl + "/" + encodePath(key);
+        }
+        Instant now = clock.instant();
+        SortedMap<String, String> query = new TreeMap<>();
+        query.put("X-Amz-Algorithm", ALGORITHM);
+        query.put("X-Amz-Credential", accessKey + "/" + scope(now));
+        query.put("X-Amz-Date", AMZ_DATE.format(now));
+        query.put("X-Amz-Expires", String.valueOf(ttl.toSeconds()));
+        query.put("X-Amz-SignedHeaders", "host");
+        URI uri = objectUri(key, Map.of());
+        String canonicalRequest = "GET\n" + uri.getRawPath() + "\n" + canonicalQuery(query) + "\n"
+                + "host:" + hostHeader(uri) + "\n\nhost\n" + UNSIGNED_PAYLOAD;
+        query.put("X-Amz-Signature", signature(now, canonicalRequest));
+        return objectUri(key, query).toString();
+    }
+
+    @Override
+    public PresignedUpload presignUpload(String key, String contentType, long maxBytes, Duration ttl) {
+        Instant now = clock.instant();
+        Instant expiresAt = now.plus(ttl);
+        String credential = accessKey + "/" + scope(now);
+        String amzDate = AMZ_DATE.format(now);
+        String policy = "{\"expiration\":" + json(ISO_INSTANT.format(expiresAt)) + ",\"conditions\":["
+                + "{\"bucket\":" + json(bucket) + "},"
+                + "{\"key\":" + json(key) + "},"
+                + "{\"Content-Type\":" + json(contentType) + "},"
+                + "[\"content-length-range\",1," + maxBytes + "],"
+                + "{\"x-amz-algorithm\":" + json(ALGORITHM) + "},"
+                + "{\"x-amz-credential\":" + json(credential) + "},"
+                + "{\"x-amz-date\":" + json(amzDate) + "}]}";
+        String encodedPolicy = Base64.getEncoder().encodeToString(policy.getBytes(StandardCharsets.UTF_8));
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("key", key);
+        fields.put("Content-Type", contentType);
+        fields.put("x-amz-algorithm", ALGORITHM);
+        fields.put("x-amz-credential", credential);
+        fields.put("x-amz-date", amzDate);
+        fields.put("policy", encodedPolicy);
+        fields.put("x-amz-signature", HexFormat.of().formatHex(hmac(signingKey(now), encodedPolicy)));
+        return new PresignedUpload(objectUri("", Map.of()).toString(), fields, expiresAt);
+    }
+
+    private String createMultipartUpload(String key, String contentType) throws IOException {
+        Map<String, String> headers = contentType != null ? Map.of("content-type", contentType) : Map.of();
+        HttpResponse<byte[]> response = expectSuccess(send("POST", key, Map.of("uploads", ""), headers, null),
+                "CreateMultipartUpload", key);
+        Matcher matcher = UPLOAD_ID.matcher(new String(response.body(), StandardCharsets.UTF_8));
+        if (!matcher.find()) {
+            throw new IOException("S3 CreateMultipartUpload " + key + " : UploadId absent");
+        }
+        return matcher.group(1);
+    }
+
+    private void completeMultipartUpload(String key, String uploadId, List<String> etags) throws IOException {
+        StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+        for (int i = 0; i < etags.size(); i++) {
+            xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                    .append(etags.get(i).replace("&", "&amp;").replace("\"", "&quot;"))
+                    .append("</ETag></Part>");
+        }
+        xml.append("</CompleteMultipartUpload>");
+        HttpResponse<byte[]> response = expectSuccess(send("POST", key, Map.of("uploadId", uploadId),
+                Map.of("content-type", "application/xml"), xml.toString().getBytes(StandardCharsets.UTF_8)),
+                "CompleteMultipartUpload", key);
+        // S3 peut répondre 200 puis signaler l'échec dans le corps
+        if (new String(response.body(), StandardCharsets.UTF_8).contains("<Error>")) {
+            throw new IOException("S3 CompleteMultipartUpload " + key + " : " + new String(response.body(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private HttpResponse<byte[]> send(String method, String key, Map<String, String> query,
+                                      Map<String, String> headers, byte[] body) throws IOException {
+        return execute(signedRequest(method, key, query, headers, body), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private <T> HttpResponse<T> execute(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Requête S3 interrompue");
+        }
+    }
+
+    private static HttpResponse<byte[]> expectSuccess(HttpResponse<byte[]> response, String operation, String key) throws IOException {
+        if (response.statusCode() / 100 != 2) {
+            String body = response.body() != null
+                    ? new String(response.body(), 0, Math.min(512, response.body().length), StandardCharsets.UTF_8)
+                    : "";
+            throw new IOException("S3 " + operation + " " + key + " : HTTP " + response.statusCode() + " " + body);
+        }
+        return response;
+    }
+
+    /**
+     * Requête signée par en-tête Authorization (Signature V4, corps haché)
+     */
+    private HttpRequest signedRequest(String method, String key, Map<String, String> query,
+                                      Map<String, String> headers, byte[] body) {
+        Instant now = clock.instant();
+        URI uri = objectUri(key, query);
+        String payloadHash = body == null ? EMPTY_SHA256 : HexFormat.of().formatHex(sha256(body));
+
+        SortedMap<String, String> signedHeaders = new TreeMap<>();
+        headers.forEach((name, value) -> signedHeaders.put(name.toLowerCase(Locale.ROOT), value.trim()));
+        signedHeaders.put("host", hostHeader(uri));
+        signedHeaders.put("x-amz-content-sha256", payloadHash);
+        signedHeaders.put("x-amz-date", AMZ_DATE.format(now));
+        String signedHeaderNames = String.join(";", signedHeaders.keySet());
+        String canonicalHeaders = signedHeaders.entrySet().stream()
+                .map(header -> header.getKey() + ":" + header.getValue() + "\n")
+                .collect(Collectors.joining());
+        String canonicalRequest = method + "\n" + uri.getRawPath() + "\n" + canonicalQuery(query) + "\n"
+                + canonicalHeaders + "\n" + signedHeaderNames + "\n" + payloadHash;
+        String authorization = ALGORITHM + " Credential=" + accessKey + "/" + scope(now)
+                + ", SignedHeaders=" + signedHeaderNames + ", Signature=" + signature(now, canonicalRequest);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(2))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body))
+                .header("Authorization", authorization);
+        signedHeaders.forEach((name, value) -> {
+            if (!name.equals("host")) {
+                builder.header(name, value);
+            }
+        });
+        return builder.build();
+    }
+
+    private URI objectUri(String key, Map<String, String> query) {
+        String path = pathStyle
+                ? "/" + bucket + (key.isEmpty() ? "" : "/" + encodePath(key))
+                : "/" + encodePath(key);
+        String authority = pathStyle ? endpoint.getRawAuthority() : bucket + "." + endpoint.getRawAuthority();
+        String queryString = query.isEmpty() ? "" : "?" + canonicalQuery(query);
+        return URI.create(endpoint.getScheme() + "://" + authority + path + queryString);
+    }
+
+    private static String hostHeader(URI uri) {
+        int port = uri.getPort();
+        boolean defaultPort = port == -1
+                || ("http".equals(uri.getScheme()) && port == 80)
+                || ("https".equals(uri.getScheme()) && port == 443);
+        return defaultPort ? uri.getHost() : uri.getHost() + ":" + port;
+    }
+
+    private String scope(Instant now) {
+        return SCOPE_DATE.format(now) + "/" + region + "/" + SERVICE + "/aws4_request";
+    }
+
+    private String signature(Instant now, String canonicalRequest) {
+        String stringToSign = ALGORITHM + "\n" + AMZ_DATE.format(now) + "\n" + scope(now) + "\n"
+                + HexFormat.of().formatHex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        return HexFormat.of().formatHex(hmac(signingKey(now), stringToSign));
+    }
+
+    private byte[] signingKey(Instant now) {
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), SCOPE_DATE.format(now));
+        key = hmac(key, region);
+        key = hmac(key, SERVICE);
+        return hmac(key, "aws4_request");
+    }
+
+    private static String canonicalQuery(Map<String, String> query) {
+        return new TreeMap<>(query).entrySet().stream()
+                .map(parameter -> encode(parameter.getKey()) + "=" + encode(parameter.getValue()))
+                .collect(Collectors.joining("&"));
+    }
+
+    /**
+     * Encodage URI de S3 : tout sauf A-Z a-z 0-9 - _ . ~ (et / dans les chemins)
+     */
+    static String encode(String value) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return encoded.toString();
+    }
+
+    private static String encodePath(String key) {
+        return Arrays.stream(key.split("/", -1))
+                .map(S3StorageBackend::encode)
+                .collect(Collectors.joining("/"));
+    }
+
+    private static String json(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String require(String value, String property) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalStateException("app.storage.s3." + property + " doit être renseigné avec app.storage.backend=s3");
+        }
+        return value;
+    }
+}
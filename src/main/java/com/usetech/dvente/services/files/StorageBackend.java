@@ -0,0 +1,68 @@
+package com.usetech.dvente.services.files;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Stockage des fichiers téléversés, adressés par clé relative (ex. products/abc.jpg,
+ * publiée sous /uploads/products/abc.jpg). Implémentations : LocalStorageBackend (disque,
+ * un seul nœud) et S3StorageBackend (bucket partagé par tous les nœuds de l'API).
+ */
+public interface StorageBackend {
+
+    /**
+     * true si les fichiers sont sous app.upload.path : service direct, déclinaisons d'images
+     * et stockage adressé par contenu ne fonctionnent qu'avec ce stockage
+     */
+    boolean isLocal();
+
+    /**
+     * Enregistre le contenu lu jusqu'à la fin du flux sous la clé, en remplaçant un éventuel fichier existant
+     */
+    void put(String key, InputStream content, String contentType) throws IOException;
+
+    /**
+     * Fichier où préparer (écrire puis valider) le contenu destiné à une clé avant {@link #putFile} ;
+     * par défaut dans le dossier temporaire du système
+     */
+    default Path stagingPath(String key) throws IOException {
+        String name = key.substring(key.lastIndexOf('/') + 1);
+        return Files.createTempFile("upload-", "-" + name + ".part");
+    }
+
+    /**
+     * Enregistre sous la clé un fichier préparé par {@link #stagingPath} ; le fichier source
+     * est consommé (déplacé ou envoyé), l'appelant supprime ce qu'il en reste
+     */
+    default void putFile(String key, Path source, String contentType) throws IOException {
+        try (InputStream content = Files.newInputStream(source)) {
+            put(key, content, contentType);
+        }
+    }
+
+    /**
+     * @throws java.nio.file.NoSuchFileException si la clé n'existe pas
+     */
+    InputStream open(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    /**
+     * Sans effet si la clé n'existe pas ; une IOException signifie que l'objet est peut-être encore là
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * URL de lecture directe vers laquelle rediriger, pour un stockage distant
+     */
+    String readUrl(String key, Duration ttl);
+
+    /**
+     * Formulaire d'upload direct limité à cette clé, ce type et cette taille
+     * @throws UnsupportedOperationException si le stockage ne le permet pas (disque local)
+     */
+    PresignedUpload presignUpload(String key, String contentType, long maxBytes, Duration ttl);
+}
@@ -0,0 +1,10 @@
+package com.usetech.dvente.services.files;
+
+/**
+ * Fichier enregistré par un upload en flux
+ * @param url chemin public (ex. /uploads/products/6f1c....png)
+ * @param size taille en octets
+ * @param sha256 empreinte SHA-256 du contenu, en hexadécimal
+ */
+public record StoredFile(String url, long size, String sha256, String contentType) {
+}
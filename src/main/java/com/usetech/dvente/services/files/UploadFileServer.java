@@ -0,0 +1,376 @@
+package com.usetech.dvente.services.files;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service des fichiers de /uploads, à la place du ResourceHttpRequestHandler générique :
+ * <ul>
+ *     <li>dossier lu depuis app.upload.path (et non plus user.dir/uploads) ;</li>
+ *     <li>ETag fort = SHA-256 du contenu (lu dans le nom des fichiers adressés par contenu,
+ *     calculé une fois puis gardé en cache par chemin, taille et date pour les autres),
+ *     Last-Modified, réponses 304 et 412 ;</li>
+ *     <li>Range sur une plage (bytes=a-b, a-, -n), avec If-Range ; plusieurs plages, plage invalide
+ *     (b &lt; a) ou If-Range faible / illisible → 200 complet ;</li>
+ *     <li>envoi par sendfile du connecteur Tomcat quand il est disponible, sinon par
+ *     FileChannel.transferTo vers le flux de la réponse, sans tampon intermédiaire côté application ;</li>
+ *     <li>pour les types compressibles (texte, SVG, JSON, XML, DOC), version gzip précalculée
+ *     à côté du fichier au premier accès (.gz), et .br servi s'il a été déposé.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class UploadFileServer {
+
+    public static final String URL_PREFIX = "/uploads/";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long MIN_COMPRESSIBLE_SIZE = 1024;
+    private static final List<String> COMPRESSIBLE_TYPES = List.of(
+            "text/", "image/svg+xml", "application/json", "application/xml", "application/msword");
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl DEFAULT = CacheControl.maxAge(Duration.ofDays(365));
+
+    private final Path root;
+    private final Cache<FileVersion, String> contentHashes = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+    // Fichiers dont la compression ne fait pas gagner assez : pas de nouvel essai à chaque requête
+    private final Cache<FileVersion, Boolean> incompressible = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    private record FileVersion(Path path, long size, long lastModified) {
+    }
+
+    private record Encoded(Path path, String encoding) {
+    }
+
+    public UploadFileServer(@Value("${app.upload.path:uploads}") String uploadBasePath) {
+        this.root = Paths.get(uploadBasePath).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Répond à un GET ou HEAD sur /uploads/** (404 si le fichier n'existe pas ou n'est pas exposable)
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String url = UriUtils.decode(request.getRequestURI().substring(request.getContextPath().length()), StandardCharsets.UTF_8);
+        Path file = resolve(url);
+        BasicFileAttributes attributes = file != null ? readAttributes(file) : null;
+        if (attributes == null || !attributes.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        FileVersion version = new FileVersion(file, attributes.size(), attributes.lastModifiedTime().toMillis());
+        MediaType mediaType = MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        Encoded encoded = isCompressible(mediaType, attributes.size()) && request.getHeader(HttpHeaders.RANGE) == null
+                ? encodedSibling(version, request.getHeader(HttpHeaders.ACCEPT_ENCODING))
+                : null;
+        if (isCompressible(mediaType, attributes.size())) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        long lastModified = attributes.lastModifiedTime().toMillis() / 1000 * 1000;
+        String etag = "\"" + contentHash(url, version) + (encoded != null ? "-" + encoded.encoding() : "") + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                (ContentAddressedStore.isContentAddressed(url) ? IMMUTABLE : DEFAULT).getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        Path body = file;
+        long size = attributes.size();
+        if (encoded != null) {
+            body = encoded.path();
+            size = Files.size(body);
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoded.encoding());
+        }
+        long start = 0;
+        long end = size;
+        long[] range = encoded == null ? range(request, etag, lastModified, size) : null;
+        if (range != null) {
+            if (range.length == 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            start = range[0];
+            end = range[1];
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+        }
+
+        response.setContentType(mediaType.toString());
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Le connecteur envoie le fichier lui-même (sendfile) après le retour du contrôleur
+            request.setAttribute(SENDFILE_FILENAME, body.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        transfer(body, start, end, response.getOutputStream());
+    }
+
+    /**
+     * Chemin du fichier d'une URL /uploads/..., null si l'URL sort du dossier ou vise
+     * un fichier caché (fichiers temporaires .part, dossiers de travail)
+     */
+    Path resolve(String url) {
+        if (url == null || !url.startsWith(URL_PREFIX) || url.indexOf('\\') >= 0 || url.indexOf('\0') >= 0) {
+            return null;
+        }
+        String relative = url.substring(URL_PREFIX.length());
+        for (String segment : relative.split("/")) {
+            if (segment.isEmpty() || segment.startsWith(".")) {
+                return null;
+            }
+        }
+        Path file = root.resolve(relative).normalize();
+        return file.startsWith(root) ? file : null;
+    }
+
+    /**
+     * Plage demandée [début, fin[ ; null pour servir tout le fichier (en-tête absent, invalide ou
+     * If-Range non vérifié) ; tableau vide si non satisfaisable
+     */
+    private static long[] range(HttpServletRequest request, String etag, long lastModified, long size) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRangeMatches(request, ifRange, etag, lastModified)) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            long start;
+            long end;
+            if (dash == 0) {
+                long suffix = Long.parseLong(spec.substring(1));
+                if (suffix == 0) {
+                    return new long[0];
+                }
+                start = Math.max(0, size - suffix);
+                end = size;
+            } else {
+                start = Long.parseLong(spec.substring(0, dash));
+                if (dash == spec.length() - 1) {
+                    end = size;
+                } else {
+                    long last = Long.parseLong(spec.substring(dash + 1));
+                    if (last < start) {
+                        // Plage invalide (RFC 9110 §14.2) : l'en-tête est ignoré
+                        return null;
+                    }
+                    end = Math.min(size, last + 1);
+                }
+            }
+            if (start < 0 || start >= size) {
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * If-Range vérifié : ETag fort identique, ou date égale à Last-Modified ;
+     * un ETag faible ou une valeur illisible ne correspond jamais
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String ifRange, String etag, long lastModified) {
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        if (ifRange.startsWith("W/")) {
+            return false;
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) == lastModified;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private String contentHash(String url, FileVersion version) throws IOException {
+        if (ContentAddressedStore.isContentAddressed(url)) {
+            String name = version.path().getFileName().toString();
+            int dot = name.indexOf('.');
+            return dot < 0 ? name : name.substring(0, dot);
+        }
+        String hash = contentHashes.getIfPresent(version);
+        if (hash == null) {
+            hash = sha256(version.path());
+            contentHashes.put(version, hash);
+        }
+        return hash;
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isCompressible(MediaType mediaType, long size) {
+        if (size < MIN_COMPRESSIBLE_SIZE) {
+            return false;
+        }
+        String type = mediaType.getType() + "/" + mediaType.getSubtype();
+        return COMPRESSIBLE_TYPES.stream().anyMatch(type::startsWith);
+    }
+
+    /**
+     * Version compressée acceptée par le client : .br déposé à côté du fichier, sinon .gz
+     * (créé au premier accès s'il fait gagner au moins 10 %), null si aucune n'est utile
+     */
+    private Encoded encodedSibling(FileVersion version, String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        Path file = version.path();
+        String accepted = acceptEncoding.toLowerCase(Locale.ROOT);
+        if (accepted.contains("br")) {
+            Path brotli = file.resolveSibling(file.getFileName() + ".br");
+            if (isFresh(brotli, file)) {
+                return new Encoded(brotli, "br");
+            }
+        }
+        if (!accepted.contains("gzip")) {
+            return null;
+        }
+        Path gzip = file.resolveSibling(file.getFileName() + ".gz");
+        if (!isFresh(gzip, file)) {
+            if (incompressible.getIfPresent(version) != null) {
+                return null;
+            }
+            gzip = compress(file, gzip);
+            if (gzip == null) {
+                incompressible.put(version, Boolean.TRUE);
+                return null;
+            }
+        }
+        return new Encoded(gzip, "gzip");
+    }
+
+    /**
+     * Supprime les versions compressées (.gz, .br) d'un fichier supprimé
+     */
+    public static void deleteEncodedSiblings(Path file) throws IOException {
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".gz"));
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".br"));
+    }
+
+    private static boolean isFresh(Path sibling, Path file) {
+        try {
+            return Files.exists(sibling)
+                    && Files.getLastModifiedTime(sibling).compareTo(Files.getLastModifiedTime(file)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Path compress(Path file, Path gzip) {
+        Path temp = gzip.resolveSibling("." + gzip.getFileName() + "-" + UUID.randomUUID() + ".part");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                Files.copy(file, out);
+            }
+            if (Files.size(temp) > Files.size(file) * 9 / 10) {
+                return null;
+            }
+            Files.move(temp, gzip, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return gzip;
+        } catch (IOException e) {
+            log.warn("Version gzip de {} non créée : {}", file, e.getMessage());
+            return null;
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                log.warn("Fichier temporaire {} non supprimé : {}", temp, e.getMessage());
+            }
+        }
+    }
+
+    private static void transfer(Path file, long start, long end, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            long position = start;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        }
+    }
+
+    private static BasicFileAttributes readAttributes(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.usetech.dvente.services.files;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Règles d'upload partagées entre l'upload multipart classique (ProductImageService,
+ * DocumentValidator) et l'upload en flux (FileStorageService#saveStream) :
+ * taille maximale, types déclarés acceptés et signature (premiers octets) du contenu.
+ */
+@Getter
+public enum UploadPolicy {
+
+    PRODUCT_IMAGE(5 * 1024 * 1024,
+            List.of("image/jpeg", "image/jpg", "image/png", "image/gif", "image/webp"),
+            List.of("jpg", "jpeg", "png", "gif", "webp"),
+            "La taille de l'image ne doit pas dépasser 5MB",
+            "Type de fichier non supporté. Formats acceptés: JPG, JPEG, PNG, GIF, WEBP") {
+        @Override
+        public boolean isDeclaredTypeAllowed(String filename, String contentType) {
+            return contentType != null && getContentTypes().contains(contentType.toLowerCase(Locale.ROOT));
+        }
+
+        @Override
+        public boolean matchesSignature(byte[] head, int length) {
+            return startsWith(head, length, 0, 0xFF, 0xD8, 0xFF)
+                    || startsWith(head, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)
+                    || startsWith(head, length, 0, 'G', 'I', 'F', '8')
+                    || (startsWith(head, length, 0, 'R', 'I', 'F', 'F') && startsWith(head, length, 8, 'W', 'E', 'B', 'P'));
+        }
+    },
+
+    DOCUMENT(10 * 1024 * 1024,
+            List.of("application/pdf", "application/msword",
+                    "application/vnd.openxmlformats-officedocument.wordprocessingml.document"),
+            List.of("pdf", "doc", "docx"),
+            "Le fichier ne doit pas dépasser 10MB",
+            "Le fichier doit être un PDF, DOC ou DOCX") {
+        @Override
+        public boolean isDeclaredTypeAllowed(String filename, String contentType) {
+            return getExtensions().contains(extensionOf(filename));
+        }
+
+        @Override
+        public boolean matchesSignature(byte[] head, int length) {
+            return startsWith(head, length, 0, '%', 'P', 'D', 'F')
+                    || startsWith(head, length, 0, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)
+                    || startsWith(head, length, 0, 'P', 'K', 0x03, 0x04);
+        }
+    };
+
+    /**
+     * Nombre d'octets lus avant de vérifier la signature
+     */
+    public static final int SIGNATURE_LENGTH = 12;
+
+    private final long maxBytes;
+    private final List<String> contentTypes;
+    private final List<String> extensions;
+    private final String sizeMessage;
+    private final String typeMessage;
+
+    UploadPolicy(long maxBytes, List<String> contentTypes, List<String> extensions, String sizeMessage, String typeMessage) {
+        this.maxBytes = maxBytes;
+        this.contentTypes = contentTypes;
+        this.extensions = extensions;
+        this.sizeMessage = sizeMessage;
+        this.typeMessage = typeMessage;
+    }
+
+    /**
+     * Vérifie le type annoncé par le client (Content-Type ou extension) avant de lire le contenu
+     */
+    public abstract boolean isDeclaredTypeAllowed(String filename, String contentType);
+
+    /**
+     * Vérifie que les premiers octets correspondent à un des formats acceptés
+     */
+    public abstract boolean matchesSignature(byte[] head, int length);
+
+    /**
+     * Extension enregistrée sur disque : celle du nom d'origine si acceptée,
+     * sinon déduite du Content-Type, sinon aucune
+     */
+    public String storedExtension(String filename, String contentType) {
+        String extension = extensionOf(filename);
+        if (extensions.contains(extension)) {
+            return "." + extension;
+        }
+        if (contentType != null) {
+            String subtype = contentType.substring(contentType.indexOf('/') + 1).toLowerCase(Locale.ROOT);
+            if (extensions.contains(subtype)) {
+                return "." + subtype;
+            }
+        }
+        return "";
+    }
+
+    static String extensionOf(String filename) {
+        if (filename == null || !filename.contains(".")) {
+            return "";
+        }
+        return filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean startsWith(byte[] head, int length, int offset, int... magic) {
+        if (length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
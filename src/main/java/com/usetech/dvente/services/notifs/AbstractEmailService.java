@@ -1,7 +1,9 @@
 package com.usetech.dvente.services.notifs;
 
 import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 
 public abstract class AbstractEmailService {
@@ -15,4 +17,17 @@ public abstract class AbstractEmailService {
     protected void setDefaultFrom(MimeMessageHelper helper) throws Exception {
         helper.setFrom(new InternetAddress(fromEmail, fromName));
     }
+
+    /**
+     * Message HTML UTF-8 avec l'expéditeur par défaut
+     */
+    protected MimeMessage createHtmlMessage(JavaMailSender mailSender, String to, String subject, String html) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        setDefaultFrom(helper);
+        helper.setTo(to);
+        helper.setSubject(subject);
+        helper.setText(html, true);
+        return message;
+    }
 }
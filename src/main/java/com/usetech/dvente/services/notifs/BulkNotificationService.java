@@ -0,0 +1,485 @@
+package com.usetech.dvente.services.notifs;
+
+import com.usetech.dvente.configs.AsyncConfig;
+import com.usetech.dvente.entities.notifs.BulkAudience;
+import com.usetech.dvente.entities.notifs.BulkNotification;
+import com.usetech.dvente.entities.notifs.BulkNotificationFailure;
+import com.usetech.dvente.entities.notifs.BulkNotificationStatus;
+import com.usetech.dvente.entities.users.ShopStatus;
+import com.usetech.dvente.entities.users.UserRole;
+import com.usetech.dvente.repositories.UserRepository;
+import com.usetech.dvente.repositories.notifs.BulkNotificationFailureRepository;
+import com.usetech.dvente.repositories.notifs.BulkNotificationRepository;
+import com.usetech.dvente.repositories.notifs.BulkRecipientRow;
+import com.usetech.dvente.repositories.shops.ShopRepository;
+import com.usetech.dvente.utils.RateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Campagnes de notification des administrateurs :
+ * <ul>
+ *     <li>les destinataires sont lus par pages (page-size) avec une pagination par clé sur l'id,
+ *     sans charger les entités ;</li>
+ *     <li>chaque page est découpée en lots (batch-size) envoyés en parallèle sur l'exécuteur
+ *     bulkMail, un lot = une connexion SMTP ;</li>
+ *     <li>le débit est plafonné à rate-per-second messages par instance, toutes campagnes
+ *     confondues (le débit total est ce plafond multiplié par le nombre d'instances qui envoient) ;
+ *     les lots sont lancés au rythme de ce plafond ;</li>
+ *     <li>compteurs, curseur et échecs sont enregistrés après chaque page : la progression est
+ *     consultable pendant l'envoi et une campagne interrompue par un arrêt reprend au démarrage
+ *     (au plus une page renvoyée) ;</li>
+ *     <li>sur plusieurs instances, une campagne n'est envoyée que par celle qui a pris son bail
+ *     (UPDATE conditionnel sur owner / heartbeat_at), renouvelé avant le lancement de chaque lot ;
+ *     un bail sans renouvellement depuis lease-timeout est repris par une autre instance. Une
+ *     instance qui perd le bail ne lance plus de lot, attend ceux déjà partis et ajoute leurs
+ *     compteurs et échecs sans déplacer le curseur. Le démarrage échoue si lease-timeout ne
+ *     couvre pas l'envoi d'un lot au débit configuré.</li>
+ * </ul>
+ * Les campagnes sont traitées l'une après l'autre, par ordre de création.
+ * Métriques : dvente.mail.bulk.sent / failed (tag audience).
+ */
+@Slf4j
+@Service
+public class BulkNotificationService extends AbstractEmailService {
+
+    public static final String DEFAULT_TEMPLATE = "emails/announcement";
+
+    private static final UUID FIRST = new UUID(0L, 0L);
+
+    private final BulkNotificationRepository bulkNotificationRepository;
+    private final BulkNotificationFailureRepository bulkNotificationFailureRepository;
+    private final UserRepository userRepository;
+    private final ShopRepository shopRepository;
+    private final JavaMailSender mailSender;
+    private final EmailTemplateRenderer emailTemplateRenderer;
+    private final TaskExecutor bulkMailExecutor;
+    private final TaskExecutor coordinatorExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final RateLimiter rateLimiter;
+    private final double ratePerSecond;
+    private final String nodeId;
+
+    @Value("${app.mail.bulk.page-size:500}")
+    private int pageSize;
+
+    @Value("${app.mail.bulk.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.bulk.lease-timeout:5m}")
+    private Duration leaseTimeout;
+
+    @Value("${app.name}")
+    private String appName;
+
+    @Value("${app.url}")
+    private String appUrl;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean rerunRequested = new AtomicBoolean();
+
+    public BulkNotificationService(BulkNotificationRepository bulkNotificationRepository,
+                                   BulkNotificationFailureRepository bulkNotificationFailureRepository,
+                                   UserRepository userRepository,
+                                   ShopRepository shopRepository,
+                                   JavaMailSender mailSender,
+                                   EmailTemplateRenderer emailTemplateRenderer,
+                                   @Qualifier(AsyncConfig.BULK_MAIL_EXECUTOR) TaskExecutor bulkMailExecutor,
+                                   @Qualifier("applicationTaskExecutor") TaskExecutor coordinatorExecutor,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.mail.bulk.rate-per-second:10}") double ratePerSecond,
+                                   @Value("${app.mail.bulk.node-id:}") String nodeId) {
+        this.bulkNotificationRepository = bulkNotificationRepository;
+        this.bulkNotificationFailureRepository = bulkNotificationFailureRepository;
+        this.userRepository = userRepository;
+        this.shopRepository = shopRepository;
+        this.mailSender = mailSender;
+        this.emailTemplateRenderer = emailTemplateRenderer;
+        this.bulkMailExecutor = bulkMailExecutor;
+        this.coordinatorExecutor = coordinatorExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.rateLimiter = new RateLimiter(ratePerSecond);
+        this.ratePerSecond = ratePerSecond;
+        this.nodeId = nodeId == null || nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+    }
+
+    /**
+     * Un lot doit pouvoir partir avant l'expiration du bail, renouvelé entre deux lots
+     */
+    @PostConstruct
+    void checkLeaseTimeout() {
+        Duration batchDuration = Duration.ofMillis((long) Math.ceil(batchSize * 1000 / ratePerSecond));
+        if (leaseTimeout.compareTo(batchDuration.multipliedBy(2)) < 0) {
+            throw new IllegalStateException("app.mail.bulk.lease-timeout (" + leaseTimeout + ") doit dépasser le double "
+                    + "de la durée d'un lot (" + batchSize + " messages à " + ratePerSecond + "/s = " + batchDuration + ")");
+        }
+    }
+
+    /**
+     * Enregistre la campagne et lance l'envoi en arrière-plan
+     * @param template template sous templates/emails (défaut emails/announcement)
+     * @param createdBy email de l'administrateur
+     */
+    public BulkNotification start(BulkAudience audience, String subject, String template,
+                                  Map<String, Object> variables, String createdBy) {
+        if (audience == null) {
+            throw new IllegalArgumentException("L'audience est obligatoire");
+        }
+        if (subject == null || subject.isBlank()) {
+            throw new IllegalArgumentException("Le sujet est obligatoire");
+        }
+        String templateName = template == null || template.isBlank() ? DEFAULT_TEMPLATE : template;
+        if (!emailTemplateRenderer.getTemplateNames().contains(templateName)) {
+            throw new IllegalArgumentException("Template inconnu : " + templateName);
+        }
+
+        BulkNotification notification = bulkNotificationRepository.save(BulkNotification.builder()
+                .audience(audience)
+                .subject(subject)
+                .template(templateName)
+                .variables(variables != null ? new HashMap<>(variables) : new HashMap<>())
+                .createdBy(createdBy)
+                .total(countRecipients(audience))
+                .build());
+
+        log.info("Campagne {} créée par {} : {} destinataire(s)", notification.getId(), createdBy, notification.getTotal());
+        coordinatorExecutor.execute(this::dispatch);
+        return notification;
+    }
+
+    /**
+     * Arrête la campagne après la page en cours
+     */
+    public BulkNotification cancel(UUID id) {
+        BulkNotification notification = getNotification(id);
+        Integer updated = transactionTemplate.execute(status -> bulkNotificationRepository.cancel(id, LocalDateTime.now()));
+        if (updated == null || updated == 0) {
+            throw new IllegalArgumentException("La campagne n'est plus en cours : " + notification.getStatus().getLabel());
+        }
+        log.info("Campagne {} annulée", id);
+        return getNotification(id);
+    }
+
+    public BulkNotification getNotification(UUID id) {
+        return bulkNotificationRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Campagne introuvable"));
+    }
+
+    /**
+     * Reprise des campagnes interrompues par un arrêt : au démarrage, puis périodiquement pour
+     * celles d'une instance disparue dont le bail a expiré
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.mail.bulk.lease-timeout:5m}", initialDelayString = "${app.mail.bulk.lease-timeout:5m}")
+    public void resumeRunning() {
+        if (!running.get() && !claimable().isEmpty()) {
+            coordinatorExecutor.execute(this::dispatch);
+        }
+    }
+
+    /**
+     * Traite les campagnes en cours jusqu'à épuisement ; un seul passage à la fois
+     */
+    public void dispatch() {
+        rerunRequested.set(true);
+        while (rerunRequested.get() && running.compareAndSet(false, true)) {
+            try {
+                rerunRequested.set(false);
+                List<BulkNotification> campaigns;
+                while (!(campaigns = claimable()).isEmpty()) {
+                    campaigns.forEach(this::process);
+                }
+            } catch (Exception e) {
+                log.error("Erreur lors de l'envoi des campagnes de notification", e);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    private List<BulkNotification> claimable() {
+        return bulkNotificationRepository.findClaimable(nodeId, LocalDateTime.now().minus(leaseTimeout));
+    }
+
+    private void process(BulkNotification notification) {
+        UUID id = notification.getId();
+        if (!claim(id)) {
+            log.info("Campagne {} déjà prise par une autre instance", id);
+            return;
+        }
+        UUID after = notification.getLastRecipientId() != null ? notification.getLastRecipientId() : FIRST;
+        try {
+            while (true) {
+                BulkNotificationStatus status = bulkNotificationRepository.findStatusById(id);
+                if (status != BulkNotificationStatus.RUNNING) {
+                    log.info("Campagne {} arrêtée ({})", id, status != null ? status.getLabel() : "supprimée");
+                    return;
+                }
+
+                List<BulkRecipientRow> page = fetchRecipients(notification.getAudience(), after);
+                if (page.isEmpty()) {
+                    finish(id, BulkNotificationStatus.COMPLETED);
+                    return;
+                }
+
+                PageResult result = sendPage(notification, page);
+                if (result.leaseLost()) {
+                    // Le curseur appartient désormais à l'autre instance : seuls les compteurs sont ajoutés
+                    recordCounts(id, result.sent(), result.failures());
+                    log.warn("Campagne {} reprise par une autre instance, envoi arrêté ici", id);
+                    return;
+                }
+                if (result.cursor() != null) {
+                    after = result.cursor();
+                    if (!recordProgress(id, after, result.sent(), result.failures())) {
+                        log.warn("Campagne {} reprise par une autre instance, envoi arrêté ici", id);
+                        return;
+                    }
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    log.warn("Campagne {} interrompue, reprise au prochain démarrage", id);
+                    return;
+                }
+
+                if (page.size() < pageSize) {
+                    finish(id, BulkNotificationStatus.COMPLETED);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Échec de la campagne {}", id, e);
+            finish(id, BulkNotificationStatus.FAILED);
+        }
+    }
+
+    /**
+     * Envoie une page en lots parallèles. Chaque lot attend son créneau de débit puis renouvelle
+     * le bail avant d'être lancé ; si le bail est perdu ou l'envoi interrompu, les lots suivants
+     * ne partent pas et seuls ceux déjà lancés sont comptés.
+     */
+    private PageResult sendPage(BulkNotification notification, List<BulkRecipientRow> page) {
+        List<CompletableFuture<BatchResult>> batches = new ArrayList<>();
+        UUID cursor = null;
+        boolean leaseLost = false;
+        for (int from = 0; from < page.size(); from += batchSize) {
+            List<BulkRecipientRow> batch = page.subList(from, Math.min(from + batchSize, page.size()));
+            try {
+                rateLimiter.acquire(batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (!renewLease(notification.getId())) {
+                leaseLost = true;
+                break;
+            }
+            batches.add(CompletableFuture.supplyAsync(() -> sendBatch(notification, batch), bulkMailExecutor));
+            cursor = batch.get(batch.size() - 1).id();
+        }
+
+        int sent = 0;
+        List<BulkNotificationFailure> failures = new ArrayList<>();
+        for (CompletableFuture<BatchResult> batch : batches) {
+            BatchResult result = batch.join();
+            sent += result.sent();
+            failures.addAll(result.failures());
+        }
+        return new PageResult(sent, failures, cursor, leaseLost);
+    }
+
+    private BatchResult sendBatch(BulkNotification notification, List<BulkRecipientRow> batch) {
+        Map<MimeMessage, BulkRecipientRow> messages = new LinkedHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+        for (BulkRecipientRow recipient : batch) {
+            try {
+                String html = emailTemplateRenderer.render(notification.getTemplate(), variablesFor(notification, recipient));
+                messages.put(createHtmlMessage(mailSender, recipient.email(), notification.getSubject(), html), recipient);
+            } catch (Exception e) {
+                errors.put(recipient.email(), e.getMessage());
+            }
+        }
+
+        // Seuls les messages acceptés par mailSender.send sont comptés comme envoyés
+        int sent = 0;
+        if (!messages.isEmpty()) {
+            try {
+                mailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+                sent = messages.size();
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, cause) -> {
+                    BulkRecipientRow recipient = messages.get(message);
+                    if (recipient != null) {
+                        errors.put(recipient.email(), cause.getMessage());
+                    }
+                });
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(recipient -> errors.put(recipient.email(), e.getMessage()));
+                } else {
+                    sent = (int) messages.keySet().stream()
+                            .filter(message -> !e.getFailedMessages().containsKey(message))
+                            .count();
+                }
+            } catch (MailException e) {
+                messages.values().forEach(recipient -> errors.put(recipient.email(), e.getMessage()));
+            }
+        }
+
+        String audience = notification.getAudience().name();
+        meterRegistry.counter("dvente.mail.bulk.sent", "audience", audience).increment(sent);
+        meterRegistry.counter("dvente.mail.bulk.failed", "audience", audience).increment(errors.size());
+
+        List<BulkNotificationFailure> failures = new ArrayList<>();
+        errors.forEach((email, error) -> failures.add(BulkNotificationFailure.builder()
+                .notificationId(notification.getId())
+                .recipient(email)
+                .error(truncate(error))
+                .build()));
+        return new BatchResult(sent, failures);
+    }
+
+    /**
+     * Résultat d'un lot : messages acceptés et échecs
+     */
+    private record BatchResult(int sent, List<BulkNotificationFailure> failures) {
+    }
+
+    /**
+     * Résultat d'une page : cursor est le dernier destinataire d'un lot lancé (null si aucun),
+     * leaseLost indique que le bail a été perdu avant la fin de la page
+     */
+    private record PageResult(int sent, List<BulkNotificationFailure> failures, UUID cursor, boolean leaseLost) {
+    }
+
+    /**
+     * Variables de la campagne complétées par celles du destinataire
+     */
+    private Map<String, Object> variablesFor(BulkNotification notification, BulkRecipientRow recipient) {
+        Map<String, Object> vars = new HashMap<>();
+        if (notification.getVariables() != null) {
+            vars.putAll(notification.getVariables());
+        }
+        vars.put("appName", appName);
+        vars.put("appUrl", appUrl);
+        vars.put("name", recipient.name());
+        vars.put("email", recipient.email());
+        vars.put("dashboardUrl", appUrl + "/u/dashboard");
+        if (recipient.shopUrl() != null) {
+            vars.put("shopName", recipient.shopName());
+            vars.put("shopLink", appUrl + "/@" + recipient.shopUrl());
+            vars.put("shopUrl", appUrl + "/@" + recipient.shopUrl());
+        }
+        return vars;
+    }
+
+    /**
+     * Prend le bail de la campagne ; une seule instance peut réussir tant qu'il n'a pas expiré
+     */
+    private boolean claim(UUID id) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status ->
+                bulkNotificationRepository.claim(id, nodeId, now, now.minus(leaseTimeout)));
+        return claimed != null && claimed > 0;
+    }
+
+    private boolean renewLease(UUID id) {
+        Integer renewed = transactionTemplate.execute(status ->
+                bulkNotificationRepository.renewLease(id, nodeId, LocalDateTime.now()));
+        return renewed != null && renewed > 0;
+    }
+
+    /**
+     * @return false si le bail a été perdu (rien n'est enregistré)
+     */
+    private boolean recordProgress(UUID id, UUID cursor, int sent, List<BulkNotificationFailure> failures) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (bulkNotificationRepository.addProgress(id, nodeId, sent, failures.size(), cursor, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            bulkNotificationFailureRepository.saveAll(failures);
+            return true;
+        }));
+    }
+
+    /**
+     * Compteurs et échecs des lots envoyés avant la perte du bail
+     */
+    private void recordCounts(UUID id, int sent, List<BulkNotificationFailure> failures) {
+        transactionTemplate.executeWithoutResult(status -> {
+            bulkNotificationRepository.addCounts(id, sent, failures.size());
+            bulkNotificationFailureRepository.saveAll(failures);
+        });
+    }
+
+    private void finish(UUID id, BulkNotificationStatus status) {
+        Integer updated = transactionTemplate.execute(tx ->
+                bulkNotificationRepository.finish(id, nodeId, status, LocalDateTime.now()));
+        if (updated != null && updated > 0) {
+            bulkNotificationRepository.findById(id).ifPresent(notification ->
+                    log.info("Campagne {} {} : {} envoyé(s), {} échec(s)", id, status.getLabel().toLowerCase(),
+                            notification.getSent(), notification.getFailed()));
+        }
+    }
+
+    private List<BulkRecipientRow> fetchRecipients(BulkAudience audience, UUID after) {
+        PageRequest page = PageRequest.of(0, pageSize);
+        return switch (audience) {
+            case ACTIVE_SHOPS -> shopRepository.findBulkRecipients(after, ShopStatus.ACTIF, page);
+            case PENDING_SHOPS -> shopRepository.findBulkRecipients(after, ShopStatus.WAITING, page);
+            default -> userRepository.findBulkRecipients(after, roles(audience), page);
+        };
+    }
+
+    private long countRecipients(BulkAudience audience) {
+        return switch (audience) {
+            case ACTIVE_SHOPS -> shopRepository.countBulkRecipients(ShopStatus.ACTIF);
+            case PENDING_SHOPS -> shopRepository.countBulkRecipients(ShopStatus.WAITING);
+            default -> userRepository.countBulkRecipients(roles(audience));
+        };
+    }
+
+    private static Set<UserRole> roles(BulkAudience audience) {
+        return switch (audience) {
+            case CLIENTS -> EnumSet.of(UserRole.CLIENT);
+            case MERCHANTS -> EnumSet.of(UserRole.SHOP);
+            default -> EnumSet.allOf(UserRole.class);
+        };
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
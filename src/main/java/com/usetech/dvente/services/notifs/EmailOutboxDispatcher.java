@@ -0,0 +1,266 @@
+package com.usetech.dvente.services.notifs;
+
+import com.usetech.dvente.configs.AsyncConfig;
+import com.usetech.dvente.entities.notifs.EmailOutbox;
+import com.usetech.dvente.entities.notifs.EmailOutboxStatus;
+import com.usetech.dvente.events.notifs.EmailEnqueuedEvent;
+import com.usetech.dvente.repositories.notifs.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Envoi des emails de l'outbox par lots :
+ * <ul>
+ *     <li>un lot est verrouillé (SKIP LOCKED) et passé en SENDING, puis envoyé hors transaction
+ *     sur une seule connexion SMTP ;</li>
+ *     <li>un échec replanifie l'email avec un délai exponentiel (initial-backoff, doublé à chaque
+ *     tentative, plafonné à max-backoff), puis le passe en FAILED après max-attempts ;</li>
+ *     <li>réveil immédiat après le commit d'un enqueue, sur l'exécuteur mail, et relève périodique
+ *     pour les reprises ; les lots SENDING d'une instance arrêtée sont remis en file.</li>
+ * </ul>
+ * Métriques : dvente.mail.outbox.sent / retried / abandoned (tag template),
+ * dvente.mail.outbox.latency (enqueue → envoi), dvente.mail.outbox.batch, dvente.mail.outbox.pending.
+ * La livraison est « au moins une fois » : un arrêt brutal pendant un lot peut produire un doublon.
+ */
+@Slf4j
+@Service
+public class EmailOutboxDispatcher extends AbstractEmailService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final JavaMailSender mailSender;
+    private final EmailTemplateRenderer emailTemplateRenderer;
+    private final TaskExecutor mailExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.mail.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.initial-backoff:30s}")
+    private Duration initialBackoff;
+
+    @Value("${app.mail.outbox.max-backoff:1h}")
+    private Duration maxBackoff;
+
+    @Value("${app.mail.outbox.stuck-timeout:10m}")
+    private Duration stuckTimeout;
+
+    @Value("${app.mail.outbox.retention:7d}")
+    private Duration retention;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean rerunRequested = new AtomicBoolean();
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+    private final AtomicLong pending = new AtomicLong();
+    private Timer batchTimer;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository emailOutboxRepository,
+                                 JavaMailSender mailSender,
+                                 EmailTemplateRenderer emailTemplateRenderer,
+                                 @Qualifier(AsyncConfig.MAIL_EXECUTOR) TaskExecutor mailExecutor,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.mailSender = mailSender;
+        this.emailTemplateRenderer = emailTemplateRenderer;
+        this.mailExecutor = mailExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void initMetrics() {
+        batchTimer = Timer.builder("dvente.mail.outbox.batch")
+                .description("Durée d'envoi SMTP d'un lot")
+                .register(meterRegistry);
+        Gauge.builder("dvente.mail.outbox.pending", pending, AtomicLong::get)
+                .description("Emails en attente dans l'outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Réveils regroupés : une rafale d'enqueue ne planifie qu'un passage
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmailEnqueued(EmailEnqueuedEvent event) {
+        if (wakeUpPending.compareAndSet(false, true)) {
+            mailExecutor.execute(() -> {
+                wakeUpPending.set(false);
+                dispatch();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval:15s}")
+    public void poll() {
+        Integer released = transactionTemplate.execute(status ->
+                emailOutboxRepository.releaseStuck(LocalDateTime.now().minus(stuckTimeout)));
+        if (released != null && released > 0) {
+            log.warn("{} email(s) bloqué(s) en cours d'envoi remis en file", released);
+        }
+        dispatch();
+        pending.set(emailOutboxRepository.countByStatus(EmailOutboxStatus.PENDING));
+    }
+
+    @Scheduled(cron = "${app.mail.outbox.cleanup-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        Integer deleted = transactionTemplate.execute(status ->
+                emailOutboxRepository.deleteSentBefore(LocalDateTime.now().minus(retention)));
+        log.info("Outbox : {} email(s) envoyé(s) purgé(s)", deleted);
+    }
+
+    /**
+     * Envoie les emails dus jusqu'à épuisement. Si un passage est déjà en cours,
+     * il est simplement prié de repartir pour un tour une fois terminé.
+     */
+    public void dispatch() {
+        rerunRequested.set(true);
+        while (rerunRequested.get() && running.compareAndSet(false, true)) {
+            try {
+                rerunRequested.set(false);
+                int processed;
+                do {
+                    processed = dispatchBatch();
+                } while (processed == batchSize);
+            } catch (Exception e) {
+                log.error("Erreur lors de l'envoi des emails de l'outbox", e);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    private int dispatchBatch() {
+        List<EmailOutbox> batch = transactionTemplate.execute(status -> {
+            List<EmailOutbox> due = emailOutboxRepository.lockDueBatch(LocalDateTime.now(), batchSize);
+            due.forEach(email -> email.setStatus(EmailOutboxStatus.SENDING));
+            return due;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<MimeMessage, EmailOutbox> messages = new LinkedHashMap<>();
+        Map<EmailOutbox, Exception> failures = new IdentityHashMap<>();
+        for (EmailOutbox email : batch) {
+            try {
+                messages.put(toMimeMessage(email), email);
+            } catch (Exception e) {
+                failures.put(email, e);
+            }
+        }
+
+        if (!messages.isEmpty()) {
+            try {
+                batchTimer.record(() -> mailSender.send(messages.keySet().toArray(new MimeMessage[0])));
+            } catch (MailSendException e) {
+                e.getFailedMessages().forEach((message, cause) -> {
+                    EmailOutbox email = messages.get(message);
+                    if (email != null) {
+                        failures.put(email, cause);
+                    }
+                });
+                if (e.getFailedMessages().isEmpty()) {
+                    messages.values().forEach(email -> failures.put(email, e));
+                }
+            } catch (MailException e) {
+                messages.values().forEach(email -> failures.put(email, e));
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (EmailOutbox email : batch) {
+            Exception failure = failures.get(email);
+            if (failure == null) {
+                markSent(email, now);
+            } else {
+                scheduleRetry(email, failure, now);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> emailOutboxRepository.saveAll(batch));
+        return batch.size();
+    }
+
+    private MimeMessage toMimeMessage(EmailOutbox email) throws Exception {
+        String htmlContent = emailTemplateRenderer.render(email.getTemplate(),
+                email.getVariables() != null ? email.getVariables() : Map.of());
+        return createHtmlMessage(mailSender, email.getRecipient(), email.getSubject(), htmlContent);
+    }
+
+    private void markSent(EmailOutbox email, LocalDateTime now) {
+        email.setStatus(EmailOutboxStatus.SENT);
+        email.setAttempts(email.getAttempts() + 1);
+        email.setSentAt(now);
+        email.setLastError(null);
+        meterRegistry.counter("dvente.mail.outbox.sent", "template", email.getTemplate()).increment();
+        if (email.getCreatedAt() != null) {
+            meterRegistry.timer("dvente.mail.outbox.latency", "template", email.getTemplate())
+                    .record(Duration.between(email.getCreatedAt(), now));
+        }
+    }
+
+    private void scheduleRetry(EmailOutbox email, Exception failure, LocalDateTime now) {
+        int attempts = email.getAttempts() + 1;
+        email.setAttempts(attempts);
+        email.setLastError(truncate(failure.getMessage()));
+
+        if (attempts >= maxAttempts) {
+            email.setStatus(EmailOutboxStatus.FAILED);
+            meterRegistry.counter("dvente.mail.outbox.abandoned", "template", email.getTemplate()).increment();
+            log.error("Email {} abandonné après {} tentatives : {}", email, attempts, failure.getMessage());
+            return;
+        }
+        email.setStatus(EmailOutboxStatus.PENDING);
+        email.setNextAttemptAt(now.plus(backoff(attempts)));
+        meterRegistry.counter("dvente.mail.outbox.retried", "template", email.getTemplate()).increment();
+        log.warn("Échec d'envoi de l'email {} (tentative {}), nouvel essai à {} : {}",
+                email, attempts, email.getNextAttemptAt(), failure.getMessage());
+    }
+
+    /**
+     * initial-backoff × 2^(tentatives-1), plafonné à max-backoff, avec ±20 % d'aléa
+     * pour ne pas relancer tous les emails d'un incident SMTP au même instant
+     */
+    private Duration backoff(int attempts) {
+        long base = initialBackoff.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        double jitter = 0.8 + ThreadLocalRandom.current().nextDouble() * 0.4;
+        return Duration.ofMillis((long) (capped * jitter));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+}
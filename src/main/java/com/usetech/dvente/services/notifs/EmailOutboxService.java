@@ -0,0 +1,45 @@
+package com.usetech.dvente.services.notifs;
+
+import com.usetech.dvente.entities.notifs.EmailOutbox;
+import com.usetech.dvente.events.notifs.EmailEnqueuedEvent;
+import com.usetech.dvente.repositories.notifs.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Point d'entrée de l'outbox : enregistre l'email dans la transaction de l'appelant
+ * (rien n'est envoyé si elle est annulée) et rend la main sans contacter le serveur SMTP
+ */
+@Service
+@RequiredArgsConstructor
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * @param template  nom du template Thymeleaf (ex. emails/welcome)
+     * @param variables variables du template, sérialisables en JSON
+     */
+    @Transactional
+    public EmailOutbox enqueue(String recipient, String subject, String template, Map<String, Object> variables) {
+        if (recipient == null || recipient.isBlank()) {
+            throw new IllegalArgumentException("Destinataire de l'email manquant");
+        }
+        EmailOutbox email = emailOutboxRepository.save(EmailOutbox.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .template(template)
+                .variables(new HashMap<>(variables))
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+        eventPublisher.publishEvent(new EmailEnqueuedEvent(email.getId(), this));
+        return email;
+    }
+}
@@ -0,0 +1,99 @@
+package com.usetech.dvente.services.notifs;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rendu HTML des emails, sans construction de MimeMessage.
+ * Moteur Thymeleaf dédié aux templates emails/ : templates analysés une seule fois et gardés
+ * en cache (indépendamment de spring.thymeleaf.cache, laissé à false pour l'admin en
+ * développement), expressions SpEL compilées, et préchargement de tous les fichiers de
+ * templates/emails au démarrage pour que le premier envoi ne paie pas l'analyse.
+ */
+@Slf4j
+@Service
+public class EmailTemplateRenderer {
+
+    public static final String TEMPLATE_DIR = "emails/";
+
+    private static final String TEMPLATE_PREFIX = "templates/";
+    private static final String TEMPLATE_SUFFIX = ".html";
+
+    private final SpringTemplateEngine templateEngine;
+    private List<String> templateNames = List.of();
+
+    public EmailTemplateRenderer(@Value("${app.mail.template-cache:true}") boolean cacheable) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix(TEMPLATE_PREFIX);
+        resolver.setSuffix(TEMPLATE_SUFFIX);
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(cacheable);
+        resolver.setCacheTTLMs(null);
+        resolver.setCheckExistence(true);
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        templateEngine.setEnableSpringELCompiler(true);
+    }
+
+    @PostConstruct
+    public void warmUp() throws IOException {
+        long start = System.nanoTime();
+        Set<String> names = new LinkedHashSet<>();
+        Resource[] resources = new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:" + TEMPLATE_PREFIX + TEMPLATE_DIR + "*" + TEMPLATE_SUFFIX);
+        for (Resource resource : resources) {
+            String filename = resource.getFilename();
+            if (filename == null) {
+                continue;
+            }
+            String name = TEMPLATE_DIR + filename.substring(0, filename.length() - TEMPLATE_SUFFIX.length());
+            if (names.contains(name)) {
+                continue;
+            }
+            // Le template existe même si son rendu à vide échoue (variables obligatoires)
+            names.add(name);
+            try {
+                // L'analyse (mise en cache) précède l'évaluation : le template reste en cache
+                // même quand l'évaluation échoue faute de variables
+                render(name, Map.of());
+            } catch (Exception e) {
+                log.debug("Rendu à vide du template email {} impossible : {}", name, e.getMessage());
+            }
+        }
+        templateNames = List.copyOf(names);
+        log.info("{} templates email préchargés en {} ms", templateNames.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * HTML du template (ex. emails/welcome) pour les variables données
+     */
+    public String render(String template, Map<String, Object> variables) {
+        Context context = new Context(Locale.getDefault(), variables);
+        return templateEngine.process(template, context);
+    }
+
+    /**
+     * Templates trouvés sous templates/emails au démarrage, préchargés ou non
+     */
+    public List<String> getTemplateNames() {
+        return templateNames;
+    }
+}
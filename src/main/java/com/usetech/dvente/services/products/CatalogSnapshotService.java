@@ -0,0 +1,154 @@
+package com.usetech.dvente.services.products;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.usetech.dvente.entities.products.Category;
+import com.usetech.dvente.events.products.CategoryChangedEvent;
+import com.usetech.dvente.events.products.KeywordChangedEvent;
+import com.usetech.dvente.repositories.products.CategoryRepository;
+import com.usetech.dvente.repositories.products.KeywordRepository;
+import com.usetech.dvente.responses.ApiResponse;
+import com.usetech.dvente.responses.products.CategoryTreeResponse;
+import com.usetech.dvente.responses.products.KeywordResponse;
+import com.usetech.dvente.utils.JsonSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Instantané immuable des données de référence du catalogue (catégories, arbre
+ * des catégories, mots-clés), sérialisé une fois avec son ETag.
+ * Une écriture sur une catégorie ou un mot-clé invalide l'instantané après commit ;
+ * il est reconstruit à la lecture suivante (un seeder qui insère 50 lignes ne
+ * provoque donc qu'une reconstruction).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogSnapshotService {
+
+    private static final Sort BY_NAME = Sort.by("name");
+
+    private final CategoryRepository categoryRepository;
+    private final KeywordRepository keywordRepository;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile CatalogSnapshot snapshot;
+
+    public record CatalogSnapshot(
+            long version,
+            JsonSnapshot categories,
+            JsonSnapshot mainCategories,
+            JsonSnapshot categoryTree,
+            JsonSnapshot keywords
+    ) {
+    }
+
+    public CatalogSnapshot getSnapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        // Lock plutôt que synchronized : la reconstruction interroge la base et
+        // épinglerait le thread porteur en mode threads virtuels
+        rebuildLock.lock();
+        try {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            long version = generation.get();
+            CatalogSnapshot rebuilt = build(version);
+            // Une invalidation pendant la construction : on sert ce résultat sans le conserver
+            if (generation.get() == version) {
+                snapshot = rebuilt;
+            }
+            return rebuilt;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onKeywordChanged(KeywordChangedEvent event) {
+        invalidate();
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+        snapshot = null;
+    }
+
+    private CatalogSnapshot build(long version) {
+        List<Category> categories = categoryRepository.findAll(BY_NAME);
+        List<Category> mainCategories = categories.stream()
+                .filter(Category::isMain)
+                .toList();
+        List<KeywordResponse> keywords = keywordRepository.findAll(BY_NAME).stream()
+                .map(KeywordResponse::fromEntity)
+                .toList();
+
+        CatalogSnapshot built = new CatalogSnapshot(
+                version,
+                JsonSnapshot.of(objectMapper, new ApiResponse<>("success", categories)),
+                JsonSnapshot.of(objectMapper, new ApiResponse<>("success", mainCategories)),
+                JsonSnapshot.of(objectMapper, new ApiResponse<>("success", buildTree(categories))),
+                JsonSnapshot.of(objectMapper, keywords)
+        );
+        log.info("Instantané du catalogue reconstruit (version {}) : {} catégories, {} mots-clés",
+                version, categories.size(), keywords.size());
+        return built;
+    }
+
+    /**
+     * Arbre parent/enfants déduit de Category.parent, trié par nom à chaque niveau.
+     * Une catégorie dont le parent est absent est traitée comme une racine.
+     */
+    private List<CategoryTreeResponse> buildTree(List<Category> categories) {
+        Set<UUID> ids = new HashSet<>();
+        categories.forEach(category -> ids.add(category.getId()));
+
+        Map<UUID, List<Category>> childrenByParent = new HashMap<>();
+        List<Category> roots = new ArrayList<>();
+        for (Category category : categories) {
+            Category parent = category.getParent();
+            if (parent == null || !ids.contains(parent.getId())) {
+                roots.add(category);
+            } else {
+                childrenByParent.computeIfAbsent(parent.getId(), id -> new ArrayList<>()).add(category);
+            }
+        }
+        return toNodes(roots, childrenByParent, new HashSet<>());
+    }
+
+    private List<CategoryTreeResponse> toNodes(List<Category> categories,
+                                               Map<UUID, List<Category>> childrenByParent,
+                                               Set<UUID> visited) {
+        List<CategoryTreeResponse> nodes = new ArrayList<>(categories.size());
+        for (Category category : categories) {
+            if (!visited.add(category.getId())) {
+                continue;
+            }
+            List<Category> children = childrenByParent.getOrDefault(category.getId(), List.of());
+            nodes.add(CategoryTreeResponse.fromCategory(category, toNodes(children, childrenByParent, visited)));
+        }
+        return List.copyOf(nodes);
+    }
+}
@@ -1,15 +1,53 @@
 package com.usetech.dvente.services.products;
 
+import com.usetech.dvente.configs.AppStorageProperties;
+import com.usetech.dvente.entities.files.DirectUpload;
+import com.usetech.dvente.entities.users.Shop;
+import com.usetech.dvente.events.files.ImageUploadedEvent;
+import com.usetech.dvente.repositories.files.DirectUploadRepository;
+import com.usetech.dvente.responses.products.PresignedImageUploadResponse;
 import com.usetech.dvente.services.FileStorageService;
+import com.usetech.dvente.services.files.PresignedUpload;
+import com.usetech.dvente.services.files.StorageBackend;
+import com.usetech.dvente.services.files.StoredFile;
+import com.usetech.dvente.services.files.UploadFileServer;
+import com.usetech.dvente.services.files.UploadPolicy;
+import com.usetech.dvente.utils.MultipartStreamReader;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductImageService {
 
+    public static final String IMAGE_FIELD = "image";
+
+    private static final String PRODUCTS_FOLDER = "products";
+    private static final int PURGE_BATCH_SIZE = 100;
+    private static final Duration PURGE_GRACE = Duration.ofHours(1);
+    private static final Pattern PRESIGNED_PATH = Pattern.compile("/uploads/products/[0-9a-f-]{36}\\.[a-z]{3,4}");
+
     private final FileStorageService fileStorageService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StorageBackend storageBackend;
+    private final AppStorageProperties storageProperties;
+    private final DirectUploadRepository directUploadRepository;
 
     /**
      * Sauvegarde une image de produit et retourne le chemin
@@ -22,24 +60,127 @@ public class ProductImageService {
             throw new IllegalArgumentException("Aucun fichier image fourni");
         }
 
-        String contentType = image.getContentType();
-        if (contentType == null || !isValidImageType(contentType)) {
-            throw new IllegalArgumentException("Type de fichier non supporté. Formats acceptés: JPG, JPEG, PNG, GIF, WEBP");
+        UploadPolicy policy = UploadPolicy.PRODUCT_IMAGE;
+        if (!policy.isDeclaredTypeAllowed(image.getOriginalFilename(), image.getContentType())) {
+            throw new IllegalArgumentException(policy.getTypeMessage());
         }
 
-        long maxSizeInBytes = 5 * 1024 * 1024;
-        if (image.getSize() > maxSizeInBytes) {
-            throw new IllegalArgumentException("La taille de l'image ne doit pas dépasser 5MB");
+        if (image.getSize() > policy.getMaxBytes()) {
+            throw new IllegalArgumentException(policy.getSizeMessage());
         }
 
-        return fileStorageService.saveProductImage(image);
+        String imageUrl = fileStorageService.saveProductImage(image);
+        eventPublisher.publishEvent(new ImageUploadedEvent(imageUrl, this));
+        return imageUrl;
     }
 
-    private boolean isValidImageType(String contentType) {
-        return contentType.equals("image/jpeg") ||
-                contentType.equals("image/jpg") ||
-                contentType.equals("image/png") ||
-                contentType.equals("image/gif") ||
-                contentType.equals("image/webp");
+    /**
+     * Sauvegarde l'image de produit lue en flux depuis la partie "image" d'une requête multipart,
+     * sans passer par le stockage temporaire du conteneur
+     * @throws IllegalArgumentException si l'image est absente ou invalide
+     */
+    public StoredFile saveProductImage(MultipartStreamReader reader) throws IOException {
+        for (MultipartStreamReader.Part part; (part = reader.next()) != null; ) {
+            if (IMAGE_FIELD.equals(part.name()) && part.isFile()) {
+                StoredFile stored = fileStorageService.saveStream(part.body(), part.filename(), part.contentType(),
+                        UploadPolicy.PRODUCT_IMAGE, "products");
+                eventPublisher.publishEvent(new ImageUploadedEvent(stored.url(), this));
+                return stored;
+            }
+        }
+        throw new IllegalArgumentException("Aucun fichier image fourni");
+    }
+
+    /**
+     * Prépare un upload direct de l'image vers le bucket, sans passer par l'API :
+     * le formulaire signé impose la clé, le type déclaré et la taille maximale
+     * Le chemin est enregistré pour la boutique et reste inutilisable dans un produit tant qu'il n'est pas confirmé
+     * @return le formulaire et le chemin /uploads/products/... de la future image
+     * @throws IllegalArgumentException si le type ou la taille sont refusés
+     * @throws UnsupportedOperationException avec le stockage local
+     */
+    public PresignedImageUploadResponse presignProductImage(Shop shop, String filename, String contentType, long size, String apiUrl) {
+        UploadPolicy policy = UploadPolicy.PRODUCT_IMAGE;
+        if (!policy.isDeclaredTypeAllowed(filename, contentType)) {
+            throw new IllegalArgumentException(policy.getTypeMessage());
+        }
+        if (size > policy.getMaxBytes()) {
+            throw new IllegalArgumentException(policy.getSizeMessage());
+        }
+        String key = PRODUCTS_FOLDER + "/" + UUID.randomUUID() + policy.storedExtension(filename, contentType);
+        PresignedUpload upload = storageBackend.presignUpload(key, contentType.toLowerCase(Locale.ROOT),
+                policy.getMaxBytes(), storageProperties.getPresignTtl());
+        String path = UploadFileServer.URL_PREFIX + key;
+        directUploadRepository.save(DirectUpload.builder().url(path).shopId(shop.getId()).build());
+        return PresignedImageUploadResponse.of(upload, path, apiUrl);
+    }
+
+    /**
+     * Vérifie une image envoyée directement au bucket (signature du contenu) : supprimée
+     * si ce n'est pas une image acceptée, sinon marquée confirmée et ses déclinaisons sont demandées
+     * @throws IllegalArgumentException si le chemin est invalide, n'a pas été signé pour cette boutique,
+     * ou si l'image est absente ou refusée
+     */
+    public String confirmPresignedProductImage(Shop shop, String path) throws IOException {
+        if (path == null || !PRESIGNED_PATH.matcher(path).matches()) {
+            throw new IllegalArgumentException("Chemin d'image invalide");
+        }
+        DirectUpload upload = directUploadRepository.findByUrl(path)
+                .filter(u -> u.getShopId().equals(shop.getId()))
+                .orElseThrow(() -> new IllegalArgumentException("Chemin d'image invalide"));
+        if (upload.getConfirmedAt() != null) {
+            return path;
+        }
+        String key = path.substring(UploadFileServer.URL_PREFIX.length());
+        UploadPolicy policy = UploadPolicy.PRODUCT_IMAGE;
+        byte[] head;
+        try (InputStream content = storageBackend.open(key)) {
+            head = content.readNBytes(UploadPolicy.SIGNATURE_LENGTH);
+        } catch (NoSuchFileException e) {
+            throw new IllegalArgumentException("Image introuvable : l'upload n'est pas terminé");
+        }
+        if (!policy.matchesSignature(head, head.length)) {
+            storageBackend.delete(key);
+            directUploadRepository.delete(upload);
+            throw new IllegalArgumentException(policy.getTypeMessage());
+        }
+        upload.setConfirmedAt(LocalDateTime.now());
+        directUploadRepository.save(upload);
+        eventPublisher.publishEvent(new ImageUploadedEvent(path, this));
+        return path;
+    }
+
+    /**
+     * Supprime les uploads directs jamais confirmés (objet et enregistrement), une fois le
+     * formulaire signé expiré depuis plus d'une heure. L'enregistrement est la seule trace de
+     * l'objet : il n'est supprimé qu'avec lui, un objet non supprimé est retenté au passage suivant.
+     */
+    @Scheduled(fixedDelayString = "${app.storage.direct-upload-purge-interval:30m}")
+    public void purgeUnconfirmedUploads() {
+        LocalDateTime before = LocalDateTime.now().minus(storageProperties.getPresignTtl()).minus(PURGE_GRACE);
+        int purged = 0;
+        int purgedInBatch;
+        List<DirectUpload> batch;
+        do {
+            batch = directUploadRepository.findUnconfirmedBefore(before, PageRequest.of(0, PURGE_BATCH_SIZE));
+            purgedInBatch = 0;
+            for (DirectUpload upload : batch) {
+                try {
+                    storageBackend.delete(upload.getUrl().substring(UploadFileServer.URL_PREFIX.length()));
+                } catch (NoSuchFileException e) {
+                    // Objet déjà supprimé : seul l'enregistrement reste à supprimer
+                } catch (IOException e) {
+                    log.warn("Upload direct non supprimé {}, nouvel essai au prochain passage : {}", upload.getUrl(), e.getMessage());
+                    continue;
+                }
+                directUploadRepository.delete(upload);
+                purgedInBatch++;
+            }
+            purged += purgedInBatch;
+            // Les lignes en échec reviennent en tête du lot suivant : arrêt quand plus rien n'avance
+        } while (batch.size() == PURGE_BATCH_SIZE && purgedInBatch > 0);
+        if (purged > 0) {
+            log.info("{} upload(s) direct(s) non confirmé(s) supprimé(s)", purged);
+        }
     }
-}
\ No newline at end of file
+}
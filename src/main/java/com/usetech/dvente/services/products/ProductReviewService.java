@@ -4,6 +4,7 @@ package com.usetech.dvente.services.products;
 import com.usetech.dvente.entities.products.Product;
 import com.usetech.dvente.entities.products.ProductReview;
 import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.repositories.UserRepository;
 import com.usetech.dvente.repositories.products.ProductRepository;
 import com.usetech.dvente.repositories.products.ProductReviewRepository;
 import com.usetech.dvente.requests.products.CreateReviewRequest;
@@ -27,6 +28,7 @@ public class ProductReviewService {
 
     private final ProductReviewRepository productReviewRepository;
     private final ProductRepository productRepository;
+    private final UserRepository userRepository;
 
     @Transactional(readOnly = true)
     public PaginatedReviewResponse getProductReviews(UUID productId, Integer page, Integer pageSize) {
@@ -58,8 +60,13 @@ public class ProductReviewService {
         );
     }
 
+    /**
+     * @param principal principal du token (claims seulement) : l'auteur est rechargé pour la réponse
+     */
     @Transactional
-    public ProductReviewResponse createReview(UUID productId, CreateReviewRequest request, User user) {
+    public ProductReviewResponse createReview(UUID productId, CreateReviewRequest request, User principal) {
+        User user = userRepository.findById(principal.getId())
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Produit non trouvé"));
 
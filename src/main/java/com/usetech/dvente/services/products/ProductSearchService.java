@@ -0,0 +1,157 @@
+package com.usetech.dvente.services.products;
+
+import com.usetech.dvente.entities.products.Category;
+import com.usetech.dvente.entities.products.Product;
+import com.usetech.dvente.entities.users.Shop;
+import com.usetech.dvente.repositories.products.CategoryRepository;
+import com.usetech.dvente.repositories.products.ProductRepository;
+import com.usetech.dvente.repositories.shops.ShopRepository;
+import com.usetech.dvente.responses.products.ProductResponse;
+import com.usetech.dvente.responses.products.ProductSearchResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class ProductSearchService {
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ShopRepository shopRepository;
+
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_QUERY_LENGTH = 200;
+
+    /**
+     * Recherche plein texte dans le catalogue (nom, description, mots-clés).
+     * Les IDs sont paginés et classés en base via l'index GIN, puis le graphe
+     * des seuls produits de la page est chargé.
+     *
+     * @param withFacets calcule aussi les facettes catégories, boutiques et prix
+     * @throws IllegalArgumentException si la recherche est vide ou trop longue
+     */
+    @Transactional(readOnly = true)
+    public ProductSearchResponse search(
+            String query,
+            UUID categoryId,
+            UUID shopId,
+            BigDecimal minPrice,
+            BigDecimal maxPrice,
+            Integer page,
+            Integer pageSize,
+            boolean withFacets,
+            String apiUrl
+    ) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Le terme de recherche est requis");
+        }
+        if (query.length() > MAX_QUERY_LENGTH) {
+            throw new IllegalArgumentException("Le terme de recherche ne doit pas dépasser " + MAX_QUERY_LENGTH + " caractères");
+        }
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new IllegalArgumentException("Le prix minimum doit être inférieur au prix maximum");
+        }
+
+        String q = query.trim();
+        int validPage = Math.max(page != null ? page : 1, 1);
+        int validPageSize = Math.min(
+                Math.max(pageSize != null ? pageSize : DEFAULT_PAGE_SIZE, 1),
+                MAX_PAGE_SIZE
+        );
+
+        Page<UUID> ids = productRepository.searchProductIds(
+                q, categoryId, shopId, minPrice, maxPrice,
+                PageRequest.of(validPage - 1, validPageSize)
+        );
+
+        List<ProductResponse> products = loadProducts(ids.getContent(), apiUrl);
+
+        return ProductSearchResponse.builder()
+                .data(products)
+                .message("success")
+                .query(q)
+                .total(ids.getTotalElements())
+                .page(validPage)
+                .pageSize(validPageSize)
+                .totalPages(ids.getTotalPages())
+                .hasNext(ids.hasNext())
+                .facets(withFacets ? buildFacets(q, categoryId, shopId, minPrice, maxPrice) : null)
+                .build();
+    }
+
+    /**
+     * Charge les produits de la page dans l'ordre de pertinence, avec leur nombre d'avis
+     */
+    private List<ProductResponse> loadProducts(List<UUID> ids, String apiUrl) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<Product> products = productRepository.findAllWithDetailsByIdIn(ids);
+        Map<UUID, Product> byId = products.stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        Map<UUID, Long> reviewCounts = productRepository.countReviewsForProducts(products).stream()
+                .collect(Collectors.toMap(
+                        row -> (UUID) row[0],
+                        row -> (Long) row[1]
+                ));
+
+        return ids.stream()
+                .map(byId::get)
+                .filter(product -> product != null)
+                .map(product -> ProductResponse.fromEntity(
+                        product, apiUrl, reviewCounts.getOrDefault(product.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    private ProductSearchResponse.Facets buildFacets(
+            String q, UUID categoryId, UUID shopId, BigDecimal minPrice, BigDecimal maxPrice) {
+
+        List<Object[]> categoryCounts = productRepository.searchCategoryFacets(q, categoryId, shopId, minPrice, maxPrice);
+        List<Object[]> shopCounts = productRepository.searchShopFacets(q, categoryId, shopId, minPrice, maxPrice);
+        List<Object[]> priceRange = productRepository.searchPriceRange(q, categoryId, shopId, minPrice, maxPrice);
+
+        Map<UUID, String> categoryNames = categoryRepository.findAllById(facetIds(categoryCounts)).stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        Map<UUID, String> shopNames = shopRepository.findAllById(facetIds(shopCounts)).stream()
+                .collect(Collectors.toMap(Shop::getId, shop -> String.valueOf(shop.getShopName())));
+
+        Object[] prices = priceRange.isEmpty() ? new Object[2] : priceRange.get(0);
+
+        return ProductSearchResponse.Facets.builder()
+                .categories(toFacetCounts(categoryCounts, categoryNames))
+                .shops(toFacetCounts(shopCounts, shopNames))
+                .minPrice((BigDecimal) prices[0])
+                .maxPrice((BigDecimal) prices[1])
+                .build();
+    }
+
+    private List<UUID> facetIds(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> (UUID) row[0])
+                .filter(id -> id != null)
+                .toList();
+    }
+
+    private List<ProductSearchResponse.FacetCount> toFacetCounts(List<Object[]> rows, Map<UUID, String> names) {
+        return rows.stream()
+                .filter(row -> row[0] != null)
+                .map(row -> ProductSearchResponse.FacetCount.builder()
+                        .id((UUID) row[0])
+                        .name(names.get((UUID) row[0]))
+                        .count(((Number) row[1]).longValue())
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
@@ -1,26 +1,35 @@
 package com.usetech.dvente.services.products;
 
-import com.usetech.dvente.entities.products.Keyword;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.usetech.dvente.configs.CacheConfig;
+import com.usetech.dvente.entities.analytics.RollupGranularity;
+import com.usetech.dvente.entities.analytics.ViewTarget;
 import com.usetech.dvente.entities.products.Product;
 import com.usetech.dvente.entities.products.ProductImage;
 import com.usetech.dvente.entities.users.Shop;
-import com.usetech.dvente.repositories.products.KeywordRepository;
+import com.usetech.dvente.repositories.analytics.ViewRankRow;
+import com.usetech.dvente.repositories.products.ProductListingRow;
 import com.usetech.dvente.repositories.products.ProductRepository;
 import com.usetech.dvente.repositories.shops.ShopRepository;
 import com.usetech.dvente.responses.products.*;
 import com.usetech.dvente.responses.shops.ShopResponse;
+import com.usetech.dvente.services.analytics.ViewRollupService;
+import com.usetech.dvente.utils.ProductCursor;
 import com.usetech.dvente.utils.ShopUtils;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -33,18 +42,23 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final ShopRepository shopRepository;
-    private final KeywordRepository keywordRepository;
+    private final ObjectMapper objectMapper;
+    private final ViewRollupService viewRollupService;
     private static final int DEFAULT_PAGE_SIZE = 20;
     private static final int MAX_PAGE_SIZE = 100;
 
     /**
-     * Récupère la liste paginée des produits
+     * Récupère la liste paginée des produits.
+     * Avec un curseur, la page est lue par clé (createdAt, id) sans OFFSET.
+     * Dans les deux modes, le COUNT n'est exécuté que si le client demande le total.
      */
     @Transactional(readOnly = true)
     public PaginatedProductResponse getProducts(
             Integer page,
             Integer pageSize,
             UUID categoryId,
+            String cursor,
+            boolean withTotal,
             HttpServletRequest request
     ) {
         // Validation et normalisation des paramètres
@@ -54,47 +68,109 @@ public class ProductService {
                 MAX_PAGE_SIZE
         );
 
+        String baseUrl = ServletUriComponentsBuilder.fromRequestUri(request)
+                .replacePath(null)
+                .build()
+                .toUriString();
+
+        if (cursor != null && !cursor.isBlank()) {
+            return getProductsAfterCursor(ProductCursor.decode(cursor), validPageSize, categoryId, withTotal, baseUrl);
+        }
+
         // Créer le Pageable
         Pageable pageable = PageRequest.of(validPage, validPageSize);
 
-        // Récupérer les produits
-        Page<Product> productPage;
+        // Récupérer les produits avec leur nombre d'avis (une seule requête)
+        Slice<ProductListingRow> productPage;
         if (categoryId != null) {
-            productPage = productRepository.findActiveProductsByCategory(categoryId, pageable);
+            productPage = productRepository.findActiveProductListingByCategory(categoryId, pageable);
         } else {
-            productPage = productRepository.findAllActiveProducts(pageable);
+            productPage = productRepository.findActiveProductListing(pageable);
         }
 
+        Long total = withTotal ? countActiveProducts(categoryId) : null;
+
         // Convertir en DTO
         List<ProductResponse> productResponses = productPage.getContent().stream()
-                .map(product -> convertToResponse(product, request))
+                .map(row -> convertToResponse(row.getProduct(), row.getReviewCount(), baseUrl))
                 .collect(Collectors.toList());
 
         return PaginatedProductResponse.builder()
                 .data(productResponses)
                 .message("success")
-                .total(productPage.getTotalElements())
+                .total(total)
                 .page(validPage + 1)
                 .pageSize(validPageSize)
-                .totalPages(productPage.getTotalPages())
+                .totalPages(total != null ? (int) Math.ceil((double) total / validPageSize) : null)
                 .hasNext(productPage.hasNext())
+                .nextCursor(productPage.hasNext() ? nextCursor(productPage.getContent()) : null)
                 .build();
     }
 
     /**
-     * Convertit une entité Product en ProductResponse
+     * Page suivante par clé : on lit une ligne de plus pour savoir s'il reste des produits
      */
-    private ProductResponse convertToResponse(Product product, HttpServletRequest request) {
-        String baseUrl = ServletUriComponentsBuilder.fromRequestUri(request)
-                .replacePath(null)
-                .build()
-                .toUriString();
+    private PaginatedProductResponse getProductsAfterCursor(
+            ProductCursor position,
+            int pageSize,
+            UUID categoryId,
+            boolean withTotal,
+            String baseUrl
+    ) {
+        Pageable limit = PageRequest.of(0, pageSize + 1);
 
-        Long reviewCount = productRepository.countReviewsByProductId(product.getId());
+        List<ProductListingRow> rows;
+        if (categoryId != null) {
+            rows = productRepository.findActiveProductListingByCategoryAfter(
+                    categoryId, position.getCreatedAt(), position.getId(), limit);
+        } else {
+            rows = productRepository.findActiveProductListingAfter(
+                    position.getCreatedAt(), position.getId(), limit);
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
 
+        Long total = withTotal ? countActiveProducts(categoryId) : null;
+
+        List<ProductResponse> productResponses = rows.stream()
+                .map(row -> convertToResponse(row.getProduct(), row.getReviewCount(), baseUrl))
+                .collect(Collectors.toList());
+
+        return PaginatedProductResponse.builder()
+                .data(productResponses)
+                .message("success")
+                .total(total)
+                .pageSize(pageSize)
+                .totalPages(total != null ? (int) Math.ceil((double) total / pageSize) : null)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? nextCursor(rows) : null)
+                .build();
+    }
+
+    private long countActiveProducts(UUID categoryId) {
+        return categoryId != null
+                ? productRepository.countByIsActiveTrueAndCategory_Id(categoryId)
+                : productRepository.countByIsActiveTrue();
+    }
+
+    private String nextCursor(List<ProductListingRow> rows) {
+        Product last = rows.get(rows.size() - 1).getProduct();
+        return new ProductCursor(last.getCreatedAt(), last.getId()).encode();
+    }
+
+    /**
+     * Convertit une entité Product en ProductResponse
+     */
+    private ProductResponse convertToResponse(Product product, Long reviewCount, String baseUrl) {
         List<String> otherImages = product.getOtherImages().stream()
                 .map(img -> buildImageUrl(baseUrl, img.getImage()))
                 .collect(Collectors.toList());
+        List<Map<String, String>> otherImagesVariants = product.getOtherImages().stream()
+                .map(img -> buildVariantUrls(baseUrl, img.getVariants()))
+                .collect(Collectors.toList());
 
         return ProductResponse.builder()
                 .id(product.getId())
@@ -103,11 +179,13 @@ public class ProductService {
                 .price(product.getPrice())
                 .discountPrice(product.getDiscountPrice())
                 .primaryImage(buildImageUrl(baseUrl, product.getPrimaryImage()))
+                .primaryImageVariants(buildVariantUrls(baseUrl, product.getPrimaryImageVariants()))
                 .stockQuantity(product.getStockQuantity())
                 .isActive(product.getIsActive())
                 .category(CategoryResponse.fromCategory(product.getCategory()))
                 .shopAuthor(ShopResponse.fromShop(product.getShopAuthor()))
                 .otherImages(otherImages)
+                .otherImagesVariants(otherImagesVariants)
                 .reviewCount(reviewCount)
                 .createdAt(product.getCreatedAt())
                 .updatedAt(product.getUpdatedAt())
@@ -127,6 +205,18 @@ public class ProductService {
         return baseUrl + (imagePath.startsWith("/") ? "" : "/") + imagePath;
     }
 
+    /**
+     * Construit les URLs complètes des déclinaisons d'une image (null si non générées)
+     */
+    private Map<String, String> buildVariantUrls(String baseUrl, Map<String, String> variants) {
+        if (variants == null) {
+            return null;
+        }
+        Map<String, String> urls = new LinkedHashMap<>();
+        variants.forEach((key, path) -> urls.put(key, buildImageUrl(baseUrl, path)));
+        return urls;
+    }
+
 
     /**
      * Retrieves the details of a product by its ID and API URL.
@@ -150,10 +240,25 @@ public class ProductService {
         return ProductDetailResponse.fromEntity(product, apiUrl, reviewCount);
     }
 
+    /**
+     * Détail d'un produit déjà sérialisé en JSON, servi depuis le cache productDetails.
+     * La clé est l'ID seul : apiUrl vient de la configuration et ne varie pas.
+     * Le cache est invalidé après commit par les écritures sur le produit, ses images,
+     * ses avis et ses mots-clés (voir ProductDetailCacheListener).
+     *
+     * @return le JSON du produit, ou {@code null} s'il n'existe pas (non mis en cache)
+     */
+    @Cacheable(value = CacheConfig.PRODUCT_DETAILS, key = "#productId", unless = "#result == null")
+    @Transactional(readOnly = true)
+    public byte[] getProductDetailJson(UUID productId, String apiUrl) throws JsonProcessingException {
+        ProductDetailResponse response = getProductDetail(productId, apiUrl);
+        return response == null ? null : objectMapper.writeValueAsBytes(response);
+    }
+
 
     @Transactional(readOnly = true)
     public PaginatedProductResponse getMerchantProducts(Shop shop, int page, int pageSize, String apiUrl) {
-        Pageable pageable = PageRequest.of(page - 1, pageSize, Sort.by("createdAt").descending());
+        Pageable pageable = PageRequest.of(page - 1, pageSize);
         Page<Product> productPage = productRepository.findByShopAuthorWithDetails(shop, pageable);
         List<Product> products = productPage.getContent();
         Map<UUID, Long> reviewCounts = getReviewCountsForProducts(products);
@@ -175,6 +280,38 @@ public class ProductService {
         );
     }
 
+    /**
+     * Produits actifs les plus vus sur les dernières heures (HOUR) ou derniers jours (DAY), lus
+     * dans les compteurs agrégés, avec leur nombre de vues sur la période
+     */
+    @Transactional(readOnly = true)
+    public List<ProductResponse> getMostViewedProducts(RollupGranularity granularity, int periods, int limit, String apiUrl) {
+        List<ViewRankRow> ranking = viewRollupService.rank(ViewTarget.PRODUCT, granularity, periods, limit);
+        if (ranking.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Product> productsById = productRepository
+                .findAllWithDetailsByIdIn(ranking.stream().map(ViewRankRow::targetId).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        List<Product> products = ranking.stream()
+                .map(row -> productsById.get(row.targetId()))
+                .filter(product -> product != null && Boolean.TRUE.equals(product.getIsActive()))
+                .toList();
+        Map<UUID, Long> reviewCounts = getReviewCountsForProducts(products);
+        Map<UUID, Long> views = ranking.stream()
+                .collect(Collectors.toMap(ViewRankRow::targetId, ViewRankRow::views));
+
+        return products.stream()
+                .map(product -> {
+                    ProductResponse response = ProductResponse.fromEntity(product, apiUrl,
+                            reviewCounts.getOrDefault(product.getId(), 0L));
+                    response.setViewCount(views.get(product.getId()));
+                    return response;
+                })
+                .collect(Collectors.toList());
+    }
+
     private Map<UUID, Long> getReviewCountsForProducts(List<Product> products) {
         if (products.isEmpty()) {
             return Map.of();
@@ -189,17 +326,6 @@ public class ProductService {
                 ));
     }
 
-
-
-
-    @Transactional(readOnly = true)
-    public List<KeywordResponse> getAllKeywords() {
-        List<Keyword> keywords = keywordRepository.findAll();
-        return keywords.stream()
-                .map(KeywordResponse::fromEntity)
-                .collect(Collectors.toList());
-    }
-
     @Transactional(readOnly = true)
     public PaginatedProductResponse getProductsByShopUrl(
             String shopUrl, Integer page, Integer pageSize,
@@ -0,0 +1,228 @@
+package com.usetech.dvente.services.products;
+
+import com.usetech.dvente.entities.products.Keyword;
+import com.usetech.dvente.events.products.KeywordChangedEvent;
+import com.usetech.dvente.events.products.ProductChangedEvent;
+import com.usetech.dvente.repositories.products.KeywordRepository;
+import com.usetech.dvente.repositories.products.ProductRepository;
+import com.usetech.dvente.utils.PrefixIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Autocomplétion du catalogue servie depuis la mémoire, sans requête SQL.
+ * L'index (noms de produits actifs + mots-clés) est construit au démarrage puis
+ * reconstruit en tâche de fond quand le catalogue change. Entre deux reconstructions,
+ * les nouveaux noms sont ajoutés à un petit index delta pour apparaître immédiatement ;
+ * les suppressions et renommages sont pris en compte à la reconstruction suivante.
+ */
+@Slf4j
+@Service
+@Order(1)
+@RequiredArgsConstructor
+public class ProductSuggestService implements ApplicationRunner {
+
+    public static final String TYPE_PRODUCT = "product";
+    public static final String TYPE_KEYWORD = "keyword";
+
+    private static final int MAX_LIMIT = 20;
+    private static final int POPULAR_KEYWORD_BONUS = 50;
+    // Nœud de ConcurrentSkipListMap et sa part d'index (~1 niveau sur 4), record Suggestion
+    private static final long DELTA_ENTRY_BYTES = 40;
+    private static final long SUGGESTION_BYTES = 24;
+
+    private final ProductRepository productRepository;
+    private final KeywordRepository keywordRepository;
+    private final MeterRegistry meterRegistry;
+
+    private volatile PrefixIndex index = PrefixIndex.empty();
+    private final ConcurrentSkipListMap<String, PrefixIndex.Suggestion> delta = new ConcurrentSkipListMap<>();
+    private final AtomicLong deltaMemoryBytes = new AtomicLong();
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+    private Timer rebuildTimer;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("dvente.suggest.index.terms", this, s -> s.index.keyCount() + s.delta.size())
+                .description("Nombre de clés de l'index d'autocomplétion")
+                .register(meterRegistry);
+        Gauge.builder("dvente.suggest.index.memory", this, ProductSuggestService::estimatedMemoryBytes)
+                .description("Empreinte mémoire estimée de l'index d'autocomplétion")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        rebuildTimer = Timer.builder("dvente.suggest.index.rebuild")
+                .description("Durée de reconstruction de l'index d'autocomplétion")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Suggestions pour un préfixe saisi, par pertinence décroissante
+     */
+    public List<PrefixIndex.Suggestion> suggest(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("Le paramètre q est obligatoire");
+        }
+        int size = limit == null ? 10 : limit;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit doit être compris entre 1 et " + MAX_LIMIT);
+        }
+
+        List<PrefixIndex.Suggestion> results = index.search(prefix, size);
+        if (delta.isEmpty()) {
+            return results;
+        }
+        return mergeDelta(PrefixIndex.normalize(prefix), results, size);
+    }
+
+    /**
+     * Statistiques de l'index (exposées aussi via Actuator)
+     */
+    public Map<String, Object> getIndexStats() {
+        PrefixIndex current = index;
+        return Map.of(
+                "suggestions", current.suggestionCount(),
+                "keys", current.keyCount(),
+                "pending", delta.size(),
+                "memory_bytes", current.estimatedMemoryBytes() + deltaMemoryBytes.get()
+        );
+    }
+
+    /**
+     * Index (estimation figée à sa construction) et delta (tenue à jour à chaque ajout) :
+     * lu à chaque collecte des métriques, sans parcourir les clés
+     */
+    private double estimatedMemoryBytes() {
+        return index.estimatedMemoryBytes() + deltaMemoryBytes.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isActive() && !event.isRemoved()) {
+            addToDelta(event.getName(), TYPE_PRODUCT);
+        }
+        dirty.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onKeywordChanged(KeywordChangedEvent event) {
+        if (!event.isRemoved()) {
+            addToDelta(event.getName(), TYPE_KEYWORD);
+        }
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${app.suggest.rebuild-delay-ms:5000}")
+    public void rebuildIfDirty() {
+        if (dirty.compareAndSet(true, false)) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Reconstruit l'index complet depuis la base et le publie atomiquement
+     */
+    public void rebuild() {
+        try {
+            rebuildTimer.record(() -> {
+                // Le delta est vidé avant lecture : un ajout concurrent y reste ou est déjà en base
+                delta.clear();
+                deltaMemoryBytes.set(0);
+                PrefixIndex.Builder builder = PrefixIndex.builder();
+
+                for (Object[] row : productRepository.findActiveProductNameCounts()) {
+                    builder.add((String) row[0], TYPE_PRODUCT, ((Number) row[1]).intValue());
+                }
+
+                Map<String, Integer> usage = new HashMap<>();
+                for (Object[] row : productRepository.findKeywordUsageCounts()) {
+                    usage.put((String) row[0], ((Number) row[1]).intValue());
+                }
+                for (Keyword keyword : keywordRepository.findAll()) {
+                    int weight = usage.getOrDefault(keyword.getName(), 0) + 1;
+                    if (keyword.isPopular()) {
+                        weight += POPULAR_KEYWORD_BONUS;
+                    }
+                    builder.add(keyword.getName(), TYPE_KEYWORD, weight);
+                }
+
+                index = builder.build();
+            });
+            log.info("Index d'autocomplétion reconstruit : {} suggestions, {} clés, ~{} Ko",
+                    index.suggestionCount(), index.keyCount(), index.estimatedMemoryBytes() / 1024);
+
+        } catch (Exception e) {
+            dirty.set(true);
+            log.error("Erreur lors de la reconstruction de l'index d'autocomplétion", e);
+        }
+    }
+
+    private void addToDelta(String name, String type) {
+        String normalized = PrefixIndex.normalize(name);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        PrefixIndex.Suggestion suggestion = new PrefixIndex.Suggestion(name.trim(), type, 1);
+        putDelta(normalized, suggestion);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            if (i + 1 < normalized.length()) {
+                putDelta(normalized.substring(i + 1) + '\u0000' + normalized, suggestion);
+            }
+        }
+    }
+
+    /**
+     * Ajoute une clé au delta et tient à jour son empreinte estimée (la suggestion, partagée
+     * par les clés d'un même nom, est comptée pour chacune)
+     */
+    private void putDelta(String key, PrefixIndex.Suggestion suggestion) {
+        PrefixIndex.Suggestion previous = delta.put(key, suggestion);
+        long bytes = PrefixIndex.stringBytes(suggestion.text());
+        if (previous == null) {
+            bytes += DELTA_ENTRY_BYTES + SUGGESTION_BYTES + PrefixIndex.stringBytes(key);
+        } else {
+            bytes -= PrefixIndex.stringBytes(previous.text());
+        }
+        deltaMemoryBytes.addAndGet(bytes);
+    }
+
+    private List<PrefixIndex.Suggestion> mergeDelta(String prefix, List<PrefixIndex.Suggestion> results, int size) {
+        List<PrefixIndex.Suggestion> merged = new ArrayList<>(results);
+        Set<String> seen = new HashSet<>();
+        results.forEach(s -> seen.add(PrefixIndex.normalize(s.text())));
+
+        for (PrefixIndex.Suggestion suggestion : delta.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            if (merged.size() >= size) {
+                break;
+            }
+            if (seen.add(PrefixIndex.normalize(suggestion.text()))) {
+                merged.add(suggestion);
+            }
+        }
+        return merged;
+    }
+}
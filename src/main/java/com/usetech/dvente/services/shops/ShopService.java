@@ -1,24 +1,41 @@
 package com.usetech.dvente.services.shops;
 
+import com.usetech.dvente.configs.CacheConfig;
+import com.usetech.dvente.entities.analytics.RollupGranularity;
+import com.usetech.dvente.entities.analytics.ViewTarget;
 import com.usetech.dvente.entities.users.*;
+import com.usetech.dvente.events.files.ImageUploadedEvent;
+import com.usetech.dvente.events.shops.ShopChangedEvent;
+import com.usetech.dvente.events.users.UserAuthorityChangedEvent;
 import com.usetech.dvente.repositories.UserRepository;
+import com.usetech.dvente.repositories.analytics.ViewRankRow;
 import com.usetech.dvente.repositories.shops.ShopGalleryRepository;
 import com.usetech.dvente.repositories.shops.ShopRepository;
 import com.usetech.dvente.repositories.shops.ShopUrlHistoryRepository;
 import com.usetech.dvente.requests.shops.CreateShopRequest;
 import com.usetech.dvente.requests.shops.UpdateShopRequest;
+import com.usetech.dvente.responses.shops.PaginatedShopResponse;
 import com.usetech.dvente.responses.shops.ShopResponse;
 import com.usetech.dvente.services.FileStorageService;
+import com.usetech.dvente.services.analytics.ViewRollupService;
+import com.usetech.dvente.services.files.StoredFile;
+import com.usetech.dvente.services.files.UploadPolicy;
 import com.usetech.dvente.services.notifs.EmailService;
+import com.usetech.dvente.utils.MultipartStreamReader;
 import com.usetech.dvente.utils.ShopUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +51,8 @@ public class ShopService {
     private final FileStorageService fileStorageService;
     private final EmailService emailService;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ViewRollupService viewRollupService;
 
     @Value("${app.url}")
     private String apiUrl;
@@ -61,18 +80,67 @@ public class ShopService {
         return ShopResponse.fromEntity(shop, galleries, lastUrlChange);
     }
 
+    /**
+     * Annuaire des boutiques actives et visibles, par page : la page, puis galeries et derniers
+     * changements d'URL de toutes ses boutiques en deux requêtes groupées. Les pages sont
+     * gardées en cache jusqu'à la prochaine modification d'une boutique (ShopDirectoryCacheListener).
+     */
+    @Cacheable(value = CacheConfig.SHOP_DIRECTORY, key = "#page + ':' + #pageSize")
     @Transactional(readOnly = true)
-    public List<ShopResponse> getAllShops() {
-        List<Shop> shops = shopRepository.findAll();
+    public PaginatedShopResponse getShopDirectory(int page, int pageSize) {
+        Page<Shop> shops = shopRepository.findDirectoryPage(ShopStatus.ACTIF, PageRequest.of(page - 1, pageSize));
+        List<ShopResponse> data = toDirectoryResponses(shops.getContent());
+        return PaginatedShopResponse.of(data, shops.getTotalElements(), page, pageSize,
+                shops.getTotalPages(), shops.hasNext());
+    }
+
+    /**
+     * Boutiques les plus vues sur les dernières heures (HOUR) ou derniers jours (DAY), lues dans
+     * les compteurs agrégés ; fiches de l'annuaire avec leur nombre de vues sur la période
+     */
+    @Transactional(readOnly = true)
+    public List<ShopResponse> getMostViewedShops(RollupGranularity granularity, int periods, int limit) {
+        List<ViewRankRow> ranking = viewRollupService.rank(ViewTarget.SHOP, granularity, periods, limit);
+        Map<UUID, Shop> shopsById = new HashMap<>();
+        shopRepository.findAllById(ranking.stream().map(ViewRankRow::targetId).toList())
+                .forEach(shop -> shopsById.put(shop.getId(), shop));
+
+        List<Shop> shops = new ArrayList<>();
+        for (ViewRankRow row : ranking) {
+            Shop shop = shopsById.get(row.targetId());
+            if (shop != null && shop.isVisible() && shop.getStatus() == ShopStatus.ACTIF) {
+                shops.add(shop);
+            }
+        }
+        List<ShopResponse> data = toDirectoryResponses(shops);
+        Map<UUID, Long> views = new HashMap<>();
+        ranking.forEach(row -> views.put(row.targetId(), row.views()));
+        data.forEach(response -> response.setViewCount(views.get(response.getId())));
+        return data;
+    }
+
+    /**
+     * Fiches de l'annuaire, galeries et derniers changements d'URL chargés en deux requêtes groupées
+     */
+    private List<ShopResponse> toDirectoryResponses(List<Shop> shops) {
+        List<UUID> shopIds = shops.stream().map(Shop::getId).toList();
+
+        Map<UUID, List<ShopGallery>> galleriesByShop = new HashMap<>();
+        Map<UUID, ShopUrlHistory> lastUrlChangeByShop = new HashMap<>();
+        if (!shopIds.isEmpty()) {
+            for (ShopGallery gallery : shopGalleryRepository.findByShopIds(shopIds)) {
+                galleriesByShop.computeIfAbsent(gallery.getShop().getId(), id -> new ArrayList<>()).add(gallery);
+            }
+            for (ShopUrlHistory history : shopUrlHistoryRepository.findLatestByShopIds(shopIds)) {
+                lastUrlChangeByShop.putIfAbsent(history.getShop().getId(), history);
+            }
+        }
 
         return shops.stream()
-                .map(shop -> {
-                    List<ShopGallery> galleries = shopGalleryRepository.findByShopOrderByCreatedAtDesc(shop);
-                    ShopUrlHistory lastUrlChange = shopUrlHistoryRepository
-                            .findFirstByShopOrderByChangedAtDesc(shop)
-                            .orElse(null);
-                    return ShopResponse.fromEntity(shop, galleries, lastUrlChange);
-                })
+                .map(shop -> ShopResponse.forDirectory(
+                        shop,
+                        galleriesByShop.getOrDefault(shop.getId(), List.of()),
+                        lastUrlChangeByShop.get(shop.getId())))
                 .toList();
     }
 
@@ -110,7 +178,7 @@ public class ShopService {
         return shopRepository.save(shop);
     }
 
-    @Async
+    @Transactional
     public void sendMerchantAccountCreateEmail(UUID merchantId) {
         Shop shop = shopRepository.findById(merchantId)
                 .orElseThrow(() -> new RuntimeException("Shop not found"));
@@ -203,6 +271,7 @@ public class ShopService {
                         .build();
 
                 shopGalleryRepository.save(gallery);
+                eventPublisher.publishEvent(new ImageUploadedEvent(imagePath, this));
             }
         }
         if (imagesToDelete != null && !imagesToDelete.isEmpty()) {
@@ -248,6 +317,56 @@ public class ShopService {
         return shopRepository.save(shop);
     }
 
+    /**
+     * Met à jour les documents IFU et/ou RCM lus en flux depuis les parties ifuDocument et
+     * rcmDocument d'une requête multipart. Si un document est refusé, ceux déjà écrits
+     * par cette requête sont supprimés et la boutique n'est pas modifiée.
+     */
+    public Shop updateShopDocuments(Shop shop, MultipartStreamReader reader) throws IOException {
+        String ifuPath = null;
+        String rcmPath = null;
+        try {
+            for (MultipartStreamReader.Part part; (part = reader.next()) != null; ) {
+                if (!part.isFile() || part.filename().isEmpty()) {
+                    continue;
+                }
+                if ("ifuDocument".equals(part.name()) && ifuPath == null) {
+                    ifuPath = saveDocument(part, "ifu").url();
+                } else if ("rcmDocument".equals(part.name()) && rcmPath == null) {
+                    rcmPath = saveDocument(part, "rcm").url();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            fileStorageService.deleteDocument(ifuPath);
+            fileStorageService.deleteDocument(rcmPath);
+            throw e;
+        }
+
+        if (ifuPath == null && rcmPath == null) {
+            throw new IllegalArgumentException("Aucun document fourni");
+        }
+        if (ifuPath != null) {
+            if (shop.getIfuDocument() != null && !shop.getIfuDocument().isEmpty()) {
+                fileStorageService.deleteDocument(shop.getIfuDocument());
+            }
+            shop.setIfuDocument(ifuPath);
+        }
+        if (rcmPath != null) {
+            if (shop.getRcmDocument() != null && !shop.getRcmDocument().isEmpty()) {
+                fileStorageService.deleteDocument(shop.getRcmDocument());
+            }
+            shop.setRcmDocument(rcmPath);
+        }
+
+        shop.setUpdatedAt(LocalDateTime.now());
+        return shopRepository.save(shop);
+    }
+
+    private StoredFile saveDocument(MultipartStreamReader.Part part, String documentType) {
+        return fileStorageService.saveStream(part.body(), part.filename(), part.contentType(),
+                UploadPolicy.DOCUMENT, "documents/" + documentType);
+    }
+
     @Transactional(readOnly = true)
     public Shop getShopByShopUrl(String shopUrl) {
         String cleanedUrl = ShopUtils.removeAtSymbol(shopUrl);
@@ -261,6 +380,9 @@ public class ShopService {
         User user = shop.getUser();
         userRepository.updateUserRole(UserRole.SHOP, user.getId());
         shopRepository.updateShopStatus(shop.getId(), ShopStatus.ACTIF);
+        eventPublisher.publishEvent(new ShopChangedEvent(shop.getId(), this));
+        // Après commit : les tokens en cours portent encore l'ancien rôle
+        eventPublisher.publishEvent(new UserAuthorityChangedEvent(user.getId(), this));
 
         emailService.sendShopValidatedEmail(
                 user.getEmail(),
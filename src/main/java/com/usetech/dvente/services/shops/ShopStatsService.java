@@ -0,0 +1,109 @@
+package com.usetech.dvente.services.shops;
+
+import com.usetech.dvente.entities.analytics.ViewRollup;
+import com.usetech.dvente.entities.analytics.ViewTarget;
+import com.usetech.dvente.entities.users.Shop;
+import com.usetech.dvente.repositories.analytics.ViewRankRow;
+import com.usetech.dvente.repositories.analytics.ViewRollupRepository;
+import com.usetech.dvente.repositories.products.ProductRepository;
+import com.usetech.dvente.responses.shops.ShopStatsResponse;
+import com.usetech.dvente.services.analytics.HyperLogLog;
+import com.usetech.dvente.services.analytics.VisitorSketchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Statistiques marchand : vues lues dans les compteurs journaliers, visiteurs distincts
+ * par fusion des estimateurs HyperLogLog de la période (voir VisitorSketchService)
+ */
+@Service
+@RequiredArgsConstructor
+public class ShopStatsService {
+
+    public static final int MAX_PERIOD_DAYS = 366;
+    private static final int TOP_PRODUCTS = 10;
+
+    private final ViewRollupRepository viewRollupRepository;
+    private final VisitorSketchService visitorSketchService;
+    private final ProductRepository productRepository;
+
+    /**
+     * @param from premier jour inclus
+     * @param to   dernier jour inclus
+     * @throws IllegalArgumentException si la période est inversée ou dépasse MAX_PERIOD_DAYS jours
+     */
+    @Transactional(readOnly = true)
+    public ShopStatsResponse getStats(Shop shop, LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("La date de début doit précéder la date de fin");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_PERIOD_DAYS) {
+            throw new IllegalArgumentException("Période limitée à " + MAX_PERIOD_DAYS + " jours");
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime until = to.plusDays(1).atStartOfDay();
+
+        Map<LocalDate, Long> viewsByDay = new HashMap<>();
+        for (ViewRollup rollup : viewRollupRepository.findDaily(ViewTarget.SHOP, shop.getId(), start, until)) {
+            viewsByDay.put(rollup.getBucketStart().toLocalDate(), rollup.getViews());
+        }
+        Map<LocalDate, HyperLogLog> visitorsByDay = visitorSketchService.daily(ViewTarget.SHOP, shop.getId(), from, to);
+
+        HyperLogLog period = new HyperLogLog();
+        visitorsByDay.values().forEach(period::merge);
+        List<ShopStatsResponse.DailyStats> daily = new ArrayList<>();
+        long views = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            long dayViews = viewsByDay.getOrDefault(day, 0L);
+            HyperLogLog dayVisitors = visitorsByDay.get(day);
+            views += dayViews;
+            daily.add(ShopStatsResponse.DailyStats.builder()
+                    .date(day)
+                    .views(dayViews)
+                    .uniqueVisitors(dayVisitors != null ? dayVisitors.estimate() : 0L)
+                    .build());
+        }
+
+        return ShopStatsResponse.builder()
+                .from(from)
+                .to(to)
+                .views(views)
+                .uniqueVisitors(period.estimate())
+                .uniqueVisitorsError(HyperLogLog.RELATIVE_STANDARD_ERROR)
+                .daily(daily)
+                .topProducts(topProducts(shop, from, to, start, until))
+                .build();
+    }
+
+    private List<ShopStatsResponse.ProductStats> topProducts(Shop shop, LocalDate from, LocalDate to,
+                                                             LocalDateTime start, LocalDateTime until) {
+        List<ViewRankRow> ranking = viewRollupRepository.rankShopProducts(shop, start, until, PageRequest.of(0, TOP_PRODUCTS));
+        if (ranking.isEmpty()) {
+            return List.of();
+        }
+        List<UUID> ids = ranking.stream().map(ViewRankRow::targetId).toList();
+        Map<UUID, String> names = new HashMap<>();
+        productRepository.findAllById(ids).forEach(product -> names.put(product.getId(), product.getName()));
+        Map<UUID, HyperLogLog> visitors = visitorSketchService.merged(ViewTarget.PRODUCT, ids, from, to);
+
+        return ranking.stream()
+                .map(row -> ShopStatsResponse.ProductStats.builder()
+                        .id(row.targetId())
+                        .name(names.get(row.targetId()))
+                        .views(row.views())
+                        .uniqueVisitors(visitors.containsKey(row.targetId()) ? visitors.get(row.targetId()).estimate() : 0L)
+                        .build())
+                .toList();
+    }
+}
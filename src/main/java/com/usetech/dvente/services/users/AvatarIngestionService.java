@@ -0,0 +1,247 @@
+package com.usetech.dvente.services.users;
+
+import com.usetech.dvente.configs.AsyncConfig;
+import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.events.users.OAuthAvatarEvent;
+import com.usetech.dvente.repositories.UserRepository;
+import com.usetech.dvente.services.FileStorageService;
+import com.usetech.dvente.services.files.StoredFile;
+import com.usetech.dvente.services.files.UploadPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Copie locale des photos de profil OAuth, hors de la connexion :
+ * <ul>
+ *     <li>après commit de la connexion (OAuthAvatarEvent), sur l'exécuteur avatar ; en attendant,
+ *     l'utilisateur sans copie locale affiche directement l'URL du fournisseur ;</li>
+ *     <li>un seul client HTTP partagé (connexions réutilisées), délais de connexion et de
+ *     réponse bornés (app.avatar.connect-timeout, app.avatar.read-timeout) ;</li>
+ *     <li>une URL déjà copiée n'est redemandée qu'avec If-None-Match / If-Modified-Since, et
+ *     seulement si le fournisseur avait donné ces validateurs ; un 304 ne réécrit rien ;</li>
+ *     <li>le contenu passe par la même validation que les images produit (taille, signature).</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class AvatarIngestionService {
+
+    private final UserRepository userRepository;
+    private final FileStorageService fileStorageService;
+    private final TaskExecutor avatarExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final HttpClient httpClient;
+    private final Duration readTimeout;
+
+    // Utilisateurs dont la copie est en file ou en cours : une rafale de connexions n'en lance qu'une
+    private final Set<UUID> inFlight = ConcurrentHashMap.newKeySet();
+
+    public AvatarIngestionService(UserRepository userRepository,
+                                  FileStorageService fileStorageService,
+                                  @Qualifier(AsyncConfig.AVATAR_EXECUTOR) TaskExecutor avatarExecutor,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.avatar.connect-timeout:5s}") Duration connectTimeout,
+                                  @Value("${app.avatar.read-timeout:10s}") Duration readTimeout) {
+        this.userRepository = userRepository;
+        this.fileStorageService = fileStorageService;
+        this.avatarExecutor = avatarExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTimeout = readTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOAuthAvatar(OAuthAvatarEvent event) {
+        UUID userId = event.getUserId();
+        if (!inFlight.add(userId)) {
+            return;
+        }
+        try {
+            avatarExecutor.execute(() -> {
+                try {
+                    ingest(userId, event.getPictureUrl());
+                } finally {
+                    inFlight.remove(userId);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            inFlight.remove(userId);
+            log.warn("Exécuteur avatar saturé : photo de {} reportée à sa prochaine connexion", userId);
+        }
+    }
+
+    void ingest(UUID userId, String pictureUrl) {
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) {
+            return;
+        }
+        boolean alreadyCopied = pictureUrl.equals(user.getAvatarSource()) && isLocal(user.getAvatar());
+        if (alreadyCopied && user.getAvatarEtag() == null && user.getAvatarLastModified() == null) {
+            return;
+        }
+
+        HttpRequest.Builder request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(pictureUrl))
+                    .timeout(readTimeout)
+                    .header("Accept", "image/*")
+                    .GET();
+        } catch (IllegalArgumentException e) {
+            log.warn("URL de photo invalide pour {} : {}", userId, pictureUrl);
+            return;
+        }
+        if (alreadyCopied && user.getAvatarEtag() != null) {
+            request.header("If-None-Match", user.getAvatarEtag());
+        }
+        if (alreadyCopied && user.getAvatarLastModified() != null) {
+            request.header("If-Modified-Since", user.getAvatarLastModified());
+        }
+
+        HttpResponse<byte[]> response;
+        try {
+            response = fetch(request.build());
+        } catch (Exception e) {
+            log.warn("Téléchargement de la photo de {} impossible : {}", userId, e.getMessage());
+            return;
+        }
+        if (response.statusCode() == 304) {
+            return;
+        }
+        if (response.statusCode() != 200 || response.body() == null || response.body().length == 0) {
+            log.warn("Photo de {} non copiée : réponse {} de {}", userId, response.statusCode(), response.uri().getHost());
+            return;
+        }
+
+        String contentType = response.headers().firstValue("Content-Type")
+                .map(value -> value.split(";")[0].trim().toLowerCase(Locale.ROOT))
+                .orElse("image/jpeg");
+        StoredFile stored;
+        try {
+            stored = fileStorageService.saveStream(new ByteArrayInputStream(response.body()), null, contentType,
+                    UploadPolicy.PRODUCT_IMAGE, "avatars");
+        } catch (RuntimeException e) {
+            log.warn("Photo de {} non enregistrée : {}", userId, e.getMessage());
+            return;
+        }
+
+        String previous = transactionTemplate.execute(status -> {
+            User current = userRepository.findById(userId).orElse(null);
+            if (current == null) {
+                fileStorageService.deleteAvatar(stored.url());
+                return null;
+            }
+            String replaced = current.getAvatar();
+            current.setAvatar(stored.url());
+            current.setAvatarSource(pictureUrl);
+            current.setAvatarEtag(response.headers().firstValue("ETag").orElse(null));
+            current.setAvatarLastModified(response.headers().firstValue("Last-Modified").orElse(null));
+            userRepository.save(current);
+            return replaced;
+        });
+        if (isLocal(previous) && !previous.equals(stored.url())) {
+            fileStorageService.deleteAvatar(previous);
+        }
+    }
+
+    /**
+     * Le délai de la requête ne couvre que l'arrivée des en-têtes : la réponse complète est
+     * attendue au plus read-timeout, et la lecture s'arrête dès que le corps dépasse la taille admise
+     */
+    private HttpResponse<byte[]> fetch(HttpRequest request) throws Exception {
+        long maxBytes = UploadPolicy.PRODUCT_IMAGE.getMaxBytes();
+        CompletableFuture<HttpResponse<byte[]>> future = httpClient.sendAsync(request, info -> new LimitedBody(maxBytes));
+        try {
+            return future.get(readTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new TimeoutException("pas de réponse complète en " + readTimeout.toSeconds() + " s");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private static boolean isLocal(String avatar) {
+        return avatar != null && avatar.startsWith("/uploads/");
+    }
+
+    /**
+     * Corps lu en mémoire jusqu'à maxBytes ; au-delà la connexion est abandonnée
+     */
+    private static final class LimitedBody implements HttpResponse.BodySubscriber<byte[]> {
+
+        private final long maxBytes;
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        LimitedBody(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public CompletionStage<byte[]> getBody() {
+            return body;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            for (ByteBuffer buffer : buffers) {
+                if (content.size() + buffer.remaining() > maxBytes) {
+                    subscription.cancel();
+                    body.completeExceptionally(new IOException("photo de plus de " + maxBytes + " octets"));
+                    return;
+                }
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                content.writeBytes(bytes);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(content.toByteArray());
+        }
+    }
+}
@@ -27,7 +27,11 @@ public class PasswordService {
 
     private final Map<String, String> resetCodes = new HashMap<>();
 
-    public void changePassword(User user, ChangePasswordRequest request) {
+    public void changePassword(User principal, ChangePasswordRequest request) {
+        // Le principal peut être reconstruit depuis le token (sans mot de passe) : on relit l'utilisateur
+        User user = userRepository.findById(principal.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Utilisateur introuvable"));
+
         if (!passwordEncoder.matches(request.getOldPassword(), user.getPassword())) {
             throw new IllegalArgumentException("Ancien mot de passe incorrect");
         }
@@ -112,4 +112,13 @@ public class UserService {
         return userRepository.findByPhone(phone).orElseThrow(() -> new RuntimeException("User not found"));
     }
 
+    /**
+     * Le principal JWT ne porte que les claims (id, email, nom, rôle) : l'état complet renvoyé
+     * au client est relu en base
+     */
+    public User reload(User principal) {
+        return userRepository.findById(principal.getId())
+                .orElseThrow(() -> new RuntimeException("Utilisateur non trouvé"));
+    }
+
 }
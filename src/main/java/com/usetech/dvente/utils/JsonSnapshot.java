@@ -0,0 +1,43 @@
+package com.usetech.dvente.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Réponse JSON sérialisée une seule fois, avec son ETag fort.
+ * L'ETag est dérivé du contenu (SHA-256) : il ne change que si les données changent
+ * et reste identique d'une instance à l'autre derrière un CDN.
+ */
+public record JsonSnapshot(byte[] body, String etag) {
+
+    public static JsonSnapshot of(ObjectMapper objectMapper, Object value) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(value);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+            String etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(hash).substring(0, 22) + "\"";
+            return new JsonSnapshot(body, etag);
+
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Impossible de sérialiser l'instantané JSON", e);
+        }
+    }
+
+    /**
+     * Réponse JSON avec ETag et Cache-Control. Spring MVC compare lui-même l'ETag
+     * à If-None-Match et renvoie 304 sans corps quand le client est à jour.
+     */
+    public ResponseEntity<byte[]> toResponse(CacheControl cacheControl) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -0,0 +1,271 @@
+package com.usetech.dvente.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lecture en flux d'un corps multipart/form-data, partie par partie, sans mise en mémoire
+ * ni fichier temporaire : le contenu d'une partie est lu directement depuis la requête.
+ * <pre>
+ * MultipartStreamReader reader = MultipartStreamReader.of(request);
+ * for (MultipartStreamReader.Part part; (part = reader.next()) != null; ) {
+ *     if ("image".equals(part.name())) { ... part.body() ... }
+ * }
+ * </pre>
+ * Le contenu non lu d'une partie est ignoré à l'appel suivant de next().
+ */
+public class MultipartStreamReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_SIZE = 8 * 1024;
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+    private boolean finished;
+    private PartInputStream current;
+
+    public MultipartStreamReader(InputStream in, String boundary) {
+        if (boundary == null || boundary.isEmpty()) {
+            throw new IllegalArgumentException("Requête multipart sans boundary");
+        }
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        // Le premier délimiteur n'est pas précédé d'un CRLF : on l'ajoute pour le traiter comme les autres
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        limit = 2;
+    }
+
+    public static MultipartStreamReader of(HttpServletRequest request) throws IOException {
+        return new MultipartStreamReader(request.getInputStream(), boundary(request.getContentType()));
+    }
+
+    /**
+     * Paramètre boundary d'un Content-Type multipart, null si absent
+     */
+    public static String boundary(String contentType) {
+        if (contentType == null || !contentType.toLowerCase(Locale.ROOT).startsWith("multipart/")) {
+            return null;
+        }
+        return parameters(contentType).get("boundary");
+    }
+
+    /**
+     * Partie suivante, ou null à la fin du corps
+     */
+    public Part next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        if (current == null) {
+            // Préambule éventuel avant le premier délimiteur
+            new PartInputStream().skipRemaining();
+        } else {
+            current.skipRemaining();
+        }
+        if (!ensure(2)) {
+            throw new EOFException("Corps multipart tronqué");
+        }
+        if (buffer[pos] == '-' && buffer[pos + 1] == '-') {
+            finished = true;
+            return null;
+        }
+        String rest = readLine();
+        if (!rest.isBlank()) {
+            throw new IOException("Délimiteur multipart mal formé");
+        }
+
+        Map<String, String> headers = new LinkedHashMap<>();
+        int headerBytes = 0;
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            headerBytes += line.length();
+            if (headerBytes > MAX_HEADER_SIZE) {
+                throw new IOException("En-têtes de partie trop longs");
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+
+        Map<String, String> disposition = parameters(headers.getOrDefault("content-disposition", ""));
+        current = new PartInputStream();
+        return new Part(disposition.get("name"), disposition.get("filename"), headers.get("content-type"), current);
+    }
+
+    /**
+     * Partie du corps multipart ; body() n'est lisible que jusqu'à l'appel suivant de next()
+     */
+    public record Part(String name, String filename, String contentType, InputStream body) {
+
+        public boolean isFile() {
+            return filename != null;
+        }
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        while (true) {
+            if (!ensure(1)) {
+                throw new EOFException("Corps multipart tronqué");
+            }
+            byte b = buffer[pos++];
+            if (b == '\r' && ensure(1) && buffer[pos] == '\n') {
+                pos++;
+                return line.toString(StandardCharsets.UTF_8);
+            }
+            line.write(b);
+            if (line.size() > MAX_HEADER_SIZE) {
+                throw new IOException("En-têtes de partie trop longs");
+            }
+        }
+    }
+
+    /**
+     * Garantit au moins n octets non lus dans le tampon
+     */
+    private boolean ensure(int n) throws IOException {
+        while (limit - pos < n) {
+            if (!fill()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buffer, pos, buffer, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private int indexOfDelimiter() {
+        outer:
+        for (int i = pos; i <= limit - delimiter.length; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Paramètres d'un en-tête (ex. form-data; name="image"; filename="a.png")
+     */
+    private static Map<String, String> parameters(String header) {
+        Map<String, String> parameters = new LinkedHashMap<>();
+        int i = header.indexOf(';');
+        while (i >= 0 && i < header.length()) {
+            int eq = header.indexOf('=', i);
+            if (eq < 0) {
+                break;
+            }
+            String key = header.substring(i + 1, eq).trim().toLowerCase(Locale.ROOT);
+            int start = eq + 1;
+            String value;
+            if (start < header.length() && header.charAt(start) == '"') {
+                StringBuilder quoted = new StringBuilder();
+                int j = start + 1;
+                while (j < header.length() && header.charAt(j) != '"') {
+                    char c = header.charAt(j);
+                    if (c == '\\' && j + 1 < header.length()) {
+                        c = header.charAt(++j);
+                    }
+                    quoted.append(c);
+                    j++;
+                }
+                value = quoted.toString();
+                i = header.indexOf(';', j);
+            } else {
+                int end = header.indexOf(';', start);
+                value = header.substring(start, end < 0 ? header.length() : end).trim();
+                i = end;
+            }
+            parameters.put(key, value);
+        }
+        return parameters;
+    }
+
+    /**
+     * Contenu d'une partie : s'arrête au délimiteur suivant, en gardant en réserve
+     * assez d'octets pour ne pas couper un délimiteur à cheval sur deux lectures
+     */
+    private class PartInputStream extends InputStream {
+
+        private boolean done;
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int read = read(one, 0, 1);
+            return read < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int found = indexOfDelimiter();
+                int available;
+                if (found == pos) {
+                    pos += delimiter.length;
+                    done = true;
+                    return -1;
+                } else if (found > pos) {
+                    available = found - pos;
+                } else {
+                    available = limit - pos - (delimiter.length - 1);
+                }
+                if (available > 0) {
+                    int n = Math.min(len, available);
+                    System.arraycopy(buffer, pos, b, off, n);
+                    pos += n;
+                    return n;
+                }
+                if (!fill()) {
+                    throw new EOFException("Corps multipart tronqué");
+                }
+            }
+        }
+
+        void skipRemaining() throws IOException {
+            byte[] skip = new byte[8192];
+            while (read(skip, 0, skip.length) >= 0) {
+                // contenu ignoré
+            }
+        }
+
+        @Override
+        public void close() {
+            // Le flux de la requête reste ouvert pour les parties suivantes
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.usetech.dvente.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.regex.Pattern;
+
+/**
+ * Index de préfixes immuable pour l'autocomplétion.
+ * Les clés normalisées (sans accents, en minuscules) sont triées dans un tableau :
+ * un préfixe correspond à un intervalle trouvé par recherche dichotomique, et un
+ * arbre de segments (argmax des poids) extrait les k meilleures suggestions de cet
+ * intervalle en O(k log n), quelle que soit sa taille.
+ * Chaque suggestion est aussi indexée à partir de chacun de ses mots :
+ * "Iphone 13 Pro" répond à "iph", "13" et "pro".
+ */
+public final class PrefixIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final String[] keys;
+    private final int[] suggestionOfKey;
+    private final String[] suggestions;
+    private final String[] types;
+    private final int[] weights;
+    private final int[] tree;
+    private final int leaves;
+    private final long memoryBytes;
+
+    private PrefixIndex(String[] keys, int[] suggestionOfKey, String[] suggestions, String[] types, int[] weights) {
+        this.keys = keys;
+        this.suggestionOfKey = suggestionOfKey;
+        this.suggestions = suggestions;
+        this.types = types;
+        this.weights = weights;
+
+        int size = 1;
+        while (size < Math.max(keys.length, 1)) {
+            size <<= 1;
+        }
+        this.leaves = size;
+        this.tree = new int[2 * size];
+        Arrays.fill(tree, -1);
+        for (int i = 0; i < keys.length; i++) {
+            tree[size + i] = i;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            tree[node] = heavier(tree[2 * node], tree[2 * node + 1]);
+        }
+        this.memoryBytes = computeMemoryBytes();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static PrefixIndex empty() {
+        return new Builder().build();
+    }
+
+    /**
+     * Normalise un texte pour la recherche : "  Écouteurs  Bluetooth" → "ecouteurs bluetooth"
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String plain = DIACRITICS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(plain.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Retourne au plus {@code limit} suggestions commençant par le préfixe, par poids décroissant
+     */
+    public List<Suggestion> search(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0 || keys.length == 0) {
+            return List.of();
+        }
+
+        int from = lowerBound(normalized);
+        int to = lowerBound(normalized + Character.MAX_VALUE) - 1;
+        if (from > to) {
+            return List.of();
+        }
+
+        List<Suggestion> results = new ArrayList<>(limit);
+        BitSet seen = new BitSet();
+        PriorityQueue<int[]> candidates = new PriorityQueue<>((a, b) -> Integer.compare(weights[b[2]], weights[a[2]]));
+        candidates.add(new int[]{from, to, argmax(from, to)});
+
+        while (!candidates.isEmpty() && results.size() < limit) {
+            int[] range = candidates.poll();
+            int best = range[2];
+            int suggestion = suggestionOfKey[best];
+            if (!seen.get(suggestion)) {
+                seen.set(suggestion);
+                results.add(new Suggestion(suggestions[suggestion], types[suggestion], weights[best]));
+            }
+            if (range[0] < best) {
+                candidates.add(new int[]{range[0], best - 1, argmax(range[0], best - 1)});
+            }
+            if (best < range[1]) {
+                candidates.add(new int[]{best + 1, range[1], argmax(best + 1, range[1])});
+            }
+        }
+        return results;
+    }
+
+    public int suggestionCount() {
+        return suggestions.length;
+    }
+
+    public int keyCount() {
+        return keys.length;
+    }
+
+    /**
+     * Estimation de l'empreinte mémoire (en-têtes d'objets JVM 64 bits, chaînes compactes),
+     * calculée une fois à la construction de l'index immuable
+     */
+    public long estimatedMemoryBytes() {
+        return memoryBytes;
+    }
+
+    /**
+     * Empreinte estimée d'une chaîne compacte : en-tête String (24) + tableau byte[] (16 + longueur, aligné sur 8)
+     */
+    public static long stringBytes(String value) {
+        return 24 + ((16 + value.length() + 7) / 8) * 8L;
+    }
+
+    private long computeMemoryBytes() {
+        long bytes = 0;
+        for (String key : keys) {
+            bytes += stringBytes(key);
+        }
+        for (String suggestion : suggestions) {
+            bytes += stringBytes(suggestion);
+        }
+        bytes += arrayBytes(keys.length, 4) + arrayBytes(suggestions.length, 4) + arrayBytes(types.length, 4);
+        bytes += arrayBytes(suggestionOfKey.length, 4) + arrayBytes(weights.length, 4) + arrayBytes(tree.length, 4);
+        return bytes;
+    }
+
+    private static long arrayBytes(int length, int elementSize) {
+        return ((16 + (long) length * elementSize + 7) / 8) * 8;
+    }
+
+    private int lowerBound(String target) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(target) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int argmax(int from, int to) {
+        int best = -1;
+        int left = from + leaves;
+        int right = to + leaves + 1;
+        while (left < right) {
+            if ((left & 1) == 1) {
+                best = heavier(best, tree[left++]);
+            }
+            if ((right & 1) == 1) {
+                best = heavier(best, tree[--right]);
+            }
+            left >>= 1;
+            right >>= 1;
+        }
+        return best;
+    }
+
+    private int heavier(int a, int b) {
+        if (a < 0) {
+            return b;
+        }
+        if (b < 0) {
+            return a;
+        }
+        return weights[b] > weights[a] ? b : a;
+    }
+
+    public record Suggestion(String text, String type, int weight) {
+    }
+
+    /**
+     * Accumule les suggestions ; un même texte normalisé ajouté plusieurs fois
+     * cumule son poids (ex. 40 produits "Iphone 13" → poids 40)
+     */
+    public static final class Builder {
+
+        private final Map<String, int[]> weightByText = new HashMap<>();
+        private final Map<String, String> displayByText = new HashMap<>();
+        private final Map<String, String> typeByText = new HashMap<>();
+
+        public Builder add(String text, String type, int weight) {
+            String normalized = normalize(text);
+            if (normalized.isEmpty()) {
+                return this;
+            }
+            weightByText.computeIfAbsent(normalized, k -> new int[1])[0] += weight;
+            displayByText.putIfAbsent(normalized, text.trim());
+            typeByText.putIfAbsent(normalized, type);
+            return this;
+        }
+
+        public PrefixIndex build() {
+            int count = weightByText.size();
+            String[] suggestions = new String[count];
+            String[] types = new String[count];
+            int[] suggestionWeights = new int[count];
+            List<String> keyList = new ArrayList<>(count * 2);
+            List<Integer> owners = new ArrayList<>(count * 2);
+
+            int ordinal = 0;
+            for (Map.Entry<String, int[]> entry : weightByText.entrySet()) {
+                String normalized = entry.getKey();
+                suggestions[ordinal] = displayByText.get(normalized);
+                types[ordinal] = typeByText.get(normalized).intern();
+                suggestionWeights[ordinal] = entry.getValue()[0];
+
+                keyList.add(normalized);
+                owners.add(ordinal);
+                for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+                    if (i + 1 < normalized.length()) {
+                        keyList.add(normalized.substring(i + 1));
+                        owners.add(ordinal);
+                    }
+                }
+                ordinal++;
+            }
+
+            Integer[] order = new Integer[keyList.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> keyList.get(a).compareTo(keyList.get(b)));
+
+            String[] keys = new String[order.length];
+            int[] suggestionOfKey = new int[order.length];
+            int[] weights = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyList.get(order[i]);
+                suggestionOfKey[i] = owners.get(order[i]);
+                weights[i] = suggestionWeights[suggestionOfKey[i]];
+            }
+
+            return new PrefixIndex(keys, suggestionOfKey, suggestions, types, weights);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.usetech.dvente.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limiteur de débit par espacement : chaque permis réserve un créneau de 1/permitsPerSecond
+ * seconde et l'appelant attend le début de son créneau. Sans verrou, partageable entre threads.
+ * Exemple : 10 permis/s, acquire(25) puis acquire(25) → le second appel attend 2,5 s.
+ * Un débit ≤ 0 désactive la limite.
+ */
+public class RateLimiter {
+
+    private final long intervalNanos;
+    private final AtomicLong nextFree = new AtomicLong(System.nanoTime());
+
+    public RateLimiter(double permitsPerSecond) {
+        this.intervalNanos = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+    }
+
+    /**
+     * Attend que les permis soient disponibles
+     * @return temps d'attente en nanosecondes
+     */
+    public long acquire(int permits) throws InterruptedException {
+        if (intervalNanos == 0 || permits <= 0) {
+            return 0;
+        }
+        long cost = intervalNanos * permits;
+        long now = System.nanoTime();
+        long slot = nextFree.getAndAccumulate(cost, (next, c) -> Math.max(next, now) + c);
+        long wait = Math.max(slot, now) - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        return wait;
+    }
+}
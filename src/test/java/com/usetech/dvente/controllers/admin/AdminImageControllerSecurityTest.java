@@ -0,0 +1,59 @@
+package com.usetech.dvente.controllers.admin;
+
+import com.usetech.dvente.services.files.ImageVariantService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class AdminImageControllerSecurityTest {
+
+    private static final String BACKFILL_URL = "/admin/maintenance/images/backfill";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ImageVariantService imageVariantService;
+
+    @Test
+    void anonymousBackfillIsRedirectedToLogin() throws Exception {
+        mockMvc.perform(post(BACKFILL_URL))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrlPattern("**/admin/login"));
+
+        verify(imageVariantService, never()).startBackfill();
+    }
+
+    @Test
+    @WithMockUser(roles = "SHOP")
+    void nonAdminBackfillIsForbidden() throws Exception {
+        mockMvc.perform(post(BACKFILL_URL))
+                .andExpect(status().isForbidden());
+
+        verify(imageVariantService, never()).startBackfill();
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void adminBackfillIsAccepted() throws Exception {
+        when(imageVariantService.startBackfill()).thenReturn(true);
+
+        mockMvc.perform(post(BACKFILL_URL))
+                .andExpect(status().isAccepted());
+    }
+}
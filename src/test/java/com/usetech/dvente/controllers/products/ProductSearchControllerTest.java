@@ -0,0 +1,219 @@
+package com.usetech.dvente.controllers.products;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.usetech.dvente.entities.products.Category;
+import com.usetech.dvente.entities.products.Keyword;
+import com.usetech.dvente.entities.products.Product;
+import com.usetech.dvente.entities.users.Shop;
+import com.usetech.dvente.entities.users.ShopStatus;
+import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.repositories.UserRepository;
+import com.usetech.dvente.repositories.products.CategoryRepository;
+import com.usetech.dvente.repositories.products.KeywordRepository;
+import com.usetech.dvente.repositories.products.ProductRepository;
+import com.usetech.dvente.repositories.shops.ShopRepository;
+import com.usetech.dvente.responses.products.ProductResponse;
+import com.usetech.dvente.responses.products.ProductSearchResponse;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Recherche plein texte sur la base de test : search_vector et triggers posés par
+ * ProductSearchSchemaInitializer, données créées dans la transaction du test (annulée à la fin).
+ * Chaque test cherche un mot aléatoire pour ne trouver que ses propres produits.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+@ActiveProfiles("test")
+public class ProductSearchControllerTest {
+
+    private static final String SEARCH_URL = "/api/products/search";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShopRepository shopRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private KeywordRepository keywordRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private String term;
+    private Shop shopA;
+    private Shop shopB;
+    private Category lighting;
+    private Category furniture;
+
+    @BeforeEach
+    void setUp() {
+        term = randomWord();
+        shopA = createShop("Search Shop A");
+        shopB = createShop("Search Shop B");
+        lighting = createCategory("Luminaires");
+        furniture = createCategory("Mobilier");
+    }
+
+    @Test
+    void nameMatchesRankAboveKeywordAndDescriptionMatches() throws Exception {
+        Product inDescription = createProduct("Chaise", "Assise " + term, 2000, furniture, shopB);
+        Product inKeyword = createProduct("Lampadaire", "Pied en métal", 3000, lighting, shopA);
+        inKeyword.getKeywords().add(keywordRepository.save(Keyword.builder().name(term + " mot").build()));
+        Product inName = createProduct("Lampe " + term, "Abat-jour en lin", 1000, lighting, shopA);
+        entityManager.flush();
+
+        ProductSearchResponse response = search("q", term);
+
+        assertThat(response.getTotal()).isEqualTo(3);
+        assertThat(response.getData()).extracting(ProductResponse::getId)
+                .containsExactly(inName.getId(), inKeyword.getId(), inDescription.getId());
+        assertThat(response.getFacets()).isNull();
+    }
+
+    @Test
+    void facetsCountCategoriesShopsAndPriceRange() throws Exception {
+        createProduct("Lampe " + term, null, 1000, lighting, shopA);
+        createProduct("Applique " + term, null, 3000, lighting, shopA);
+        createProduct("Table " + term, null, 2000, furniture, shopB);
+        entityManager.flush();
+
+        ProductSearchResponse.Facets facets = search("q", term, "facets", "true").getFacets();
+
+        assertThat(facets.getCategories()).extracting(ProductSearchResponse.FacetCount::getId,
+                        ProductSearchResponse.FacetCount::getName, ProductSearchResponse.FacetCount::getCount)
+                .containsExactly(
+                        tuple(lighting.getId(), lighting.getName(), 2L),
+                        tuple(furniture.getId(), furniture.getName(), 1L));
+        assertThat(facets.getShops()).extracting(ProductSearchResponse.FacetCount::getId,
+                        ProductSearchResponse.FacetCount::getCount)
+                .containsExactly(
+                        tuple(shopA.getId(), 2L),
+                        tuple(shopB.getId(), 1L));
+        assertThat(facets.getMinPrice()).isEqualByComparingTo("1000");
+        assertThat(facets.getMaxPrice()).isEqualByComparingTo("3000");
+    }
+
+    @Test
+    void filtersApplyToResultsAndFacets() throws Exception {
+        createProduct("Lampe " + term, null, 1000, lighting, shopA);
+        Product expensive = createProduct("Applique " + term, null, 3000, lighting, shopA);
+        createProduct("Table " + term, null, 2000, furniture, shopB);
+        entityManager.flush();
+
+        ProductSearchResponse response = search("q", term, "cat", lighting.getId().toString(),
+                "min_price", "1500", "facets", "true");
+
+        assertThat(response.getData()).extracting(ProductResponse::getId).containsExactly(expensive.getId());
+        assertThat(response.getFacets().getShops()).extracting(ProductSearchResponse.FacetCount::getId)
+                .containsExactly(shopA.getId());
+        assertThat(response.getFacets().getMinPrice()).isEqualByComparingTo("3000");
+    }
+
+    @Test
+    void accentsAreIgnoredInQueryAndDocument() throws Exception {
+        Product teapot = createProduct("Théière émaillée", "Modèle " + term, 1500, furniture, shopA);
+        entityManager.flush();
+
+        assertThat(search("q", "theiere emaillee " + term).getData()).extracting(ProductResponse::getId)
+                .containsExactly(teapot.getId());
+        assertThat(search("q", "THÉIÈRE " + term).getData()).extracting(ProductResponse::getId)
+                .containsExactly(teapot.getId());
+    }
+
+    @Test
+    void blankQueryIsRejected() throws Exception {
+        mockMvc.perform(get(SEARCH_URL).param("q", " "))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * @param params paires nom, valeur des paramètres de la requête
+     */
+    private ProductSearchResponse search(String... params) throws Exception {
+        MockHttpServletRequestBuilder request = get(SEARCH_URL);
+        for (int i = 0; i < params.length; i += 2) {
+            request.param(params[i], params[i + 1]);
+        }
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(body, ProductSearchResponse.class);
+    }
+
+    private Shop createShop(String name) {
+        String slug = name.toLowerCase().replace(' ', '-') + "-" + UUID.randomUUID();
+        User user = new User();
+        user.setName(name + " User");
+        user.setEmail(slug + "@example.com");
+        user = userRepository.save(user);
+
+        return shopRepository.save(Shop.builder()
+                .shopName(name)
+                .shopUrl(slug)
+                .status(ShopStatus.ACTIF)
+                .user(user)
+                .build());
+    }
+
+    private Category createCategory(String name) {
+        return categoryRepository.save(Category.builder()
+                .name(name + " " + UUID.randomUUID())
+                .build());
+    }
+
+    private Product createProduct(String name, String description, int price, Category category, Shop shop) {
+        return productRepository.save(Product.builder()
+                .name(name)
+                .description(description)
+                .price(BigDecimal.valueOf(price))
+                .isActive(true)
+                .stockQuantity(5)
+                .category(category)
+                .shopAuthor(shop)
+                .build());
+    }
+
+    /**
+     * Mot de lettres seules, absent du catalogue existant (les chiffres changeraient l'analyse)
+     */
+    private static String randomWord() {
+        Random random = new Random();
+        StringBuilder word = new StringBuilder("zq");
+        for (int i = 0; i < 10; i++) {
+            word.append((char) ('a' + random.nextInt(26)));
+        }
+        return word.toString();
+    }
+}
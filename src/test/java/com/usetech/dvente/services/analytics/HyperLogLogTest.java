@@ -0,0 +1,65 @@
+package com.usetech.dvente.services.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HyperLogLogTest {
+
+    @Test
+    void smallCardinalitiesStayWithinLinearCountingError() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 1000; i++) {
+            sketch.add("ip:10.0." + (i / 256) + "." + (i % 256));
+            sketch.add("ip:10.0." + (i / 256) + "." + (i % 256));
+        }
+
+        assertThat(sketch.estimate()).isBetween(980L, 1020L);
+    }
+
+    @Test
+    void largeCardinalitiesStayWithinErrorBound() {
+        HyperLogLog sketch = new HyperLogLog();
+        int distinct = 500_000;
+        for (int i = 0; i < distinct; i++) {
+            sketch.add("u:" + i);
+        }
+
+        // 4 erreurs types : un échec n'est pas une question de chance
+        double tolerance = 4 * HyperLogLog.RELATIVE_STANDARD_ERROR * distinct;
+        assertThat((double) sketch.estimate()).isBetween(distinct - tolerance, distinct + tolerance);
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        for (int i = 0; i < 3000; i++) {
+            monday.add("u:" + i);
+            tuesday.add("u:" + (i + 2000));
+        }
+
+        HyperLogLog week = new HyperLogLog();
+        assertThat(week.merge(monday)).isTrue();
+        assertThat(week.merge(tuesday)).isTrue();
+        assertThat(week.merge(monday)).isFalse();
+
+        assertThat((double) week.estimate()).isBetween(5000 * 0.95, 5000 * 1.05);
+    }
+
+    @Test
+    void serializedFormRoundTripsAndStaysSmallWhenSparse() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 20; i++) {
+            sketch.add("ip:192.168.1." + i);
+        }
+
+        byte[] bytes = sketch.toBytes();
+
+        assertThat(bytes.length).isLessThan(200);
+        assertThat(HyperLogLog.fromBytes(bytes).estimate()).isEqualTo(sketch.estimate());
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[]{1, 2, 3}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
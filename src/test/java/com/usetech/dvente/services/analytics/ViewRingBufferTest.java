@@ -0,0 +1,80 @@
+package com.usetech.dvente.services.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ViewRingBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new ViewRingBuffer<Integer>(1000).capacity()).isEqualTo(1024);
+        assertThat(new ViewRingBuffer<Integer>(1024).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    void offerFailsWhenFullAndPollReturnsInOrder() {
+        ViewRingBuffer<Integer> buffer = new ViewRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.poll()).isEqualTo(i);
+        }
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.offer(5)).isTrue();
+        assertThat(buffer.poll()).isEqualTo(5);
+    }
+
+    @Test
+    void concurrentProducersLoseNothingThatWasAccepted() throws Exception {
+        int producers = 8;
+        int perProducer = 50_000;
+        ViewRingBuffer<Integer> buffer = new ViewRingBuffer<>(1024);
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    if (!buffer.offer(base + i)) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+        }
+
+        BitSet seen = new BitSet(producers * perProducer);
+        int consumed = 0;
+        start.countDown();
+        executor.shutdown();
+        while (!executor.isTerminated() || buffer.size() > 0) {
+            Integer value = buffer.poll();
+            if (value == null) {
+                executor.awaitTermination(1, TimeUnit.MILLISECONDS);
+                continue;
+            }
+            assertThat(seen.get(value)).isFalse();
+            seen.set(value);
+            consumed++;
+        }
+
+        assertThat(consumed + rejected.get()).isEqualTo(producers * perProducer);
+    }
+}
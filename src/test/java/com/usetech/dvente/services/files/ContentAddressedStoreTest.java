@@ -0,0 +1,175 @@
+package com.usetech.dvente.services.files;
+
+import com.usetech.dvente.entities.files.FileBlob;
+import com.usetech.dvente.repositories.files.FileBlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.upload.content-addressed=true",
+        // Tout fichier sans référence est purgeable immédiatement
+        "app.upload.cas.grace-period=-1h",
+        "app.upload.cas.purge-interval=1h"
+})
+@ActiveProfiles("test")
+public class ContentAddressedStoreTest {
+
+    private static final Path UPLOAD_DIR = createUploadDir();
+
+    @Autowired
+    private ContentAddressedStore contentAddressedStore;
+
+    @Autowired
+    private ImageVariantStore imageVariantStore;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Seules les lignes créées par le test sont supprimées
+    private final List<String> stored = new CopyOnWriteArrayList<>();
+
+    @DynamicPropertySource
+    static void uploadProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.upload.path", UPLOAD_DIR::toString);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        stored.forEach(sha256 -> fileBlobRepository.findBySha256(sha256).ifPresent(fileBlobRepository::delete));
+        stored.clear();
+    }
+
+    @Test
+    void sameContentIsStoredOnceAndCounted() {
+        byte[] image = randomPng();
+
+        StoredFile first = store(image);
+        StoredFile second = store(image);
+
+        assertThat(second.url()).isEqualTo(first.url());
+        assertThat(fileBlobRepository.findByUrl(first.url())).get().extracting(FileBlob::getRefCount).isEqualTo(2);
+
+        contentAddressedStore.release(first.url());
+        assertThat(fileBlobRepository.findByUrl(first.url())).get().extracting(FileBlob::getRefCount).isEqualTo(1);
+    }
+
+    @Test
+    void releasedContentIsPurgedThenStoredAgain() {
+        byte[] image = randomPng();
+        StoredFile file = store(image);
+        assertThat(imageVariantStore.generate(file.url())).isNotEmpty();
+
+        contentAddressedStore.release(file.url());
+        contentAddressedStore.purgeUnreferenced();
+
+        assertThat(fileBlobRepository.findByUrl(file.url())).isEmpty();
+        assertThat(resolve(file.url())).doesNotExist();
+        assertThat(tombOf(file.url())).doesNotExist();
+        assertThat(imageVariantStore.findExisting(file.url())).isNull();
+
+        StoredFile again = store(image);
+
+        assertThat(again.url()).isEqualTo(file.url());
+        assertThat(resolve(again.url())).exists();
+        assertThat(fileBlobRepository.findByUrl(again.url())).get().satisfies(blob -> {
+            assertThat(blob.getRefCount()).isEqualTo(1);
+            assertThat(blob.getPurgingSince()).isNull();
+        });
+    }
+
+    @Test
+    void reuploadBeforePurgeCompletesKeepsFileAndVariants() throws IOException {
+        byte[] image = randomPng();
+        StoredFile file = store(image);
+        imageVariantStore.generate(file.url());
+        contentAddressedStore.release(file.url());
+
+        // Purge validée, fin de purge pas encore exécutée : fichier renommé, pierre tombale posée
+        Path target = resolve(file.url());
+        Path tomb = tombOf(file.url());
+        Files.move(target, tomb, StandardCopyOption.ATOMIC_MOVE);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                fileBlobRepository.markPurging(fileBlobRepository.findByUrl(file.url()).orElseThrow().getId()));
+
+        // Le même contenu est ré-uploadé avant la fin de purge
+        store(image);
+        contentAddressedStore.finishPurge(file.url(), target, tomb);
+
+        assertThat(target).exists();
+        assertThat(tomb).doesNotExist();
+        assertThat(imageVariantStore.findExisting(file.url())).isNotEmpty();
+        assertThat(fileBlobRepository.findByUrl(file.url())).get().satisfies(blob -> {
+            assertThat(blob.getRefCount()).isEqualTo(1);
+            assertThat(blob.getPurgingSince()).isNull();
+        });
+    }
+
+    private StoredFile store(byte[] content) {
+        StoredFile file = contentAddressedStore.store(new ByteArrayInputStream(content), "photo.png", "image/png",
+                UploadPolicy.PRODUCT_IMAGE);
+        stored.add(file.sha256());
+        return file;
+    }
+
+    private static Path resolve(String url) {
+        return UPLOAD_DIR.resolve(url.substring("/uploads/".length()));
+    }
+
+    private static Path tombOf(String url) {
+        Path file = resolve(url);
+        return file.resolveSibling(file.getFileName() + ".purge");
+    }
+
+    /**
+     * PNG d'une couleur aléatoire : contenu différent à chaque exécution
+     */
+    private static byte[] randomPng() {
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(new Color(new Random().nextInt(0xFFFFFF)));
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path createUploadDir() {
+        try {
+            return Files.createTempDirectory("dvente-cas-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.usetech.dvente.services.files;
+
+import com.usetech.dvente.configs.AppStorageProperties;
+import com.usetech.dvente.support.FakeS3Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class S3StorageBackendTest {
+
+    private static final String BUCKET = "dvente";
+    private static final String ACCESS_KEY = "test-access";
+    private static final String SECRET_KEY = "test-secret";
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private FakeS3Server server;
+    private S3StorageBackend backend;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeS3Server(BUCKET, ACCESS_KEY, SECRET_KEY).start();
+        backend = new S3StorageBackend(properties(SECRET_KEY), httpClient, Clock.systemUTC());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void putOpenExistsDeleteRoundTrip() throws IOException {
+        byte[] content = "contenu de test".getBytes(StandardCharsets.UTF_8);
+
+        backend.put("products/a b+c.txt", new ByteArrayInputStream(content), "text/plain");
+
+        assertThat(server.getObject("products/a b+c.txt")).isEqualTo(content);
+        assertThat(server.getContentType("products/a b+c.txt")).isEqualTo("text/plain");
+        assertThat(backend.exists("products/a b+c.txt")).isTrue();
+        try (InputStream in = backend.open("products/a b+c.txt")) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+
+        backend.delete("products/a b+c.txt");
+
+        assertThat(backend.exists("products/a b+c.txt")).isFalse();
+        assertThatThrownBy(() -> backend.open("products/a b+c.txt")).isInstanceOf(NoSuchFileException.class);
+    }
+
+    @Test
+    void largeContentIsSentAsMultipartUpload() throws IOException {
+        byte[] content = randomBytes(12 * 1024 * 1024);
+
+        backend.put("documents/large.bin", new ByteArrayInputStream(content), "application/octet-stream");
+
+        // Parties de 5 Mo minimum : 5 + 5 + 2
+        assertThat(server.getUploadedParts()).isEqualTo(3);
+        assertThat(server.getObject("documents/large.bin")).isEqualTo(content);
+    }
+
+    @Test
+    void failedPartAbortsMultipartUpload() {
+        server.setFailPartNumber(2);
+
+        assertThatThrownBy(() -> backend.put("documents/large.bin",
+                new ByteArrayInputStream(randomBytes(11 * 1024 * 1024)), "application/octet-stream"))
+                .isInstanceOf(IOException.class);
+
+        assertThat(server.getAbortedUploads()).isEqualTo(1);
+        assertThat(server.getObject("documents/large.bin")).isNull();
+    }
+
+    @Test
+    void wrongSecretIsRejected() {
+        S3StorageBackend wrongSecret = new S3StorageBackend(properties("wrong"), httpClient, Clock.systemUTC());
+
+        assertThatThrownBy(() -> wrongSecret.put("products/x.txt",
+                new ByteArrayInputStream(new byte[]{1}), "text/plain"))
+                .isInstanceOf(IOException.class);
+        assertThat(server.getObject("products/x.txt")).isNull();
+    }
+
+    @Test
+    void presignedReadUrlIsAcceptedUntilTampered() throws Exception {
+        byte[] content = randomBytes(1024);
+        backend.put("products/image.jpg", new ByteArrayInputStream(content), "image/jpeg");
+
+        String url = backend.readUrl("products/image.jpg", Duration.ofMinutes(5));
+        HttpResponse<byte[]> response = get(url);
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(content);
+
+        assertThat(get(url.replace("products/image.jpg", "products/other.jpg")).statusCode()).isEqualTo(403);
+    }
+
+    @Test
+    void presignedFormUploadEnforcesPolicy() throws Exception {
+        PresignedUpload upload = backend.presignUpload("products/upload.png", "image/png", 2048, Duration.ofMinutes(5));
+        byte[] content = randomBytes(1024);
+
+        assertThat(postForm(upload, upload.fields(), content)).isEqualTo(204);
+        assertThat(server.getObject("products/upload.png")).isEqualTo(content);
+        assertThat(server.getContentType("products/upload.png")).isEqualTo("image/png");
+
+        assertThat(postForm(upload, upload.fields(), randomBytes(4096))).isEqualTo(400);
+
+        Map<String, String> otherKey = new java.util.LinkedHashMap<>(upload.fields());
+        otherKey.put("key", "products/other.png");
+        assertThat(postForm(upload, otherKey, content)).isEqualTo(403);
+    }
+
+    private AppStorageProperties.S3 properties(String secretKey) {
+        AppStorageProperties.S3 properties = new AppStorageProperties.S3();
+        properties.setEndpoint(server.getEndpoint());
+        properties.setBucket(BUCKET);
+        properties.setAccessKey(ACCESS_KEY);
+        properties.setSecretKey(secretKey);
+        properties.setPartSize(DataSize.ofMegabytes(5));
+        return properties;
+    }
+
+    private HttpResponse<byte[]> get(String url) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create(url)).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private int postForm(PresignedUpload upload, Map<String, String> fields, byte[] file) throws Exception {
+        String boundary = "----dvente-test";
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + field.getKey() + "\"\r\n\r\n"
+                    + field.getValue() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        }
+        body.write(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"upload.png\"\r\n"
+                + "Content-Type: image/png\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.write(file);
+        body.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(upload.url()))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}
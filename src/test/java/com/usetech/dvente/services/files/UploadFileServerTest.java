@@ -0,0 +1,200 @@
+package com.usetech.dvente.services.files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UploadFileServerTest {
+
+    private static final String URL = "/uploads/documents/fichier.bin";
+    private static final Instant MODIFIED = Instant.parse("2024-03-15T10:00:00Z");
+
+    @TempDir
+    Path uploadDir;
+
+    private UploadFileServer server;
+    private byte[] content;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        content = "0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+        Path file = uploadDir.resolve("documents/fichier.bin");
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(MODIFIED));
+        server = new UploadFileServer(uploadDir.toString());
+    }
+
+    @Test
+    void servesWholeFileWithStrongEtag() throws IOException {
+        MockHttpServletResponse response = serve(request());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).startsWith("\"").doesNotStartWith("W/");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+    }
+
+    @Test
+    void matchingIfNoneMatchReturns304() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag());
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void staleIfNoneMatchReturnsFullBody() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"autre\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void closedRangeReturns206() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/" + content.length);
+        assertThat(response.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 2, 6));
+    }
+
+    @Test
+    void openAndSuffixRangesReturn206() throws IOException {
+        MockHttpServletRequest open = request();
+        open.addHeader(HttpHeaders.RANGE, "bytes=30-");
+        MockHttpServletResponse openResponse = serve(open);
+
+        MockHttpServletRequest suffix = request();
+        suffix.addHeader(HttpHeaders.RANGE, "bytes=-4");
+        MockHttpServletResponse suffixResponse = serve(suffix);
+
+        assertThat(openResponse.getStatus()).isEqualTo(206);
+        assertThat(openResponse.getContentAsByteArray()).isEqualTo(Arrays.copyOfRange(content, 30, content.length));
+        assertThat(suffixResponse.getStatus()).isEqualTo(206);
+        assertThat(suffixResponse.getContentAsByteArray())
+                .isEqualTo(Arrays.copyOfRange(content, content.length - 4, content.length));
+    }
+
+    @Test
+    void rangeBeyondEndReturns416() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + content.length + "-");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */" + content.length);
+    }
+
+    @Test
+    void invalidRangeIsIgnored() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-3");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void ifRangeWithCurrentEtagReturns206() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, etag());
+
+        assertThat(serve(request).getStatus()).isEqualTo(206);
+    }
+
+    @Test
+    void ifRangeWithCurrentDateReturns206() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE,
+                DateTimeFormatter.RFC_1123_DATE_TIME.format(MODIFIED.atZone(ZoneOffset.UTC)));
+
+        assertThat(serve(request).getStatus()).isEqualTo(206);
+    }
+
+    @Test
+    void staleIfRangeReturnsFullBody() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"autre\"");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void weakIfRangeReturnsFullBody() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, "W/" + etag());
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void unparseableIfRangeReturnsFullBody() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, "pas une date");
+
+        MockHttpServletResponse response = serve(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEqualTo(content);
+    }
+
+    @Test
+    void hiddenOrEscapingPathsAreNotFound() throws IOException {
+        assertThat(serve(new MockHttpServletRequest("GET", "/uploads/../secret.txt")).getStatus()).isEqualTo(404);
+        assertThat(serve(new MockHttpServletRequest("GET", "/uploads/.tmp/fichier.part")).getStatus()).isEqualTo(404);
+    }
+
+    private MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", URL);
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        server.serve(request, response);
+        return response;
+    }
+
+    private String etag() throws IOException {
+        return serve(request()).getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,150 @@
+package com.usetech.dvente.services.files;
+
+import com.usetech.dvente.utils.MultipartStreamReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class UploadPolicyTest {
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 0x0D};
+    private static final byte[] PDF = "%PDF-1.7\n%âãÏÓ".getBytes(StandardCharsets.ISO_8859_1);
+    private static final String BOUNDARY = "----dvente-boundary";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void declaredTypeIsCheckedPerPolicy() {
+        assertThat(UploadPolicy.PRODUCT_IMAGE.isDeclaredTypeAllowed("photo.png", "image/PNG")).isTrue();
+        assertThat(UploadPolicy.PRODUCT_IMAGE.isDeclaredTypeAllowed("photo.png", "text/html")).isFalse();
+        assertThat(UploadPolicy.DOCUMENT.isDeclaredTypeAllowed("statuts.PDF", "application/octet-stream")).isTrue();
+        assertThat(UploadPolicy.DOCUMENT.isDeclaredTypeAllowed("statuts.exe", "application/pdf")).isFalse();
+    }
+
+    @Test
+    void signatureMatchesAcceptedFormatsOnly() {
+        assertThat(UploadPolicy.PRODUCT_IMAGE.matchesSignature(PNG, PNG.length)).isTrue();
+        assertThat(UploadPolicy.DOCUMENT.matchesSignature(PDF, PDF.length)).isTrue();
+        assertThat(UploadPolicy.PRODUCT_IMAGE.matchesSignature(PDF, PDF.length)).isFalse();
+        assertThat(UploadPolicy.DOCUMENT.matchesSignature(PNG, PNG.length)).isFalse();
+        // Début de signature seulement : pas assez d'octets pour conclure
+        assertThat(UploadPolicy.PRODUCT_IMAGE.matchesSignature(PNG, 3)).isFalse();
+    }
+
+    @Test
+    void storedExtensionFallsBackToContentType() {
+        assertThat(UploadPolicy.PRODUCT_IMAGE.storedExtension("photo.JPG", "image/jpeg")).isEqualTo(".jpg");
+        assertThat(UploadPolicy.PRODUCT_IMAGE.storedExtension("photo", "image/webp")).isEqualTo(".webp");
+        assertThat(UploadPolicy.PRODUCT_IMAGE.storedExtension("photo.exe", "application/x-msdownload")).isEmpty();
+    }
+
+    @Test
+    void fileWhoseContentDoesNotMatchDeclaredTypeIsRejected() throws IOException {
+        // Déclaré image/png, contenu HTML
+        byte[] html = "<html><script>alert(1)</script></html>".getBytes(StandardCharsets.UTF_8);
+        MultipartStreamReader.Part part = singlePart("photo.png", "image/png", new ByteArrayInputStream(html));
+
+        assertThat(UploadPolicy.PRODUCT_IMAGE.isDeclaredTypeAllowed(part.filename(), part.contentType())).isTrue();
+        assertThatThrownBy(() -> HashingFileWriter.write(part.body(), dir.resolve("photo.png"), UploadPolicy.PRODUCT_IMAGE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(UploadPolicy.PRODUCT_IMAGE.getTypeMessage());
+    }
+
+    @Test
+    void shortFileWithPartialSignatureIsRejected() {
+        byte[] shortFile = Arrays.copyOf(PNG, 4);
+
+        assertThatThrownBy(() -> HashingFileWriter.write(new ByteArrayInputStream(shortFile), dir.resolve("a.png"),
+                UploadPolicy.PRODUCT_IMAGE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(UploadPolicy.PRODUCT_IMAGE.getTypeMessage());
+    }
+
+    @Test
+    void oversizeFileIsRejectedPartwayThroughTheStream() throws IOException {
+        long maxBytes = UploadPolicy.PRODUCT_IMAGE.getMaxBytes();
+        GeneratedImage content = new GeneratedImage(maxBytes * 10);
+        MultipartStreamReader.Part part = singlePart("photo.png", "image/png", content);
+
+        assertThatThrownBy(() -> HashingFileWriter.write(part.body(), dir.resolve("photo.png"), UploadPolicy.PRODUCT_IMAGE))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(UploadPolicy.PRODUCT_IMAGE.getSizeMessage());
+        // Arrêt dès le dépassement : le reste du corps n'est pas lu
+        assertThat(content.consumed()).isGreaterThan(maxBytes).isLessThan(maxBytes + 1024 * 1024);
+    }
+
+    @Test
+    void fileAtMaximumSizeIsAccepted() throws IOException {
+        long maxBytes = UploadPolicy.PRODUCT_IMAGE.getMaxBytes();
+        MultipartStreamReader.Part part = singlePart("photo.png", "image/png", new GeneratedImage(maxBytes));
+
+        HashingFileWriter.Written written = HashingFileWriter.write(part.body(), dir.resolve("photo.png"),
+                UploadPolicy.PRODUCT_IMAGE);
+
+        assertThat(written.size()).isEqualTo(maxBytes);
+        assertThat(written.sha256()).hasSize(64);
+    }
+
+    private static MultipartStreamReader.Part singlePart(String filename, String contentType, InputStream content)
+            throws IOException {
+        String headers = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"image\"; filename=\"" + filename + "\"\r\n"
+                + "Content-Type: " + contentType + "\r\n\r\n";
+        InputStream body = new SequenceInputStream(
+                new SequenceInputStream(new ByteArrayInputStream(headers.getBytes(StandardCharsets.UTF_8)), content),
+                new ByteArrayInputStream(("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1)));
+        return new MultipartStreamReader(body, BOUNDARY).next();
+    }
+
+    /**
+     * Image PNG générée à la lecture (en-tête PNG puis octets nuls), sans la garder en mémoire
+     */
+    private static class GeneratedImage extends InputStream {
+
+        private final long size;
+        private long pos;
+
+        GeneratedImage(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public int read() {
+            if (pos >= size) {
+                return -1;
+            }
+            int b = pos < PNG.length ? PNG[(int) pos] & 0xFF : 0;
+            pos++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (pos >= size) {
+                return -1;
+            }
+            int n = (int) Math.min(len, size - pos);
+            Arrays.fill(b, off, off + n, (byte) 0);
+            for (int i = 0; i < n && pos + i < PNG.length; i++) {
+                b[off + i] = PNG[(int) (pos + i)];
+            }
+            pos += n;
+            return n;
+        }
+
+        long consumed() {
+            return pos;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.usetech.dvente.services.notifs;
+
+import com.usetech.dvente.entities.notifs.BulkAudience;
+import com.usetech.dvente.entities.notifs.BulkNotification;
+import com.usetech.dvente.entities.notifs.BulkNotificationStatus;
+import com.usetech.dvente.repositories.UserRepository;
+import com.usetech.dvente.repositories.notifs.BulkNotificationFailureRepository;
+import com.usetech.dvente.repositories.notifs.BulkNotificationRepository;
+import com.usetech.dvente.repositories.notifs.BulkRecipientRow;
+import com.usetech.dvente.repositories.shops.ShopRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkNotificationServiceTest {
+
+    private static final String NODE = "node-a";
+
+    private final BulkNotificationRepository bulkNotificationRepository = mock(BulkNotificationRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JavaMailSender mailSender = mock(JavaMailSender.class);
+    private final EmailTemplateRenderer emailTemplateRenderer = mock(EmailTemplateRenderer.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private BulkNotificationService service;
+    private BulkNotification notification;
+    private List<BulkRecipientRow> recipients;
+
+    @BeforeEach
+    void setUp() {
+        service = new BulkNotificationService(bulkNotificationRepository, mock(BulkNotificationFailureRepository.class),
+                userRepository, mock(ShopRepository.class), mailSender, emailTemplateRenderer,
+                new SyncTaskExecutor(), new SyncTaskExecutor(), mock(PlatformTransactionManager.class),
+                meterRegistry, 0, NODE);
+        ReflectionTestUtils.setField(service, "pageSize", 10);
+        ReflectionTestUtils.setField(service, "batchSize", 1);
+        ReflectionTestUtils.setField(service, "leaseTimeout", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(service, "appName", "Dvente");
+        ReflectionTestUtils.setField(service, "appUrl", "http://localhost");
+        ReflectionTestUtils.setField(service, "fromEmail", "noreply@example.com");
+        ReflectionTestUtils.setField(service, "fromName", "DVENTE");
+
+        notification = BulkNotification.builder()
+                .audience(BulkAudience.CLIENTS)
+                .subject("Annonce")
+                .template(BulkNotificationService.DEFAULT_TEMPLATE)
+                .build();
+        notification.setId(UUID.randomUUID());
+        recipients = List.of(
+                new BulkRecipientRow(UUID.randomUUID(), "a@example.com", "A"),
+                new BulkRecipientRow(UUID.randomUUID(), "b@example.com", "B"),
+                new BulkRecipientRow(UUID.randomUUID(), "c@example.com", "C"));
+
+        when(bulkNotificationRepository.findClaimable(eq(NODE), any())).thenReturn(List.of(notification), List.of());
+        when(bulkNotificationRepository.claim(eq(notification.getId()), eq(NODE), any(), any())).thenReturn(1);
+        when(bulkNotificationRepository.findStatusById(notification.getId())).thenReturn(BulkNotificationStatus.RUNNING);
+        when(userRepository.findBulkRecipients(any(), any(), any())).thenReturn(recipients);
+        when(emailTemplateRenderer.render(anyString(), any())).thenReturn("<p>Annonce</p>");
+        when(mailSender.createMimeMessage()).thenAnswer(invocation -> new MimeMessage((Session) null));
+    }
+
+    @Test
+    void fullPageIsRecordedAndFinishedByTheLeaseOwner() {
+        when(bulkNotificationRepository.renewLease(eq(notification.getId()), eq(NODE), any())).thenReturn(1);
+        when(bulkNotificationRepository.addProgress(eq(notification.getId()), eq(NODE), anyLong(), anyLong(), any(), any()))
+                .thenReturn(1);
+
+        service.dispatch();
+
+        verify(mailSender, times(3)).send(any(MimeMessage[].class));
+        verify(bulkNotificationRepository).addProgress(eq(notification.getId()), eq(NODE), eq(3L), eq(0L),
+                eq(recipients.get(2).id()), any());
+        verify(bulkNotificationRepository).finish(eq(notification.getId()), eq(NODE), eq(BulkNotificationStatus.COMPLETED), any());
+        assertThat(meterRegistry.counter("dvente.mail.bulk.sent", "audience", "CLIENTS").count()).isEqualTo(3);
+    }
+
+    @Test
+    void leaseLostMidPageKeepsCountsOfLaunchedBatches() {
+        // Bail renouvelé pour les deux premiers lots, repris par une autre instance avant le troisième
+        when(bulkNotificationRepository.renewLease(eq(notification.getId()), eq(NODE), any())).thenReturn(1, 1, 0);
+
+        service.dispatch();
+
+        verify(mailSender, times(2)).send(any(MimeMessage[].class));
+        verify(bulkNotificationRepository).addCounts(notification.getId(), 2L, 0L);
+        verify(bulkNotificationRepository, never()).addProgress(any(), any(), anyLong(), anyLong(), any(), any());
+        verify(bulkNotificationRepository, never()).finish(any(), any(), any(), any());
+        assertThat(meterRegistry.counter("dvente.mail.bulk.sent", "audience", "CLIENTS").count()).isEqualTo(2);
+    }
+}
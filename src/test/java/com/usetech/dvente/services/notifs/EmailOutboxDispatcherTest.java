@@ -0,0 +1,135 @@
+package com.usetech.dvente.services.notifs;
+
+import com.usetech.dvente.entities.notifs.EmailOutbox;
+import com.usetech.dvente.entities.notifs.EmailOutboxStatus;
+import com.usetech.dvente.repositories.notifs.EmailOutboxRepository;
+import com.usetech.dvente.support.FakeSmtpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "app.mail.outbox.poll-interval=1h",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "spring.mail.properties.mail.smtp.starttls.required=false"
+})
+@ActiveProfiles("test")
+public class EmailOutboxDispatcherTest {
+
+    private static final FakeSmtpServer SMTP = startSmtp();
+
+    @Autowired
+    private EmailOutboxService emailOutboxService;
+
+    @Autowired
+    private EmailOutboxDispatcher emailOutboxDispatcher;
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Seules les lignes créées par le test sont vérifiées puis supprimées
+    private final List<UUID> enqueued = new CopyOnWriteArrayList<>();
+
+    @DynamicPropertySource
+    static void smtpProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", SMTP::getPort);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SMTP.setFailing(false);
+        emailOutboxRepository.deleteAllById(enqueued);
+        enqueued.clear();
+    }
+
+    @AfterAll
+    static void stopSmtp() throws IOException {
+        SMTP.close();
+    }
+
+    @Test
+    void enqueuedEmailsAreSentAfterCommitOverOneConnection() {
+        long connectionsBefore = SMTP.getConnections();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                enqueued.add(emailOutboxService.enqueue("client" + i + "@example.com", "Code", "emails/verificationCode",
+                        Map.of("code", "12345" + i, "appName", "Dvente", "appUrl", "http://localhost", "expirationMinutes", 15)).getId());
+            }
+        });
+
+        waitUntil(() -> emailOutboxRepository.findAllById(enqueued).stream()
+                .allMatch(email -> email.getStatus() == EmailOutboxStatus.SENT));
+        assertThat(SMTP.getConnections() - connectionsBefore).isEqualTo(1);
+        assertThat(SMTP.getRecipients()).contains("client0@example.com", "client1@example.com", "client2@example.com");
+    }
+
+    @Test
+    void failedDeliveryIsRetriedWithBackoff() {
+        SMTP.setFailing(true);
+        EmailOutbox email = emailOutboxService.enqueue("retry@example.com", "Code", "emails/resetCode",
+                Map.of("code", "654321", "appName", "Dvente", "appUrl", "http://localhost", "expirationMinutes", 15));
+        enqueued.add(email.getId());
+
+        waitUntil(() -> emailOutboxRepository.findById(email.getId()).orElseThrow().getAttempts() == 1);
+        EmailOutbox failed = emailOutboxRepository.findById(email.getId()).orElseThrow();
+        assertThat(failed.getStatus()).isEqualTo(EmailOutboxStatus.PENDING);
+        assertThat(failed.getNextAttemptAt()).isAfter(LocalDateTime.now());
+        assertThat(failed.getLastError()).isNotBlank();
+
+        SMTP.setFailing(false);
+        failed.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        emailOutboxRepository.save(failed);
+        emailOutboxDispatcher.dispatch();
+
+        waitUntil(() -> emailOutboxRepository.findById(email.getId()).orElseThrow().getStatus() == EmailOutboxStatus.SENT);
+        assertThat(emailOutboxRepository.findById(email.getId()).orElseThrow().getAttempts()).isEqualTo(2);
+    }
+
+    private static void waitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition non atteinte dans le délai");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+
+    private static FakeSmtpServer startSmtp() {
+        try {
+            return new FakeSmtpServer(0, Duration.ZERO).start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.usetech.dvente.services.products;
+
+import com.usetech.dvente.entities.products.Category;
+import com.usetech.dvente.entities.products.Product;
+import com.usetech.dvente.entities.products.ProductImage;
+import com.usetech.dvente.entities.products.ProductReview;
+import com.usetech.dvente.entities.users.Shop;
+import com.usetech.dvente.entities.users.ShopStatus;
+import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.repositories.products.CategoryRepository;
+import com.usetech.dvente.repositories.products.ProductRepository;
+import com.usetech.dvente.repositories.products.ProductReviewRepository;
+import com.usetech.dvente.responses.products.PaginatedProductResponse;
+import com.usetech.dvente.support.QueryCountTestSupport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProductListingQueryCountTest extends QueryCountTestSupport {
+
+    // Listing (sans COUNT) + chargement groupé des images
+    private static final long MAX_STATEMENTS_PER_PAGE = 2;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductReviewRepository productReviewRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Category category;
+
+    @BeforeEach
+    void setUp() {
+        Shop shop = createShop("Listing Shop", ShopStatus.WAITING);
+        User user = shop.getUser();
+
+        category = categoryRepository.saveAndFlush(Category.builder()
+                .name("Listing " + UUID.randomUUID())
+                .build());
+
+        for (int i = 0; i < 60; i++) {
+            Product product = Product.builder()
+                    .name("Produit " + i)
+                    .price(BigDecimal.valueOf(1000 + i))
+                    .isActive(true)
+                    .stockQuantity(10)
+                    .category(category)
+                    .shopAuthor(shop)
+                    .build();
+            product.getOtherImages().add(ProductImage.builder().image("/uploads/products/" + i + ".png").product(product).build());
+            product = productRepository.save(product);
+
+            productReviewRepository.save(ProductReview.builder()
+                    .product(product)
+                    .user(user)
+                    .rating(4)
+                    .build());
+        }
+
+        flushAndClear();
+    }
+
+    @Test
+    void listingStatementCountDoesNotGrowWithPageSize() {
+        long smallPage = countStatements(() -> productService.getProducts(1, 10, null, null, false, new MockHttpServletRequest()));
+        long largePage = countStatements(() -> productService.getProducts(1, 50, null, null, false, new MockHttpServletRequest()));
+
+        assertThat(smallPage).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    @Test
+    void offsetPageCountsOnlyWhenTotalIsRequested() {
+        PaginatedProductResponse[] page = new PaginatedProductResponse[1];
+        long withoutTotal = countStatements(() -> page[0] = productService.getProducts(2, 10, null, null, false, new MockHttpServletRequest()));
+        assertThat(page[0].getTotal()).isNull();
+        assertThat(page[0].getHasNext()).isTrue();
+
+        long withTotal = countStatements(() -> page[0] = productService.getProducts(2, 10, null, null, true, new MockHttpServletRequest()));
+        assertThat(page[0].getTotal()).isNotNull();
+        assertThat(withTotal).isEqualTo(withoutTotal + 1);
+    }
+
+    @Test
+    void categoryListingStatementCountDoesNotGrowWithPageSize() {
+        long statements = countStatements(() -> {
+            PaginatedProductResponse response = productService.getProducts(1, 50, category.getId(), null, false, new MockHttpServletRequest());
+            assertThat(response.getData()).hasSize(50);
+            assertThat(response.getData()).allSatisfy(product -> {
+                assertThat(product.getReviewCount()).isEqualTo(1L);
+                assertThat(product.getOtherImages()).hasSize(1);
+            });
+        });
+
+        assertThat(statements).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+    }
+
+    @Test
+    void cursorPaginationVisitsEveryProductOnceWithoutCount() {
+        PaginatedProductResponse firstPage = productService.getProducts(1, 25, category.getId(), null, false, new MockHttpServletRequest());
+        Set<UUID> seen = new HashSet<>();
+        firstPage.getData().forEach(product -> seen.add(product.getId()));
+
+        String cursor = firstPage.getNextCursor();
+        while (cursor != null) {
+            String currentCursor = cursor;
+            PaginatedProductResponse[] page = new PaginatedProductResponse[1];
+            long statements = countStatements(() -> page[0] = productService.getProducts(
+                    null, 25, category.getId(), currentCursor, false, new MockHttpServletRequest()));
+
+            // Listing par clé + images, sans COUNT
+            assertThat(statements).isLessThanOrEqualTo(2);
+            assertThat(page[0].getTotal()).isNull();
+            page[0].getData().forEach(product -> assertThat(seen.add(product.getId())).isTrue());
+            cursor = page[0].getNextCursor();
+        }
+
+        assertThat(seen).hasSize(60);
+    }
+}
@@ -0,0 +1,80 @@
+package com.usetech.dvente.services.shops;
+
+import com.usetech.dvente.configs.CacheConfig;
+import com.usetech.dvente.entities.users.Shop;
+import com.usetech.dvente.entities.users.ShopGallery;
+import com.usetech.dvente.entities.users.ShopStatus;
+import com.usetech.dvente.repositories.shops.ShopGalleryRepository;
+import com.usetech.dvente.responses.shops.PaginatedShopResponse;
+import com.usetech.dvente.support.QueryCountTestSupport;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ShopDirectoryQueryCountTest extends QueryCountTestSupport {
+
+    // Page + COUNT paginé + galeries groupées + derniers changements d'URL groupés
+    private static final long MAX_STATEMENTS_PER_PAGE = 4;
+
+    @Autowired
+    private ShopService shopService;
+
+    @Autowired
+    private ShopGalleryRepository shopGalleryRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 30; i++) {
+            Shop shop = createShop("Directory Shop " + i, ShopStatus.ACTIF);
+            for (int j = 0; j < 2; j++) {
+                shopGalleryRepository.save(ShopGallery.builder()
+                        .shop(shop)
+                        .image("/uploads/shop-galleries/" + i + "-" + j + ".png")
+                        .build());
+            }
+        }
+
+        flushAndClear();
+    }
+
+    @Test
+    void directoryStatementCountDoesNotGrowWithPageSize() {
+        long smallPage = countStatements(() -> shopService.getShopDirectory(1, 5));
+        long largePage = countStatements(() -> {
+            PaginatedShopResponse response = shopService.getShopDirectory(1, 30);
+            assertThat(response.getData()).hasSizeGreaterThanOrEqualTo(30);
+            assertThat(response.getData()).allSatisfy(shop -> {
+                assertThat(shop.getIfuDocument()).isNull();
+                if (shop.getShopName().startsWith("Directory Shop")) {
+                    assertThat(shop.getGallery()).hasSize(2);
+                }
+            });
+        });
+
+        assertThat(smallPage).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+        assertThat(largePage).isEqualTo(smallPage);
+    }
+
+    @Test
+    void cachedPageIsServedWithoutStatements() {
+        countStatements(() -> shopService.getShopDirectory(1, 10));
+
+        Statistics statistics = statistics();
+        statistics.clear();
+        shopService.getShopDirectory(1, 10);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Override
+    protected void clearCaches() {
+        cacheManager.getCache(CacheConfig.SHOP_DIRECTORY).clear();
+    }
+}
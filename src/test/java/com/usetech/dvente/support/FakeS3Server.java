@@ -0,0 +1,363 @@
+package com.usetech.dvente.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.usetech.dvente.utils.MultipartStreamReader;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Bucket S3 factice en mémoire (adressage endpoint/bucket/clé, comme MinIO) : PUT, GET, HEAD,
+ * DELETE, upload multipart et formulaire POST signé. Chaque requête est vérifiée en
+ * Signature V4 (en-tête Authorization, URL signée ou politique du formulaire) avec une
+ * implémentation indépendante de celle de l'application ; une signature fausse donne 403.
+ */
+public class FakeS3Server implements Closeable {
+
+    private static final Pattern AUTHORIZATION = Pattern.compile(
+            "AWS4-HMAC-SHA256 Credential=([^/]+)/([^/]+)/([^/]+)/s3/aws4_request, SignedHeaders=([^,]+), Signature=([0-9a-f]+)");
+    private static final Pattern LENGTH_RANGE = Pattern.compile("\\[\"content-length-range\",(\\d+),(\\d+)]");
+
+    private final HttpServer server;
+    private final String bucket;
+    private final String accessKey;
+    private final String secretKey;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger uploadedParts = new AtomicInteger();
+    private final AtomicInteger abortedUploads = new AtomicInteger();
+    private volatile int failPartNumber;
+
+    public FakeS3Server(String bucket, String accessKey, String secretKey) throws IOException {
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", this::handle);
+    }
+
+    public FakeS3Server start() {
+        server.start();
+        return this;
+    }
+
+    public String getEndpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public byte[] getObject(String key) {
+        return objects.get(key);
+    }
+
+    public String getContentType(String key) {
+        return contentTypes.get(key);
+    }
+
+    public int getUploadedParts() {
+        return uploadedParts.get();
+    }
+
+    public int getAbortedUploads() {
+        return abortedUploads.get();
+    }
+
+    /**
+     * Fait échouer (500) l'envoi de la partie de ce numéro, 0 pour désactiver
+     */
+    public void setFailPartNumber(int failPartNumber) {
+        this.failPartNumber = failPartNumber;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String path = exchange.getRequestURI().getRawPath();
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            String method = exchange.getRequestMethod();
+
+            if (path.equals("/" + bucket) && method.equals("POST")) {
+                handleFormUpload(exchange, body);
+                return;
+            }
+            if (!path.startsWith("/" + bucket + "/")) {
+                respond(exchange, 404, "NoSuchBucket");
+                return;
+            }
+            String key = java.net.URLDecoder.decode(path.substring(bucket.length() + 2).replace("+", "%2B"), StandardCharsets.UTF_8);
+
+            String error = query.containsKey("X-Amz-Signature")
+                    ? verifyPresignedUrl(exchange, query)
+                    : verifyAuthorization(exchange, query, body);
+            if (error != null) {
+                respond(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code><Message>" + error + "</Message></Error>");
+                return;
+            }
+
+            switch (method) {
+                case "PUT" -> {
+                    if (query.containsKey("uploadId")) {
+                        int partNumber = Integer.parseInt(query.get("partNumber"));
+                        if (partNumber == failPartNumber) {
+                            respond(exchange, 500, "<Error><Code>InternalError</Code></Error>");
+                            return;
+                        }
+                        Map<Integer, byte[]> parts = uploads.get(query.get("uploadId"));
+                        if (parts == null) {
+                            respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+                            return;
+                        }
+                        parts.put(partNumber, body);
+                        uploadedParts.incrementAndGet();
+                        exchange.getResponseHeaders().add("ETag", "\"" + HexFormat.of().formatHex(md5(body)) + "\"");
+                        respond(exchange, 200, "");
+                    } else {
+                        store(key, body, exchange.getRequestHeaders().getFirst("Content-Type"));
+                        respond(exchange, 200, "");
+                    }
+                }
+                case "POST" -> {
+                    if (query.containsKey("uploads")) {
+                        String uploadId = UUID.randomUUID().toString();
+                        uploads.put(uploadId, new TreeMap<>());
+                        contentTypes.put("upload:" + uploadId, String.valueOf(exchange.getRequestHeaders().getFirst("Content-Type")));
+                        respond(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + bucket + "</Bucket><Key>" + key
+                                + "</Key><UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+                    } else if (query.containsKey("uploadId")) {
+                        Map<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+                        if (parts == null) {
+                            respond(exchange, 404, "<Error><Code>NoSuchUpload</Code></Error>");
+                            return;
+                        }
+                        ByteArrayOutputStream content = new ByteArrayOutputStream();
+                        for (byte[] part : parts.values()) {
+                            content.write(part);
+                        }
+                        store(key, content.toByteArray(), contentTypes.remove("upload:" + query.get("uploadId")));
+                        respond(exchange, 200, "<CompleteMultipartUploadResult><Key>" + key + "</Key></CompleteMultipartUploadResult>");
+                    } else {
+                        respond(exchange, 400, "<Error><Code>InvalidRequest</Code></Error>");
+                    }
+                }
+                case "GET", "HEAD" -> {
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+                        return;
+                    }
+                    if (contentTypes.containsKey(key)) {
+                        exchange.getResponseHeaders().add("Content-Type", contentTypes.get(key));
+                    }
+                    if (method.equals("HEAD")) {
+                        exchange.sendResponseHeaders(200, -1);
+                    } else {
+                        exchange.sendResponseHeaders(200, object.length);
+                        exchange.getResponseBody().write(object);
+                    }
+                }
+                case "DELETE" -> {
+                    if (query.containsKey("uploadId")) {
+                        uploads.remove(query.get("uploadId"));
+                        abortedUploads.incrementAndGet();
+                    } else {
+                        objects.remove(key);
+                        contentTypes.remove(key);
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> respond(exchange, 405, "");
+            }
+        } catch (RuntimeException e) {
+            respond(exchange, 500, "<Error><Code>InternalError</Code><Message>" + e + "</Message></Error>");
+        }
+    }
+
+    /**
+     * Formulaire POST : champs de la politique puis le fichier ; signature de la politique,
+     * clé, type et taille vérifiés
+     */
+    private void handleFormUpload(HttpExchange exchange, byte[] body) throws IOException {
+        MultipartStreamReader reader = new MultipartStreamReader(new java.io.ByteArrayInputStream(body),
+                MultipartStreamReader.boundary(exchange.getRequestHeaders().getFirst("Content-Type")));
+        Map<String, String> fields = new LinkedHashMap<>();
+        byte[] file = null;
+        for (MultipartStreamReader.Part part; (part = reader.next()) != null; ) {
+            if ("file".equals(part.name())) {
+                file = part.body().readAllBytes();
+                break;
+            }
+            fields.put(part.name(), new String(part.body().readAllBytes(), StandardCharsets.UTF_8));
+        }
+        String policy = new String(Base64.getDecoder().decode(fields.getOrDefault("policy", "")), StandardCharsets.UTF_8);
+        String[] credential = fields.getOrDefault("x-amz-credential", "").split("/");
+        if (credential.length != 5 || !credential[0].equals(accessKey)) {
+            respond(exchange, 403, "<Error><Code>InvalidAccessKeyId</Code></Error>");
+            return;
+        }
+        String expected = HexFormat.of().formatHex(hmac(signingKey(credential[1], credential[2]), fields.get("policy")));
+        if (!expected.equals(fields.get("x-amz-signature"))) {
+            respond(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code></Error>");
+            return;
+        }
+        if (file == null
+                || !policy.contains("{\"key\":\"" + fields.get("key") + "\"}")
+                || !policy.contains("{\"Content-Type\":\"" + fields.get("Content-Type") + "\"}")) {
+            respond(exchange, 403, "<Error><Code>AccessDenied</Code><Message>Policy condition failed</Message></Error>");
+            return;
+        }
+        Matcher range = LENGTH_RANGE.matcher(policy);
+        if (range.find() && (file.length < Long.parseLong(range.group(1)) || file.length > Long.parseLong(range.group(2)))) {
+            respond(exchange, 400, "<Error><Code>EntityTooLarge</Code></Error>");
+            return;
+        }
+        store(fields.get("key"), file, fields.get("Content-Type"));
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    private String verifyAuthorization(HttpExchange exchange, Map<String, String> query, byte[] body) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        Matcher matcher = authorization == null ? null : AUTHORIZATION.matcher(authorization);
+        if (matcher == null || !matcher.matches() || !matcher.group(1).equals(accessKey)) {
+            return "Authorization absent ou mal formé";
+        }
+        String payloadHash = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if (!HexFormat.of().formatHex(sha256(body)).equals(payloadHash)) {
+            return "x-amz-content-sha256 ne correspond pas au corps";
+        }
+        StringBuilder canonicalHeaders = new StringBuilder();
+        for (String name : matcher.group(4).split(";")) {
+            String value = name.equals("host")
+                    ? exchange.getRequestHeaders().getFirst("Host")
+                    : exchange.getRequestHeaders().getFirst(name);
+            canonicalHeaders.append(name).append(':').append(value == null ? "" : value.trim()).append('\n');
+        }
+        String canonicalRequest = exchange.getRequestMethod() + "\n" + exchange.getRequestURI().getRawPath() + "\n"
+                + canonicalQuery(query, null) + "\n" + canonicalHeaders + "\n" + matcher.group(4) + "\n" + payloadHash;
+        String amzDate = exchange.getRequestHeaders().getFirst("x-amz-date");
+        String expected = signature(amzDate, matcher.group(2), matcher.group(3), canonicalRequest);
+        return expected.equals(matcher.group(5)) ? null : "signature invalide";
+    }
+
+    private String verifyPresignedUrl(HttpExchange exchange, Map<String, String> query) {
+        String[] credential = decode(query.getOrDefault("X-Amz-Credential", "")).split("/");
+        if (credential.length != 5 || !credential[0].equals(accessKey)) {
+            return "X-Amz-Credential invalide";
+        }
+        String canonicalRequest = exchange.getRequestMethod() + "\n" + exchange.getRequestURI().getRawPath() + "\n"
+                + canonicalQuery(query, "X-Amz-Signature") + "\n"
+                + "host:" + exchange.getRequestHeaders().getFirst("Host") + "\n\nhost\nUNSIGNED-PAYLOAD";
+        String expected = signature(query.get("X-Amz-Date"), credential[1], credential[2], canonicalRequest);
+        return expected.equals(query.get("X-Amz-Signature")) ? null : "signature invalide";
+    }
+
+    private String signature(String amzDate, String date, String region, String canonicalRequest) {
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + date + "/" + region + "/s3/aws4_request\n"
+                + HexFormat.of().formatHex(sha256(canonicalRequest.getBytes(StandardCharsets.UTF_8)));
+        return HexFormat.of().formatHex(hmac(signingKey(date, region), stringToSign));
+    }
+
+    private byte[] signingKey(String date, String region) {
+        byte[] key = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        key = hmac(key, region);
+        key = hmac(key, "s3");
+        return hmac(key, "aws4_request");
+    }
+
+    private void store(String key, byte[] content, String contentType) {
+        objects.put(key, content);
+        if (contentType != null) {
+            contentTypes.put(key, contentType);
+        }
+    }
+
+    /**
+     * Paramètres bruts (encodés) de la query string
+     */
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new TreeMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int eq = parameter.indexOf('=');
+            parameters.put(eq < 0 ? parameter : parameter.substring(0, eq), eq < 0 ? "" : parameter.substring(eq + 1));
+        }
+        return parameters;
+    }
+
+    private static String canonicalQuery(Map<String, String> query, String excluded) {
+        List<String> parameters = new ArrayList<>();
+        query.forEach((name, value) -> {
+            if (!name.equals(excluded)) {
+                parameters.add(name + "=" + value);
+            }
+        });
+        return String.join("&", parameters);
+    }
+
+    private static String decode(String value) {
+        return java.net.URLDecoder.decode(value.replace("+", "%2B"), StandardCharsets.UTF_8);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = exchange.getRequestMethod().equals("HEAD") ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private static byte[] sha256(byte[] data) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] md5(byte[] data) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.usetech.dvente.support;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serveur SMTP factice : accepte tous les messages sans les délivrer, avec une latence
+ * simulée par message (relais SMTP lent), pour mesurer l'effet des envois bloquants.
+ * En mode échec, chaque envoi est refusé temporairement (451) pour tester les reprises.
+ */
+public class FakeSmtpServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final Duration latency;
+    // Threads plateforme : le serveur ne doit pas dépendre des porteurs qu'un client épinglé peut bloquer
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private final List<String> recipients = new CopyOnWriteArrayList<>();
+    private volatile boolean failing;
+
+    public FakeSmtpServer(int port, Duration latency) throws IOException {
+        this.serverSocket = new ServerSocket(port);
+        this.latency = latency;
+    }
+
+    public FakeSmtpServer start() {
+        executor.submit(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    executor.submit(() -> handle(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        return this;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Destinataires (RCPT TO) des messages acceptés
+     */
+    public List<String> getRecipients() {
+        return recipients;
+    }
+
+    public void setFailing(boolean failing) {
+        this.failing = failing;
+    }
+
+    private void handle(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream out = socket.getOutputStream()) {
+            connections.incrementAndGet();
+            reply(out, "220 fake-smtp ESMTP");
+            List<String> envelope = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+                switch (command) {
+                    case "EHLO", "HELO" -> reply(out, "250 fake-smtp");
+                    case "MAIL" -> {
+                        envelope.clear();
+                        reply(out, failing ? "451 4.3.0 Try again later" : "250 OK");
+                    }
+                    case "RCPT" -> {
+                        envelope.add(line.substring(line.indexOf(':') + 1).trim().replaceAll("[<>]", ""));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // contenu ignoré
+                        }
+                        Thread.sleep(latency);
+                        received.incrementAndGet();
+                        recipients.addAll(envelope);
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "250 OK");
+                }
+            }
+        } catch (IOException e) {
+            // connexion fermée par le client
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reply(OutputStream out, String line) throws IOException {
+        out.write((line + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+}
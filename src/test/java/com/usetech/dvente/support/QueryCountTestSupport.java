@@ -0,0 +1,87 @@
+package com.usetech.dvente.support;
+
+import com.usetech.dvente.entities.users.Shop;
+import com.usetech.dvente.entities.users.ShopStatus;
+import com.usetech.dvente.entities.users.User;
+import com.usetech.dvente.repositories.UserRepository;
+import com.usetech.dvente.repositories.shops.ShopRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Base des tests de nombre de requêtes : statistiques Hibernate activées, données créées
+ * dans la transaction du test (annulée à la fin) et comptage des requêtes préparées.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+@ActiveProfiles("test")
+public abstract class QueryCountTestSupport {
+
+    @Autowired
+    protected UserRepository userRepository;
+
+    @Autowired
+    protected ShopRepository shopRepository;
+
+    @Autowired
+    protected EntityManager entityManager;
+
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Marchand de test : utilisateur et boutique aux email et URL uniques
+     */
+    protected Shop createShop(String name, ShopStatus status) {
+        String slug = name.toLowerCase().replace(' ', '-') + "-" + UUID.randomUUID();
+        User user = new User();
+        user.setName(name + " User");
+        user.setEmail(slug + "@example.com");
+        user = userRepository.save(user);
+
+        return shopRepository.save(Shop.builder()
+                .shopName(name)
+                .shopUrl(slug)
+                .status(status)
+                .user(user)
+                .build());
+    }
+
+    /**
+     * Écrit les données du test et vide le contexte de persistance
+     */
+    protected void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Nombre de requêtes préparées par l'action, contexte de persistance et caches vidés avant
+     */
+    protected long countStatements(Runnable action) {
+        Statistics statistics = statistics();
+        clearCaches();
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Caches applicatifs à vider avant chaque mesure
+     */
+    protected void clearCaches() {
+    }
+
+    protected Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,180 @@
+package com.usetech.dvente.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----dvente-boundary";
+
+    @Test
+    void readsPartsWhenDelimiterIsSplitAcrossReads() throws IOException {
+        byte[] file = new byte[200_000];
+        for (int i = 0; i < file.length; i++) {
+            file[i] = (byte) (i % 251);
+        }
+        byte[] body = concat(
+                part("name", null, null, "Boutique".getBytes(StandardCharsets.UTF_8)),
+                part("image", "photo.png", "image/png", file),
+                end());
+
+        // Lectures de 7 octets : chaque délimiteur arrive en plusieurs morceaux
+        MultipartStreamReader reader = new MultipartStreamReader(new ChunkedInputStream(body, 7), BOUNDARY);
+
+        MultipartStreamReader.Part name = reader.next();
+        assertThat(name.name()).isEqualTo("name");
+        assertThat(name.isFile()).isFalse();
+        assertThat(new String(name.body().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("Boutique");
+
+        MultipartStreamReader.Part image = reader.next();
+        assertThat(image.name()).isEqualTo("image");
+        assertThat(image.filename()).isEqualTo("photo.png");
+        assertThat(image.contentType()).isEqualTo("image/png");
+        assertThat(image.body().readAllBytes()).isEqualTo(file);
+
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void bodyEndingWithCarriageReturnIsNotMistakenForDelimiter() throws IOException {
+        byte[] content = ("ligne\r\n--" + BOUNDARY.substring(0, 5) + "\r").getBytes(StandardCharsets.ISO_8859_1);
+        byte[] body = concat(part("doc", "a.txt", "text/plain", content), end());
+
+        MultipartStreamReader reader = new MultipartStreamReader(new ChunkedInputStream(body, 3), BOUNDARY);
+
+        assertThat(reader.next().body().readAllBytes()).isEqualTo(content);
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void skipsPreambleAndReadsEmptyPart() throws IOException {
+        byte[] body = concat(
+                "Préambule ignoré\r\n".getBytes(StandardCharsets.UTF_8),
+                part("empty", null, null, new byte[0]),
+                part("after", null, null, "suite".getBytes(StandardCharsets.UTF_8)),
+                end());
+
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(body), BOUNDARY);
+
+        MultipartStreamReader.Part empty = reader.next();
+        assertThat(empty.name()).isEqualTo("empty");
+        assertThat(empty.body().read()).isEqualTo(-1);
+
+        MultipartStreamReader.Part after = reader.next();
+        assertThat(new String(after.body().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("suite");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void unreadContentIsSkippedOnNext() throws IOException {
+        byte[] body = concat(
+                part("first", "a.bin", "application/octet-stream", new byte[100_000]),
+                part("second", null, null, "ok".getBytes(StandardCharsets.UTF_8)),
+                end());
+
+        MultipartStreamReader reader = new MultipartStreamReader(new ChunkedInputStream(body, 1000), BOUNDARY);
+
+        MultipartStreamReader.Part first = reader.next();
+        assertThat(first.body().read(new byte[10])).isEqualTo(10);
+
+        MultipartStreamReader.Part second = reader.next();
+        assertThat(second.name()).isEqualTo("second");
+        assertThat(new String(second.body().readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("ok");
+    }
+
+    @Test
+    void truncatedBodyThrowsEofException() throws IOException {
+        byte[] complete = concat(part("image", "photo.png", "image/png", new byte[5000]), end());
+        byte[] truncated = Arrays.copyOf(complete, 3000);
+
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(truncated), BOUNDARY);
+        MultipartStreamReader.Part image = reader.next();
+
+        assertThatThrownBy(() -> image.body().readAllBytes()).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void truncatedHeadersThrowEofException() {
+        byte[] truncated = ("--" + BOUNDARY + "\r\nContent-Disposition: form-data; na").getBytes(StandardCharsets.ISO_8859_1);
+
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(truncated), BOUNDARY);
+
+        assertThatThrownBy(reader::next).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void readsBoundaryFromContentType() {
+        assertThat(MultipartStreamReader.boundary("multipart/form-data; boundary=\"" + BOUNDARY + "\""))
+                .isEqualTo(BOUNDARY);
+        assertThat(MultipartStreamReader.boundary("multipart/form-data; charset=UTF-8; boundary=abc"))
+                .isEqualTo("abc");
+        assertThat(MultipartStreamReader.boundary("application/json")).isNull();
+    }
+
+    static byte[] part(String name, String filename, String contentType, byte[] content) {
+        StringBuilder headers = new StringBuilder("--").append(BOUNDARY).append("\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append('"');
+        if (filename != null) {
+            headers.append("; filename=\"").append(filename).append('"');
+        }
+        headers.append("\r\n");
+        if (contentType != null) {
+            headers.append("Content-Type: ").append(contentType).append("\r\n");
+        }
+        headers.append("\r\n");
+        return concat(headers.toString().getBytes(StandardCharsets.UTF_8), content, "\r\n".getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    static byte[] end() {
+        return ("--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Flux qui ne rend jamais plus de chunk octets par lecture, comme une requête lue au fil du réseau
+     */
+    static class ChunkedInputStream extends InputStream {
+
+        private final byte[] data;
+        private final int chunk;
+        private int pos;
+
+        ChunkedInputStream(byte[] data, int chunk) {
+            this.data = data;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return pos < data.length ? data[pos++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (pos >= data.length) {
+                return -1;
+            }
+            int n = Math.min(Math.min(len, chunk), data.length - pos);
+            System.arraycopy(data, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+    }
+}